@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.RemoteException;
+import android.os.UserHandle;
+import android.security.IKeyChainService;
+import android.security.KeyChain;
+import android.util.ArrayMap;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settings.TrustedCredentialsSettings.Tab;
+
+import java.security.cert.X509Certificate;
+import java.util.Map;
+
+/**
+ * Process wide cache of the CA certificates listed by {@link TrustedCredentialsFragment}, so that
+ * reopening the page does not fetch and parse every certificate of every profile again.
+ *
+ * <p>System certificates come from the system image and never change for an alias, so they are
+ * kept until the process dies. User certificates and the enabled state of system certificates are
+ * dropped whenever {@link KeyChain#ACTION_TRUST_STORE_CHANGED} is sent to any profile.
+ */
+class TrustedCertificateCache {
+
+    private static TrustedCertificateCache sInstance;
+
+    /** Certificates by alias, for each profile and tab. */
+    private final Map<Tab, SparseArray<Map<String, X509Certificate>>> mCertificates =
+            new ArrayMap<>();
+    /** Whether each system certificate is disabled, by alias for each profile. */
+    private final SparseArray<Map<String, Boolean>> mDeletedStates = new SparseArray<>();
+
+    private final BroadcastReceiver mTrustStoreReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            onTrustStoreChanged();
+        }
+    };
+
+    /** Returns the cache shared by the whole process. */
+    static synchronized TrustedCertificateCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new TrustedCertificateCache();
+            context.getApplicationContext().registerReceiverAsUser(sInstance.mTrustStoreReceiver,
+                    UserHandle.ALL, new IntentFilter(KeyChain.ACTION_TRUST_STORE_CHANGED),
+                    null /* permission */, null /* scheduler */);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    TrustedCertificateCache() {
+    }
+
+    /** Returns the certificate of the alias, fetching and parsing it if it is not cached. */
+    @WorkerThread
+    X509Certificate getCertificate(IKeyChainService service, int profileId, Tab tab,
+            String alias) throws RemoteException {
+        synchronized (this) {
+            final Map<String, X509Certificate> certificates =
+                    getProfileMap(mCertificates.get(tab), profileId);
+            if (certificates != null && certificates.containsKey(alias)) {
+                return certificates.get(alias);
+            }
+        }
+        final X509Certificate certificate =
+                KeyChain.toCertificate(service.getEncodedCaCertificate(alias, true));
+        synchronized (this) {
+            SparseArray<Map<String, X509Certificate>> certificatesByProfile =
+                    mCertificates.get(tab);
+            if (certificatesByProfile == null) {
+                certificatesByProfile = new SparseArray<>();
+                mCertificates.put(tab, certificatesByProfile);
+            }
+            getOrCreateProfileMap(certificatesByProfile, profileId).put(alias, certificate);
+        }
+        return certificate;
+    }
+
+    /** Returns whether the certificate of the alias is disabled, querying it if not cached. */
+    @WorkerThread
+    boolean isDeleted(IKeyChainService service, int profileId, Tab tab, String alias)
+            throws RemoteException {
+        if (tab != Tab.SYSTEM) {
+            return tab.deleted(service, alias);
+        }
+        synchronized (this) {
+            final Map<String, Boolean> states = getProfileMap(mDeletedStates, profileId);
+            if (states != null && states.containsKey(alias)) {
+                return states.get(alias);
+            }
+        }
+        final boolean deleted = tab.deleted(service, alias);
+        synchronized (this) {
+            getOrCreateProfileMap(mDeletedStates, profileId).put(alias, deleted);
+        }
+        return deleted;
+    }
+
+    @VisibleForTesting
+    synchronized void onTrustStoreChanged() {
+        mDeletedStates.clear();
+        mCertificates.keySet().removeIf(tab -> tab != Tab.SYSTEM);
+    }
+
+    private static <T> Map<String, T> getProfileMap(SparseArray<Map<String, T>> mapsByProfile,
+            int profileId) {
+        return mapsByProfile != null ? mapsByProfile.get(profileId) : null;
+    }
+
+    private static <T> Map<String, T> getOrCreateProfileMap(
+            SparseArray<Map<String, T>> mapsByProfile, int profileId) {
+        Map<String, T> map = mapsByProfile.get(profileId);
+        if (map == null) {
+            map = new ArrayMap<>();
+            mapsByProfile.put(profileId, map);
+        }
+        return map;
+    }
+}
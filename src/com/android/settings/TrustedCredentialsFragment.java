@@ -697,8 +697,11 @@ public class TrustedCredentialsFragment extends ObservableFragment
             private View mContentView;
             private Context mContext;
 
+            private final TrustedCertificateCache mCertificateCache;
+
             AliasLoader() {
                 mContext = getActivity();
+                mCertificateCache = TrustedCertificateCache.getInstance(mContext);
                 mAliasLoaders.add(this);
                 List<UserHandle> profiles = mUserManager.getUserProfiles();
                 for (UserHandle profile : profiles) {
@@ -766,15 +769,17 @@ public class TrustedCredentialsFragment extends ObservableFragment
                             IKeyChainService service = keyChainConnection.getService();
                             List<CertHolder> certHolders = new ArrayList<>(max);
                             for (String alias : aliases) {
-                                byte[] encodedCertificate = service.getEncodedCaCertificate(alias,
-                                        true);
-                                X509Certificate cert = KeyChain.toCertificate(encodedCertificate);
-                                certHolders.add(new CertHolder(service, mAdapter,
-                                        mTab, alias, cert, profileId));
+                                X509Certificate cert = mCertificateCache.getCertificate(service,
+                                        profileId, mTab, alias);
+                                certHolders.add(new CertHolder(service, mCertificateCache,
+                                        mAdapter, mTab, alias, cert, profileId));
                                 publishProgress(++progress, max);
                             }
                             Collections.sort(certHolders);
                             certHoldersByProfile.put(profileId, certHolders);
+                            // Show each profile as soon as it is loaded, the next ones may take
+                            // longer if their certificates are not cached yet.
+                            mFragmentView.post(() -> onProfileLoaded(profileId, certHolders));
                         }
                         return certHoldersByProfile;
                     }
@@ -797,6 +802,17 @@ public class TrustedCredentialsFragment extends ObservableFragment
                 mProgressBar.setProgress(progress);
             }
 
+            @UiThread
+            private void onProfileLoaded(int profileId, List<CertHolder> certHolders) {
+                if (isCancelled() || getStatus() == Status.FINISHED) {
+                    return;
+                }
+                mCertHoldersByUserId.put(profileId, new ArrayList<>(certHolders));
+                mAdapter.notifyDataSetChanged();
+                mProgressBar.setVisibility(View.GONE);
+                mContentView.setVisibility(View.VISIBLE);
+            }
+
             @Override
             protected void onPostExecute(SparseArray<List<CertHolder>> certHolders) {
                 mCertHoldersByUserId.clear();
@@ -866,6 +882,7 @@ public class TrustedCredentialsFragment extends ObservableFragment
         private boolean mDeleted;
 
         private CertHolder(IKeyChainService service,
+                TrustedCertificateCache certificateCache,
                 GroupAdapter adapter,
                 Tab tab,
                 String alias,
@@ -904,7 +921,7 @@ public class TrustedCredentialsFragment extends ObservableFragment
                 }
             }
             try {
-                mDeleted = mTab.deleted(mService, mAlias);
+                mDeleted = certificateCache.isDeleted(mService, mProfileId, mTab, mAlias);
             } catch (RemoteException e) {
                 Log.e(TAG, "Remote exception while checking if alias " + mAlias + " is deleted.",
                         e);
@@ -54,6 +54,7 @@ import com.android.settings.wifi.helper.SavedWifiHelper;
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.RestrictedLockUtils.EnforcedAdmin;
 import com.android.settingslib.RestrictedLockUtilsInternal;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.security.Key;
 import java.security.KeyStore;
@@ -79,6 +80,15 @@ public class UserCredentialsSettings extends SettingsPreferenceFragment
     @VisibleForTesting
     protected SavedWifiHelper mSavedWifiHelper;
 
+    /** Incremented for each load of the credentials, to drop the results of older loads. */
+    private int mLoadGeneration;
+    /** Number of keystore namespaces of the current load still being listed. */
+    private int mPendingLoads;
+    private List<Credential> mSystemCredentials = new ArrayList<>();
+    private List<Credential> mWifiCredentials = new ArrayList<>();
+    /** Whether the certificate chain of a tapped credential is being fetched. */
+    private boolean mLoadingCertificateChain;
+
     @Override
     public int getMetricsCategory() {
         return SettingsEnums.USER_CREDENTIALS;
@@ -97,6 +107,10 @@ public class UserCredentialsSettings extends SettingsPreferenceFragment
         if (item.isInUse()) {
             item.setUsedByNames(mSavedWifiHelper.getCertificateNetworkNames(item.alias));
         }
+        if (item.isCertificateChainPending()) {
+            loadCertificateChainAndShow(item);
+            return;
+        }
         showCredentialDialogFragment(item);
     }
 
@@ -120,8 +134,24 @@ public class UserCredentialsSettings extends SettingsPreferenceFragment
     }
 
     protected void refreshItems() {
-        if (isAdded()) {
-            new AliasLoader().execute();
+        if (!isAdded()) {
+            return;
+        }
+        // Certificates can be installed into SYSTEM_UID or WIFI_UID through CertInstaller. Both
+        // namespaces are listed at the same time.
+        final int generation = ++mLoadGeneration;
+        // Forget the lists of the previous load, so a namespace listed first is not shown with
+        // the stale credentials of the other one.
+        mSystemCredentials = new ArrayList<>();
+        mWifiCredentials = new ArrayList<>();
+        final int myUserId = UserHandle.myUserId();
+        final boolean hasWifiKeystore = myUserId == 0;
+        mPendingLoads = hasWifiKeystore ? 2 : 1;
+        loadCredentials(generation, UserHandle.getUid(myUserId, Process.SYSTEM_UID),
+                null /* loadParameter */);
+        if (hasWifiKeystore) {
+            loadCredentials(generation, UserHandle.getUid(myUserId, Process.WIFI_UID),
+                    new AndroidKeyStoreLoadStoreParameter(KeyProperties.NAMESPACE_WIFI));
         }
     }
 
@@ -274,121 +304,155 @@ public class UserCredentialsSettings extends SettingsPreferenceFragment
     }
 
     /**
-     * Opens a background connection to KeyStore to list user credentials.
-     * The credentials are stored in a {@link CredentialAdapter} attached to the main
-     * {@link ListView} in the fragment.
+     * Lists the credentials of a keystore namespace in the background and shows them once both
+     * namespaces of this load are listed or as soon as one of them has credentials.
+     *
+     * <p>The certificate chain of key entries is not fetched here, see
+     * {@link Credential#isCertificateChainPending()}.
      */
-    private class AliasLoader extends AsyncTask<Void, Void, List<Credential>> {
-        /**
-         * @return a list of credentials ordered:
-         * <ol>
-         *   <li>first by purpose;</li>
-         *   <li>then by alias.</li>
-         * </ol>
-         */
-        @Override
-        protected List<Credential> doInBackground(Void... params) {
-            // Certificates can be installed into SYSTEM_UID or WIFI_UID through CertInstaller.
-            final int myUserId = UserHandle.myUserId();
-            final int systemUid = UserHandle.getUid(myUserId, Process.SYSTEM_UID);
-            final int wifiUid = UserHandle.getUid(myUserId, Process.WIFI_UID);
-
-            try {
-                KeyStore processKeystore = KeyStore.getInstance(KEYSTORE_PROVIDER);
-                processKeystore.load(null);
-                KeyStore wifiKeystore = null;
-                if (myUserId == 0) {
-                    wifiKeystore = KeyStore.getInstance(KEYSTORE_PROVIDER);
-                    wifiKeystore.load(new AndroidKeyStoreLoadStoreParameter(
-                            KeyProperties.NAMESPACE_WIFI));
-                }
+    private void loadCredentials(int generation, int uid,
+            @Nullable KeyStore.LoadStoreParameter loadParameter) {
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<Credential> credentials = listCredentials(uid, loadParameter);
+            ThreadUtils.postOnMainThread(() -> onCredentialsLoaded(generation, uid, credentials));
+        });
+    }
 
-                List<Credential> credentials = new ArrayList<>();
-                credentials.addAll(getCredentialsForUid(processKeystore, systemUid).values());
-                if (wifiKeystore != null) {
-                    credentials.addAll(getCredentialsForUid(wifiKeystore, wifiUid).values());
-                }
-                return credentials;
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to load credentials from Keystore.", e);
-            }
+    @VisibleForTesting
+    List<Credential> listCredentials(int uid, @Nullable KeyStore.LoadStoreParameter loadParameter) {
+        try {
+            final KeyStore keyStore = KeyStore.getInstance(KEYSTORE_PROVIDER);
+            keyStore.load(loadParameter);
+            return new ArrayList<>(getCredentialsForUid(keyStore, uid).values());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load credentials from Keystore.", e);
         }
+    }
 
-        private SortedMap<String, Credential> getCredentialsForUid(KeyStore keyStore, int uid) {
-            try {
-                final SortedMap<String, Credential> aliasMap = new TreeMap<>();
-                Enumeration<String> aliases = keyStore.aliases();
-                while (aliases.hasMoreElements()) {
-                    String alias = aliases.nextElement();
-                    Credential c = new Credential(alias, uid);
-                    if (!c.isSystem()) {
-                        c.setInUse(mSavedWifiHelper.isCertificateInUse(alias));
-                    }
-                    Key key = null;
-                    try {
-                        key = keyStore.getKey(alias, null);
-                    } catch (NoSuchAlgorithmException | UnrecoverableKeyException e) {
-                        Log.e(TAG, "Error tying to retrieve key: " + alias, e);
+    private SortedMap<String, Credential> getCredentialsForUid(KeyStore keyStore, int uid) {
+        try {
+            final SortedMap<String, Credential> aliasMap = new TreeMap<>();
+            Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                String alias = aliases.nextElement();
+                Credential c = new Credential(alias, uid);
+                if (!c.isSystem()) {
+                    c.setInUse(mSavedWifiHelper.isCertificateInUse(alias));
+                }
+                Key key = null;
+                try {
+                    key = keyStore.getKey(alias, null);
+                } catch (NoSuchAlgorithmException | UnrecoverableKeyException e) {
+                    Log.e(TAG, "Error tying to retrieve key: " + alias, e);
+                    continue;
+                }
+                if (key != null) {
+                    // So we have a key
+                    if (key instanceof SecretKey) {
+                        // We don't display any symmetric key entries.
                         continue;
                     }
-                    if (key != null) {
-                        // So we have a key
-                        if (key instanceof SecretKey) {
-                            // We don't display any symmetric key entries.
-                            continue;
-                        }
-                        // At this point we have determined that we have an asymmetric key.
-                        // so we have at least a USER_KEY and USER_CERTIFICATE.
-                        c.storedTypes.add(Credential.Type.USER_KEY);
-
-                        Certificate[] certs =  keyStore.getCertificateChain(alias);
-                        if (certs != null) {
-                            c.storedTypes.add(Credential.Type.USER_CERTIFICATE);
-                            if (certs.length > 1) {
-                                c.storedTypes.add(Credential.Type.CA_CERTIFICATE);
-                            }
-                        }
+                    // At this point we have determined that we have an asymmetric key.
+                    // The certificates stored with it are only shown by the credential dialog,
+                    // so its chain is fetched when the dialog is opened.
+                    c.storedTypes.add(Credential.Type.USER_KEY);
+                    c.mCertificateChainPending = true;
+                } else {
+                    // So there is no key but we have an alias. This must mean that we have
+                    // some certificate.
+                    if (keyStore.isCertificateEntry(alias)) {
+                        c.storedTypes.add(Credential.Type.CA_CERTIFICATE);
                     } else {
-                        // So there is no key but we have an alias. This must mean that we have
-                        // some certificate.
-                        if (keyStore.isCertificateEntry(alias)) {
-                            c.storedTypes.add(Credential.Type.CA_CERTIFICATE);
-                        } else {
-                            // This is a weired inconsistent case that should not exist.
-                            // Pure trusted certificate entries should be stored in CA_CERTIFICATE,
-                            // but if isCErtificateEntry returns null this means that only the
-                            // USER_CERTIFICATE is populated which should never be the case without
-                            // a private key. It can still be retrieved with
-                            // keystore.getCertificate().
-                            c.storedTypes.add(Credential.Type.USER_CERTIFICATE);
-                        }
+                        // This is a weired inconsistent case that should not exist.
+                        // Pure trusted certificate entries should be stored in CA_CERTIFICATE,
+                        // but if isCErtificateEntry returns null this means that only the
+                        // USER_CERTIFICATE is populated which should never be the case without
+                        // a private key. It can still be retrieved with
+                        // keystore.getCertificate().
+                        c.storedTypes.add(Credential.Type.USER_CERTIFICATE);
                     }
-                    aliasMap.put(alias, c);
                 }
-                return aliasMap;
-            } catch (KeyStoreException e) {
-                throw new RuntimeException("Failed to load credential from Android Keystore.", e);
+                aliasMap.put(alias, c);
             }
+            return aliasMap;
+        } catch (KeyStoreException e) {
+            throw new RuntimeException("Failed to load credential from Android Keystore.", e);
         }
+    }
 
-        @Override
-        protected void onPostExecute(List<Credential> credentials) {
-            if (!isAdded()) {
-                return;
-            }
+    /**
+     * Shows the credentials listed for a namespace, ordered:
+     * <ol>
+     *   <li>first by purpose;</li>
+     *   <li>then by alias.</li>
+     * </ol>
+     */
+    private void onCredentialsLoaded(int generation, int uid, List<Credential> credentials) {
+        if (!isAdded() || generation != mLoadGeneration) {
+            return;
+        }
+        mPendingLoads--;
+        if (UserHandle.getAppId(uid) == Process.SYSTEM_UID) {
+            mSystemCredentials = credentials;
+        } else {
+            mWifiCredentials = credentials;
+        }
+        final List<Credential> allCredentials = new ArrayList<>(mSystemCredentials);
+        allCredentials.addAll(mWifiCredentials);
+        if (allCredentials.isEmpty() && mPendingLoads > 0) {
+            // Wait for the other namespace before telling that nothing is installed.
+            return;
+        }
+        showCredentials(allCredentials);
+    }
 
-            if (credentials == null || credentials.size() == 0) {
-                // Create a "no credentials installed" message for the empty case.
-                TextView emptyTextView = (TextView) getActivity().findViewById(android.R.id.empty);
-                emptyTextView.setText(R.string.user_credential_none_installed);
-                setEmptyView(emptyTextView);
-            } else {
-                setEmptyView(null);
-            }
+    @VisibleForTesting
+    void showCredentials(List<Credential> allCredentials) {
+        if (allCredentials.isEmpty()) {
+            // Create a "no credentials installed" message for the empty case.
+            TextView emptyTextView = (TextView) getActivity().findViewById(android.R.id.empty);
+            emptyTextView.setText(R.string.user_credential_none_installed);
+            setEmptyView(emptyTextView);
+        } else {
+            setEmptyView(null);
+        }
 
-            getListView().setAdapter(
-                    new CredentialAdapter(credentials, UserCredentialsSettings.this));
+        getListView().setAdapter(
+                new CredentialAdapter(allCredentials, UserCredentialsSettings.this));
+    }
+
+    /** Fetches the certificate chain of the key entry, then opens its credential dialog. */
+    private void loadCertificateChainAndShow(Credential item) {
+        // A second tap while the chain is loading would open the dialog twice.
+        if (mLoadingCertificateChain) {
+            return;
         }
+        mLoadingCertificateChain = true;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final EnumSet<Credential.Type> chainTypes = EnumSet.noneOf(Credential.Type.class);
+            try {
+                final KeyStore keyStore = KeyStore.getInstance(KEYSTORE_PROVIDER);
+                keyStore.load(item.isSystem() ? null
+                        : new AndroidKeyStoreLoadStoreParameter(KeyProperties.NAMESPACE_WIFI));
+                final Certificate[] certs = keyStore.getCertificateChain(item.alias);
+                if (certs != null) {
+                    chainTypes.add(Credential.Type.USER_CERTIFICATE);
+                    if (certs.length > 1) {
+                        chainTypes.add(Credential.Type.CA_CERTIFICATE);
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to load certificate chain: " + item.alias, e);
+            }
+            ThreadUtils.postOnMainThread(() -> {
+                item.storedTypes.addAll(chainTypes);
+                item.mCertificateChainPending = false;
+                mLoadingCertificateChain = false;
+                if (isAdded()) {
+                    showCredentialDialogFragment(item);
+                }
+            });
+        });
     }
 
     /**
@@ -537,6 +601,12 @@ public class UserCredentialsSettings extends SettingsPreferenceFragment
          */
         final EnumSet<Type> storedTypes = EnumSet.noneOf(Type.class);
 
+        /**
+         * Whether the certificates stored with the key of this credential are not known yet and
+         * missing from {@link #storedTypes}.
+         */
+        boolean mCertificateChainPending;
+
         Credential(final String alias, final int uid) {
             this.alias = alias;
             this.uid = uid;
@@ -551,6 +621,7 @@ public class UserCredentialsSettings extends SettingsPreferenceFragment
                     storedTypes.add(i);
                 }
             }
+            mCertificateChainPending = in.readBoolean();
         }
 
         public void writeToParcel(Parcel out, int flags) {
@@ -562,6 +633,7 @@ public class UserCredentialsSettings extends SettingsPreferenceFragment
                 typeBits |= 1L << i.ordinal();
             }
             out.writeLong(typeBits);
+            out.writeBoolean(mCertificateChainPending);
         }
 
         public int describeContents() {
@@ -591,6 +663,10 @@ public class UserCredentialsSettings extends SettingsPreferenceFragment
             return storedTypes;
         }
 
+        public boolean isCertificateChainPending() {
+            return mCertificateChainPending;
+        }
+
         public void setInUse(boolean inUse) {
             mIsInUse = inUse;
         }
@@ -21,6 +21,7 @@ import android.accessibilityservice.AccessibilityShortcutInfo;
 import android.app.settings.SettingsEnums;
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.hardware.input.InputManager;
 import android.os.Bundle;
 import android.os.Handler;
@@ -50,6 +51,7 @@ import com.android.settingslib.RestrictedPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.search.SearchIndexable;
 import com.android.settingslib.search.SearchIndexableRaw;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -143,6 +145,8 @@ public class AccessibilitySettings extends DashboardFragment implements
         }
 
         private void sendUpdate() {
+            // Package updates can change anything about a service, rebuild all of them.
+            mForceServiceRebuild = true;
             mHandler.postDelayed(mUpdateRunnable, DELAY_UPDATE_SERVICES_MILLIS);
         }
     };
@@ -157,6 +161,14 @@ public class AccessibilitySettings extends DashboardFragment implements
             new ArrayMap<>();
     private final Map<ComponentName, PreferenceCategory> mPreBundledServiceComponentToCategoryMap =
             new ArrayMap<>();
+    private final Map<String, String[]> mCategoryToServiceOrderMap = new ArrayMap<>();
+    private final Map<String, ServicePreferenceSnapshot.Entry> mAppliedServiceEntries =
+            new ArrayMap<>();
+    private Configuration mPreBundledServicesConfiguration;
+    private boolean mServicePreferencesShown;
+    private boolean mServiceUpdateInFlight;
+    private boolean mServiceUpdatePending;
+    private boolean mForceServiceRebuild;
 
     private boolean mNeedPreferencesUpdate = false;
     private boolean mIsForeground = true;
@@ -372,67 +384,109 @@ public class AccessibilitySettings extends DashboardFragment implements
         // Since services category is auto generated we have to do a pass
         // to generate it since services can come and go and then based on
         // the global accessibility state to decided whether it is enabled.
-        final ArrayList<Preference> servicePreferences =
-                new ArrayList<>(mServicePreferenceToPreferenceCategoryMap.keySet());
-        for (int i = 0; i < servicePreferences.size(); i++) {
-            Preference service = servicePreferences.get(i);
-            PreferenceCategory category = mServicePreferenceToPreferenceCategoryMap.get(service);
-            category.removePreference(service);
+        if (mServiceUpdateInFlight) {
+            // Coalesce the updates requested while the installed services are being read.
+            mServiceUpdatePending = true;
+            return;
         }
+        initializePreBundledServicesIfNeeded();
+
+        final Context prefContext = getPrefContext();
+        final Map<ComponentName, PreferenceCategory> preBundledServices =
+                new ArrayMap<>(mPreBundledServiceComponentToCategoryMap);
+        if (!mServicePreferencesShown) {
+            // Build the first list right away, so the screen does not show up without its
+            // services and a search highlight can find its target preference.
+            mServicePreferencesShown = true;
+            applyServicePreferenceSnapshot(
+                    loadServicePreferenceSnapshot(prefContext, preBundledServices));
+            return;
+        }
+        mServiceUpdateInFlight = true;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final ServicePreferenceSnapshot snapshot =
+                    loadServicePreferenceSnapshot(prefContext, preBundledServices);
+            ThreadUtils.postOnMainThread(() -> onServicePreferenceSnapshotLoaded(snapshot));
+        });
+    }
 
-        initializePreBundledServicesMapFromArray(CATEGORY_SCREEN_READER,
-                R.array.config_preinstalled_screen_reader_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_CAPTIONS,
-                R.array.config_preinstalled_captions_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_AUDIO,
-                R.array.config_preinstalled_audio_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_DISPLAY,
-                R.array.config_preinstalled_display_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_SPEECH,
-                R.array.config_preinstalled_speech_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_INTERACTION_CONTROL,
-                R.array.config_preinstalled_interaction_control_services);
-
-        // ACCESSIBILITY_MENU_IN_SYSTEM is a default pre-bundled interaction control service.
-        // If the device opts out of including this service then this is a no-op.
-        mPreBundledServiceComponentToCategoryMap.put(
-                AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM,
-                mCategoryToPrefCategoryMap.get(CATEGORY_INTERACTION_CONTROL));
-
-        final List<RestrictedPreference> preferenceList = getInstalledAccessibilityList(
-                getPrefContext());
-
-        final PreferenceCategory downloadedServicesCategory =
-                mCategoryToPrefCategoryMap.get(CATEGORY_DOWNLOADED_SERVICES);
+    private void onServicePreferenceSnapshotLoaded(ServicePreferenceSnapshot snapshot) {
+        mServiceUpdateInFlight = false;
+        if (getActivity() == null || getPreferenceScreen() == null) {
+            return;
+        }
+        applyServicePreferenceSnapshot(snapshot);
+        if (mServiceUpdatePending) {
+            mServiceUpdatePending = false;
+            updateServicePreferences();
+        }
+    }
 
+    private ServicePreferenceSnapshot loadServicePreferenceSnapshot(Context context,
+            Map<ComponentName, PreferenceCategory> preBundledServices) {
+        final List<RestrictedPreference> preferenceList = getInstalledAccessibilityList(context);
+        final List<ServicePreferenceSnapshot.Entry> entries =
+                new ArrayList<>(preferenceList.size());
         for (int i = 0, count = preferenceList.size(); i < count; ++i) {
             final RestrictedPreference preference = preferenceList.get(i);
             final ComponentName componentName = preference.getExtras().getParcelable(
                     EXTRA_COMPONENT_NAME);
-            PreferenceCategory prefCategory = downloadedServicesCategory;
             // Set the appropriate category if the service comes pre-installed.
-            if (mPreBundledServiceComponentToCategoryMap.containsKey(componentName)) {
-                prefCategory = mPreBundledServiceComponentToCategoryMap.get(componentName);
+            final PreferenceCategory prefCategory = preBundledServices.get(componentName);
+            entries.add(new ServicePreferenceSnapshot.Entry(
+                    prefCategory != null ? prefCategory.getKey() : CATEGORY_DOWNLOADED_SERVICES,
+                    preference));
+        }
+        return new ServicePreferenceSnapshot(entries);
+    }
+
+    /**
+     * Applies the snapshot to the screen, only touching the preferences that were added, removed
+     * or changed since the previous one.
+     */
+    private void applyServicePreferenceSnapshot(ServicePreferenceSnapshot snapshot) {
+        final boolean forceRebuild = mForceServiceRebuild;
+        mForceServiceRebuild = false;
+
+        final Map<String, ServicePreferenceSnapshot.Entry> staleEntries =
+                new ArrayMap<>(mAppliedServiceEntries);
+        mAppliedServiceEntries.clear();
+        int changedCount = 0;
+        for (ServicePreferenceSnapshot.Entry entry : snapshot.getEntries()) {
+            final ServicePreferenceSnapshot.Entry appliedEntry =
+                    staleEntries.remove(entry.getKey());
+            if (!forceRebuild && entry.isSameAs(appliedEntry)) {
+                mAppliedServiceEntries.put(entry.getKey(), appliedEntry);
+                continue;
             }
-            prefCategory.addPreference(preference);
-            mServicePreferenceToPreferenceCategoryMap.put(preference, prefCategory);
-        }
-
-        // Update the order of all the category according to the order defined in xml file.
-        updateCategoryOrderFromArray(CATEGORY_SCREEN_READER,
-                R.array.config_order_screen_reader_services);
-        updateCategoryOrderFromArray(CATEGORY_CAPTIONS,
-                R.array.config_order_captions_services);
-        updateCategoryOrderFromArray(CATEGORY_AUDIO,
-                R.array.config_order_audio_services);
-        updateCategoryOrderFromArray(CATEGORY_INTERACTION_CONTROL,
-                R.array.config_order_interaction_control_services);
-        updateCategoryOrderFromArray(CATEGORY_DISPLAY,
-                R.array.config_order_display_services);
-        updateCategoryOrderFromArray(CATEGORY_SPEECH,
-                R.array.config_order_speech_services);
+            if (appliedEntry != null) {
+                removeServicePreference(appliedEntry.mPreference);
+            }
+            final PreferenceCategory prefCategory =
+                    mCategoryToPrefCategoryMap.get(entry.mCategoryKey);
+            prefCategory.addPreference(entry.mPreference);
+            mServicePreferenceToPreferenceCategoryMap.put(entry.mPreference, prefCategory);
+            mAppliedServiceEntries.put(entry.getKey(), entry);
+            changedCount++;
+        }
+        for (ServicePreferenceSnapshot.Entry staleEntry : staleEntries.values()) {
+            removeServicePreference(staleEntry.mPreference);
+            changedCount++;
+        }
+
+        if (changedCount > 0) {
+            // Update the order of all the category according to the order defined in xml file.
+            updateCategoryOrder(CATEGORY_SCREEN_READER);
+            updateCategoryOrder(CATEGORY_CAPTIONS);
+            updateCategoryOrder(CATEGORY_AUDIO);
+            updateCategoryOrder(CATEGORY_INTERACTION_CONTROL);
+            updateCategoryOrder(CATEGORY_DISPLAY);
+            updateCategoryOrder(CATEGORY_SPEECH);
+        }
 
         // Need to check each time when updateServicePreferences() called.
+        final PreferenceCategory downloadedServicesCategory =
+                mCategoryToPrefCategoryMap.get(CATEGORY_DOWNLOADED_SERVICES);
         if (downloadedServicesCategory.getPreferenceCount() == 0) {
             getPreferenceScreen().removePreference(downloadedServicesCategory);
         } else {
@@ -445,6 +499,63 @@ public class AccessibilitySettings extends DashboardFragment implements
         updatePreferenceCategoryVisibility(CATEGORY_KEYBOARD_OPTIONS);
     }
 
+    private void removeServicePreference(Preference preference) {
+        final PreferenceCategory category =
+                mServicePreferenceToPreferenceCategoryMap.remove(preference);
+        if (category != null) {
+            category.removePreference(preference);
+        }
+    }
+
+    /**
+     * Reads the pre-bundled services and the service order of each category, once per
+     * configuration.
+     */
+    private void initializePreBundledServicesIfNeeded() {
+        final Configuration configuration = getResources().getConfiguration();
+        if (configuration.equals(mPreBundledServicesConfiguration)) {
+            return;
+        }
+        mPreBundledServicesConfiguration = new Configuration(configuration);
+        // Labels and summaries depend on the configuration too.
+        mForceServiceRebuild = true;
+
+        mPreBundledServiceComponentToCategoryMap.clear();
+        initializePreBundledServicesMapFromArray(CATEGORY_SCREEN_READER,
+                R.array.config_preinstalled_screen_reader_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_CAPTIONS,
+                R.array.config_preinstalled_captions_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_AUDIO,
+                R.array.config_preinstalled_audio_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_DISPLAY,
+                R.array.config_preinstalled_display_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_SPEECH,
+                R.array.config_preinstalled_speech_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_INTERACTION_CONTROL,
+                R.array.config_preinstalled_interaction_control_services);
+
+        // ACCESSIBILITY_MENU_IN_SYSTEM is a default pre-bundled interaction control service.
+        // If the device opts out of including this service then this is a no-op.
+        mPreBundledServiceComponentToCategoryMap.put(
+                AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM,
+                mCategoryToPrefCategoryMap.get(CATEGORY_INTERACTION_CONTROL));
+
+        mCategoryToServiceOrderMap.clear();
+        mCategoryToServiceOrderMap.put(CATEGORY_SCREEN_READER,
+                getResources().getStringArray(R.array.config_order_screen_reader_services));
+        mCategoryToServiceOrderMap.put(CATEGORY_CAPTIONS,
+                getResources().getStringArray(R.array.config_order_captions_services));
+        mCategoryToServiceOrderMap.put(CATEGORY_AUDIO,
+                getResources().getStringArray(R.array.config_order_audio_services));
+        mCategoryToServiceOrderMap.put(CATEGORY_INTERACTION_CONTROL,
+                getResources().getStringArray(
+                        R.array.config_order_interaction_control_services));
+        mCategoryToServiceOrderMap.put(CATEGORY_DISPLAY,
+                getResources().getStringArray(R.array.config_order_display_services));
+        mCategoryToServiceOrderMap.put(CATEGORY_SPEECH,
+                getResources().getStringArray(R.array.config_order_speech_services));
+    }
+
     private List<RestrictedPreference> getInstalledAccessibilityList(Context context) {
         final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
         final RestrictedPreferenceHelper preferenceHelper = new RestrictedPreferenceHelper(context);
@@ -486,10 +597,9 @@ public class AccessibilitySettings extends DashboardFragment implements
      * key with the string array of preference order which is defined in the xml.
      *
      * @param categoryKey The key of the category need to update the order
-     * @param key         The key of the string array which defines the order of category
      */
-    private void updateCategoryOrderFromArray(String categoryKey, int key) {
-        String[] services = getResources().getStringArray(key);
+    private void updateCategoryOrder(String categoryKey) {
+        String[] services = mCategoryToServiceOrderMap.get(categoryKey);
         PreferenceCategory category = mCategoryToPrefCategoryMap.get(categoryKey);
         int preferenceCount = category.getPreferenceCount();
         int serviceLength = services.length;
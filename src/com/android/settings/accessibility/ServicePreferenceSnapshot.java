@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import android.os.Bundle;
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+
+import com.android.settingslib.RestrictedPreference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of one scan of the installed accessibility services and shortcuts: the
+ * preference built for each of them, and the key of the category it belongs to.
+ */
+final class ServicePreferenceSnapshot {
+
+    private final List<Entry> mEntries;
+
+    ServicePreferenceSnapshot(List<Entry> entries) {
+        mEntries = Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    List<Entry> getEntries() {
+        return mEntries;
+    }
+
+    /** One service or shortcut preference of the snapshot. */
+    static final class Entry {
+        final String mCategoryKey;
+        final RestrictedPreference mPreference;
+        private final String mFingerprint;
+
+        Entry(String categoryKey, RestrictedPreference preference) {
+            mCategoryKey = categoryKey;
+            mPreference = preference;
+            mFingerprint = fingerprint(categoryKey, preference);
+        }
+
+        String getKey() {
+            return mPreference.getKey();
+        }
+
+        /** Whether the preference of {@code other} shows the same thing as this one. */
+        boolean isSameAs(@Nullable Entry other) {
+            return other != null && TextUtils.equals(mFingerprint, other.mFingerprint);
+        }
+
+        private static String fingerprint(String categoryKey, RestrictedPreference preference) {
+            final Bundle extras = preference.getExtras();
+            return String.join("|", categoryKey, preference.getKey(),
+                    String.valueOf(preference.getTitle()),
+                    String.valueOf(preference.getSummary()),
+                    String.valueOf(preference.getFragment()),
+                    String.valueOf(preference.isEnabled()),
+                    String.valueOf(preference.isDisabledByAdmin()),
+                    String.valueOf(extras.getBoolean(AccessibilitySettings.EXTRA_CHECKED)),
+                    String.valueOf(extras.getCharSequence(AccessibilitySettings.EXTRA_SUMMARY)),
+                    String.valueOf(extras.getString(
+                            AccessibilitySettings.EXTRA_SETTINGS_COMPONENT_NAME)),
+                    String.valueOf(extras.getString(
+                            AccessibilitySettings.EXTRA_TILE_SERVICE_COMPONENT_NAME)));
+        }
+    }
+}
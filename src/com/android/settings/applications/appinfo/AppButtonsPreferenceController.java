@@ -350,6 +350,12 @@ public class AppButtonsPreferenceController extends BasePreferenceController imp
     void retrieveAppEntry() {
         mAppEntry = mState.getEntry(mPackageName, mUserId);
         if (mAppEntry != null) {
+            final PackageInfo sharedPackageInfo = getSharedPackageInfo();
+            if (sharedPackageInfo != null) {
+                mPackageInfo = sharedPackageInfo;
+                mPackageName = mAppEntry.info.packageName;
+                return;
+            }
             try {
                 mPackageInfo = mPm.getPackageInfo(mAppEntry.info.packageName,
                         PackageManager.MATCH_DISABLED_COMPONENTS |
@@ -367,6 +373,19 @@ public class AppButtonsPreferenceController extends BasePreferenceController imp
         }
     }
 
+    /**
+     * Returns the package info already loaded by the hosting app info page, or {@code null} if
+     * this controller has to load it itself.
+     */
+    private PackageInfo getSharedPackageInfo() {
+        if (!(mFragment instanceof AppInfoDashboardFragment)) {
+            return null;
+        }
+        final AppInfoSnapshot snapshot = ((AppInfoDashboardFragment) mFragment).getAppSnapshot();
+        return snapshot != null && snapshot.isValidFor(mAppEntry.info.packageName, mUserId)
+                ? snapshot.getPackageInfo() : null;
+    }
+
     @VisibleForTesting
     void updateOpenButton() {
         mAppLaunchIntent = mPm.getLaunchIntentForPackage(mPackageName);
@@ -67,6 +67,7 @@ import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.lifecycle.Lifecycle;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -119,6 +120,8 @@ public class AppInfoDashboardFragment extends DashboardFragment
     private ApplicationsState.Session mSession;
     private ApplicationsState.AppEntry mAppEntry;
     private PackageInfo mPackageInfo;
+    private AppInfoSnapshot mAppSnapshot;
+    private int mAppSnapshotGeneration;
     private int mUserId;
     private String mPackageName;
     private int mUid;
@@ -130,7 +133,7 @@ public class AppInfoDashboardFragment extends DashboardFragment
     @VisibleForTesting
     boolean mFinishing;
     private boolean mListeningToPackageRemove;
-
+    private boolean mListeningToPackageChange;
 
     private boolean mInitialized;
     private boolean mShowUninstalled;
@@ -247,6 +250,7 @@ public class AppInfoDashboardFragment extends DashboardFragment
             return;
         }
         startListeningToPackageRemove();
+        startListeningToPackageChange();
 
         setHasOptionsMenu(true);
         replaceEnterpriseStringTitle("interact_across_profiles",
@@ -264,6 +268,7 @@ public class AppInfoDashboardFragment extends DashboardFragment
     @Override
     public void onDestroy() {
         stopListeningToPackageRemove();
+        stopListeningToPackageChange();
         super.onDestroy();
     }
 
@@ -355,6 +360,11 @@ public class AppInfoDashboardFragment extends DashboardFragment
         return mPackageInfo;
     }
 
+    /** Returns the package snapshot shared by the controllers of this page. */
+    AppInfoSnapshot getAppSnapshot() {
+        return mAppSnapshot;
+    }
+
     @Override
     public void onPackageSizeChanged(String packageName) {
         if (!TextUtils.equals(packageName, mPackageName)) {
@@ -612,7 +622,8 @@ public class AppInfoDashboardFragment extends DashboardFragment
             mShowUninstalled = (mAppEntry.info.flags & ApplicationInfo.FLAG_INSTALLED) == 0;
         } else {
             // All other times: if the app no longer exists then we want
-            // to go away.
+            // to go away. The snapshot is only reloaded by a package broadcast, so check
+            // the package manager directly in case that broadcast was missed.
             try {
                 final ApplicationInfo ainfo = getActivity().getPackageManager().getApplicationInfo(
                         mAppEntry.info.packageName,
@@ -750,19 +761,14 @@ public class AppInfoDashboardFragment extends DashboardFragment
         mUserId = UserHandle.myUserId();
         mAppEntry = mState.getEntry(getPackageName(), UserHandle.myUserId());
         if (mAppEntry != null) {
-            // Get application info again to refresh changed properties of application
-            try {
-                mPackageInfo = activity.getPackageManager().getPackageInfo(
-                        mAppEntry.info.packageName,
-                        PackageManager.PackageInfoFlags.of(
-                                PackageManager.MATCH_DISABLED_COMPONENTS
-                                        | PackageManager.MATCH_ANY_USER
-                                        | PackageManager.GET_SIGNATURES
-                                        | PackageManager.GET_PERMISSIONS
-                                        | PackageManager.MATCH_ARCHIVED_PACKAGES));
-            } catch (NameNotFoundException e) {
-                Log.e(TAG, "Exception when retrieving package:" + mAppEntry.info.packageName, e);
+            // The snapshot is only reloaded by a package broadcast for the app, see
+            // mPackageChangedReceiver.
+            if (mAppSnapshot == null
+                    || !mAppSnapshot.isValidFor(mAppEntry.info.packageName, mUserId)) {
+                mAppSnapshot = AppInfoSnapshot.load(activity.getPackageManager(),
+                        mAppEntry.info.packageName, mUserId);
             }
+            mPackageInfo = mAppSnapshot.getPackageInfo();
         } else {
             Log.w(TAG, "Missing AppEntry; maybe reinstalling?");
             mPackageInfo = null;
@@ -826,6 +832,55 @@ public class AppInfoDashboardFragment extends DashboardFragment
         getContext().registerReceiver(mPackageRemovedReceiver, filter);
     }
 
+    @VisibleForTesting
+    void startListeningToPackageChange() {
+        if (mListeningToPackageChange) {
+            return;
+        }
+        mListeningToPackageChange = true;
+        final IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        getContext().registerReceiver(mPackageChangedReceiver, filter);
+    }
+
+    private void stopListeningToPackageChange() {
+        if (!mListeningToPackageChange) {
+            return;
+        }
+        mListeningToPackageChange = false;
+        getContext().unregisterReceiver(mPackageChangedReceiver);
+    }
+
+    /**
+     * Reloads the package snapshot in the background, then refreshes the page with it. Results of
+     * a reload superseded by a later one are dropped.
+     */
+    private void reloadAppSnapshot() {
+        final Activity activity = getActivity();
+        if (activity == null) {
+            return;
+        }
+        final PackageManager pm = activity.getPackageManager();
+        final String packageName = getPackageName();
+        final int userId = UserHandle.myUserId();
+        final int generation = ++mAppSnapshotGeneration;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final AppInfoSnapshot snapshot = AppInfoSnapshot.load(pm, packageName, userId);
+            ThreadUtils.postOnMainThread(() -> {
+                if (generation != mAppSnapshotGeneration || mFinishing
+                        || getActivity() == null) {
+                    return;
+                }
+                mAppSnapshot = snapshot;
+                if (!refreshUi()) {
+                    setIntentAndFinish(true, true);
+                }
+            });
+        });
+    }
+
     private void stopListeningToPackageRemove() {
         if (!mListeningToPackageRemove) {
             return;
@@ -854,4 +909,16 @@ public class AppInfoDashboardFragment extends DashboardFragment
         }
     };
 
+    @VisibleForTesting
+    final BroadcastReceiver mPackageChangedReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (mFinishing || intent.getData() == null) {
+                return;
+            }
+            if (TextUtils.equals(getPackageName(), intent.getData().getSchemeSpecificPart())) {
+                reloadAppSnapshot();
+            }
+        }
+    };
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo;
+
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+/**
+ * The {@link PackageInfo} of the app shown by {@link AppInfoDashboardFragment}, loaded once for a
+ * (package, user) pair and shared by every controller of the page until a package broadcast for
+ * the app replaces it.
+ */
+final class AppInfoSnapshot {
+
+    private static final String TAG = "AppInfoSnapshot";
+
+    /** Everything the app info controllers read from the {@link PackageInfo}. */
+    static final long PACKAGE_INFO_FLAGS = PackageManager.MATCH_DISABLED_COMPONENTS
+            | PackageManager.MATCH_ANY_USER
+            | PackageManager.GET_SIGNATURES
+            | PackageManager.GET_PERMISSIONS
+            | PackageManager.MATCH_ARCHIVED_PACKAGES;
+
+    private final String mPackageName;
+    private final int mUserId;
+    @Nullable
+    private final PackageInfo mPackageInfo;
+
+    private AppInfoSnapshot(String packageName, int userId, @Nullable PackageInfo packageInfo) {
+        mPackageName = packageName;
+        mUserId = userId;
+        mPackageInfo = packageInfo;
+    }
+
+    /**
+     * Loads the snapshot of the package. The returned snapshot has no {@link PackageInfo} if the
+     * package is not installed.
+     */
+    @WorkerThread
+    static AppInfoSnapshot load(PackageManager pm, String packageName, int userId) {
+        PackageInfo packageInfo = null;
+        try {
+            packageInfo = pm.getPackageInfo(packageName,
+                    PackageManager.PackageInfoFlags.of(PACKAGE_INFO_FLAGS));
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.e(TAG, "Exception when retrieving package:" + packageName, e);
+        }
+        return new AppInfoSnapshot(packageName, userId, packageInfo);
+    }
+
+    /** Whether this snapshot holds the installed package {@code packageName} of the user. */
+    boolean isValidFor(String packageName, int userId) {
+        return mPackageInfo != null && mUserId == userId
+                && TextUtils.equals(mPackageName, packageName);
+    }
+
+    @Nullable
+    PackageInfo getPackageInfo() {
+        return mPackageInfo;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.bluetooth;
+
+import android.bluetooth.BluetoothDevice;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.bluetooth.CachedBluetoothDevice;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batches device events for a {@link BluetoothDeviceUpdater} so that a burst of callbacks, for
+ * example during discovery, results in at most one refresh per frame. Each device that changed
+ * within the frame is updated once; a pending full refresh supersedes per-device updates.
+ */
+public class BluetoothDeviceUpdateScheduler {
+
+    /** Receives the coalesced work when a frame is flushed. */
+    public interface Callback {
+        /** Updates a single device that changed since the last flush. */
+        void onUpdateDevice(@NonNull CachedBluetoothDevice cachedDevice);
+
+        /** Refreshes every cached device. */
+        void onUpdateAllDevices();
+    }
+
+    /** Posts the flush; abstracted so tests can drive frames manually. */
+    @VisibleForTesting
+    interface FrameScheduler {
+        void postFrameCallback(@NonNull Choreographer.FrameCallback callback);
+
+        void removeFrameCallback(@NonNull Choreographer.FrameCallback callback);
+    }
+
+    private final Callback mCallback;
+    private final FrameScheduler mFrameScheduler;
+    // Keyed by BluetoothDevice and kept in arrival order so the flush order is stable.
+    private final Map<BluetoothDevice, CachedBluetoothDevice> mPendingDevices =
+            new LinkedHashMap<>();
+    private final Choreographer.FrameCallback mFrameCallback = frameTimeNanos -> flush();
+    private boolean mUpdateAllPending;
+    private boolean mFlushScheduled;
+
+    private int mEventCount;
+    private int mFlushCount;
+    private int mDeviceUpdateCount;
+
+    public BluetoothDeviceUpdateScheduler(@NonNull Callback callback) {
+        this(callback, new FrameScheduler() {
+            @Override
+            public void postFrameCallback(@NonNull Choreographer.FrameCallback frameCallback) {
+                Choreographer.getInstance().postFrameCallback(frameCallback);
+            }
+
+            @Override
+            public void removeFrameCallback(@NonNull Choreographer.FrameCallback frameCallback) {
+                Choreographer.getInstance().removeFrameCallback(frameCallback);
+            }
+        });
+    }
+
+    @VisibleForTesting
+    BluetoothDeviceUpdateScheduler(@NonNull Callback callback,
+            @NonNull FrameScheduler frameScheduler) {
+        mCallback = callback;
+        mFrameScheduler = frameScheduler;
+    }
+
+    /** Schedules an update of {@code cachedDevice} on the next frame. */
+    public void scheduleUpdate(@NonNull CachedBluetoothDevice cachedDevice) {
+        mEventCount++;
+        if (!mUpdateAllPending) {
+            // Keep the original position but always flush the latest instance.
+            mPendingDevices.put(cachedDevice.getDevice(), cachedDevice);
+        }
+        scheduleFlush();
+    }
+
+    /** Schedules a refresh of all devices on the next frame. */
+    public void scheduleUpdateAll() {
+        mEventCount++;
+        mUpdateAllPending = true;
+        mPendingDevices.clear();
+        scheduleFlush();
+    }
+
+    /** Drops any pending update of {@code cachedDevice}, e.g. because it has been removed. */
+    public void cancelUpdate(@NonNull CachedBluetoothDevice cachedDevice) {
+        mPendingDevices.remove(cachedDevice.getDevice());
+    }
+
+    /** Drops all pending work. */
+    public void cancelAll() {
+        mPendingDevices.clear();
+        mUpdateAllPending = false;
+        if (mFlushScheduled) {
+            mFrameScheduler.removeFrameCallback(mFrameCallback);
+            mFlushScheduled = false;
+        }
+    }
+
+    /** Runs all pending work now. */
+    @VisibleForTesting
+    void flush() {
+        mFlushScheduled = false;
+        if (!mUpdateAllPending && mPendingDevices.isEmpty()) {
+            return;
+        }
+        mFlushCount++;
+        if (mUpdateAllPending) {
+            mUpdateAllPending = false;
+            mCallback.onUpdateAllDevices();
+            return;
+        }
+        final List<CachedBluetoothDevice> devices = new ArrayList<>(mPendingDevices.values());
+        mPendingDevices.clear();
+        for (CachedBluetoothDevice cachedDevice : devices) {
+            mDeviceUpdateCount++;
+            mCallback.onUpdateDevice(cachedDevice);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (mFlushScheduled) {
+            return;
+        }
+        mFlushScheduled = true;
+        mFrameScheduler.postFrameCallback(mFrameCallback);
+    }
+
+    /** Number of events received since creation. */
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    /** Number of frames in which pending work was flushed. */
+    public int getFlushCount() {
+        return mFlushCount;
+    }
+
+    /** Number of single-device updates performed. */
+    public int getDeviceUpdateCount() {
+        return mDeviceUpdateCount;
+    }
+}
@@ -21,6 +21,8 @@ import android.content.Context;
 import android.os.Bundle;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 
@@ -37,7 +39,7 @@ import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -59,6 +61,8 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
     @VisibleForTesting
     protected LocalBluetoothManager mLocalManager;
     protected int mMetricsCategory;
+    @Nullable
+    private BluetoothDeviceUpdateScheduler mUpdateScheduler;
 
     protected static final String TAG = "BluetoothDeviceUpdater";
     private static final boolean DBG = Log.isLoggable(TAG, Log.DEBUG);
@@ -79,12 +83,46 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             int metricsCategory) {
         mContext = context;
         mDevicePreferenceCallback = devicePreferenceCallback;
-        mPreferenceMap = new HashMap<>();
+        // Insertion ordered so that iteration is stable across refreshes.
+        mPreferenceMap = new LinkedHashMap<>();
         mLocalManager = localManager;
         mMetricsCategory = metricsCategory;
         mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
     }
 
+    /**
+     * Batch device events so that bursts of callbacks, e.g. while discovering, refresh the list
+     * at most once per frame and only for the devices that changed.
+     */
+    public void setUpdateBatchingEnabled(boolean enabled) {
+        if (!enabled) {
+            if (mUpdateScheduler != null) {
+                mUpdateScheduler.cancelAll();
+                mUpdateScheduler = null;
+            }
+            return;
+        }
+        if (mUpdateScheduler == null) {
+            setUpdateScheduler(new BluetoothDeviceUpdateScheduler(
+                    new BluetoothDeviceUpdateScheduler.Callback() {
+                        @Override
+                        public void onUpdateDevice(@NonNull CachedBluetoothDevice cachedDevice) {
+                            update(cachedDevice);
+                        }
+
+                        @Override
+                        public void onUpdateAllDevices() {
+                            forceUpdate();
+                        }
+                    }));
+        }
+    }
+
+    @VisibleForTesting
+    void setUpdateScheduler(@Nullable BluetoothDeviceUpdateScheduler updateScheduler) {
+        mUpdateScheduler = updateScheduler;
+    }
+
     /**
      * Register the bluetooth event callback and update the list
      */
@@ -109,6 +147,9 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         }
         mLocalManager.setForegroundActivity(null);
         mLocalManager.getEventManager().unregisterCallback(this);
+        if (mUpdateScheduler != null) {
+            mUpdateScheduler.cancelAll();
+        }
         mLocalManager.getProfileManager().removeServiceListener(this);
     }
 
@@ -147,15 +188,18 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
     @Override
     public void onBluetoothStateChanged(int bluetoothState) {
         if (BluetoothAdapter.STATE_ON == bluetoothState) {
-            forceUpdate();
+            dispatchUpdateAll();
         } else if (BluetoothAdapter.STATE_OFF == bluetoothState) {
+            if (mUpdateScheduler != null) {
+                mUpdateScheduler.cancelAll();
+            }
             removeAllDevicesFromPreference();
         }
     }
 
     @Override
     public void onDeviceAdded(CachedBluetoothDevice cachedDevice) {
-        update(cachedDevice);
+        dispatchUpdate(cachedDevice);
     }
 
     @Override
@@ -163,12 +207,15 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         // Used to combine the hearing aid entries just after pairing. Once both the hearing aids
         // get connected and their hiSyncId gets populated, this gets called for one of the
         // 2 hearing aids so that only one entry in the connected devices list will be seen.
+        if (mUpdateScheduler != null) {
+            mUpdateScheduler.cancelUpdate(cachedDevice);
+        }
         removePreference(cachedDevice);
     }
 
     @Override
     public void onDeviceBondStateChanged(CachedBluetoothDevice cachedDevice, int bondState) {
-        update(cachedDevice);
+        dispatchUpdate(cachedDevice);
     }
 
     @Override
@@ -178,20 +225,20 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             Log.d(getLogTag(), "onProfileConnectionStateChanged() device: " + cachedDevice.getName()
                     + ", state: " + state + ", bluetoothProfile: " + bluetoothProfile);
         }
-        update(cachedDevice);
+        dispatchUpdate(cachedDevice);
     }
 
     @Override
     public void onAclConnectionStateChanged(CachedBluetoothDevice cachedDevice, int state) {
         Log.d(getLogTag(), "onAclConnectionStateChanged() device: " + cachedDevice.getName()
                 + ", state: " + state);
-        update(cachedDevice);
+        dispatchUpdate(cachedDevice);
     }
 
     @Override
     public void onServiceConnected() {
         // When bluetooth service connected update the UI
-        forceUpdate();
+        dispatchUpdateAll();
     }
 
     @Override
@@ -217,6 +264,22 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
      */
     protected abstract String getPreferenceKey();
 
+    private void dispatchUpdate(CachedBluetoothDevice cachedDevice) {
+        if (mUpdateScheduler != null) {
+            mUpdateScheduler.scheduleUpdate(cachedDevice);
+        } else {
+            update(cachedDevice);
+        }
+    }
+
+    private void dispatchUpdateAll() {
+        if (mUpdateScheduler != null) {
+            mUpdateScheduler.scheduleUpdateAll();
+        } else {
+            forceUpdate();
+        }
+    }
+
     /**
      * Update whether to show {@link CachedBluetoothDevice} in the list.
      */
@@ -95,6 +95,24 @@ abstract class DeviceListPreferenceFragment(restrictedKey: String?) :
     @VisibleForTesting
     var lifecycleScope: CoroutineScope? = null
 
+    @VisibleForTesting
+    val updateSchedulerCallback = object : BluetoothDeviceUpdateScheduler.Callback {
+        override fun onUpdateDevice(cachedDevice: CachedBluetoothDevice) {
+            lifecycleScope?.launch { addDevice(cachedDevice) }
+        }
+
+        override fun onUpdateAllDevices() {
+            // Only single devices are scheduled.
+        }
+    }
+
+    /**
+     * Coalesces the devices found while scanning, so that a burst of discovery events or LE scan
+     * results adds each device at most once per frame. Only used on the main thread.
+     */
+    @VisibleForTesting
+    var updateScheduler = BluetoothDeviceUpdateScheduler(updateSchedulerCallback)
+
     private var showDevicesWithoutNames = false
 
     protected fun setFilter(filterType: Int) {
@@ -155,6 +173,7 @@ abstract class DeviceListPreferenceFragment(restrictedKey: String?) :
     }
 
     fun removeAllDevices() {
+        updateScheduler.cancelAll()
         devicePreferenceMap.clear()
         mDeviceListGroup!!.removeAll()
     }
@@ -192,8 +211,10 @@ abstract class DeviceListPreferenceFragment(restrictedKey: String?) :
     }
 
     override fun onDeviceAdded(cachedDevice: CachedBluetoothDevice) {
+        // Also called from a background thread by addCachedDevices, so hop to the scope's
+        // dispatcher, the main thread, before touching the scheduler.
         lifecycleScope?.launch {
-            addDevice(cachedDevice)
+            updateScheduler.scheduleUpdate(cachedDevice)
         }
     }
 
@@ -261,6 +282,7 @@ abstract class DeviceListPreferenceFragment(restrictedKey: String?) :
     }
 
     override fun onDeviceDeleted(cachedDevice: CachedBluetoothDevice) {
+        updateScheduler.cancelUpdate(cachedDevice)
         devicePreferenceMap.remove(cachedDevice)?.let {
             mDeviceListGroup!!.removePreference(it)
         }
@@ -355,12 +377,12 @@ abstract class DeviceListPreferenceFragment(restrictedKey: String?) :
 
     private fun handleLeScanResult(result: ScanResult) {
         lifecycleScope?.launch {
-            withContext(Dispatchers.Default) {
+            val cachedDevice = withContext(Dispatchers.Default) {
                 val device = result.device
-                val cachedDevice = mCachedDeviceManager!!.findDevice(device)
+                mCachedDeviceManager!!.findDevice(device)
                     ?: mCachedDeviceManager!!.addDevice(device, leScanFilters)
-                addDevice(cachedDevice)
             }
+            updateScheduler.scheduleUpdate(cachedDevice)
         }
     }
 
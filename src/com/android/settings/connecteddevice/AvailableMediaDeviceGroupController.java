@@ -295,6 +295,7 @@ public class AvailableMediaDeviceGroupController extends BasePreferenceControlle
                         fragment.getContext(),
                         AvailableMediaDeviceGroupController.this,
                         fragment.getMetricsCategory());
+        mBluetoothDeviceUpdater.setUpdateBatchingEnabled(true);
         if (AudioSharingUtils.isFeatureEnabled()) {
             mDialogHandler = new AudioSharingDialogHandler(mContext, fragment);
         }
@@ -208,6 +208,9 @@ public class ConnectedDeviceGroupController extends BasePreferenceController
                 hasUsiStylusFeature()
                         ? new StylusDeviceUpdater(context, fragment, this)
                         : null);
+        if (mBluetoothDeviceUpdater != null) {
+            mBluetoothDeviceUpdater.setUpdateBatchingEnabled(true);
+        }
     }
 
     private boolean hasBluetoothFeature() {
@@ -132,6 +132,7 @@ public class PreviouslyConnectedDevicePreferenceController extends BasePreferenc
         mBluetoothDeviceUpdater = new SavedBluetoothDeviceUpdater(fragment.getContext(),
                 PreviouslyConnectedDevicePreferenceController.this, /* showConnectedDevice= */
                 false, fragment.getMetricsCategory());
+        mBluetoothDeviceUpdater.setUpdateBatchingEnabled(true);
     }
 
     @Override
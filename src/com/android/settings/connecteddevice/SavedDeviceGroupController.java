@@ -166,6 +166,7 @@ public class SavedDeviceGroupController extends BasePreferenceController
         mBluetoothDeviceUpdater = new SavedBluetoothDeviceUpdater(fragment.getContext(),
                 SavedDeviceGroupController.this, /* showConnectedDevice= */true,
                 fragment.getMetricsCategory());
+        mBluetoothDeviceUpdater.setUpdateBatchingEnabled(true);
     }
 
     @VisibleForTesting
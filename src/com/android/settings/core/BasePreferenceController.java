@@ -131,10 +131,17 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and user-defined key.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * Controllers declared in XML are created through the generated PreferenceControllerFactory;
+     * anything else falls back to reflection. Do not use this method unless you know what you are
+     * doing.
      */
     public static BasePreferenceController createInstance(Context context,
             String controllerName, String key) {
+        final BasePreferenceController controller =
+                PreferenceControllerFactory.create(context, controllerName, key);
+        if (controller != null) {
+            return controller;
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
@@ -151,9 +158,16 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * Controllers declared in XML are created through the generated PreferenceControllerFactory;
+     * anything else falls back to reflection. Do not use this method unless you know what you are
+     * doing.
      */
     public static BasePreferenceController createInstance(Context context, String controllerName) {
+        final BasePreferenceController controller =
+                PreferenceControllerFactory.create(context, controllerName);
+        if (controller != null) {
+            return controller;
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor = clazz.getConstructor(Context.class);
@@ -169,7 +183,9 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and work profile
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * Controllers declared in XML are created through the generated PreferenceControllerFactory;
+     * anything else falls back to reflection. Do not use this method unless you know what you are
+     * doing.
      *
      * @param context        application context
      * @param controllerName class name of the {@link BasePreferenceController}
@@ -178,6 +194,12 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static BasePreferenceController createInstance(Context context, String controllerName,
             String key, boolean isWorkProfile) {
+        final BasePreferenceController generated =
+                PreferenceControllerFactory.create(context, controllerName, key);
+        if (generated != null) {
+            generated.setForWork(isWorkProfile);
+            return generated;
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
@@ -194,6 +216,39 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
         }
     }
 
+    /**
+     * Instantiate a controller declared in XML without reflection, preferring the Context-only
+     * constructor the same way the reflective lookups do.
+     *
+     * @return the controller, or {@code null} if it is not covered by the generated factory
+     */
+    @Nullable
+    public static BasePreferenceController createGeneratedInstance(Context context,
+            String controllerName, @Nullable String key) {
+        return createGeneratedInstance(context, controllerName, key, false /* isWorkProfile */);
+    }
+
+    /**
+     * Same as {@link #createGeneratedInstance(Context, String, String)}, marking the controller as
+     * for work profile when it is created with the key, like {@link #createInstance(Context,
+     * String, String, boolean)} does.
+     */
+    @Nullable
+    public static BasePreferenceController createGeneratedInstance(Context context,
+            String controllerName, @Nullable String key, boolean isWorkProfile) {
+        final BasePreferenceController controller =
+                PreferenceControllerFactory.create(context, controllerName);
+        if (controller != null || TextUtils.isEmpty(key)) {
+            return controller;
+        }
+        final BasePreferenceController keyedController =
+                PreferenceControllerFactory.create(context, controllerName, key);
+        if (keyedController != null) {
+            keyedController.setForWork(isWorkProfile);
+        }
+        return keyedController;
+    }
+
     public BasePreferenceController(Context context, String preferenceKey) {
         super(context);
         mPreferenceKey = preferenceKey;
@@ -70,7 +70,14 @@ public class PreferenceControllerListHelper {
             if (TextUtils.isEmpty(controllerName)) {
                 continue;
             }
-            BasePreferenceController controller;
+            BasePreferenceController controller =
+                    BasePreferenceController.createGeneratedInstance(context, controllerName,
+                            metadata.getString(METADATA_KEY),
+                            metadata.getBoolean(METADATA_FOR_WORK, false));
+            if (controller != null) {
+                controllers.add(controller);
+                continue;
+            }
             try {
                 controller = BasePreferenceController.createInstance(context, controllerName);
             } catch (IllegalStateException e) {
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects per-phase render latency of settings pages. Each span is emitted as a systrace section
+ * and folded into an in-process histogram per page and phase, plus a per-controller total so the
+ * slowest controllers of a page can be found from a bug report via {@code SettingsDumpService}.
+ */
+public class PageRenderTracer {
+
+    /** Building controllers returned by {@code createPreferenceControllers}. */
+    public static final String PHASE_CREATE_CONTROLLERS_FROM_CODE = "create_controllers_code";
+    /** Building controllers declared in the preference screen XML. */
+    public static final String PHASE_CREATE_CONTROLLERS_FROM_XML = "create_controllers_xml";
+    /** {@code AbstractPreferenceController#isAvailable}. */
+    public static final String PHASE_IS_AVAILABLE = "is_available";
+    /** {@code AbstractPreferenceController#updateState}. */
+    public static final String PHASE_UPDATE_STATE = "update_state";
+    /** Binding injected dashboard tiles. */
+    public static final String PHASE_REFRESH_TILES = "refresh_tiles";
+    /** Blocking on dynamic data observers of injected tiles. */
+    public static final String PHASE_OBSERVER_WAIT = "observer_wait";
+
+    /** Upper bounds, in milliseconds, of all but the last histogram bucket. */
+    @VisibleForTesting
+    static final long[] BUCKET_BOUNDS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+    private static final int TOP_CONTROLLER_COUNT = 5;
+    /** Low bit of a span token, set when {@link #begin} opened a systrace section. */
+    private static final long TOKEN_SECTION_OPENED = 1L;
+
+    private static PageRenderTracer sInstance;
+
+    private final ArrayMap<String, PageStats> mPages = new ArrayMap<>();
+
+    /** Returns the process-wide tracer. */
+    public static synchronized PageRenderTracer getInstance() {
+        if (sInstance == null) {
+            sInstance = new PageRenderTracer();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    PageRenderTracer() {
+    }
+
+    /**
+     * Starts a span. The returned token must be passed to {@link #end} on the same thread, which
+     * closes the systrace section only if one was opened here, so that toggling tracing in between
+     * cannot unbalance the sections.
+     */
+    public long begin(@NonNull String page, @NonNull String phase) {
+        final long start = SystemClock.elapsedRealtimeNanos() & ~TOKEN_SECTION_OPENED;
+        if (Trace.isEnabled()) {
+            Trace.beginSection(page + "#" + phase);
+            return start | TOKEN_SECTION_OPENED;
+        }
+        return start;
+    }
+
+    /** Ends a span started by {@link #begin} for the whole page. */
+    public void end(@NonNull String page, @NonNull String phase, long token) {
+        end(page, phase, null /* controller */, token);
+    }
+
+    /**
+     * Ends a span started by {@link #begin}, attributing the time to {@code controller} if it is
+     * not {@code null}.
+     */
+    public void end(@NonNull String page, @NonNull String phase, @Nullable String controller,
+            long token) {
+        final long durationNanos =
+                SystemClock.elapsedRealtimeNanos() - (token & ~TOKEN_SECTION_OPENED);
+        if ((token & TOKEN_SECTION_OPENED) != 0) {
+            Trace.endSection();
+        }
+        record(page, phase, controller, durationNanos);
+    }
+
+    @VisibleForTesting
+    synchronized void record(@NonNull String page, @NonNull String phase,
+            @Nullable String controller, long durationNanos) {
+        PageStats stats = mPages.get(page);
+        if (stats == null) {
+            stats = new PageStats();
+            mPages.put(page, stats);
+        }
+        PhaseHistogram histogram = stats.mPhases.get(phase);
+        if (histogram == null) {
+            histogram = new PhaseHistogram();
+            stats.mPhases.put(phase, histogram);
+        }
+        histogram.add(durationNanos);
+        if (controller != null) {
+            final Long total = stats.mControllerNanos.get(controller);
+            stats.mControllerNanos.put(controller,
+                    (total == null ? 0L : total) + durationNanos);
+        }
+    }
+
+    /** Drops everything recorded so far. */
+    public synchronized void reset() {
+        mPages.clear();
+    }
+
+    /** Returns the recorded histograms, keyed by page name. */
+    @NonNull
+    public synchronized JSONObject dumpJson() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        for (int i = 0; i < mPages.size(); i++) {
+            obj.put(mPages.keyAt(i), mPages.valueAt(i).toJson());
+        }
+        return obj;
+    }
+
+    private static class PageStats {
+        final ArrayMap<String, PhaseHistogram> mPhases = new ArrayMap<>();
+        final ArrayMap<String, Long> mControllerNanos = new ArrayMap<>();
+
+        JSONObject toJson() throws JSONException {
+            final JSONObject obj = new JSONObject();
+            final JSONObject phases = new JSONObject();
+            for (int i = 0; i < mPhases.size(); i++) {
+                phases.put(mPhases.keyAt(i), mPhases.valueAt(i).toJson());
+            }
+            obj.put("phases", phases);
+
+            final List<Map.Entry<String, Long>> controllers =
+                    new ArrayList<>(mControllerNanos.entrySet());
+            controllers.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            final JSONArray slowest = new JSONArray();
+            for (int i = 0; i < Math.min(TOP_CONTROLLER_COUNT, controllers.size()); i++) {
+                final JSONObject controller = new JSONObject();
+                controller.put("name", controllers.get(i).getKey());
+                controller.put("total_ms", nanosToMillis(controllers.get(i).getValue()));
+                slowest.put(controller);
+            }
+            obj.put("slowest_controllers", slowest);
+            return obj;
+        }
+    }
+
+    @VisibleForTesting
+    static class PhaseHistogram {
+        final long[] mBuckets = new long[BUCKET_BOUNDS_MS.length + 1];
+        long mCount;
+        long mTotalNanos;
+        long mMaxNanos;
+
+        void add(long durationNanos) {
+            mCount++;
+            mTotalNanos += durationNanos;
+            mMaxNanos = Math.max(mMaxNanos, durationNanos);
+            final long millis = durationNanos / 1_000_000L;
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && millis >= BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            mBuckets[bucket]++;
+        }
+
+        JSONObject toJson() throws JSONException {
+            final JSONObject obj = new JSONObject();
+            obj.put("count", mCount);
+            obj.put("total_ms", nanosToMillis(mTotalNanos));
+            obj.put("max_ms", nanosToMillis(mMaxNanos));
+            final JSONArray buckets = new JSONArray();
+            for (long bucket : mBuckets) {
+                buckets.put(bucket);
+            }
+            obj.put("buckets", buckets);
+            return obj;
+        }
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+}
@@ -66,4 +66,16 @@ public interface DashboardFeatureProvider {
      */
     void openTileIntent(FragmentActivity activity, Tile tile);
 
+    /**
+     * Holds back the dynamic data requests of tiles bound after this call until
+     * {@link #flushDynamicDataRequests()}, so that each provider can answer them in one call.
+     */
+    default void deferDynamicDataRequests() {
+    }
+
+    /**
+     * Sends the dynamic data requests held back since {@link #deferDynamicDataRequests()}.
+     */
+    default void flushDynamicDataRequests() {
+    }
 }
@@ -96,12 +96,14 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private final CategoryManager mCategoryManager;
     private final PackageManager mPackageManager;
+    private final TileDynamicDataLoader mDynamicDataLoader;
 
     public DashboardFeatureProviderImpl(Context context) {
         mContext = context.getApplicationContext();
         mCategoryManager = CategoryManager.get(context);
         mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
         mPackageManager = context.getPackageManager();
+        mDynamicDataLoader = new TileDynamicDataLoader(mContext);
     }
 
     @Override
@@ -237,6 +239,16 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
                 /* highlightMixin= */ null, /* isDuplicateClick= */ false);
     }
 
+    @Override
+    public void deferDynamicDataRequests() {
+        mDynamicDataLoader.deferRequests();
+    }
+
+    @Override
+    public void flushDynamicDataRequests() {
+        mDynamicDataLoader.flushRequests();
+    }
+
     private DynamicDataObserver createDynamicDataObserver(String method, Uri uri, Preference pref) {
         return new DynamicDataObserver() {
             @Override
@@ -269,28 +281,25 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         }
         if (tile.getMetaData() != null && tile.getMetaData().containsKey(
                 META_DATA_PREFERENCE_TITLE_URI)) {
-            // Set a placeholder title before starting to fetch real title, this is necessary
-            // to avoid preference height change.
-            if (preference.getTitle() == null) {
-                preference.setTitle(R.string.summary_placeholder);
-            }
-
             final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_TITLE_URI,
                     METHOD_GET_DYNAMIC_TITLE);
+            // Show the last known title, or a placeholder before starting to fetch real title,
+            // this is necessary to avoid preference height change.
+            final String cachedTitle = mDynamicDataLoader.getCachedValue(uri);
+            if (cachedTitle != null) {
+                preference.setTitle(cachedTitle);
+            } else if (preference.getTitle() == null) {
+                preference.setTitle(R.string.summary_placeholder);
+            }
             return createDynamicDataObserver(METHOD_GET_DYNAMIC_TITLE, uri, preference);
         }
         return null;
     }
 
     private void refreshTitle(Uri uri, Preference preference, DynamicDataObserver observer) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-            final String titleFromUri = TileUtils.getTextFromUri(
-                    mContext, uri, providerMap, META_DATA_PREFERENCE_TITLE);
-            if (!TextUtils.equals(titleFromUri, preference.getTitle())) {
-                observer.post(() -> preference.setTitle(titleFromUri));
-            }
-        });
+        // Always post, an unchanged title still has to release the observer's latch.
+        mDynamicDataLoader.loadText(uri, META_DATA_PREFERENCE_TITLE, titleFromUri ->
+                observer.post(() -> preference.setTitle(titleFromUri)));
     }
 
     private DynamicDataObserver bindSummaryAndGetObserver(Preference preference, Tile tile) {
@@ -299,28 +308,25 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             preference.setSummary(summary);
         } else if (tile.getMetaData() != null
                 && tile.getMetaData().containsKey(META_DATA_PREFERENCE_SUMMARY_URI)) {
-            // Set a placeholder summary before starting to fetch real summary, this is necessary
-            // to avoid preference height change.
-            if (preference.getSummary() == null) {
-                preference.setSummary(R.string.summary_placeholder);
-            }
-
             final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_SUMMARY_URI,
                     METHOD_GET_DYNAMIC_SUMMARY);
+            // Show the last known summary, or a placeholder before starting to fetch real
+            // summary, this is necessary to avoid preference height change.
+            final String cachedSummary = mDynamicDataLoader.getCachedValue(uri);
+            if (cachedSummary != null) {
+                preference.setSummary(cachedSummary);
+            } else if (preference.getSummary() == null) {
+                preference.setSummary(R.string.summary_placeholder);
+            }
             return createDynamicDataObserver(METHOD_GET_DYNAMIC_SUMMARY, uri, preference);
         }
         return null;
     }
 
     private void refreshSummary(Uri uri, Preference preference, DynamicDataObserver observer) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-            final String summaryFromUri = TileUtils.getTextFromUri(
-                    mContext, uri, providerMap, META_DATA_PREFERENCE_SUMMARY);
-            if (!TextUtils.equals(summaryFromUri, preference.getSummary())) {
-                observer.post(() -> preference.setSummary(summaryFromUri));
-            }
-        });
+        // Always post, an unchanged summary still has to release the observer's latch.
+        mDynamicDataLoader.loadText(uri, META_DATA_PREFERENCE_SUMMARY, summaryFromUri ->
+                observer.post(() -> preference.setSummary(summaryFromUri)));
     }
 
     private DynamicDataObserver bindSwitchAndGetObserver(Preference preference, Tile tile) {
@@ -337,6 +343,10 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
 
         final Uri isCheckedUri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_SWITCH_URI,
                 METHOD_IS_CHECKED);
+        final Boolean cachedChecked = mDynamicDataLoader.getCachedValue(isCheckedUri);
+        if (cachedChecked != null) {
+            setSwitchChecked(preference, cachedChecked);
+        }
         setSwitchEnabled(preference, false);
         return createDynamicDataObserver(METHOD_IS_CHECKED, isCheckedUri, preference);
     }
@@ -365,15 +375,11 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     }
 
     private void refreshSwitch(Uri uri, Preference preference, DynamicDataObserver observer) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-            final boolean checked = TileUtils.getBooleanFromUri(mContext, uri, providerMap,
-                    EXTRA_SWITCH_CHECKED_STATE);
-            observer.post(() -> {
-                setSwitchChecked(preference, checked);
-                setSwitchEnabled(preference, true);
-            });
-        });
+        mDynamicDataLoader.loadBoolean(uri, EXTRA_SWITCH_CHECKED_STATE, checked ->
+                observer.post(() -> {
+                    setSwitchChecked(preference, checked);
+                    setSwitchEnabled(preference, true);
+                }));
     }
 
     private void setSwitchChecked(Preference pref, boolean checked) {
@@ -400,23 +406,28 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             // Reserve the icon space to avoid preference padding change.
             preference.setIconSpaceReserved(true);
 
-            ThreadUtils.postOnBackgroundThread(() -> {
-                final Intent intent = tile.getIntent();
-                String packageName = null;
-                if (!TextUtils.isEmpty(intent.getPackage())) {
-                    packageName = intent.getPackage();
-                } else if (intent.getComponent() != null) {
-                    packageName = intent.getComponent().getPackageName();
-                }
-                final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-                final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_ICON_URI,
-                        METHOD_GET_PROVIDER_ICON);
-                final Pair<String, Integer> iconInfo = TileUtils.getIconFromUri(
-                        mContext, packageName, uri, providerMap);
+            final Intent intent = tile.getIntent();
+            String packageName = null;
+            if (!TextUtils.isEmpty(intent.getPackage())) {
+                packageName = intent.getPackage();
+            } else if (intent.getComponent() != null) {
+                packageName = intent.getComponent().getPackageName();
+            }
+            final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_ICON_URI,
+                    METHOD_GET_PROVIDER_ICON);
+            final Pair<String, Integer> cachedIconInfo = mDynamicDataLoader.getCachedValue(uri);
+            if (cachedIconInfo != null) {
+                setPreferenceIcon(preference, tile, forceRoundedIcon, cachedIconInfo.first,
+                        Icon.createWithResource(cachedIconInfo.first, cachedIconInfo.second));
+            }
+            mDynamicDataLoader.loadIcon(uri, packageName, iconInfo -> {
                 if (iconInfo == null) {
                     Log.w(TAG, "Failed to get icon from uri " + uri);
                     return;
                 }
+                if (iconInfo.equals(cachedIconInfo)) {
+                    return;
+                }
                 final Icon icon = Icon.createWithResource(iconInfo.first, iconInfo.second);
                 ThreadUtils.postOnMainThread(() -> {
                     setPreferenceIcon(preference, tile, forceRoundedIcon, iconInfo.first, icon);
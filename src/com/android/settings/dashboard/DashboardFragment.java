@@ -21,9 +21,12 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.preference.PreferenceManager.OnActivityResultListener;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 import android.view.View;
 
@@ -41,11 +44,13 @@ import androidx.preference.PreferenceScreen;
 import androidx.preference.SwitchPreferenceCompat;
 
 import com.android.settings.R;
+import com.android.settings.SettingsActivity;
 import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.CategoryMixin.CategoryHandler;
 import com.android.settings.core.CategoryMixin.CategoryListener;
 import com.android.settings.core.PreferenceControllerListHelper;
+import com.android.settings.core.instrumentation.PageRenderTracer;
 import com.android.settings.flags.Flags;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.PrimarySwitchPreference;
@@ -60,12 +65,14 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Base fragment for dashboard style UI containing a list of static and dynamic setting items.
@@ -76,6 +83,10 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     public static final String CATEGORY = "category";
     private static final String TAG = "DashboardFragment";
     private static final long TIMEOUT_MILLIS = 50L;
+    /** Number of preferences at the top of the page whose described controllers are eager. */
+    private static final int EAGER_PREFERENCE_COUNT = 15;
+    /** Number of described controllers constructed each time the main thread is idle. */
+    private static final int PENDING_CONTROLLER_BATCH_SIZE = 10;
 
     @VisibleForTesting
     final ArrayMap<String, List<DynamicDataObserver>> mDashboardTilePrefKeys = new ArrayMap<>();
@@ -83,12 +94,33 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             new ArrayMap<>();
     private final List<DynamicDataObserver> mRegisteredObservers = new ArrayList<>();
     private final List<AbstractPreferenceController> mControllers = new ArrayList<>();
+    /** Described controllers not constructed yet, keyed by preference key in page order. */
+    private final Map<String, PreferenceControllerDescriptor<?>> mPendingControllers =
+            new LinkedHashMap<>();
+    /** Keys of the preferences hidden until all described controllers are constructed. */
+    private final Set<String> mHiddenPendingPreferenceKeys = new ArraySet<>();
+    /**
+     * Controllers constructed while the main thread was idle, keyed by preference key in page
+     * order. They are registered and their preferences displayed together once the last batch is
+     * constructed, so the page only changes layout once.
+     */
+    private final Map<String, AbstractPreferenceController> mUndisplayedControllers =
+            new LinkedHashMap<>();
+    private final MessageQueue.IdleHandler mPendingControllersLoader = () -> {
+        final PreferenceScreen screen = getPreferenceScreen();
+        if (!isAdded() || screen == null) {
+            return false;
+        }
+        return loadPendingControllers(screen);
+    };
+    private Context mPendingControllersContext;
     @VisibleForTesting
     UiBlockerController mBlockerController;
     private DashboardFeatureProvider mDashboardFeatureProvider;
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
     private boolean mListeningToCategoryChange;
     private List<String> mSuppressInjectedTileKeys;
+    private final PageRenderTracer mTracer = PageRenderTracer.getInstance();
 
     @Override
     public void onAttach(Context context) {
@@ -97,16 +129,32 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 R.array.config_suppress_injected_tile_keys));
         mDashboardFeatureProvider =
                 FeatureFactory.getFeatureFactory().getDashboardFeatureProvider();
+        final String page = getClass().getSimpleName();
         // Load preference controllers from code
+        long span = mTracer.begin(page, PageRenderTracer.PHASE_CREATE_CONTROLLERS_FROM_CODE);
         final List<AbstractPreferenceController> controllersFromCode =
                 createPreferenceControllers(context);
+        final List<PreferenceControllerDescriptor<?>> descriptors =
+                createPreferenceControllerDescriptors(context);
+        if (descriptors != null) {
+            mPendingControllersContext = context;
+            descriptors.forEach(descriptor ->
+                    mPendingControllers.put(descriptor.getPreferenceKey(), descriptor));
+        }
+        mTracer.end(page, PageRenderTracer.PHASE_CREATE_CONTROLLERS_FROM_CODE, span);
         // Load preference controllers from xml definition
+        span = mTracer.begin(page, PageRenderTracer.PHASE_CREATE_CONTROLLERS_FROM_XML);
         final List<BasePreferenceController> controllersFromXml = PreferenceControllerListHelper
                 .getPreferenceControllersFromXml(context, getPreferenceScreenResId());
+        mTracer.end(page, PageRenderTracer.PHASE_CREATE_CONTROLLERS_FROM_XML, span);
         // Filter xml-based controllers in case a similar controller is created from code already.
+        // Also drop those whose preference is handled by a described controller.
         final List<BasePreferenceController> uniqueControllerFromXml =
                 PreferenceControllerListHelper.filterControllers(
-                        controllersFromXml, controllersFromCode);
+                        controllersFromXml, controllersFromCode).stream()
+                        .filter(controller ->
+                                !mPendingControllers.containsKey(controller.getPreferenceKey()))
+                        .collect(Collectors.toList());
 
         // Add unique controllers to list.
         if (controllersFromCode != null) {
@@ -284,6 +332,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
 
     @Override
     public void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        createAllPendingControllers();
         for (List<AbstractPreferenceController> controllerList : mPreferenceControllers.values()) {
             for (AbstractPreferenceController controller : controllerList) {
                 if (controller instanceof OnActivityResultListener) {
@@ -300,6 +349,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     }
 
     protected <T extends AbstractPreferenceController> T use(Class<T> clazz) {
+        createPendingControllers(clazz);
         List<AbstractPreferenceController> controllerList = mPreferenceControllers.get(clazz);
         if (controllerList != null) {
             if (controllerList.size() > 1) {
@@ -314,6 +364,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
 
     /** Returns all controllers of type T. */
     protected <T extends AbstractPreferenceController> List<T> useAll(Class<T> clazz) {
+        createPendingControllers(clazz);
         return (List<T>) mPreferenceControllers.getOrDefault(clazz, Collections.emptyList());
     }
 
@@ -344,6 +395,21 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         return null;
     }
 
+    /**
+     * Get a list of {@link PreferenceControllerDescriptor} for this fragment. The described
+     * controllers are only constructed when their preference is near the top of the page or is
+     * the one to highlight, when the main thread is idle after the page is shown, or when the
+     * fragment needs them through {@link #use(Class)}, {@link #useAll(Class)} or
+     * {@link #getPreferenceControllers()}.
+     *
+     * <p>Described controllers are never added to the settings lifecycle and never block the UI,
+     * see {@link PreferenceControllerDescriptor}.
+     */
+    protected List<PreferenceControllerDescriptor<?>> createPreferenceControllerDescriptors(
+            Context context) {
+        return null;
+    }
+
     /**
      * Returns true if this tile should be displayed
      */
@@ -367,7 +433,173 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         addPreferencesFromResource(resId);
         final PreferenceScreen screen = getPreferenceScreen();
         screen.setOnExpandButtonClickListener(this);
+        createLeadingPendingControllers(screen);
+        // Controllers kept aside for the previous screen are displayed on this one below.
+        displayUndisplayedControllers(null /* screen */, null /* clazz */);
         displayResourceTilesToScreen(screen);
+        if (!mPendingControllers.isEmpty()) {
+            hidePendingPreferences(screen);
+            Looper.myQueue().removeIdleHandler(mPendingControllersLoader);
+            Looper.myQueue().addIdleHandler(mPendingControllersLoader);
+        }
+    }
+
+    /**
+     * Constructs the described controllers of the first preferences of the screen and of the
+     * preference to highlight, so that they are displayed with the rest of the page.
+     */
+    @VisibleForTesting
+    void createLeadingPendingControllers(PreferenceScreen screen) {
+        if (mPendingControllers.isEmpty()) {
+            return;
+        }
+        final List<String> keys = new ArrayList<>();
+        collectPreferenceKeys(screen, keys, EAGER_PREFERENCE_COUNT);
+        final Bundle arguments = getArguments();
+        if (arguments != null) {
+            keys.add(arguments.getString(SettingsActivity.EXTRA_FRAGMENT_ARG_KEY));
+        }
+        // The screen is displayed by the caller.
+        keys.forEach(key -> createPendingController(key, null /* screen */));
+    }
+
+    private static void collectPreferenceKeys(PreferenceGroup group, List<String> keys,
+            int maxCount) {
+        for (int i = 0; i < group.getPreferenceCount() && keys.size() < maxCount; i++) {
+            final Preference preference = group.getPreference(i);
+            keys.add(preference.getKey());
+            if (preference instanceof PreferenceGroup) {
+                collectPreferenceKeys((PreferenceGroup) preference, keys, maxCount);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void hidePendingPreferences(PreferenceScreen screen) {
+        mHiddenPendingPreferenceKeys.clear();
+        for (String key : mPendingControllers.keySet()) {
+            final Preference preference = screen.findPreference(key);
+            if (preference != null && preference.isVisible()) {
+                preference.setVisible(false);
+                mHiddenPendingPreferenceKeys.add(key);
+            }
+        }
+    }
+
+    /**
+     * Constructs the next batch of described controllers, and displays all of them once the last
+     * batch is constructed. Returns whether there are more batches to construct.
+     */
+    @VisibleForTesting
+    boolean loadPendingControllers(PreferenceScreen screen) {
+        createPendingControllers(null /* screen */, PENDING_CONTROLLER_BATCH_SIZE);
+        if (!mPendingControllers.isEmpty()) {
+            return true;
+        }
+        displayUndisplayedControllers(screen, null /* clazz */);
+        return false;
+    }
+
+    private void createPendingControllers(@Nullable PreferenceScreen screen, int maxCount) {
+        final List<String> keys = mPendingControllers.keySet().stream()
+                .limit(maxCount)
+                .collect(Collectors.toList());
+        keys.forEach(key -> createPendingController(key, screen));
+    }
+
+    private void createPendingControllers(Class<? extends AbstractPreferenceController> clazz) {
+        if (mPendingControllers.isEmpty() && mUndisplayedControllers.isEmpty()) {
+            return;
+        }
+        final List<String> keys = mPendingControllers.values().stream()
+                .filter(descriptor -> descriptor.getControllerClass() == clazz)
+                .map(PreferenceControllerDescriptor::getPreferenceKey)
+                .collect(Collectors.toList());
+        final PreferenceScreen screen = getPreferenceScreen();
+        displayUndisplayedControllers(screen, clazz);
+        keys.forEach(key -> createPendingController(key, screen));
+    }
+
+    private void createAllPendingControllers() {
+        if (mPendingControllers.isEmpty() && mUndisplayedControllers.isEmpty()) {
+            return;
+        }
+        final PreferenceScreen screen = getPreferenceScreen();
+        displayUndisplayedControllers(screen, null /* clazz */);
+        createPendingControllers(screen, mPendingControllers.size());
+    }
+
+    /**
+     * Constructs the described controller of the preference and, if the screen is given, displays
+     * and updates its preference. Without a screen, the controller of a hidden preference is kept
+     * aside until {@link #displayUndisplayedControllers}.
+     */
+    private void createPendingController(String key, @Nullable PreferenceScreen screen) {
+        final PreferenceControllerDescriptor<?> descriptor = mPendingControllers.remove(key);
+        if (descriptor == null) {
+            return;
+        }
+        final AbstractPreferenceController controller =
+                descriptor.create(mPendingControllersContext);
+        if (controller instanceof BasePreferenceController) {
+            ((BasePreferenceController) controller).setMetricsCategory(getMetricsCategory());
+        }
+        if (screen == null && mHiddenPendingPreferenceKeys.contains(key)) {
+            mUndisplayedControllers.put(key, controller);
+            return;
+        }
+        registerPendingController(controller);
+        if (screen != null) {
+            displayPendingController(key, controller, screen);
+        }
+    }
+
+    /**
+     * Registers the controllers kept aside by {@link #createPendingController}, all of them or
+     * those of the class, and reveals and displays their preferences in one pass.
+     */
+    private void displayUndisplayedControllers(@Nullable PreferenceScreen screen,
+            @Nullable Class<? extends AbstractPreferenceController> clazz) {
+        if (mUndisplayedControllers.isEmpty()) {
+            return;
+        }
+        final List<Map.Entry<String, AbstractPreferenceController>> entries = new ArrayList<>();
+        for (Map.Entry<String, AbstractPreferenceController> entry
+                : mUndisplayedControllers.entrySet()) {
+            if (clazz == null || entry.getValue().getClass() == clazz) {
+                entries.add(entry);
+            }
+        }
+        for (Map.Entry<String, AbstractPreferenceController> entry : entries) {
+            mUndisplayedControllers.remove(entry.getKey());
+            registerPendingController(entry.getValue());
+            if (screen != null) {
+                displayPendingController(entry.getKey(), entry.getValue(), screen);
+            }
+        }
+    }
+
+    private void registerPendingController(AbstractPreferenceController controller) {
+        mControllers.add(controller);
+        addPreferenceController(controller);
+        if (getView() != null) {
+            controller.onViewCreated(getViewLifecycleOwner());
+        }
+    }
+
+    private void displayPendingController(String key, AbstractPreferenceController controller,
+            PreferenceScreen screen) {
+        final Preference preference = screen.findPreference(key);
+        if (preference != null && mHiddenPendingPreferenceKeys.remove(key)) {
+            preference.setVisible(true);
+        }
+        controller.displayPreference(screen);
+        if (preference != null) {
+            preference.getExtras().putInt(CATEGORY, getMetricsCategory());
+            if (controller.isAvailable()) {
+                controller.updateState(preference);
+            }
+        }
     }
 
     /**
@@ -380,9 +612,10 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     }
 
     /**
-     * Get current PreferenceController(s)
+     * Get current PreferenceController(s), constructing the described ones not needed so far.
      */
     protected Collection<List<AbstractPreferenceController>> getPreferenceControllers() {
+        createAllPendingControllers();
         return mPreferenceControllers.values();
     }
 
@@ -391,11 +624,20 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      */
     protected void updatePreferenceStates() {
         final PreferenceScreen screen = getPreferenceScreen();
+        final String page = getClass().getSimpleName();
         Collection<List<AbstractPreferenceController>> controllerLists =
                 mPreferenceControllers.values();
         for (List<AbstractPreferenceController> controllerList : controllerLists) {
             for (AbstractPreferenceController controller : controllerList) {
-                if (!controller.isAvailable()) {
+                final String controllerName = controller.getClass().getSimpleName();
+                long span = mTracer.begin(page, PageRenderTracer.PHASE_IS_AVAILABLE);
+                final boolean available;
+                try {
+                    available = controller.isAvailable();
+                } finally {
+                    mTracer.end(page, PageRenderTracer.PHASE_IS_AVAILABLE, controllerName, span);
+                }
+                if (!available) {
                     continue;
                 }
 
@@ -412,7 +654,12 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                             key, controller.getClass().getSimpleName()));
                     continue;
                 }
-                controller.updateState(preference);
+                span = mTracer.begin(page, PageRenderTracer.PHASE_UPDATE_STATE);
+                try {
+                    controller.updateState(preference);
+                } finally {
+                    mTracer.end(page, PageRenderTracer.PHASE_UPDATE_STATE, controllerName, span);
+                }
             }
         }
     }
@@ -499,6 +746,16 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      * Refresh preference items backed by DashboardCategory.
      */
     private void refreshDashboardTiles(final String tag) {
+        final String page = getClass().getSimpleName();
+        final long span = mTracer.begin(page, PageRenderTracer.PHASE_REFRESH_TILES);
+        try {
+            refreshDashboardTilesInternal(tag, page);
+        } finally {
+            mTracer.end(page, PageRenderTracer.PHASE_REFRESH_TILES, span);
+        }
+    }
+
+    private void refreshDashboardTilesInternal(final String tag, final String page) {
         final PreferenceScreen screen = getPreferenceScreen();
 
         final DashboardCategory category =
@@ -522,57 +779,64 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         // Move group tiles to the beginning of the list to ensure they are created before the
         // other tiles.
         tiles.sort(Comparator.comparingInt(tile -> tile.getType() == Tile.Type.GROUP ? 0 : 1));
-        for (Tile tile : tiles) {
-            final String key = mDashboardFeatureProvider.getDashboardKeyForTile(tile);
-            if (TextUtils.isEmpty(key)) {
-                Log.d(tag, "tile does not contain a key, skipping " + tile);
-                continue;
-            }
-            if (!displayTile(tile)) {
-                continue;
-            }
-            final List<DynamicDataObserver> observers;
-            if (mDashboardTilePrefKeys.containsKey(key)) {
-                // Have the key already, will rebind.
-                final Preference preference = screen.findPreference(key);
-                observers = mDashboardFeatureProvider.bindPreferenceToTileAndGetObservers(
-                        getActivity(), this, forceRoundedIcons, preference, tile, key,
-                        mPlaceholderPreferenceController.getOrder());
-            } else {
-                // Don't have this key, add it.
-                final Preference pref = createPreference(tile);
-                observers = mDashboardFeatureProvider.bindPreferenceToTileAndGetObservers(
-                        getActivity(), this, forceRoundedIcons, pref, tile, key,
-                        mPlaceholderPreferenceController.getOrder());
-                if (Flags.dynamicInjectionCategory()) {
-                    if (tile.hasGroupKey()) {
-                        Preference group = screen.findPreference(tile.getGroupKey());
-                        if (group instanceof PreferenceCategory) {
-                            ((PreferenceCategory) group).addPreference(pref);
+        // Hold back the dynamic data requests of the tiles so that they reach each provider in
+        // one call.
+        mDashboardFeatureProvider.deferDynamicDataRequests();
+        try {
+            for (Tile tile : tiles) {
+                final String key = mDashboardFeatureProvider.getDashboardKeyForTile(tile);
+                if (TextUtils.isEmpty(key)) {
+                    Log.d(tag, "tile does not contain a key, skipping " + tile);
+                    continue;
+                }
+                if (!displayTile(tile)) {
+                    continue;
+                }
+                final List<DynamicDataObserver> observers;
+                if (mDashboardTilePrefKeys.containsKey(key)) {
+                    // Have the key already, will rebind.
+                    final Preference preference = screen.findPreference(key);
+                    observers = mDashboardFeatureProvider.bindPreferenceToTileAndGetObservers(
+                            getActivity(), this, forceRoundedIcons, preference, tile, key,
+                            mPlaceholderPreferenceController.getOrder());
+                } else {
+                    // Don't have this key, add it.
+                    final Preference pref = createPreference(tile);
+                    observers = mDashboardFeatureProvider.bindPreferenceToTileAndGetObservers(
+                            getActivity(), this, forceRoundedIcons, pref, tile, key,
+                            mPlaceholderPreferenceController.getOrder());
+                    if (Flags.dynamicInjectionCategory()) {
+                        if (tile.hasGroupKey()) {
+                            Preference group = screen.findPreference(tile.getGroupKey());
+                            if (group instanceof PreferenceCategory) {
+                                ((PreferenceCategory) group).addPreference(pref);
+                            } else {
+                                screen.addPreference(pref);
+                            }
                         } else {
                             screen.addPreference(pref);
                         }
                     } else {
-                        screen.addPreference(pref);
-                    }
-                } else {
-                    if (tile.hasGroupKey()
-                            && mDashboardTilePrefKeys.containsKey(tile.getGroupKey())) {
-                        Preference group = screen.findPreference(tile.getGroupKey());
-                        if (group instanceof PreferenceCategory) {
-                            ((PreferenceCategory) group).addPreference(pref);
+                        if (tile.hasGroupKey()
+                                && mDashboardTilePrefKeys.containsKey(tile.getGroupKey())) {
+                            Preference group = screen.findPreference(tile.getGroupKey());
+                            if (group instanceof PreferenceCategory) {
+                                ((PreferenceCategory) group).addPreference(pref);
+                            }
+                        } else {
+                            screen.addPreference(pref);
                         }
-                    } else {
-                        screen.addPreference(pref);
                     }
+                    registerDynamicDataObservers(observers);
+                    mDashboardTilePrefKeys.put(key, observers);
                 }
-                registerDynamicDataObservers(observers);
-                mDashboardTilePrefKeys.put(key, observers);
-            }
-            if (observers != null) {
-                pendingObservers.addAll(observers);
+                if (observers != null) {
+                    pendingObservers.addAll(observers);
+                }
+                remove.remove(key);
             }
-            remove.remove(key);
+        } finally {
+            mDashboardFeatureProvider.flushDynamicDataRequests();
         }
 
         // Remove tiles that are gone.
@@ -599,7 +863,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 mainLatch.countDown();
             }).start();
             Log.d(tag, "Start waiting observers");
+            final long span = mTracer.begin(page, PageRenderTracer.PHASE_OBSERVER_WAIT);
             awaitObserverLatch(mainLatch);
+            mTracer.end(page, PageRenderTracer.PHASE_OBSERVER_WAIT, span);
             Log.d(tag, "Stop waiting observers");
             pendingObservers.forEach(DynamicDataObserver::updateUi);
         }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.Context;
+
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import java.util.function.Function;
+
+/**
+ * Describes a {@link AbstractPreferenceController} that {@link DashboardFragment} only constructs
+ * once its preference is about to be shown, or once the fragment needs it, instead of when the
+ * fragment is attached.
+ *
+ * <p>The preference key must be the one the controller returns from
+ * {@link AbstractPreferenceController#getPreferenceKey()}. Controllers that block the UI, observe
+ * the lifecycle or listen to callbacks dispatched by the fragment itself must not be described
+ * this way, since they would miss events sent before they are constructed.
+ *
+ * @param <T> the type of the described controller
+ */
+public final class PreferenceControllerDescriptor<T extends AbstractPreferenceController> {
+
+    private final String mPreferenceKey;
+    private final Class<T> mControllerClass;
+    private final Function<Context, T> mFactory;
+
+    private PreferenceControllerDescriptor(String preferenceKey, Class<T> controllerClass,
+            Function<Context, T> factory) {
+        mPreferenceKey = preferenceKey;
+        mControllerClass = controllerClass;
+        mFactory = factory;
+    }
+
+    /** Creates the descriptor of a controller built by {@code factory}. */
+    public static <T extends AbstractPreferenceController> PreferenceControllerDescriptor<T> of(
+            String preferenceKey, Class<T> controllerClass, Function<Context, T> factory) {
+        return new PreferenceControllerDescriptor<>(preferenceKey, controllerClass, factory);
+    }
+
+    public String getPreferenceKey() {
+        return mPreferenceKey;
+    }
+
+    public Class<T> getControllerClass() {
+        return mControllerClass;
+    }
+
+    /** Constructs a new instance of the described controller. */
+    public T create(Context context) {
+        return mFactory.apply(context);
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settingslib.drawer.TileUtils.EXTRA_PREFERENCE_ICON_PACKAGE;
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_ICON;
+
+import android.content.Context;
+import android.content.IContentProvider;
+import android.net.Uri;
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.Pair;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.drawer.TileUtils;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads the dynamic title, summary, switch state and icon of injected tiles.
+ *
+ * <p>Requests made between {@link #deferRequests()} and {@link #flushRequests()} are loaded in one
+ * background task per provider authority, with a single {@link #METHOD_GET_DYNAMIC_DATA_BATCH}
+ * call. Providers that do not answer that call are queried uri by uri through {@link TileUtils}
+ * as before, and are not asked to batch again. A uri missing from a batched reply is queried on
+ * its own. The last value of each uri is kept so a preference can be bound with it while the fresh
+ * value is loading.
+ */
+class TileDynamicDataLoader {
+
+    private static final String TAG = "TileDynamicDataLoader";
+
+    /**
+     * Provider method answering several dynamic data uris at once. The uris are passed as a
+     * string list in {@link #EXTRA_URIS}, and the reply maps each uri string to the bundle the
+     * provider returns when that uri is called on its own.
+     */
+    @VisibleForTesting
+    static final String METHOD_GET_DYNAMIC_DATA_BATCH = "getDynamicDataBatch";
+    @VisibleForTesting
+    static final String EXTRA_URIS = "com.android.settings.extra.DYNAMIC_DATA_URIS";
+
+    private static final int CACHE_SIZE = 128;
+
+    private final Context mContext;
+    private final LruCache<String, Object> mCache = new LruCache<>(CACHE_SIZE);
+    private final Set<String> mUnsupportedAuthorities = new ArraySet<>();
+    private final List<Request<?>> mPendingRequests = new ArrayList<>();
+    private int mDeferDepth;
+
+    TileDynamicDataLoader(Context context) {
+        mContext = context;
+    }
+
+    /** Holds back requests until the matching {@link #flushRequests()}. */
+    synchronized void deferRequests() {
+        mDeferDepth++;
+    }
+
+    /** Loads the requests held back since the outermost {@link #deferRequests()}. */
+    void flushRequests() {
+        final List<Request<?>> requests;
+        synchronized (this) {
+            if (mDeferDepth == 0 || --mDeferDepth > 0) {
+                return;
+            }
+            requests = new ArrayList<>(mPendingRequests);
+            mPendingRequests.clear();
+        }
+        dispatch(requests);
+    }
+
+    /** Returns the last value loaded for the uri, or {@code null} if there is none. */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    <T> T getCachedValue(Uri uri) {
+        return (T) mCache.get(uri.toString());
+    }
+
+    /** Loads the text stored under {@code key}, and passes it to the callback. */
+    void loadText(Uri uri, String key, Consumer<String> callback) {
+        enqueue(new Request<>(uri,
+                bundle -> bundle != null ? bundle.getString(key) : null,
+                providerMap -> TileUtils.getTextFromUri(mContext, uri, providerMap, key),
+                callback));
+    }
+
+    /** Loads the boolean stored under {@code key}, and passes it to the callback. */
+    void loadBoolean(Uri uri, String key, Consumer<Boolean> callback) {
+        enqueue(new Request<>(uri,
+                bundle -> bundle != null && bundle.getBoolean(key),
+                providerMap -> TileUtils.getBooleanFromUri(mContext, uri, providerMap, key),
+                callback));
+    }
+
+    /** Loads the icon package and resource id, and passes them to the callback. */
+    void loadIcon(Uri uri, String packageName, Consumer<Pair<String, Integer>> callback) {
+        enqueue(new Request<>(uri,
+                bundle -> parseIcon(bundle, packageName),
+                providerMap -> TileUtils.getIconFromUri(mContext, packageName, uri, providerMap),
+                callback));
+    }
+
+    private void enqueue(Request<?> request) {
+        synchronized (this) {
+            if (mDeferDepth > 0) {
+                mPendingRequests.add(request);
+                return;
+            }
+        }
+        dispatch(List.of(request));
+    }
+
+    private void dispatch(List<Request<?>> requests) {
+        final Map<String, List<Request<?>>> requestsByAuthority = new ArrayMap<>();
+        for (Request<?> request : requests) {
+            requestsByAuthority.computeIfAbsent(request.mUri.getAuthority(),
+                    authority -> new ArrayList<>()).add(request);
+        }
+        // One task per provider, so a slow provider does not hold back the others.
+        for (Map.Entry<String, List<Request<?>>> entry : requestsByAuthority.entrySet()) {
+            ThreadUtils.postOnBackgroundThread(() -> load(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void load(String authority, List<Request<?>> requests) {
+        final Map<String, IContentProvider> providerMap = new ArrayMap<>();
+        final Bundle reply = requests.size() > 1 ? callBatch(authority, requests) : null;
+        for (Request<?> request : requests) {
+            final String key = request.mUri.toString();
+            if (reply == null) {
+                complete(request, request.mFetcher.apply(providerMap));
+            } else if (reply.containsKey(key)) {
+                complete(request, request.mParser.apply(reply.getBundle(key)));
+            } else {
+                // The provider left this uri out of its reply, query it on its own.
+                complete(request, request.mFetcher.apply(providerMap));
+            }
+        }
+    }
+
+    @Nullable
+    private Bundle callBatch(String authority, List<Request<?>> requests) {
+        if (TextUtils.isEmpty(authority) || isUnsupported(authority)) {
+            return null;
+        }
+        final ArrayList<String> uris = new ArrayList<>(requests.size());
+        for (Request<?> request : requests) {
+            uris.add(request.mUri.toString());
+        }
+        final Bundle extras = new Bundle();
+        extras.putStringArrayList(EXTRA_URIS, uris);
+        Bundle reply = null;
+        try {
+            reply = mContext.getContentResolver().call(authority, METHOD_GET_DYNAMIC_DATA_BATCH,
+                    null /* arg */, extras);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Batch call not supported by " + authority, e);
+        }
+        if (reply == null) {
+            synchronized (mUnsupportedAuthorities) {
+                mUnsupportedAuthorities.add(authority);
+            }
+        }
+        return reply;
+    }
+
+    private boolean isUnsupported(String authority) {
+        synchronized (mUnsupportedAuthorities) {
+            return mUnsupportedAuthorities.contains(authority);
+        }
+    }
+
+    private <T> void complete(Request<T> request, Object value) {
+        @SuppressWarnings("unchecked")
+        final T result = (T) value;
+        final String key = request.mUri.toString();
+        if (result != null) {
+            mCache.put(key, result);
+        } else {
+            mCache.remove(key);
+        }
+        request.mCallback.accept(result);
+    }
+
+    /** Mirrors {@link TileUtils#getIconFromUri} for a bundle from a batched reply. */
+    @Nullable
+    private Pair<String, Integer> parseIcon(@Nullable Bundle bundle, String packageName) {
+        if (bundle == null) {
+            return null;
+        }
+        final String iconPackageName = bundle.getString(EXTRA_PREFERENCE_ICON_PACKAGE);
+        if (TextUtils.isEmpty(iconPackageName)) {
+            return null;
+        }
+        final int resId = bundle.getInt(META_DATA_PREFERENCE_ICON, 0);
+        if (resId == 0) {
+            return null;
+        }
+        // Icon can either come from the target package or from the Settings app.
+        if (iconPackageName.equals(packageName)
+                || iconPackageName.equals(mContext.getPackageName())) {
+            return Pair.create(iconPackageName, resId);
+        }
+        return null;
+    }
+
+    private static final class Request<T> {
+        final Uri mUri;
+        final Function<Bundle, T> mParser;
+        final Function<Map<String, IContentProvider>, T> mFetcher;
+        final Consumer<T> mCallback;
+
+        Request(Uri uri, Function<Bundle, T> parser,
+                Function<Map<String, IContentProvider>, T> fetcher, Consumer<T> callback) {
+            mUri = uri;
+            mParser = parser;
+            mFetcher = fetcher;
+            mCallback = callback;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage.lib
+
+import android.net.NetworkTemplate
+import android.os.SystemClock
+import androidx.annotation.VisibleForTesting
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * In-process cache of the [android.app.usage.NetworkStatsManager] queries made by
+ * [NetworkStatsRepository], so that the data usage summary, list, chart and app pages of the same
+ * [NetworkTemplate] share the device totals and per-UID buckets of each cycle instead of querying
+ * them again on every page and cycle switch.
+ *
+ * A result is kept for [MAX_AGE]. Since results are keyed by time range, a policy change which
+ * moves the cycles does not reuse the results of the previous cycles, so nothing needs to drop
+ * the results before they expire.
+ */
+object NetworkStatsCache {
+    private val MAX_AGE = 30.seconds
+
+    private const val MAX_ENTRIES = 64
+
+    private data class Key(
+        val template: NetworkTemplate,
+        val query: String,
+        val startTime: Long,
+        val endTime: Long,
+        val uid: Int,
+        val state: Int,
+    )
+
+    private class Entry(val value: Any?, val loadTime: Long)
+
+    private val entries = object : LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry>?) =
+            size > MAX_ENTRIES
+    }
+
+    /**
+     * Returns the cached result of the query, or loads and caches it. A failed load is not cached.
+     */
+    fun <T> getOrLoad(
+        template: NetworkTemplate,
+        query: String,
+        startTime: Long,
+        endTime: Long,
+        uid: Int = 0,
+        state: Int = 0,
+        load: () -> T,
+    ): T {
+        val key = Key(template, query, startTime, endTime, uid, state)
+        synchronized(entries) {
+            val entry = entries[key]
+            if (entry != null && !entry.isExpired()) {
+                @Suppress("UNCHECKED_CAST")
+                return entry.value as T
+            }
+        }
+        val value = load()
+        synchronized(entries) {
+            entries[key] = Entry(value, SystemClock.elapsedRealtime())
+        }
+        return value
+    }
+
+    /** Drops the cached results of the template, or of all templates if it is null. */
+    @VisibleForTesting
+    fun invalidate(template: NetworkTemplate? = null) {
+        synchronized(entries) {
+            if (template == null) {
+                entries.clear()
+            } else {
+                entries.keys.removeAll { it.template == template }
+            }
+        }
+    }
+
+    private fun Entry.isExpired() =
+        SystemClock.elapsedRealtime() - loadTime >= MAX_AGE.inWholeMilliseconds
+}
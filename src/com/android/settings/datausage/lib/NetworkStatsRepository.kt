@@ -23,6 +23,10 @@ import android.net.NetworkTemplate
 import android.util.Log
 import android.util.Range
 
+/**
+ * Queries [NetworkStatsManager] for the [template]. Results are shared through [NetworkStatsCache]
+ * with the other repositories of the same template.
+ */
 class NetworkStatsRepository(context: Context, private val template: NetworkTemplate) {
     private val networkStatsManager = context.getSystemService(NetworkStatsManager::class.java)!!
 
@@ -31,17 +35,25 @@ class NetworkStatsRepository(context: Context, private val template: NetworkTemp
         uid: Int,
         state: Int = NetworkStats.Bucket.STATE_ALL,
     ): NetworkUsageData? = try {
-        networkStatsManager.queryDetailsForUidTagState(
-            template, range.lower, range.upper, uid, NetworkStats.Bucket.TAG_NONE, state,
-        ).convertToBuckets().aggregate()
+        NetworkStatsCache.getOrLoad(
+            template, QUERY_AGGREGATE_FOR_UID, range.lower, range.upper, uid, state,
+        ) {
+            networkStatsManager.queryDetailsForUidTagState(
+                template, range.lower, range.upper, uid, NetworkStats.Bucket.TAG_NONE, state,
+            ).convertToBuckets().aggregate()
+        }
     } catch (e: Exception) {
         Log.e(TAG, "Exception queryDetailsForUidTagState", e)
         null
     }
 
     fun queryDetailsForDevice(): List<Bucket> = try {
-        networkStatsManager.queryDetailsForDevice(template, Long.MIN_VALUE, Long.MAX_VALUE)
-            .convertToBuckets()
+        NetworkStatsCache.getOrLoad(
+            template, QUERY_DETAILS_FOR_DEVICE, Long.MIN_VALUE, Long.MAX_VALUE,
+        ) {
+            networkStatsManager.queryDetailsForDevice(template, Long.MIN_VALUE, Long.MAX_VALUE)
+                .convertToBuckets()
+        }
     } catch (e: Exception) {
         Log.e(TAG, "Exception queryDetailsForDevice", e)
         emptyList()
@@ -50,14 +62,18 @@ class NetworkStatsRepository(context: Context, private val template: NetworkTemp
     fun getTimeRange(): Range<Long>? = queryDetailsForDevice().aggregate()?.timeRange
 
     fun querySummaryForDevice(startTime: Long, endTime: Long): Long = try {
-        networkStatsManager.querySummaryForDevice(template, startTime, endTime).bytes
+        NetworkStatsCache.getOrLoad(template, QUERY_SUMMARY_FOR_DEVICE, startTime, endTime) {
+            networkStatsManager.querySummaryForDevice(template, startTime, endTime).bytes
+        }
     } catch (e: Exception) {
         Log.e(TAG, "Exception querySummaryForDevice", e)
         0
     }
 
     fun queryBuckets(startTime: Long, endTime: Long): List<Bucket> = try {
-        networkStatsManager.querySummary(template, startTime, endTime).convertToBuckets()
+        NetworkStatsCache.getOrLoad(template, QUERY_SUMMARY, startTime, endTime) {
+            networkStatsManager.querySummary(template, startTime, endTime).convertToBuckets()
+        }
     } catch (e: Exception) {
         Log.e(TAG, "Exception querySummary", e)
         emptyList()
@@ -66,6 +82,11 @@ class NetworkStatsRepository(context: Context, private val template: NetworkTemp
     companion object {
         private const val TAG = "NetworkStatsRepository"
 
+        private const val QUERY_AGGREGATE_FOR_UID = "queryDetailsForUidTagState"
+        private const val QUERY_DETAILS_FOR_DEVICE = "queryDetailsForDevice"
+        private const val QUERY_SUMMARY_FOR_DEVICE = "querySummaryForDevice"
+        private const val QUERY_SUMMARY = "querySummary"
+
         val AllTimeRange = Range(Long.MIN_VALUE, Long.MAX_VALUE)
 
         data class Bucket(
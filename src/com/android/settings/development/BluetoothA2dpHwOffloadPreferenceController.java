@@ -19,7 +19,6 @@ package com.android.settings.development;
 import static com.android.settings.development.BluetoothLeAudioHwOffloadPreferenceController.LE_AUDIO_OFFLOAD_DISABLED_PROPERTY;
 
 import android.content.Context;
-import android.os.SystemProperties;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
@@ -63,10 +62,10 @@ public class BluetoothA2dpHwOffloadPreferenceController extends DeveloperOptions
     public void updateState(Preference preference) {
         super.updateState(preference);
         final boolean offloadSupported =
-                SystemProperties.getBoolean(A2DP_OFFLOAD_SUPPORTED_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_SUPPORTED_PROPERTY, false);
         if (offloadSupported) {
             final boolean offloadDisabled =
-                    SystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
+                    DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
             ((TwoStatePreference) mPreference).setChecked(offloadDisabled);
         } else {
             mPreference.setEnabled(false);
@@ -78,18 +77,18 @@ public class BluetoothA2dpHwOffloadPreferenceController extends DeveloperOptions
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
         final boolean offloadSupported =
-                SystemProperties.getBoolean(A2DP_OFFLOAD_SUPPORTED_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_SUPPORTED_PROPERTY, false);
         if (offloadSupported) {
             ((TwoStatePreference) mPreference).setChecked(false);
-            SystemProperties.set(A2DP_OFFLOAD_DISABLED_PROPERTY, "false");
+            DevelopmentSystemProperties.set(A2DP_OFFLOAD_DISABLED_PROPERTY, "false");
         }
     }
 
     public boolean isDefaultValue() {
         final boolean offloadSupported =
-                SystemProperties.getBoolean(A2DP_OFFLOAD_SUPPORTED_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_SUPPORTED_PROPERTY, false);
         final boolean offloadDisabled =
-                    SystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
+                    DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
         return offloadSupported ? !offloadDisabled : true;
     }
 
@@ -101,10 +100,11 @@ public class BluetoothA2dpHwOffloadPreferenceController extends DeveloperOptions
             return;
         }
         final boolean offloadDisabled =
-                SystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
-        SystemProperties.set(A2DP_OFFLOAD_DISABLED_PROPERTY, Boolean.toString(!offloadDisabled));
+                DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
+        DevelopmentSystemProperties.set(A2DP_OFFLOAD_DISABLED_PROPERTY,
+                Boolean.toString(!offloadDisabled));
         if (!offloadDisabled) {
-            SystemProperties.set(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY,
+            DevelopmentSystemProperties.set(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY,
                     Boolean.toString(!offloadDisabled));
         }
     }
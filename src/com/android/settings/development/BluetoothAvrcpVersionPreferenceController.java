@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.text.TextUtils;
 
 import androidx.annotation.VisibleForTesting;
@@ -54,7 +53,7 @@ public class BluetoothAvrcpVersionPreferenceController extends DeveloperOptionsP
 
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
-        SystemProperties.set(BLUETOOTH_AVRCP_VERSION_PROPERTY, newValue.toString());
+        DevelopmentSystemProperties.set(BLUETOOTH_AVRCP_VERSION_PROPERTY, newValue.toString());
         updateState(mPreference);
         return true;
     }
@@ -62,7 +61,8 @@ public class BluetoothAvrcpVersionPreferenceController extends DeveloperOptionsP
     @Override
     public void updateState(Preference preference) {
         final ListPreference listPreference = (ListPreference) preference;
-        final String currentValue = SystemProperties.get(BLUETOOTH_AVRCP_VERSION_PROPERTY);
+        final String currentValue =
+                DevelopmentSystemProperties.get(BLUETOOTH_AVRCP_VERSION_PROPERTY);
         int index = 0; // Defaults to AVRCP 1.5
         for (int i = 0; i < mListValues.length; i++) {
             if (TextUtils.equals(currentValue, mListValues[i])) {
@@ -20,7 +20,6 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothStatusCodes;
 import android.content.Context;
-import android.os.SystemProperties;
 import android.sysprop.BluetoothProperties;
 
 import androidx.annotation.VisibleForTesting;
@@ -53,7 +52,8 @@ public class BluetoothLeAudioAllowListPreferenceController
         super(context);
         mBluetoothAdapter = context.getSystemService(BluetoothManager.class).getAdapter();
         mLeAudioConnectionByDefault =
-                SystemProperties.getBoolean(LE_AUDIO_CONNECTION_BY_DEFAULT_PROPERTY, true);
+                DevelopmentSystemProperties.getBoolean(LE_AUDIO_CONNECTION_BY_DEFAULT_PROPERTY,
+                        true);
     }
 
     @Override
@@ -70,7 +70,7 @@ public class BluetoothLeAudioAllowListPreferenceController
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
         final boolean isBypassed = (Boolean) newValue;
-        SystemProperties.set(BYPASS_LE_AUDIO_ALLOWLIST_PROPERTY,
+        DevelopmentSystemProperties.set(BYPASS_LE_AUDIO_ALLOWLIST_PROPERTY,
                 isBypassed ? "true" : "false");
         return true;
     }
@@ -92,7 +92,7 @@ public class BluetoothLeAudioAllowListPreferenceController
 
         mPreference.setEnabled(true);
         final boolean isLeAudioAllowlistBypassed =
-                SystemProperties.getBoolean(BYPASS_LE_AUDIO_ALLOWLIST_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(BYPASS_LE_AUDIO_ALLOWLIST_PROPERTY, false);
         ((TwoStatePreference) mPreference).setChecked(isLeAudioAllowlistBypassed);
     }
 
@@ -100,9 +100,10 @@ public class BluetoothLeAudioAllowListPreferenceController
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
         final boolean isBypassed =
-                SystemProperties.getBoolean(BYPASS_LE_AUDIO_ALLOWLIST_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(BYPASS_LE_AUDIO_ALLOWLIST_PROPERTY, false);
         if (isBypassed) {
-            SystemProperties.set(BYPASS_LE_AUDIO_ALLOWLIST_PROPERTY, Boolean.toString(false));
+            DevelopmentSystemProperties.set(BYPASS_LE_AUDIO_ALLOWLIST_PROPERTY,
+                    Boolean.toString(false));
             ((TwoStatePreference) mPreference).setChecked(false);
         }
     }
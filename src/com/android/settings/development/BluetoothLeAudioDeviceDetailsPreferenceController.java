@@ -20,7 +20,6 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothStatusCodes;
 import android.content.Context;
-import android.os.SystemProperties;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
@@ -54,7 +53,8 @@ public class BluetoothLeAudioDeviceDetailsPreferenceController
         super(context);
         mBluetoothAdapter = context.getSystemService(BluetoothManager.class).getAdapter();
         mLeAudioEnabledByDefault =
-                SystemProperties.getBoolean(LE_AUDIO_CONNECTION_BY_DEFAULT_PROPERTY, true);
+                DevelopmentSystemProperties.getBoolean(LE_AUDIO_CONNECTION_BY_DEFAULT_PROPERTY,
+                        true);
     }
 
     @Override
@@ -80,7 +80,8 @@ public class BluetoothLeAudioDeviceDetailsPreferenceController
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
         final boolean isEnabled = (Boolean) newValue;
-        SystemProperties.set(LE_AUDIO_TOGGLE_VISIBLE_PROPERTY, Boolean.toString(isEnabled));
+        DevelopmentSystemProperties.set(LE_AUDIO_TOGGLE_VISIBLE_PROPERTY,
+                Boolean.toString(isEnabled));
         return true;
     }
 
@@ -90,7 +91,7 @@ public class BluetoothLeAudioDeviceDetailsPreferenceController
             return;
         }
 
-        final boolean isLeAudioToggleVisible = SystemProperties.getBoolean(
+        final boolean isLeAudioToggleVisible = DevelopmentSystemProperties.getBoolean(
                 LE_AUDIO_TOGGLE_VISIBLE_PROPERTY, LE_AUDIO_TOGGLE_VISIBLE_DEFAULT_VALUE);
 
         ((TwoStatePreference) mPreference).setChecked(isLeAudioToggleVisible);
@@ -22,7 +22,6 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothStatusCodes;
 import android.content.Context;
-import android.os.SystemProperties;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
@@ -81,12 +80,13 @@ public class BluetoothLeAudioHwOffloadPreferenceController
         final boolean leAudioEnabled =
                 (mBluetoothAdapter.isLeAudioSupported() == BluetoothStatusCodes.FEATURE_SUPPORTED);
         final boolean leAudioOffloadSupported =
-                SystemProperties.getBoolean(LE_AUDIO_OFFLOAD_SUPPORTED_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(LE_AUDIO_OFFLOAD_SUPPORTED_PROPERTY, false);
         final boolean a2dpOffloadDisabled =
-                SystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
         if (leAudioEnabled && leAudioOffloadSupported && !a2dpOffloadDisabled) {
             final boolean offloadDisabled =
-                    SystemProperties.getBoolean(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY, true);
+                    DevelopmentSystemProperties.getBoolean(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY,
+                            true);
             ((TwoStatePreference) mPreference).setChecked(offloadDisabled);
         } else {
             mPreference.setEnabled(false);
@@ -104,12 +104,12 @@ public class BluetoothLeAudioHwOffloadPreferenceController
         final boolean leAudioEnabled =
                 (mBluetoothAdapter.isLeAudioSupported() == BluetoothStatusCodes.FEATURE_SUPPORTED);
         final boolean leAudioOffloadSupported =
-                SystemProperties.getBoolean(LE_AUDIO_OFFLOAD_SUPPORTED_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(LE_AUDIO_OFFLOAD_SUPPORTED_PROPERTY, false);
         final boolean a2dpOffloadDisabled =
-                SystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false);
         if (leAudioEnabled && leAudioOffloadSupported && !a2dpOffloadDisabled) {
             ((TwoStatePreference) mPreference).setChecked(true);
-            SystemProperties.set(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY, "true");
+            DevelopmentSystemProperties.set(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY, "true");
         } else {
             mPreference.setEnabled(false);
         }
@@ -120,10 +120,12 @@ public class BluetoothLeAudioHwOffloadPreferenceController
      */
     public boolean isDefaultValue() {
         final boolean offloadSupported =
-                !SystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false)
-                && SystemProperties.getBoolean(LE_AUDIO_OFFLOAD_SUPPORTED_PROPERTY, false);
+                !DevelopmentSystemProperties.getBoolean(A2DP_OFFLOAD_DISABLED_PROPERTY, false)
+                && DevelopmentSystemProperties.getBoolean(LE_AUDIO_OFFLOAD_SUPPORTED_PROPERTY,
+                        false);
         final boolean offloadDisabled =
-                    SystemProperties.getBoolean(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY, false);
+                    DevelopmentSystemProperties.getBoolean(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY,
+                            false);
         return offloadSupported ? offloadDisabled : true;
     }
 
@@ -136,9 +138,9 @@ public class BluetoothLeAudioHwOffloadPreferenceController
         }
 
         final boolean leaudioOffloadDisabled =
-                SystemProperties.getBoolean(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY,
+                DevelopmentSystemProperties.getBoolean(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY,
                 false);
-        SystemProperties.set(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY,
+        DevelopmentSystemProperties.set(LE_AUDIO_OFFLOAD_DISABLED_PROPERTY,
                 Boolean.toString(!leaudioOffloadDisabled));
     }
 
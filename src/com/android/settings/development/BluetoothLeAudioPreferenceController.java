@@ -20,7 +20,6 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothStatusCodes;
 import android.content.Context;
-import android.os.SystemProperties;
 import android.sysprop.BluetoothProperties;
 
 import androidx.annotation.Nullable;
@@ -86,7 +85,7 @@ public class BluetoothLeAudioPreferenceController
         }
 
         final boolean leAudioSwitchSupported =
-                SystemProperties.getBoolean(LE_AUDIO_DYNAMIC_SWITCH_PROPERTY, false);
+                DevelopmentSystemProperties.getBoolean(LE_AUDIO_DYNAMIC_SWITCH_PROPERTY, false);
 
         final int isLeAudioSupportedStatus = mBluetoothAdapter.isLeAudioSupported();
         final boolean leAudioEnabled =
@@ -111,7 +110,7 @@ public class BluetoothLeAudioPreferenceController
 
         final boolean leAudioDisabled =
                 (mBluetoothAdapter.isLeAudioSupported() != BluetoothStatusCodes.FEATURE_SUPPORTED);
-        SystemProperties.set(LE_AUDIO_SWITCHER_DISABLED_PROPERTY,
+        DevelopmentSystemProperties.set(LE_AUDIO_SWITCHER_DISABLED_PROPERTY,
                 Boolean.toString(!leAudioDisabled));
     }
 
@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.text.TextUtils;
 
 import androidx.annotation.VisibleForTesting;
@@ -57,7 +56,7 @@ public class BluetoothMapVersionPreferenceController extends DeveloperOptionsPre
 
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
-        SystemProperties.set(BLUETOOTH_MAP_VERSION_PROPERTY, newValue.toString());
+        DevelopmentSystemProperties.set(BLUETOOTH_MAP_VERSION_PROPERTY, newValue.toString());
         updateState(mPreference);
         return true;
     }
@@ -65,7 +64,7 @@ public class BluetoothMapVersionPreferenceController extends DeveloperOptionsPre
     @Override
     public void updateState(Preference preference) {
         final ListPreference listPreference = (ListPreference) preference;
-        final String currentValue = SystemProperties.get(BLUETOOTH_MAP_VERSION_PROPERTY);
+        final String currentValue = DevelopmentSystemProperties.get(BLUETOOTH_MAP_VERSION_PROPERTY);
         int index = 0; // Defaults to MAP 1.2
         for (int i = 0; i < mListValues.length; i++) {
             if (TextUtils.equals(currentValue, mListValues[i])) {
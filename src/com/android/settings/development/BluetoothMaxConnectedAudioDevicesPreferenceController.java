@@ -18,7 +18,6 @@ package com.android.settings.development;
 
 import android.bluetooth.BluetoothManager;
 import android.content.Context;
-import android.os.SystemProperties;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.ListPreference;
@@ -72,7 +71,7 @@ public class BluetoothMaxConnectedAudioDevicesPreferenceController extends
             // Reset property value when default is chosen or when value is illegal
             newValueString = "";
         }
-        SystemProperties.set(MAX_CONNECTED_AUDIO_DEVICES_PROPERTY, newValueString);
+        DevelopmentSystemProperties.set(MAX_CONNECTED_AUDIO_DEVICES_PROPERTY, newValueString);
         updateState(preference);
         return true;
     }
@@ -81,13 +80,14 @@ public class BluetoothMaxConnectedAudioDevicesPreferenceController extends
     public void updateState(Preference preference) {
         final ListPreference listPreference = (ListPreference) preference;
         final CharSequence[] entries = listPreference.getEntries();
-        final String currentValue = SystemProperties.get(MAX_CONNECTED_AUDIO_DEVICES_PROPERTY);
+        final String currentValue =
+                DevelopmentSystemProperties.get(MAX_CONNECTED_AUDIO_DEVICES_PROPERTY);
         int index = 0;
         if (!currentValue.isEmpty()) {
             index = listPreference.findIndexOfValue(currentValue);
             if (index < 0) {
                 // Reset property value when value is illegal
-                SystemProperties.set(MAX_CONNECTED_AUDIO_DEVICES_PROPERTY, "");
+                DevelopmentSystemProperties.set(MAX_CONNECTED_AUDIO_DEVICES_PROPERTY, "");
                 index = 0;
             }
         }
@@ -104,7 +104,7 @@ public class BluetoothMaxConnectedAudioDevicesPreferenceController extends
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
-        SystemProperties.set(MAX_CONNECTED_AUDIO_DEVICES_PROPERTY, "");
+        DevelopmentSystemProperties.set(MAX_CONNECTED_AUDIO_DEVICES_PROPERTY, "");
         updateState(mPreference);
     }
 }
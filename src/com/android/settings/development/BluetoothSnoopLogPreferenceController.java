@@ -18,7 +18,6 @@ package com.android.settings.development;
 
 import android.content.Context;
 import android.os.Build;
-import android.os.SystemProperties;
 import android.provider.Settings;
 import android.text.TextUtils;
 
@@ -82,7 +81,7 @@ public class BluetoothSnoopLogPreferenceController extends DeveloperOptionsPrefe
 
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
-        SystemProperties.set(BLUETOOTH_BTSNOOP_LOG_MODE_PROPERTY, newValue.toString());
+        DevelopmentSystemProperties.set(BLUETOOTH_BTSNOOP_LOG_MODE_PROPERTY, newValue.toString());
         updateState(mPreference);
         if (mFragment != null) {
             mFragment.onSettingChanged();
@@ -93,7 +92,8 @@ public class BluetoothSnoopLogPreferenceController extends DeveloperOptionsPrefe
     @Override
     public void updateState(Preference preference) {
         final ListPreference listPreference = (ListPreference) preference;
-        final String currentValue = SystemProperties.get(BLUETOOTH_BTSNOOP_LOG_MODE_PROPERTY);
+        final String currentValue =
+                DevelopmentSystemProperties.get(BLUETOOTH_BTSNOOP_LOG_MODE_PROPERTY);
 
         int index = getDefaultModeIndex();
         for (int i = 0; i < mListValues.length; i++) {
@@ -109,7 +109,7 @@ public class BluetoothSnoopLogPreferenceController extends DeveloperOptionsPrefe
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
-        SystemProperties.set(BLUETOOTH_BTSNOOP_LOG_MODE_PROPERTY, null);
+        DevelopmentSystemProperties.set(BLUETOOTH_BTSNOOP_LOG_MODE_PROPERTY, null);
         ((ListPreference) mPreference).setValue(mListValues[getDefaultModeIndex()]);
         ((ListPreference) mPreference).setSummary(mListEntries[getDefaultModeIndex()]);
     }
@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.text.TextUtils;
 
 import androidx.annotation.VisibleForTesting;
@@ -65,7 +64,7 @@ public class CameraLaserSensorPreferenceController extends DeveloperOptionsPrefe
     public boolean onPreferenceChange(Preference preference, Object newValue) {
         final boolean isEnabled = (Boolean) newValue;
         String value = Integer.toString(isEnabled ? ENABLED : DISABLED);
-        SystemProperties.set(PROPERTY_CAMERA_LASER_SENSOR, value);
+        DevelopmentSystemProperties.set(PROPERTY_CAMERA_LASER_SENSOR, value);
         return true;
     }
 
@@ -80,7 +79,7 @@ public class CameraLaserSensorPreferenceController extends DeveloperOptionsPrefe
     // settings switch is turned on or off!
 
     private boolean isLaserSensorEnabled() {
-        final String prop = SystemProperties.get(PROPERTY_CAMERA_LASER_SENSOR,
+        final String prop = DevelopmentSystemProperties.get(PROPERTY_CAMERA_LASER_SENSOR,
                 Integer.toString(ENABLED));
         return TextUtils.equals(Integer.toString(ENABLED), prop);
     }
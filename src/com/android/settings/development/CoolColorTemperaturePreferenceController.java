@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.widget.Toast;
 
 import androidx.annotation.VisibleForTesting;
@@ -54,7 +53,7 @@ public class CoolColorTemperaturePreferenceController extends DeveloperOptionsPr
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
         final boolean isColorTemperatureEnabled = (Boolean) newValue;
-        SystemProperties.set(COLOR_TEMPERATURE_PROPERTY,
+        DevelopmentSystemProperties.set(COLOR_TEMPERATURE_PROPERTY,
                 Boolean.toString(isColorTemperatureEnabled));
         SystemPropPoker.getInstance().poke();
         displayColorTemperatureToast();
@@ -63,7 +62,7 @@ public class CoolColorTemperaturePreferenceController extends DeveloperOptionsPr
 
     @Override
     public void updateState(Preference preference) {
-        final boolean enableColorTemperature = SystemProperties.getBoolean(
+        final boolean enableColorTemperature = DevelopmentSystemProperties.getBoolean(
                 COLOR_TEMPERATURE_PROPERTY, false /* default */);
         ((TwoStatePreference) mPreference).setChecked(enableColorTemperature);
     }
@@ -71,7 +70,7 @@ public class CoolColorTemperaturePreferenceController extends DeveloperOptionsPr
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
-        SystemProperties.set(COLOR_TEMPERATURE_PROPERTY, Boolean.toString(false));
+        DevelopmentSystemProperties.set(COLOR_TEMPERATURE_PROPERTY, Boolean.toString(false));
         ((TwoStatePreference) mPreference).setChecked(false);
     }
 
@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.text.TextUtils;
 import android.view.ThreadedRenderer;
 
@@ -64,13 +63,13 @@ public class DebugNonRectClipOperationsPreferenceController extends
     }
 
     private void writeShowNonRectClipOptions(Object newValue) {
-        SystemProperties.set(ThreadedRenderer.DEBUG_SHOW_NON_RECTANGULAR_CLIP_PROPERTY,
+        DevelopmentSystemProperties.set(ThreadedRenderer.DEBUG_SHOW_NON_RECTANGULAR_CLIP_PROPERTY,
                 newValue == null ? "" : newValue.toString());
         SystemPropPoker.getInstance().poke();
     }
 
     private void updateShowNonRectClipOptions() {
-        final String value = SystemProperties.get(
+        final String value = DevelopmentSystemProperties.get(
                 ThreadedRenderer.DEBUG_SHOW_NON_RECTANGULAR_CLIP_PROPERTY, "hide" /* default */);
 
         int index = 0; // default
@@ -57,6 +57,7 @@ import com.android.settings.R;
 import com.android.settings.SettingsActivity;
 import com.android.settings.Utils;
 import com.android.settings.core.SubSettingLauncher;
+import com.android.settings.dashboard.PreferenceControllerDescriptor;
 import com.android.settings.dashboard.RestrictedDashboardFragment;
 import com.android.settings.development.autofill.AutofillCategoryController;
 import com.android.settings.development.autofill.AutofillLoggingLevelPreferenceController;
@@ -575,6 +576,23 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         return mPreferenceControllers;
     }
 
+    @Override
+    protected List<PreferenceControllerDescriptor<?>> createPreferenceControllerDescriptors(
+            Context context) {
+        return Utils.isMonkeyRunning() ? null : CONTROLLER_DESCRIPTORS;
+    }
+
+    @Override
+    protected void updatePreferenceStates() {
+        // Controllers reading the same system property share a single read of it.
+        DevelopmentSystemProperties.startCaching();
+        try {
+            super.updatePreferenceStates();
+        } finally {
+            DevelopmentSystemProperties.stopCaching();
+        }
+    }
+
     private void registerReceivers() {
         LocalBroadcastManager.getInstance(getContext())
                 .registerReceiver(mEnableAdbReceiver, new IntentFilter(
@@ -595,7 +613,7 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
             return;
         }
         DevelopmentSettingsEnabler.setDevelopmentSettingsEnabled(getContext(), true);
-        for (AbstractPreferenceController controller : mPreferenceControllers) {
+        for (AbstractPreferenceController controller : getAllPreferenceControllers()) {
             if (controller instanceof DeveloperOptionsPreferenceController) {
                 ((DeveloperOptionsPreferenceController) controller).onDeveloperOptionsEnabled();
             }
@@ -618,7 +636,7 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         DevelopmentSettingsEnabler.setDevelopmentSettingsEnabled(getContext(), false);
         final SystemPropPoker poker = SystemPropPoker.getInstance();
         poker.blockPokes();
-        for (AbstractPreferenceController controller : mPreferenceControllers) {
+        for (AbstractPreferenceController controller : getAllPreferenceControllers()) {
             if (controller instanceof DeveloperOptionsPreferenceController) {
                 ((DeveloperOptionsPreferenceController) controller)
                         .onDeveloperOptionsDisabled();
@@ -628,6 +646,16 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         poker.poke();
     }
 
+    /**
+     * Returns every controller of the page, including the ones described by
+     * {@link #CONTROLLER_DESCRIPTORS} that were not needed so far.
+     */
+    private List<AbstractPreferenceController> getAllPreferenceControllers() {
+        final List<AbstractPreferenceController> controllers = new ArrayList<>();
+        getPreferenceControllers().forEach(controllers::addAll);
+        return controllers;
+    }
+
     void onEnableDevelopmentOptionsConfirmed() {
         enableDeveloperOptions();
     }
@@ -646,123 +674,294 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
         mSwitchBar.setChecked(true);
     }
 
+    /**
+     * Controllers that only need a {@link Context}, constructed once their preference is about to
+     * be shown instead of when the page is opened. Controllers listening to callbacks dispatched
+     * by this fragment stay in {@link #buildPreferenceControllers}.
+     */
+    @VisibleForTesting
+    static final List<PreferenceControllerDescriptor<?>> CONTROLLER_DESCRIPTORS = List.of(
+            PreferenceControllerDescriptor.of("memory",
+                    MemoryUsagePreferenceController.class, MemoryUsagePreferenceController::new),
+            PreferenceControllerDescriptor.of("bugreport",
+                    BugReportPreferenceController.class, BugReportPreferenceController::new),
+            PreferenceControllerDescriptor.of("bug_report_handler",
+                    BugReportHandlerPreferenceController.class,
+                    BugReportHandlerPreferenceController::new),
+            PreferenceControllerDescriptor.of("system_server_heap_dump",
+                    SystemServerHeapDumpPreferenceController.class,
+                    SystemServerHeapDumpPreferenceController::new),
+            PreferenceControllerDescriptor.of("development_memtag_page",
+                    DevelopmentMemtagPagePreferenceController.class,
+                    DevelopmentMemtagPagePreferenceController::new),
+            PreferenceControllerDescriptor.of("local_backup_password",
+                    LocalBackupPasswordPreferenceController.class,
+                    LocalBackupPasswordPreferenceController::new),
+            PreferenceControllerDescriptor.of("hdcp_checking",
+                    HdcpCheckingPreferenceController.class, HdcpCheckingPreferenceController::new),
+            PreferenceControllerDescriptor.of("bt_stack_log_level",
+                    BluetoothStackLogPreferenceController.class,
+                    BluetoothStackLogPreferenceController::new),
+            PreferenceControllerDescriptor.of("bt_hci_snoop_log_filter_pbap",
+                    BluetoothSnoopLogFilterProfilePbapPreferenceController.class,
+                    BluetoothSnoopLogFilterProfilePbapPreferenceController::new),
+            PreferenceControllerDescriptor.of("bt_hci_snoop_log_filter_map",
+                    BluetoothSnoopLogFilterProfileMapPreferenceController.class,
+                    BluetoothSnoopLogFilterProfileMapPreferenceController::new),
+            PreferenceControllerDescriptor.of("select_webview_provider",
+                    WebViewAppPreferenceController.class, WebViewAppPreferenceController::new),
+            PreferenceControllerDescriptor.of("color_temperature",
+                    CoolColorTemperaturePreferenceController.class,
+                    CoolColorTemperaturePreferenceController::new),
+            PreferenceControllerDescriptor.of("ota_disable_automatic_update",
+                    DisableAutomaticUpdatesPreferenceController.class,
+                    DisableAutomaticUpdatesPreferenceController::new),
+            PreferenceControllerDescriptor.of("dsu_loader",
+                    SelectDSUPreferenceController.class, SelectDSUPreferenceController::new),
+            PreferenceControllerDescriptor.of("adb_authorization_timeout",
+                    AdbAuthorizationTimeoutPreferenceController.class,
+                    AdbAuthorizationTimeoutPreferenceController::new),
+            PreferenceControllerDescriptor.of("enable_terminal",
+                    LocalTerminalPreferenceController.class,
+                    LocalTerminalPreferenceController::new),
+            PreferenceControllerDescriptor.of("bugreport_in_power",
+                    BugReportInPowerPreferenceController.class,
+                    BugReportInPowerPreferenceController::new),
+            PreferenceControllerDescriptor.of("automatic_system_server_heap_dumps",
+                    AutomaticSystemServerHeapDumpPreferenceController.class,
+                    AutomaticSystemServerHeapDumpPreferenceController::new),
+            PreferenceControllerDescriptor.of("allow_mock_modem",
+                    MockModemPreferenceController.class, MockModemPreferenceController::new),
+            PreferenceControllerDescriptor.of("debug_view_attributes",
+                    DebugViewAttributesPreferenceController.class,
+                    DebugViewAttributesPreferenceController::new),
+            PreferenceControllerDescriptor.of("enable_gpu_debug_layers",
+                    EnableGpuDebugLayersPreferenceController.class,
+                    EnableGpuDebugLayersPreferenceController::new),
+            PreferenceControllerDescriptor.of("pref_key_peak_refresh_rate",
+                    ForcePeakRefreshRatePreferenceController.class,
+                    ForcePeakRefreshRatePreferenceController::new),
+            PreferenceControllerDescriptor.of("enable_verbose_vendor_logging",
+                    EnableVerboseVendorLoggingPreferenceController.class,
+                    EnableVerboseVendorLoggingPreferenceController::new),
+            PreferenceControllerDescriptor.of("art_verifier_for_debuggable",
+                    ArtVerifierPreferenceController.class, ArtVerifierPreferenceController::new),
+            PreferenceControllerDescriptor.of("camera_laser_sensor_switch",
+                    CameraLaserSensorPreferenceController.class,
+                    CameraLaserSensorPreferenceController::new),
+            PreferenceControllerDescriptor.of("wifi_display_certification",
+                    WifiDisplayCertificationPreferenceController.class,
+                    WifiDisplayCertificationPreferenceController::new),
+            PreferenceControllerDescriptor.of("wifi_verbose_logging",
+                    WifiVerboseLoggingPreferenceController.class,
+                    WifiVerboseLoggingPreferenceController::new),
+            PreferenceControllerDescriptor.of("wifi_scan_throttling",
+                    WifiScanThrottlingPreferenceController.class,
+                    WifiScanThrottlingPreferenceController::new),
+            PreferenceControllerDescriptor.of("wifi_non_persistent_mac_randomization",
+                    WifiNonPersistentMacRandomizationPreferenceController.class,
+                    WifiNonPersistentMacRandomizationPreferenceController::new),
+            PreferenceControllerDescriptor.of("mobile_data_always_on",
+                    MobileDataAlwaysOnPreferenceController.class,
+                    MobileDataAlwaysOnPreferenceController::new),
+            PreferenceControllerDescriptor.of("tethering_hardware_offload",
+                    TetheringHardwareAccelPreferenceController.class,
+                    TetheringHardwareAccelPreferenceController::new),
+            PreferenceControllerDescriptor.of("bluetooth_show_devices_without_names",
+                    BluetoothDeviceNoNamePreferenceController.class,
+                    BluetoothDeviceNoNamePreferenceController::new),
+            PreferenceControllerDescriptor.of("bluetooth_disable_absolute_volume",
+                    BluetoothAbsoluteVolumePreferenceController.class,
+                    BluetoothAbsoluteVolumePreferenceController::new),
+            PreferenceControllerDescriptor.of("bluetooth_select_avrcp_version",
+                    BluetoothAvrcpVersionPreferenceController.class,
+                    BluetoothAvrcpVersionPreferenceController::new),
+            PreferenceControllerDescriptor.of("bluetooth_select_map_version",
+                    BluetoothMapVersionPreferenceController.class,
+                    BluetoothMapVersionPreferenceController::new),
+            PreferenceControllerDescriptor.of("bluetooth_show_leaudio_device_details",
+                    BluetoothLeAudioDeviceDetailsPreferenceController.class,
+                    BluetoothLeAudioDeviceDetailsPreferenceController::new),
+            PreferenceControllerDescriptor.of("bluetooth_bypass_leaudio_allowlist",
+                    BluetoothLeAudioAllowListPreferenceController.class,
+                    BluetoothLeAudioAllowListPreferenceController::new),
+            PreferenceControllerDescriptor.of("bluetooth_max_connected_audio_devices",
+                    BluetoothMaxConnectedAudioDevicesPreferenceController.class,
+                    BluetoothMaxConnectedAudioDevicesPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_touches",
+                    ShowTapsPreferenceController.class, ShowTapsPreferenceController::new),
+            PreferenceControllerDescriptor.of("pointer_location",
+                    PointerLocationPreferenceController.class,
+                    PointerLocationPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_key_presses",
+                    ShowKeyPressesPreferenceController.class,
+                    ShowKeyPressesPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_screen_updates",
+                    ShowSurfaceUpdatesPreferenceController.class,
+                    ShowSurfaceUpdatesPreferenceController::new),
+            PreferenceControllerDescriptor.of("debug_layout",
+                    ShowLayoutBoundsPreferenceController.class,
+                    ShowLayoutBoundsPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_hdr_sdr_ratio",
+                    ShowHdrSdrRatioPreferenceController.class,
+                    ShowHdrSdrRatioPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_refresh_rate",
+                    ShowRefreshRatePreferenceController.class,
+                    ShowRefreshRatePreferenceController::new),
+            PreferenceControllerDescriptor.of("force_rtl_layout_all_locales",
+                    RtlLayoutPreferenceController.class, RtlLayoutPreferenceController::new),
+            PreferenceControllerDescriptor.of("window_animation_scale",
+                    WindowAnimationScalePreferenceController.class,
+                    WindowAnimationScalePreferenceController::new),
+            PreferenceControllerDescriptor.of("display_cutout_emulation",
+                    EmulateDisplayCutoutPreferenceController.class,
+                    EmulateDisplayCutoutPreferenceController::new),
+            PreferenceControllerDescriptor.of("transparent_navigation_bar",
+                    TransparentNavigationBarPreferenceController.class,
+                    TransparentNavigationBarPreferenceController::new),
+            PreferenceControllerDescriptor.of("transition_animation_scale",
+                    TransitionAnimationScalePreferenceController.class,
+                    TransitionAnimationScalePreferenceController::new),
+            PreferenceControllerDescriptor.of("animator_duration_scale",
+                    AnimatorDurationScalePreferenceController.class,
+                    AnimatorDurationScalePreferenceController::new),
+            PreferenceControllerDescriptor.of("overlay_display_devices",
+                    SecondaryDisplayPreferenceController.class,
+                    SecondaryDisplayPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_hw_screen_updates",
+                    GpuViewUpdatesPreferenceController.class,
+                    GpuViewUpdatesPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_hw_layers_updates",
+                    HardwareLayersUpdatesPreferenceController.class,
+                    HardwareLayersUpdatesPreferenceController::new),
+            PreferenceControllerDescriptor.of("debug_hw_overdraw",
+                    DebugGpuOverdrawPreferenceController.class,
+                    DebugGpuOverdrawPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_non_rect_clip",
+                    DebugNonRectClipOperationsPreferenceController.class,
+                    DebugNonRectClipOperationsPreferenceController::new),
+            PreferenceControllerDescriptor.of("disable_game_default_frame_rate",
+                    GameDefaultFrameRatePreferenceController.class,
+                    GameDefaultFrameRatePreferenceController::new),
+            PreferenceControllerDescriptor.of("hwui_force_dark",
+                    ForceDarkPreferenceController.class, ForceDarkPreferenceController::new),
+            PreferenceControllerDescriptor.of("enable_blurs_on_windows",
+                    EnableBlursPreferenceController.class, EnableBlursPreferenceController::new),
+            PreferenceControllerDescriptor.of("force_msaa",
+                    ForceMSAAPreferenceController.class, ForceMSAAPreferenceController::new),
+            PreferenceControllerDescriptor.of("disable_overlays",
+                    HardwareOverlaysPreferenceController.class,
+                    HardwareOverlaysPreferenceController::new),
+            PreferenceControllerDescriptor.of("simulate_color_space",
+                    SimulateColorSpacePreferenceController.class,
+                    SimulateColorSpacePreferenceController::new),
+            PreferenceControllerDescriptor.of("usb_audio",
+                    UsbAudioRoutingPreferenceController.class,
+                    UsbAudioRoutingPreferenceController::new),
+            PreferenceControllerDescriptor.of("strict_mode",
+                    StrictModePreferenceController.class, StrictModePreferenceController::new),
+            PreferenceControllerDescriptor.of("track_frame_time",
+                    ProfileGpuRenderingPreferenceController.class,
+                    ProfileGpuRenderingPreferenceController::new),
+            PreferenceControllerDescriptor.of("immediately_destroy_activities",
+                    KeepActivitiesPreferenceController.class,
+                    KeepActivitiesPreferenceController::new),
+            PreferenceControllerDescriptor.of("app_process_limit",
+                    BackgroundProcessLimitPreferenceController.class,
+                    BackgroundProcessLimitPreferenceController::new),
+            PreferenceControllerDescriptor.of("cached_apps_freezer",
+                    CachedAppsFreezerPreferenceController.class,
+                    CachedAppsFreezerPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_first_crash_dialog",
+                    ShowFirstCrashDialogPreferenceController.class,
+                    ShowFirstCrashDialogPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_all_anrs",
+                    AppsNotRespondingPreferenceController.class,
+                    AppsNotRespondingPreferenceController::new),
+            PreferenceControllerDescriptor.of("show_notification_channel_warnings",
+                    NotificationChannelWarningsPreferenceController.class,
+                    NotificationChannelWarningsPreferenceController::new),
+            PreferenceControllerDescriptor.of("force_allow_on_external",
+                    AllowAppsOnExternalPreferenceController.class,
+                    AllowAppsOnExternalPreferenceController::new),
+            PreferenceControllerDescriptor.of("force_resizable_activities",
+                    ResizableActivityPreferenceController.class,
+                    ResizableActivityPreferenceController::new),
+            PreferenceControllerDescriptor.of("enable_non_resizable_multi_window",
+                    NonResizableMultiWindowPreferenceController.class,
+                    NonResizableMultiWindowPreferenceController::new),
+            PreferenceControllerDescriptor.of("reset_shortcut_manager_throttling",
+                    ShortcutManagerThrottlingPreferenceController.class,
+                    ShortcutManagerThrottlingPreferenceController::new),
+            PreferenceControllerDescriptor.of("enable_gnss_raw_meas_full_tracking",
+                    EnableGnssRawMeasFullTrackingPreferenceController.class,
+                    EnableGnssRawMeasFullTrackingPreferenceController::new),
+            PreferenceControllerDescriptor.of("default_usb_configuration",
+                    DefaultUsbConfigurationPreferenceController.class,
+                    DefaultUsbConfigurationPreferenceController::new),
+            PreferenceControllerDescriptor.of("autofill_reset_developer_options",
+                    AutofillResetOptionsPreferenceController.class,
+                    AutofillResetOptionsPreferenceController::new),
+            PreferenceControllerDescriptor.of("shared_data",
+                    SharedDataPreferenceController.class, SharedDataPreferenceController::new),
+            PreferenceControllerDescriptor.of("overlay_settings",
+                    OverlaySettingsPreferenceController.class,
+                    OverlaySettingsPreferenceController::new),
+            PreferenceControllerDescriptor.of("stylus_handwriting",
+                    StylusHandwritingPreferenceController.class,
+                    StylusHandwritingPreferenceController::new),
+            PreferenceControllerDescriptor.of("ingress_rate_limit",
+                    IngressRateLimitPreferenceController.class,
+                    IngressRateLimitPreferenceController::new),
+            PreferenceControllerDescriptor.of("disable_phantom_process_monitor",
+                    PhantomProcessPreferenceController.class,
+                    PhantomProcessPreferenceController::new),
+            PreferenceControllerDescriptor.of("force_enable_notes_role",
+                    ForceEnableNotesRolePreferenceController.class,
+                    ForceEnableNotesRolePreferenceController::new),
+            PreferenceControllerDescriptor.of("grammatical_gender",
+                    GrammaticalGenderPreferenceController.class,
+                    GrammaticalGenderPreferenceController::new));
+
     private static List<AbstractPreferenceController> buildPreferenceControllers(Context context,
             @Nullable Activity activity, @Nullable Lifecycle lifecycle,
             @Nullable DevelopmentSettingsDashboardFragment fragment,
             @Nullable BluetoothA2dpConfigStore bluetoothA2dpConfigStore) {
         final List<AbstractPreferenceController> controllers = new ArrayList<>();
-        controllers.add(new MemoryUsagePreferenceController(context));
-        controllers.add(new BugReportPreferenceController(context));
-        controllers.add(new BugReportHandlerPreferenceController(context));
-        controllers.add(new SystemServerHeapDumpPreferenceController(context));
-        controllers.add(new DevelopmentMemtagPagePreferenceController(context));
-        controllers.add(new LocalBackupPasswordPreferenceController(context));
         controllers.add(new StayAwakePreferenceController(context, lifecycle));
-        controllers.add(new HdcpCheckingPreferenceController(context));
         controllers.add(new BluetoothSnoopLogPreferenceController(context, fragment));
-        controllers.add(new BluetoothStackLogPreferenceController(context));
         controllers.add(new DefaultLaunchPreferenceController(context,
                 "snoop_logger_filters_dashboard"));
-        controllers.add(new BluetoothSnoopLogFilterProfilePbapPreferenceController(context));
-        controllers.add(new BluetoothSnoopLogFilterProfileMapPreferenceController(context));
         controllers.add(new OemUnlockPreferenceController(context, activity, fragment));
         controllers.add(new Enable16kPagesPreferenceController(context, fragment));
         controllers.add(new PictureColorModePreferenceController(context, lifecycle));
-        controllers.add(new WebViewAppPreferenceController(context));
-        controllers.add(new CoolColorTemperaturePreferenceController(context));
-        controllers.add(new DisableAutomaticUpdatesPreferenceController(context));
-        controllers.add(new SelectDSUPreferenceController(context));
         controllers.add(new AdbPreferenceController(context, fragment));
         controllers.add(new ClearAdbKeysPreferenceController(context, fragment));
         controllers.add(new WirelessDebuggingPreferenceController(context, lifecycle));
-        controllers.add(new AdbAuthorizationTimeoutPreferenceController(context));
-        controllers.add(new LocalTerminalPreferenceController(context));
-        controllers.add(new BugReportInPowerPreferenceController(context));
-        controllers.add(new AutomaticSystemServerHeapDumpPreferenceController(context));
         controllers.add(new MockLocationAppPreferenceController(context, fragment));
-        controllers.add(new MockModemPreferenceController(context));
-        controllers.add(new DebugViewAttributesPreferenceController(context));
         controllers.add(new SelectDebugAppPreferenceController(context, fragment));
         controllers.add(new WaitForDebuggerPreferenceController(context));
-        controllers.add(new EnableGpuDebugLayersPreferenceController(context));
         controllers.add(new GraphicsDriverEnableAngleAsSystemDriverController(context, fragment));
-        controllers.add(new ForcePeakRefreshRatePreferenceController(context));
-        controllers.add(new EnableVerboseVendorLoggingPreferenceController(context));
         controllers.add(new VerifyAppsOverUsbPreferenceController(context));
-        controllers.add(new ArtVerifierPreferenceController(context));
         controllers.add(new LogdSizePreferenceController(context));
         controllers.add(new LogPersistPreferenceController(context, fragment, lifecycle));
-        controllers.add(new CameraLaserSensorPreferenceController(context));
-        controllers.add(new WifiDisplayCertificationPreferenceController(context));
-        controllers.add(new WifiVerboseLoggingPreferenceController(context));
-        controllers.add(new WifiScanThrottlingPreferenceController(context));
-        controllers.add(new WifiNonPersistentMacRandomizationPreferenceController(context));
-        controllers.add(new MobileDataAlwaysOnPreferenceController(context));
-        controllers.add(new TetheringHardwareAccelPreferenceController(context));
-        controllers.add(new BluetoothDeviceNoNamePreferenceController(context));
-        controllers.add(new BluetoothAbsoluteVolumePreferenceController(context));
-        controllers.add(new BluetoothAvrcpVersionPreferenceController(context));
-        controllers.add(new BluetoothMapVersionPreferenceController(context));
         controllers.add(new BluetoothLeAudioPreferenceController(context, fragment));
         controllers.add(new BluetoothLeAudioModePreferenceController(context, fragment));
-        controllers.add(new BluetoothLeAudioDeviceDetailsPreferenceController(context));
-        controllers.add(new BluetoothLeAudioAllowListPreferenceController(context));
         controllers.add(new BluetoothA2dpHwOffloadPreferenceController(context, fragment));
         controllers.add(new BluetoothLeAudioHwOffloadPreferenceController(context, fragment));
-        controllers.add(new BluetoothMaxConnectedAudioDevicesPreferenceController(context));
         controllers.add(new NfcSnoopLogPreferenceController(context, fragment));
         controllers.add(new NfcVerboseVendorLogPreferenceController(context, fragment));
-        controllers.add(new ShowTapsPreferenceController(context));
-        controllers.add(new PointerLocationPreferenceController(context));
-        controllers.add(new ShowKeyPressesPreferenceController(context));
-        controllers.add(new ShowSurfaceUpdatesPreferenceController(context));
-        controllers.add(new ShowLayoutBoundsPreferenceController(context));
-        controllers.add(new ShowHdrSdrRatioPreferenceController(context));
-        controllers.add(new ShowRefreshRatePreferenceController(context));
-        controllers.add(new RtlLayoutPreferenceController(context));
-        controllers.add(new WindowAnimationScalePreferenceController(context));
-        controllers.add(new EmulateDisplayCutoutPreferenceController(context));
-        controllers.add(new TransparentNavigationBarPreferenceController(context));
-        controllers.add(new TransitionAnimationScalePreferenceController(context));
-        controllers.add(new AnimatorDurationScalePreferenceController(context));
-        controllers.add(new SecondaryDisplayPreferenceController(context));
-        controllers.add(new GpuViewUpdatesPreferenceController(context));
-        controllers.add(new HardwareLayersUpdatesPreferenceController(context));
-        controllers.add(new DebugGpuOverdrawPreferenceController(context));
-        controllers.add(new DebugNonRectClipOperationsPreferenceController(context));
-        controllers.add(new GameDefaultFrameRatePreferenceController(context));
-        controllers.add(new ForceDarkPreferenceController(context));
-        controllers.add(new EnableBlursPreferenceController(context));
-        controllers.add(new ForceMSAAPreferenceController(context));
-        controllers.add(new HardwareOverlaysPreferenceController(context));
-        controllers.add(new SimulateColorSpacePreferenceController(context));
-        controllers.add(new UsbAudioRoutingPreferenceController(context));
-        controllers.add(new StrictModePreferenceController(context));
-        controllers.add(new ProfileGpuRenderingPreferenceController(context));
-        controllers.add(new KeepActivitiesPreferenceController(context));
-        controllers.add(new BackgroundProcessLimitPreferenceController(context));
-        controllers.add(new CachedAppsFreezerPreferenceController(context));
-        controllers.add(new ShowFirstCrashDialogPreferenceController(context));
-        controllers.add(new AppsNotRespondingPreferenceController(context));
-        controllers.add(new NotificationChannelWarningsPreferenceController(context));
-        controllers.add(new AllowAppsOnExternalPreferenceController(context));
-        controllers.add(new ResizableActivityPreferenceController(context));
         controllers.add(new FreeformWindowsPreferenceController(context, fragment));
         controllers.add(new DesktopModePreferenceController(context, fragment));
-        controllers.add(new NonResizableMultiWindowPreferenceController(context));
-        controllers.add(new ShortcutManagerThrottlingPreferenceController(context));
-        controllers.add(new EnableGnssRawMeasFullTrackingPreferenceController(context));
         controllers.add(new DefaultLaunchPreferenceController(context, "running_apps"));
         controllers.add(new DefaultLaunchPreferenceController(context, "demo_mode"));
         controllers.add(new DefaultLaunchPreferenceController(context, "quick_settings_tiles"));
         controllers.add(new DefaultLaunchPreferenceController(context, "feature_flags_dashboard"));
-        controllers.add(new DefaultUsbConfigurationPreferenceController(context));
         controllers.add(new DefaultLaunchPreferenceController(context, "density"));
         controllers.add(new DefaultLaunchPreferenceController(context, "background_check"));
         controllers.add(new DefaultLaunchPreferenceController(context, "inactive_apps"));
         controllers.add(new AutofillCategoryController(context, lifecycle));
         controllers.add(new AutofillLoggingLevelPreferenceController(context, lifecycle));
-        controllers.add(new AutofillResetOptionsPreferenceController(context));
         controllers.add(new BluetoothCodecDialogPreferenceController(context, lifecycle,
                 bluetoothA2dpConfigStore, fragment));
         controllers.add(
@@ -778,14 +977,7 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                 bluetoothA2dpConfigStore));
         controllers.add(new BluetoothHDAudioPreferenceController(context, lifecycle,
                 bluetoothA2dpConfigStore, fragment));
-        controllers.add(new SharedDataPreferenceController(context));
-        controllers.add(new OverlaySettingsPreferenceController(context));
-        controllers.add(new StylusHandwritingPreferenceController(context));
-        controllers.add(new IngressRateLimitPreferenceController((context)));
         controllers.add(new BackAnimationPreferenceController(context, fragment));
-        controllers.add(new PhantomProcessPreferenceController(context));
-        controllers.add(new ForceEnableNotesRolePreferenceController(context));
-        controllers.add(new GrammaticalGenderPreferenceController(context));
         controllers.add(new SensitiveContentProtectionPreferenceController(context));
 
         return controllers;
@@ -834,9 +1026,14 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                 @Override
                 public List<AbstractPreferenceController> createPreferenceControllers(Context
                         context) {
-                    return buildPreferenceControllers(context, null /* activity */,
-                            null /* lifecycle */, null /* devOptionsDashboardFragment */,
-                            null /* bluetoothA2dpConfigStore */);
+                    final List<AbstractPreferenceController> controllers =
+                            buildPreferenceControllers(context, null /* activity */,
+                                    null /* lifecycle */, null /* devOptionsDashboardFragment */,
+                                    null /* bluetoothA2dpConfigStore */);
+                    for (PreferenceControllerDescriptor<?> descriptor : CONTROLLER_DESCRIPTORS) {
+                        controllers.add(descriptor.create(context));
+                    }
+                    return controllers;
                 }
             };
 }
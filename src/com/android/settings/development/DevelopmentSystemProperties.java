@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import android.os.SystemProperties;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Map;
+
+/**
+ * {@link SystemProperties} accessors for the developer options controllers.
+ *
+ * <p>Between {@link #startCaching()} and {@link #stopCaching()}, e.g. while
+ * {@link DevelopmentSettingsDashboardFragment} refreshes all of its preferences, each property is
+ * only read once and its value is shared by every controller reading it, unless it is written
+ * through {@link #set(String, String)}. Otherwise the properties are read directly.
+ */
+public final class DevelopmentSystemProperties {
+
+    private static final Object sLock = new Object();
+    private static final Map<String, String> sValues = new ArrayMap<>();
+    private static int sCachingClients;
+
+    private DevelopmentSystemProperties() {
+    }
+
+    /** Same as {@link SystemProperties#get(String)}. */
+    public static String get(String key) {
+        synchronized (sLock) {
+            if (sCachingClients == 0) {
+                return SystemProperties.get(key);
+            }
+            String value = sValues.get(key);
+            if (value == null) {
+                value = SystemProperties.get(key);
+                sValues.put(key, value);
+            }
+            return value;
+        }
+    }
+
+    /** Same as {@link SystemProperties#get(String, String)}. */
+    public static String get(String key, String def) {
+        final String value = get(key);
+        return TextUtils.isEmpty(value) ? def : value;
+    }
+
+    /** Same as {@link SystemProperties#getInt(String, int)}. */
+    public static int getInt(String key, int def) {
+        try {
+            return Integer.parseInt(get(key));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    /** Same as {@link SystemProperties#getBoolean(String, boolean)}. */
+    public static boolean getBoolean(String key, boolean def) {
+        switch (get(key)) {
+            case "1":
+            case "y":
+            case "yes":
+            case "on":
+            case "true":
+                return true;
+            case "0":
+            case "n":
+            case "no":
+            case "off":
+            case "false":
+                return false;
+            default:
+                return def;
+        }
+    }
+
+    /** Same as {@link SystemProperties#set(String, String)}, dropping the shared value. */
+    public static void set(String key, String value) {
+        SystemProperties.set(key, value);
+        synchronized (sLock) {
+            sValues.remove(key);
+        }
+    }
+
+    /** Shares the values read until the matching {@link #stopCaching()} call. */
+    static void startCaching() {
+        synchronized (sLock) {
+            sCachingClients++;
+        }
+    }
+
+    static void stopCaching() {
+        synchronized (sLock) {
+            if (sCachingClients > 0 && --sCachingClients == 0) {
+                sValues.clear();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static int getCachedValueCount() {
+        synchronized (sLock) {
+            return sValues.size();
+        }
+    }
+}
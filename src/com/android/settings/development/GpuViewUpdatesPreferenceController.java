@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.view.ThreadedRenderer;
 
 import androidx.preference.Preference;
@@ -44,7 +43,7 @@ public class GpuViewUpdatesPreferenceController extends DeveloperOptionsPreferen
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
         final boolean isEnabled = (Boolean) newValue;
-        SystemProperties.set(ThreadedRenderer.DEBUG_DIRTY_REGIONS_PROPERTY,
+        DevelopmentSystemProperties.set(ThreadedRenderer.DEBUG_DIRTY_REGIONS_PROPERTY,
                 isEnabled ? "true" : null);
         SystemPropPoker.getInstance().poke();
         return true;
@@ -52,7 +51,7 @@ public class GpuViewUpdatesPreferenceController extends DeveloperOptionsPreferen
 
     @Override
     public void updateState(Preference preference) {
-        final boolean isEnabled = SystemProperties.getBoolean(
+        final boolean isEnabled = DevelopmentSystemProperties.getBoolean(
                 ThreadedRenderer.DEBUG_DIRTY_REGIONS_PROPERTY, false /* default */);
         ((TwoStatePreference) mPreference).setChecked(isEnabled);
     }
@@ -60,7 +59,7 @@ public class GpuViewUpdatesPreferenceController extends DeveloperOptionsPreferen
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
-        SystemProperties.set(ThreadedRenderer.DEBUG_DIRTY_REGIONS_PROPERTY, null);
+        DevelopmentSystemProperties.set(ThreadedRenderer.DEBUG_DIRTY_REGIONS_PROPERTY, null);
         ((TwoStatePreference) mPreference).setChecked(false);
     }
 }
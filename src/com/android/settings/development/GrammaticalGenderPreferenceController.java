@@ -21,7 +21,6 @@ import android.app.IActivityManager;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.os.RemoteException;
-import android.os.SystemProperties;
 import android.text.TextUtils;
 
 import androidx.annotation.VisibleForTesting;
@@ -69,9 +68,9 @@ public class GrammaticalGenderPreferenceController extends DeveloperOptionsPrefe
 
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
-        final var oldValue = SystemProperties.getInt(GRAMMATICAL_GENDER_PROPERTY,
+        final var oldValue = DevelopmentSystemProperties.getInt(GRAMMATICAL_GENDER_PROPERTY,
                 Configuration.GRAMMATICAL_GENDER_NOT_SPECIFIED);
-        SystemProperties.set(GRAMMATICAL_GENDER_PROPERTY, newValue.toString());
+        DevelopmentSystemProperties.set(GRAMMATICAL_GENDER_PROPERTY, newValue.toString());
         updateState(mPreference);
         try {
             Configuration config = mActivityManager.getConfiguration();
@@ -91,7 +90,7 @@ public class GrammaticalGenderPreferenceController extends DeveloperOptionsPrefe
     @Override
     public void updateState(Preference preference) {
         final ListPreference listPreference = (ListPreference) preference;
-        final String currentValue = SystemProperties.get(GRAMMATICAL_GENDER_PROPERTY);
+        final String currentValue = DevelopmentSystemProperties.get(GRAMMATICAL_GENDER_PROPERTY);
         int index = 0; // Defaults to Not Selected
         for (int i = 0; i < mListValues.length; i++) {
             if (TextUtils.equals(currentValue, mListValues[i])) {
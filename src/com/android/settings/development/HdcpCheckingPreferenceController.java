@@ -18,7 +18,6 @@ package com.android.settings.development;
 
 import android.content.Context;
 import android.os.Build;
-import android.os.SystemProperties;
 import android.text.TextUtils;
 
 import androidx.annotation.VisibleForTesting;
@@ -62,7 +61,7 @@ public class HdcpCheckingPreferenceController extends DeveloperOptionsPreference
 
     @Override
     public boolean onPreferenceChange(Preference preference, Object newValue) {
-        SystemProperties.set(HDCP_CHECKING_PROPERTY, newValue.toString());
+        DevelopmentSystemProperties.set(HDCP_CHECKING_PROPERTY, newValue.toString());
         updateHdcpValues((ListPreference) mPreference);
         SystemPropPoker.getInstance().poke();
         return true;
@@ -74,7 +73,7 @@ public class HdcpCheckingPreferenceController extends DeveloperOptionsPreference
     }
 
     private void updateHdcpValues(ListPreference preference) {
-        final String currentValue = SystemProperties.get(HDCP_CHECKING_PROPERTY);
+        final String currentValue = DevelopmentSystemProperties.get(HDCP_CHECKING_PROPERTY);
         int index = 1; // Defaults to drm-only. Needs to match with R.array.hdcp_checking_values
         for (int i = 0; i < mListValues.length; i++) {
             if (TextUtils.equals(currentValue, mListValues[i])) {
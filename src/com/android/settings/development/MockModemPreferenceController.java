@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -54,7 +53,7 @@ public class MockModemPreferenceController extends
     public boolean onPreferenceChange(Preference preference, Object newValue) {
         final boolean isEnabled = (Boolean) newValue;
         try {
-            SystemProperties.set(ALLOW_MOCK_MODEM_PROPERTY,
+            DevelopmentSystemProperties.set(ALLOW_MOCK_MODEM_PROPERTY,
                     isEnabled ? "true" : "false");
         } catch (RuntimeException e) {
             Log.e(TAG, "Fail to set radio system property: " + e.getMessage());
@@ -65,7 +64,7 @@ public class MockModemPreferenceController extends
     @Override
     public void updateState(Preference preference) {
         try {
-            final boolean isEnabled = SystemProperties.getBoolean(
+            final boolean isEnabled = DevelopmentSystemProperties.getBoolean(
                     ALLOW_MOCK_MODEM_PROPERTY, false /* default */);
             ((TwoStatePreference) mPreference).setChecked(isEnabled);
         } catch (RuntimeException e) {
@@ -77,7 +76,7 @@ public class MockModemPreferenceController extends
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
         try {
-            SystemProperties.set(ALLOW_MOCK_MODEM_PROPERTY, "false");
+            DevelopmentSystemProperties.set(ALLOW_MOCK_MODEM_PROPERTY, "false");
             ((TwoStatePreference) mPreference).setChecked(false);
         } catch (RuntimeException e) {
             Log.e(TAG, "Fail to set radio system property: " + e.getMessage());
@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
@@ -69,7 +68,8 @@ public class NfcSnoopLogPreferenceController extends
     @Override
     public void updateState(Preference preference) {
         try {
-            final String currentValue = SystemProperties.get(NFC_NFCSNOOP_LOG_MODE_PROPERTY);
+            final String currentValue =
+                    DevelopmentSystemProperties.get(NFC_NFCSNOOP_LOG_MODE_PROPERTY);
             ((TwoStatePreference) mPreference).setChecked(currentValue.equals(NFCSNOOP_MODE_FULL));
         } catch (RuntimeException e) {
             Log.e(TAG, "Fail to get nfc system property: " + e.getMessage());
@@ -80,7 +80,7 @@ public class NfcSnoopLogPreferenceController extends
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
         try {
-            SystemProperties.set(NFC_NFCSNOOP_LOG_MODE_PROPERTY, NFCSNOOP_MODE_FILTERED);
+            DevelopmentSystemProperties.set(NFC_NFCSNOOP_LOG_MODE_PROPERTY, NFCSNOOP_MODE_FILTERED);
             ((TwoStatePreference) mPreference).setChecked(false);
         } catch (RuntimeException e) {
             Log.e(TAG, "Fail to set nfc system property: " + e.getMessage());
@@ -92,7 +92,8 @@ public class NfcSnoopLogPreferenceController extends
      */
     public boolean isDefaultValue() {
         try {
-            final String currentValue = SystemProperties.get(NFC_NFCSNOOP_LOG_MODE_PROPERTY);
+            final String currentValue =
+                    DevelopmentSystemProperties.get(NFC_NFCSNOOP_LOG_MODE_PROPERTY);
             return !currentValue.equals(NFCSNOOP_MODE_FULL);
         } catch (RuntimeException e) {
             Log.e(TAG, "Fail to get nfc system property: " + e.getMessage());
@@ -109,11 +110,13 @@ public class NfcSnoopLogPreferenceController extends
         }
         try {
             final String currentValue =
-                    SystemProperties.get(NFC_NFCSNOOP_LOG_MODE_PROPERTY, NFCSNOOP_MODE_FILTERED);
+                    DevelopmentSystemProperties.get(NFC_NFCSNOOP_LOG_MODE_PROPERTY,
+                            NFCSNOOP_MODE_FILTERED);
             if (currentValue.equals(NFCSNOOP_MODE_FILTERED)) {
-                SystemProperties.set(NFC_NFCSNOOP_LOG_MODE_PROPERTY, NFCSNOOP_MODE_FULL);
+                DevelopmentSystemProperties.set(NFC_NFCSNOOP_LOG_MODE_PROPERTY, NFCSNOOP_MODE_FULL);
             } else {
-                SystemProperties.set(NFC_NFCSNOOP_LOG_MODE_PROPERTY, NFCSNOOP_MODE_FILTERED);
+                DevelopmentSystemProperties.set(NFC_NFCSNOOP_LOG_MODE_PROPERTY,
+                        NFCSNOOP_MODE_FILTERED);
             }
         } catch (RuntimeException e) {
             Log.e(TAG, "Fail to set nfc system property: " + e.getMessage());
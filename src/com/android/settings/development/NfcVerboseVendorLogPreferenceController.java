@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
@@ -69,7 +68,8 @@ public class NfcVerboseVendorLogPreferenceController
     @Override
     public void updateState(Preference preference) {
         try {
-            final String currentValue = SystemProperties.get(NFC_VERBOSE_VENDOR_LOG_PROPERTY);
+            final String currentValue =
+                    DevelopmentSystemProperties.get(NFC_VERBOSE_VENDOR_LOG_PROPERTY);
             ((TwoStatePreference) mPreference)
                     .setChecked(currentValue.equals(VERBOSE_VENDOR_LOG_ENABLED));
         } catch (RuntimeException e) {
@@ -81,7 +81,8 @@ public class NfcVerboseVendorLogPreferenceController
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
         try {
-            SystemProperties.set(NFC_VERBOSE_VENDOR_LOG_PROPERTY, VERBOSE_VENDOR_LOG_DISABLED);
+            DevelopmentSystemProperties.set(NFC_VERBOSE_VENDOR_LOG_PROPERTY,
+                    VERBOSE_VENDOR_LOG_DISABLED);
             ((TwoStatePreference) mPreference).setChecked(false);
         } catch (RuntimeException e) {
             Log.e(TAG, "Fail to set nfc system property: " + e.getMessage());
@@ -93,7 +94,8 @@ public class NfcVerboseVendorLogPreferenceController
      */
     public boolean isDefaultValue() {
         try {
-            final String currentValue = SystemProperties.get(NFC_VERBOSE_VENDOR_LOG_PROPERTY);
+            final String currentValue =
+                    DevelopmentSystemProperties.get(NFC_VERBOSE_VENDOR_LOG_PROPERTY);
             return !currentValue.equals(VERBOSE_VENDOR_LOG_ENABLED);
         } catch (RuntimeException e) {
             Log.e(TAG, "Fail to get nfc system property: " + e.getMessage());
@@ -109,12 +111,14 @@ public class NfcVerboseVendorLogPreferenceController
             return;
         }
         try {
-            final String currentValue = SystemProperties
+            final String currentValue = DevelopmentSystemProperties
                     .get(NFC_VERBOSE_VENDOR_LOG_PROPERTY, VERBOSE_VENDOR_LOG_DISABLED);
             if (currentValue.equals(VERBOSE_VENDOR_LOG_DISABLED)) {
-                SystemProperties.set(NFC_VERBOSE_VENDOR_LOG_PROPERTY, VERBOSE_VENDOR_LOG_ENABLED);
+                DevelopmentSystemProperties.set(NFC_VERBOSE_VENDOR_LOG_PROPERTY,
+                        VERBOSE_VENDOR_LOG_ENABLED);
             } else {
-                SystemProperties.set(NFC_VERBOSE_VENDOR_LOG_PROPERTY, VERBOSE_VENDOR_LOG_DISABLED);
+                DevelopmentSystemProperties.set(NFC_VERBOSE_VENDOR_LOG_PROPERTY,
+                        VERBOSE_VENDOR_LOG_DISABLED);
             }
             updateState(mPreference);
         } catch (RuntimeException e) {
@@ -17,7 +17,6 @@
 package com.android.settings.development;
 
 import android.content.Context;
-import android.os.SystemProperties;
 import android.text.TextUtils;
 import android.view.ThreadedRenderer;
 
@@ -63,13 +62,13 @@ public class ProfileGpuRenderingPreferenceController extends DeveloperOptionsPre
     }
 
     private void writeTrackFrameTimeOptions(Object newValue) {
-        SystemProperties.set(ThreadedRenderer.PROFILE_PROPERTY,
+        DevelopmentSystemProperties.set(ThreadedRenderer.PROFILE_PROPERTY,
                 newValue == null ? "" : newValue.toString());
         SystemPropPoker.getInstance().poke();
     }
 
     private void updateTrackFrameTimeOptions() {
-        final String value = SystemProperties.get(
+        final String value = DevelopmentSystemProperties.get(
                 ThreadedRenderer.PROFILE_PROPERTY, "" /* default */);
         int index = 0; // default
         for (int i = 0; i < mListValues.length; i++) {
@@ -20,7 +20,6 @@ import android.content.Context;
 import android.os.RemoteException;
 import android.os.ServiceManager;
 import android.os.StrictMode;
-import android.os.SystemProperties;
 import android.view.IWindowManager;
 
 import androidx.annotation.VisibleForTesting;
@@ -75,7 +74,8 @@ public class StrictModePreferenceController extends DeveloperOptionsPreferenceCo
     }
 
     private boolean isStrictModeEnabled() {
-        return SystemProperties.getBoolean(StrictMode.VISUAL_PROPERTY, false /* default */);
+        return DevelopmentSystemProperties.getBoolean(StrictMode.VISUAL_PROPERTY,
+                false /* default */);
     }
 
     private void writeStrictModeVisualOptions(boolean isEnabled) {
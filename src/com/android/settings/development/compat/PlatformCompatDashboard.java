@@ -27,6 +27,8 @@ import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.RemoteException;
 import android.os.ServiceManager;
+import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.ArraySet;
 
 import androidx.annotation.VisibleForTesting;
@@ -38,6 +40,7 @@ import androidx.preference.TwoStatePreference;
 
 import com.android.internal.compat.CompatibilityChangeConfig;
 import com.android.internal.compat.CompatibilityChangeInfo;
+import com.android.internal.compat.IOverrideValidator;
 import com.android.internal.compat.IPlatformCompat;
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
@@ -54,6 +57,12 @@ public class PlatformCompatDashboard extends DashboardFragment {
     private static final String TAG = "PlatformCompatDashboard";
     public static final String COMPAT_APP = "compat_app";
 
+    /**
+     * The changes that can be toggled. They are defined by the system image, which only changes
+     * across a reboot, so listing them once per process is enough.
+     */
+    private static CompatibilityChangeInfo[] sChanges;
+
     private IPlatformCompat mPlatformCompat;
 
     private CompatibilityChangeInfo[] mChanges;
@@ -61,6 +70,14 @@ public class PlatformCompatDashboard extends DashboardFragment {
     @VisibleForTesting
     String mSelectedApp;
 
+    /** The app the change preferences are currently built for. */
+    private String mDisplayedApp;
+    /** The app row shown for {@link #mDisplayedApp}. */
+    private Preference mAppPreference;
+    /** The switch of each change shown for {@link #mDisplayedApp}, by change id. */
+    private final Map<Long, TwoStatePreference> mChangePreferences = new ArrayMap<>();
+    private IOverrideValidator mOverrideValidator;
+
     @Override
     public int getMetricsCategory() {
         return SettingsEnums.SETTINGS_PLATFORM_COMPAT_DASHBOARD;
@@ -92,10 +109,28 @@ public class PlatformCompatDashboard extends DashboardFragment {
     @Override
     public void onCreate(Bundle icicle) {
         super.onCreate(icicle);
-        try {
-            mChanges = getPlatformCompat().listUIChanges();
-        } catch (RemoteException e) {
-            throw new RuntimeException("Could not list changes!", e);
+        mChanges = getChanges();
+    }
+
+    /** Returns the changes that can be toggled, listed once per process. */
+    @VisibleForTesting
+    CompatibilityChangeInfo[] getChanges() {
+        synchronized (PlatformCompatDashboard.class) {
+            if (sChanges == null) {
+                try {
+                    sChanges = getPlatformCompat().listUIChanges();
+                } catch (RemoteException e) {
+                    throw new RuntimeException("Could not list changes!", e);
+                }
+            }
+            return sChanges;
+        }
+    }
+
+    @VisibleForTesting
+    static void clearChangesCache() {
+        synchronized (PlatformCompatDashboard.class) {
+            sChanges = null;
         }
     }
 
@@ -113,18 +148,49 @@ public class PlatformCompatDashboard extends DashboardFragment {
         mSelectedApp = arguments.getString(COMPAT_APP);
         try {
             final ApplicationInfo applicationInfo = getApplicationInfo();
-            addPreferences(applicationInfo);
+            final CompatibilityChangeConfig configMappings =
+                    getAppChangeMappings(applicationInfo);
+            if (TextUtils.equals(mDisplayedApp, mSelectedApp)) {
+                // The app may have been updated, and its overrides changed elsewhere, e.g. through
+                // adb.
+                updatePreferences(applicationInfo, configMappings);
+            } else {
+                addPreferences(applicationInfo, configMappings);
+                mDisplayedApp = mSelectedApp;
+            }
         } catch (PackageManager.NameNotFoundException ignored) {
             finish();
         }
     }
 
-    private void addPreferences(ApplicationInfo applicationInfo) {
+    /**
+     * Updates the app row and the switches already shown for the selected app, without building
+     * them again.
+     */
+    @VisibleForTesting
+    void updatePreferences(ApplicationInfo applicationInfo,
+            CompatibilityChangeConfig configMappings) {
+        if (mAppPreference != null) {
+            bindAppPreference(mAppPreference, applicationInfo);
+        }
+        for (Map.Entry<Long, TwoStatePreference> entry : mChangePreferences.entrySet()) {
+            final TwoStatePreference item = entry.getValue();
+            item.setEnabled(isOverrideAllowed(entry.getKey()));
+            final boolean enabled = configMappings.isChangeEnabled(entry.getKey());
+            if (item.isChecked() != enabled) {
+                item.setChecked(enabled);
+            }
+        }
+    }
+
+    private void addPreferences(ApplicationInfo applicationInfo,
+            CompatibilityChangeConfig configMappings) {
         getPreferenceScreen().removeAll();
-        getPreferenceScreen().addPreference(createAppPreference(applicationInfo));
+        mChangePreferences.clear();
+        mAppPreference = createAppPreference(applicationInfo);
+        getPreferenceScreen().addPreference(mAppPreference);
         // Differentiate compatibility changes into default enabled, default disabled and enabled
         // after target sdk.
-        final CompatibilityChangeConfig configMappings = getAppChangeMappings();
         final List<CompatibilityChangeInfo> enabledChanges = new ArrayList<>();
         final List<CompatibilityChangeInfo> disabledChanges = new ArrayList<>();
         final Map<Integer, List<CompatibilityChangeInfo>> targetSdkChanges = new TreeMap<>();
@@ -154,15 +220,21 @@ public class PlatformCompatDashboard extends DashboardFragment {
         }
     }
 
-    private CompatibilityChangeConfig getAppChangeMappings() {
+    private CompatibilityChangeConfig getAppChangeMappings(ApplicationInfo applicationInfo) {
         try {
-            final ApplicationInfo applicationInfo = getApplicationInfo();
             return getPlatformCompat().getAppConfig(applicationInfo);
-        } catch (RemoteException | PackageManager.NameNotFoundException e) {
+        } catch (RemoteException e) {
             throw new RuntimeException("Could not get app config!", e);
         }
     }
 
+    private IOverrideValidator getOverrideValidator() throws RemoteException {
+        if (mOverrideValidator == null) {
+            mOverrideValidator = getPlatformCompat().getOverrideValidator();
+        }
+        return mOverrideValidator;
+    }
+
     /**
      * Create a {@link Preference} for a changeId.
      *
@@ -177,21 +249,28 @@ public class PlatformCompatDashboard extends DashboardFragment {
                 change.getName() != null ? change.getName() : "Change_" + change.getId();
         item.setSummary(changeName);
         item.setKey(changeName);
-        boolean shouldEnable = true;
-        try {
-            shouldEnable = getPlatformCompat().getOverrideValidator()
-                           .getOverrideAllowedState(change.getId(), mSelectedApp)
-                           .state == ALLOWED;
-        } catch (RemoteException e) {
-            throw new RuntimeException("Could not check if change can be overridden for app.", e);
-        }
-        item.setEnabled(shouldEnable);
+        item.setEnabled(isOverrideAllowed(change.getId()));
         item.setChecked(currentValue);
         item.setOnPreferenceChangeListener(
                 new CompatChangePreferenceChangeListener(change.getId()));
+        mChangePreferences.put(change.getId(), item);
         return item;
     }
 
+    /**
+     * Whether the change can be overridden for the currently selected app, which depends on its
+     * target SDK and on whether it is debuggable.
+     */
+    private boolean isOverrideAllowed(long changeId) {
+        try {
+            return getOverrideValidator()
+                    .getOverrideAllowedState(changeId, mSelectedApp)
+                    .state == ALLOWED;
+        } catch (RemoteException e) {
+            throw new RuntimeException("Could not check if change can be overridden for app.", e);
+        }
+    }
+
     /**
      * Get {@link ApplicationInfo} for the currently selected app.
      *
@@ -208,13 +287,17 @@ public class PlatformCompatDashboard extends DashboardFragment {
      * app. Selecting this preference will also re-trigger the app selection dialog.</p>
      */
     Preference createAppPreference(ApplicationInfo applicationInfo) {
+        final Preference appPreference = new Preference(getPreferenceScreen().getContext());
+        bindAppPreference(appPreference, applicationInfo);
+        return appPreference;
+    }
+
+    private void bindAppPreference(Preference appPreference, ApplicationInfo applicationInfo) {
         final Context context = getPreferenceScreen().getContext();
         final Drawable icon = applicationInfo.loadIcon(context.getPackageManager());
-        final Preference appPreference = new Preference(context);
         appPreference.setIcon(icon);
         appPreference.setSummary(getString(R.string.platform_compat_selected_app_summary,
                                          mSelectedApp, applicationInfo.targetSdkVersion));
-        return appPreference;
     }
 
     PreferenceCategory createChangeCategoryPreference(List<CompatibilityChangeInfo> changes,
@@ -21,7 +21,6 @@ import android.content.res.Resources;
 import android.os.AsyncTask;
 import android.os.BatteryManager;
 import android.os.BatteryStats.HistoryItem;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
 import android.os.SystemClock;
 import android.provider.Settings;
@@ -35,6 +34,7 @@ import androidx.annotation.WorkerThread;
 
 import com.android.internal.os.BatteryStatsHistoryIterator;
 import com.android.settings.Utils;
+import com.android.settings.fuelgauge.batteryusage.BatteryUsageStatsFetcher;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.widget.UsageView;
 import com.android.settingslib.R;
@@ -44,6 +44,8 @@ import com.android.settingslib.fuelgauge.EstimateKt;
 import com.android.settingslib.utils.PowerUtil;
 import com.android.settingslib.utils.StringUtil;
 
+import java.util.Arrays;
+
 public class BatteryInfo {
     private static final String TAG = "BatteryInfo";
 
@@ -71,9 +73,16 @@ public class BatteryInfo {
 
     public void bindHistory(final UsageView view, BatteryDataParser... parsers) {
         final Context context = view.getContext();
+        final int chartWidth = view.getWidth() > 0 ? view.getWidth()
+                : context.getResources().getDisplayMetrics().widthPixels;
         BatteryDataParser parser =
                 new BatteryDataParser() {
-                    SparseIntArray mPoints = new SparseIntArray();
+                    SparseIntArray mPoints;
+                    // Points of the current path, at most one per mMinPointInterval.
+                    int[] mPathTimes = new int[Math.max(chartWidth, 1) + 1];
+                    byte[] mPathLevels = new byte[mPathTimes.length];
+                    int mPathSize;
+                    int mMinPointInterval = 1;
                     long mStartTime;
                     int mLastTime = -1;
                     byte mLastLevel;
@@ -82,6 +91,7 @@ public class BatteryInfo {
                     public void onParsingStarted(long startTime, long endTime) {
                         this.mStartTime = startTime;
                         timePeriod = endTime - startTime;
+                        mMinPointInterval = (int) Math.max(1, timePeriod / mPathTimes.length);
                         view.clearPaths();
                         // Initially configure the graph for history only.
                         view.configureGraph((int) timePeriod, 100);
@@ -91,21 +101,36 @@ public class BatteryInfo {
                     public void onDataPoint(long time, HistoryItem record) {
                         mLastTime = (int) time;
                         mLastLevel = record.batteryLevel;
-                        mPoints.put(mLastTime, mLastLevel);
+                        // Points closer than a pixel of the chart replace the previous one.
+                        if (mPathSize > 1
+                                && mLastTime - mPathTimes[mPathSize - 2] < mMinPointInterval) {
+                            mPathSize--;
+                        } else if (mPathSize == mPathTimes.length) {
+                            mPathTimes = Arrays.copyOf(mPathTimes, mPathSize * 2);
+                            mPathLevels = Arrays.copyOf(mPathLevels, mPathSize * 2);
+                        }
+                        mPathTimes[mPathSize] = mLastTime;
+                        mPathLevels[mPathSize] = mLastLevel;
+                        mPathSize++;
                     }
 
                     @Override
                     public void onDataGap() {
-                        if (mPoints.size() > 1) {
-                            view.addPath(mPoints);
+                        if (mPathSize > 1) {
+                            final SparseIntArray path = new SparseIntArray(mPathSize);
+                            for (int i = 0; i < mPathSize; i++) {
+                                path.append(mPathTimes[i], mPathLevels[i]);
+                            }
+                            view.addPath(path);
                         }
-                        mPoints.clear();
+                        mPathSize = 0;
                     }
 
                     @Override
                     public void onParsingDone() {
                         onDataGap();
 
+                        mPoints = new SparseIntArray();
                         // Add projection if we have an estimate.
                         if (remainingTimeUs != 0) {
                             PowerUsageFeatureProvider provider =
@@ -187,8 +212,8 @@ public class BatteryInfo {
                 } else {
                     try {
                         stats =
-                                context.getSystemService(BatteryStatsManager.class)
-                                        .getBatteryUsageStats();
+                                BatteryUsageStatsFetcher.getInstance()
+                                        .acquire(context, /* flags= */ 0);
                         shouldCloseBatteryUsageStats = true;
                     } catch (RuntimeException e) {
                         Log.e(TAG, "getBatteryInfo() from getBatteryUsageStats()", e);
@@ -198,11 +223,7 @@ public class BatteryInfo {
                 }
                 final BatteryInfo batteryInfo = getBatteryInfo(context, stats, shortString);
                 if (shouldCloseBatteryUsageStats) {
-                    try {
-                        stats.close();
-                    } catch (Exception e) {
-                        Log.e(TAG, "BatteryUsageStats.close() failed", e);
-                    }
+                    BatteryUsageStatsFetcher.getInstance().release(stats);
                 }
                 return batteryInfo;
             }
@@ -568,6 +589,12 @@ public class BatteryInfo {
     /**
      * Iterates over battery history included in the BatteryUsageStats that this object was
      * initialized with.
+     *
+     * <p>The history is only decoded once: the fields read by the parsers are buffered while the
+     * time bounds are computed, then replayed to the parsers. The {@link HistoryItem} passed to
+     * {@link BatteryDataParser#onDataPoint} only holds the {@code cmd}, {@code time},
+     * {@code currentTime}, {@code batteryLevel}, {@code states} and {@code states2} fields, and is
+     * reused for every point.
      */
     public void parseBatteryHistory(BatteryDataParser... parsers) {
         long startWalltime = 0;
@@ -580,11 +607,13 @@ public class BatteryInfo {
         int lastInteresting = 0;
         int pos = 0;
         boolean first = true;
-        final BatteryStatsHistoryIterator iterator1 =
+        final HistoryBuffer buffer = new HistoryBuffer();
+        final BatteryStatsHistoryIterator iterator =
                 mBatteryUsageStats.iterateBatteryStatsHistory();
         HistoryItem rec;
-        while ((rec = iterator1.next()) != null) {
+        while ((rec = iterator.next()) != null) {
             pos++;
+            buffer.add(rec);
             if (first) {
                 first = false;
                 historyStart = rec.time;
@@ -616,7 +645,6 @@ public class BatteryInfo {
 
         endWalltime = lastWallTime + historyEnd - lastRealtime;
 
-        int i = 0;
         final int N = lastInteresting;
 
         for (int j = 0; j < parsers.length; j++) {
@@ -624,9 +652,9 @@ public class BatteryInfo {
         }
 
         if (endWalltime > startWalltime) {
-            final BatteryStatsHistoryIterator iterator2 =
-                    mBatteryUsageStats.iterateBatteryStatsHistory();
-            while ((rec = iterator2.next()) != null && i < N) {
+            rec = new HistoryItem();
+            for (int i = 0; i < N; i++) {
+                buffer.get(i, rec);
                 if (rec.isDeltaData()) {
                     curWalltime += rec.time - lastRealtime;
                     lastRealtime = rec.time;
@@ -657,7 +685,6 @@ public class BatteryInfo {
                         }
                     }
                 }
-                i++;
             }
         }
 
@@ -665,4 +692,45 @@ public class BatteryInfo {
             parsers[j].onParsingDone();
         }
     }
+
+    /** The fields of the history records read by the parsers, in primitive arrays. */
+    private static final class HistoryBuffer {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private byte[] mCmds = new byte[INITIAL_CAPACITY];
+        private byte[] mBatteryLevels = new byte[INITIAL_CAPACITY];
+        private long[] mTimes = new long[INITIAL_CAPACITY];
+        private long[] mCurrentTimes = new long[INITIAL_CAPACITY];
+        private int[] mStates = new int[INITIAL_CAPACITY];
+        private int[] mStates2 = new int[INITIAL_CAPACITY];
+        private int mSize;
+
+        void add(HistoryItem rec) {
+            if (mSize == mTimes.length) {
+                final int capacity = mSize * 2;
+                mCmds = Arrays.copyOf(mCmds, capacity);
+                mBatteryLevels = Arrays.copyOf(mBatteryLevels, capacity);
+                mTimes = Arrays.copyOf(mTimes, capacity);
+                mCurrentTimes = Arrays.copyOf(mCurrentTimes, capacity);
+                mStates = Arrays.copyOf(mStates, capacity);
+                mStates2 = Arrays.copyOf(mStates2, capacity);
+            }
+            mCmds[mSize] = rec.cmd;
+            mBatteryLevels[mSize] = rec.batteryLevel;
+            mTimes[mSize] = rec.time;
+            mCurrentTimes[mSize] = rec.currentTime;
+            mStates[mSize] = rec.states;
+            mStates2[mSize] = rec.states2;
+            mSize++;
+        }
+
+        void get(int index, HistoryItem rec) {
+            rec.cmd = mCmds[index];
+            rec.batteryLevel = mBatteryLevels[index];
+            rec.time = mTimes[index];
+            rec.currentTime = mCurrentTimes[index];
+            rec.states = mStates[index];
+            rec.states2 = mStates2[index];
+        }
+    }
 }
@@ -169,6 +169,7 @@ public class BatteryTipDialogFragment extends InstrumentedDialogFragment
                         (SettingsActivity) getActivity(),
                         (InstrumentedPreferenceFragment) getTargetFragment());
         if (action != null) {
+            BatteryTipLoader.invalidateCache();
             action.handlePositiveAction(mMetricsKey);
         }
         lsn.onBatteryTipHandled(mBatteryTip);
@@ -18,7 +18,14 @@ package com.android.settings.fuelgauge.batterytip;
 
 import android.content.Context;
 import android.os.BatteryUsageStats;
+import android.os.Parcel;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.util.ArrayMap;
+import android.util.Log;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.fuelgauge.BatteryInfo;
@@ -30,16 +37,58 @@ import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * Loader to compute and return a battery tip list. It will always return a full length list even
- * though some tips may have state {@code BaseBatteryTip.StateType.INVISIBLE}.
+ * Loader to compute and return a battery tip list. Some tips may have state
+ * {@code BaseBatteryTip.StateType.INVISIBLE}.
+ *
+ * <p>The detectors run concurrently on a small pool and share a deadline, and a detector missing
+ * it contributes no tip, so the list may be shorter than the number of detectors. The tips of the detectors depending only on the battery state, the usage stats and the
+ * tip policy are kept with those inputs, so reloading with the same inputs reuses them; the other
+ * detectors run on every load. The kept tips are dropped whenever a tip action runs, see {@link
+ * #invalidateCache}.
  */
 public class BatteryTipLoader extends AsyncLoaderCompat<List<BatteryTip>> {
     private static final String TAG = "BatteryTipLoader";
+    private static final long DETECTOR_TIMEOUT_MS = 1000L;
+    /** One thread per detector group submitted by a load. */
+    private static final int DETECTOR_THREADS = 4;
+    private static final long DETECTOR_THREAD_KEEP_ALIVE_S = 30L;
+
+    private static final String HIGH_USAGE_DETECTOR = "HighUsageDetector";
+    private static final String BATTERY_DEFENDER_DETECTOR = "BatteryDefenderDetector";
+    private static final String INCOMPATIBLE_CHARGER_DETECTOR = "IncompatibleChargerDetector";
+    private static final String FEATURE_PROVIDER_DETECTORS = "FeatureProviderDetectors";
+
+    @VisibleForTesting static ExecutorService sExecutor = createExecutor();
+    @VisibleForTesting static long sDetectorTimeoutMs = DETECTOR_TIMEOUT_MS;
+
+    private static final Object sCacheLock = new Object();
+
+    /** The input of the cached tips, or {@code null} if there are none. */
+    @GuardedBy("sCacheLock")
+    private static CacheKey sCacheKey;
+
+    /** Tips of the {@link #isCacheable cacheable} detectors for {@link #sCacheKey}. */
+    @GuardedBy("sCacheLock")
+    private static final List<BatteryTip> sCachedTips = new ArrayList<>();
+
+    @GuardedBy("sCacheLock")
+    private static final Map<String, DetectorStats> sDetectorStats = new ArrayMap<>();
 
     private BatteryUsageStats mBatteryUsageStats;
 
@@ -53,23 +102,289 @@ public class BatteryTipLoader extends AsyncLoaderCompat<List<BatteryTip>> {
 
     @Override
     public List<BatteryTip> loadInBackground() {
-        final List<BatteryTip> tips = new ArrayList<>();
         final BatteryTipPolicy batteryTipPolicy = new BatteryTipPolicy(getContext());
         final BatteryInfo batteryInfo = mBatteryUtils.getBatteryInfo(TAG);
         final Context context = getContext().getApplicationContext();
 
-        tips.add(
-                new HighUsageDetector(context, batteryTipPolicy, mBatteryUsageStats, batteryInfo)
-                        .detect());
-        tips.add(new BatteryDefenderDetector(batteryInfo, context).detect());
-        tips.add(new IncompatibleChargerDetector(context).detect());
-        FeatureFactory.getFeatureFactory()
-                .getBatterySettingsFeatureProvider()
-                .addBatteryTipDetector(context, tips, batteryInfo, batteryTipPolicy);
+        final CacheKey key = new CacheKey(context, batteryInfo, mBatteryUsageStats);
+        final List<BatteryTip> tips = new ArrayList<>();
+        final boolean cacheHit;
+        synchronized (sCacheLock) {
+            cacheHit = key.equals(sCacheKey);
+            if (cacheHit) {
+                addCopies(tips, sCachedTips);
+            }
+        }
+
+        final Map<String, Future<List<BatteryTip>>> futures = new ArrayMap<>();
+        if (!cacheHit) {
+            futures.put(
+                    HIGH_USAGE_DETECTOR,
+                    submit(
+                            HIGH_USAGE_DETECTOR,
+                            () ->
+                                    Collections.singletonList(
+                                            new HighUsageDetector(
+                                                            context,
+                                                            batteryTipPolicy,
+                                                            mBatteryUsageStats,
+                                                            batteryInfo)
+                                                    .detect())));
+            futures.put(
+                    BATTERY_DEFENDER_DETECTOR,
+                    submit(
+                            BATTERY_DEFENDER_DETECTOR,
+                            () ->
+                                    Collections.singletonList(
+                                            new BatteryDefenderDetector(batteryInfo, context)
+                                                    .detect())));
+        }
+        futures.put(
+                INCOMPATIBLE_CHARGER_DETECTOR,
+                submit(
+                        INCOMPATIBLE_CHARGER_DETECTOR,
+                        () ->
+                                Collections.singletonList(
+                                        new IncompatibleChargerDetector(context).detect())));
+        futures.put(
+                FEATURE_PROVIDER_DETECTORS,
+                submit(
+                        FEATURE_PROVIDER_DETECTORS,
+                        () -> {
+                            final List<BatteryTip> detectedTips = new ArrayList<>();
+                            FeatureFactory.getFeatureFactory()
+                                    .getBatterySettingsFeatureProvider()
+                                    .addBatteryTipDetector(
+                                            context, detectedTips, batteryInfo, batteryTipPolicy);
+                            return detectedTips;
+                        }));
+
+        final List<BatteryTip> cacheableTips = new ArrayList<>();
+        final long deadline = SystemClock.elapsedRealtime() + sDetectorTimeoutMs;
+        boolean allCacheableCompleted = true;
+        for (Map.Entry<String, Future<List<BatteryTip>>> entry : futures.entrySet()) {
+            final String name = entry.getKey();
+            final List<BatteryTip> detectedTips =
+                    getBeforeDeadline(name, entry.getValue(), deadline);
+            if (detectedTips != null) {
+                tips.addAll(detectedTips);
+            }
+            if (isCacheable(name)) {
+                if (detectedTips != null) {
+                    addCopies(cacheableTips, detectedTips);
+                } else {
+                    allCacheableCompleted = false;
+                }
+            }
+        }
+        if (!cacheHit) {
+            synchronized (sCacheLock) {
+                sCachedTips.clear();
+                if (allCacheableCompleted) {
+                    sCacheKey = key;
+                    sCachedTips.addAll(cacheableTips);
+                } else {
+                    sCacheKey = null;
+                }
+            }
+        }
         Collections.sort(tips);
         return tips;
     }
 
+    /**
+     * Returns a pool of at most {@link #DETECTOR_THREADS} threads, which are released when idle.
+     * A detector still running past the deadline keeps its thread, so later detectors queue
+     * behind it instead of adding threads.
+     */
+    private static ExecutorService createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(DETECTOR_THREADS,
+                DETECTOR_THREADS, DETECTOR_THREAD_KEEP_ALIVE_S, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Drops the kept tips, so that the next load runs every detector. Called when a tip action
+     * runs, since it may change what the detectors find without changing their inputs.
+     */
+    public static void invalidateCache() {
+        synchronized (sCacheLock) {
+            sCacheKey = null;
+            sCachedTips.clear();
+        }
+    }
+
+    /** Dumps the timing of the detectors run by this loader. */
+    public static void dump(PrintWriter writer) {
+        writer.println("\n\tBattery Tip Detectors:");
+        synchronized (sCacheLock) {
+            writer.println("\tcached=" + (sCacheKey != null));
+            for (Map.Entry<String, DetectorStats> entry : sDetectorStats.entrySet()) {
+                writer.println("\t" + entry.getKey() + ": " + entry.getValue());
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static void clearCache() {
+        invalidateCache();
+        synchronized (sCacheLock) {
+            sDetectorStats.clear();
+        }
+    }
+
+    /**
+     * Whether the tips of the detector depend only on the inputs in {@link CacheKey}. The charger
+     * compatibility and the feature provider detectors read state which is not part of it.
+     */
+    private static boolean isCacheable(String name) {
+        return HIGH_USAGE_DETECTOR.equals(name) || BATTERY_DEFENDER_DETECTOR.equals(name);
+    }
+
+    private static Future<List<BatteryTip>> submit(
+            String name, Callable<List<BatteryTip>> detector) {
+        return sExecutor.submit(
+                () -> {
+                    final long startTime = SystemClock.elapsedRealtime();
+                    try {
+                        return detector.call();
+                    } finally {
+                        final long elapsedTime = SystemClock.elapsedRealtime() - startTime;
+                        synchronized (sCacheLock) {
+                            getDetectorStats(name).onRun(elapsedTime);
+                        }
+                    }
+                });
+    }
+
+    private static List<BatteryTip> getBeforeDeadline(
+            String name, Future<List<BatteryTip>> future, long deadline) {
+        try {
+            return future.get(
+                    Math.max(0L, deadline - SystemClock.elapsedRealtime()),
+                    TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Log.w(TAG, name + " missed the deadline");
+            future.cancel(true /* mayInterruptIfRunning */);
+            synchronized (sCacheLock) {
+                getDetectorStats(name).mTimeoutCount++;
+            }
+        } catch (ExecutionException e) {
+            Log.e(TAG, name + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    @GuardedBy("sCacheLock")
+    private static DetectorStats getDetectorStats(String name) {
+        DetectorStats stats = sDetectorStats.get(name);
+        if (stats == null) {
+            stats = new DetectorStats();
+            sDetectorStats.put(name, stats);
+        }
+        return stats;
+    }
+
+    /** Adds copies of the tips, since callers update the state of the tips they get. */
+    private static void addCopies(List<BatteryTip> tips, List<BatteryTip> cachedTips) {
+        if (cachedTips == null) {
+            return;
+        }
+        for (BatteryTip tip : cachedTips) {
+            final Parcel parcel = Parcel.obtain();
+            try {
+                parcel.writeParcelable(tip, 0 /* flags */);
+                parcel.setDataPosition(0);
+                tips.add(parcel.readParcelable(BatteryTip.class.getClassLoader()));
+            } finally {
+                parcel.recycle();
+            }
+        }
+    }
+
+    /** The inputs the tips of the cacheable detectors depend on. */
+    private static final class CacheKey {
+        private final int mBatteryLevel;
+        private final int mBatteryStatus;
+        private final int mPluggedStatus;
+        private final boolean mDischarging;
+        private final boolean mBatteryDefender;
+        private final boolean mPowerSaveMode;
+        private final long mStatsEndTimestamp;
+        private final String mPolicyConstants;
+
+        CacheKey(Context context, BatteryInfo batteryInfo, BatteryUsageStats batteryUsageStats) {
+            mBatteryLevel = batteryInfo.batteryLevel;
+            mBatteryStatus = batteryInfo.batteryStatus;
+            mPluggedStatus = batteryInfo.pluggedStatus;
+            mDischarging = batteryInfo.discharging;
+            mBatteryDefender = batteryInfo.isBatteryDefender;
+            final PowerManager powerManager = context.getSystemService(PowerManager.class);
+            mPowerSaveMode = powerManager != null && powerManager.isPowerSaveMode();
+            mStatsEndTimestamp =
+                    batteryUsageStats != null ? batteryUsageStats.getStatsEndTimestamp() : 0L;
+            // BatteryTipPolicy is parsed from this value.
+            mPolicyConstants =
+                    Settings.Global.getString(
+                            context.getContentResolver(), Settings.Global.BATTERY_TIP_CONSTANTS);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            final CacheKey other = (CacheKey) o;
+            return mBatteryLevel == other.mBatteryLevel
+                    && mBatteryStatus == other.mBatteryStatus
+                    && mPluggedStatus == other.mPluggedStatus
+                    && mDischarging == other.mDischarging
+                    && mBatteryDefender == other.mBatteryDefender
+                    && mPowerSaveMode == other.mPowerSaveMode
+                    && mStatsEndTimestamp == other.mStatsEndTimestamp
+                    && Objects.equals(mPolicyConstants, other.mPolicyConstants);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(
+                    mBatteryLevel,
+                    mBatteryStatus,
+                    mPluggedStatus,
+                    mDischarging,
+                    mBatteryDefender,
+                    mPowerSaveMode,
+                    mStatsEndTimestamp,
+                    mPolicyConstants);
+        }
+    }
+
+    private static final class DetectorStats {
+        private int mRunCount;
+        private int mTimeoutCount;
+        private long mLastTimeMs;
+        private long mMaxTimeMs;
+
+        void onRun(long elapsedTimeMs) {
+            mRunCount++;
+            mLastTimeMs = elapsedTimeMs;
+            mMaxTimeMs = Math.max(mMaxTimeMs, elapsedTimeMs);
+        }
+
+        @Override
+        public String toString() {
+            return "runs=" + mRunCount + " timeouts=" + mTimeoutCount
+                    + " lastMs=" + mLastTimeMs + " maxMs=" + mMaxTimeMs;
+        }
+    }
+
     @Override
     protected void onDiscardResult(List<BatteryTip> result) {}
 }
@@ -128,6 +128,7 @@ public class BatteryTipPreferenceController extends BasePreferenceController {
                         BatteryTipUtils.getActionForBatteryTip(
                                 batteryTip, mSettingsActivity, mFragment);
                 if (action != null) {
+                    BatteryTipLoader.invalidateCache();
                     action.handlePositiveAction(mFragment.getMetricsCategory());
                 }
                 if (mBatteryTipListener != null) {
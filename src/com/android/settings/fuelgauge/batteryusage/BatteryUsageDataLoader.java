@@ -81,7 +81,7 @@ public final class BatteryUsageDataLoader {
         // Uploads the BatteryEntry data into database.
         DatabaseUtils.sendBatteryEntryData(
                 context, currentTime, batteryEntryList, batteryUsageStats, isFullChargeStart);
-        DataProcessor.closeBatteryUsageStats(batteryUsageStats);
+        BatteryUsageStatsFetcher.getInstance().release(batteryUsageStats);
     }
 
     @VisibleForTesting
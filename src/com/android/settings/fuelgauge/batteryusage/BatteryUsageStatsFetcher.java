@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.PrintWriter;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process wide fetcher of {@link BatteryUsageStats}, shared by the battery screens so that opening
+ * one of them does not make system server compute the stats several times.
+ *
+ * <p>A request joins a fetch in flight, or reuses a result fetched less than {@link #TTL_MS} ago,
+ * as long as that result contains at least the requested data. Every instance returned by {@link
+ * #acquire} must be given back through {@link #release} instead of being closed, and is closed by
+ * {@link DataProcessor#closeBatteryUsageStats} once it is released by all its users and expired.
+ *
+ * <p>Iterating the battery history of an instance is not thread safe, so a request including the
+ * history never gets an instance which is in use, whether still being fetched or not released
+ * yet.
+ */
+public final class BatteryUsageStatsFetcher {
+    private static final String TAG = "BatteryUsageStatsFetcher";
+
+    @VisibleForTesting static final long TTL_MS = 5000L;
+
+    /** Includes the battery history, see {@link BatteryUsageStatsQuery.Builder}. */
+    public static final int FLAG_INCLUDE_HISTORY = 1;
+
+    /** Includes the process state data, see {@link BatteryUsageStatsQuery.Builder}. */
+    public static final int FLAG_INCLUDE_PROCESS_STATE_DATA = 1 << 1;
+
+    @IntDef(
+            flag = true,
+            value = {FLAG_INCLUDE_HISTORY, FLAG_INCLUDE_PROCESS_STATE_DATA})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface QueryFlags {}
+
+    private static BatteryUsageStatsFetcher sInstance;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mEvictRunnable = this::evictExpiredEntries;
+
+    @GuardedBy("this")
+    private final List<Entry> mEntries = new ArrayList<>();
+
+    @GuardedBy("this")
+    private int mFetchCount;
+
+    @GuardedBy("this")
+    private int mJoinedFetchCount;
+
+    @GuardedBy("this")
+    private int mCachedResultCount;
+
+    /** Returns the fetcher shared by the whole process. */
+    public static synchronized BatteryUsageStatsFetcher getInstance() {
+        if (sInstance == null) {
+            sInstance = new BatteryUsageStatsFetcher();
+        }
+        return sInstance;
+    }
+
+    private BatteryUsageStatsFetcher() {}
+
+    /**
+     * Returns a {@link BatteryUsageStats} containing at least the data of the flags, which must be
+     * given back through {@link #release} once it is not used anymore.
+     *
+     * @throws RuntimeException if {@link BatteryStatsManager#getBatteryUsageStats} fails
+     */
+    @WorkerThread
+    @Nullable
+    public BatteryUsageStats acquire(Context context, @QueryFlags int flags) {
+        final Entry entry;
+        final boolean shouldFetch;
+        synchronized (this) {
+            final Entry reusableEntry = findReusableEntry(flags);
+            if (reusableEntry != null) {
+                if (reusableEntry.mDone) {
+                    mCachedResultCount++;
+                } else {
+                    mJoinedFetchCount++;
+                }
+                entry = reusableEntry;
+            } else {
+                mFetchCount++;
+                entry = new Entry(flags);
+                mEntries.add(entry);
+            }
+            entry.mRefCount++;
+            shouldFetch = reusableEntry == null;
+        }
+        if (shouldFetch) {
+            fetch(context, entry);
+        }
+        synchronized (this) {
+            boolean interrupted = false;
+            while (!entry.mDone) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // Keep waiting, the fetch cannot be abandoned by its joiners.
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (entry.mError != null) {
+                entry.mRefCount--;
+                throw entry.mError;
+            }
+            if (entry.mStats == null) {
+                entry.mRefCount--;
+            }
+            return entry.mStats;
+        }
+    }
+
+    /**
+     * Gives back a {@link BatteryUsageStats}, which is closed right away if it does not come from
+     * {@link #acquire}.
+     */
+    public void release(@Nullable BatteryUsageStats batteryUsageStats) {
+        if (batteryUsageStats == null) {
+            return;
+        }
+        synchronized (this) {
+            for (Entry entry : mEntries) {
+                if (entry.mStats == batteryUsageStats) {
+                    if (entry.mRefCount > 0) {
+                        entry.mRefCount--;
+                    }
+                    if (entry.mRefCount == 0) {
+                        mHandler.removeCallbacks(mEvictRunnable);
+                        mHandler.post(mEvictRunnable);
+                    }
+                    return;
+                }
+            }
+        }
+        DataProcessor.closeBatteryUsageStats(batteryUsageStats);
+    }
+
+    /** Dumps the number of fetches done and avoided. */
+    public synchronized void dump(PrintWriter writer) {
+        writer.println("\n\tBatteryUsageStats Fetcher:");
+        writer.println(
+                "\tfetches="
+                        + mFetchCount
+                        + " joinedFetches="
+                        + mJoinedFetchCount
+                        + " cachedResults="
+                        + mCachedResultCount
+                        + " entries="
+                        + mEntries.size());
+    }
+
+    /** Forgets all the cached results and counters, without closing them. */
+    @VisibleForTesting
+    public synchronized void reset() {
+        mHandler.removeCallbacks(mEvictRunnable);
+        mEntries.clear();
+        mFetchCount = 0;
+        mJoinedFetchCount = 0;
+        mCachedResultCount = 0;
+    }
+
+    private void fetch(Context context, Entry entry) {
+        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
+        if ((entry.mFlags & FLAG_INCLUDE_HISTORY) != 0) {
+            builder.includeBatteryHistory();
+        }
+        if ((entry.mFlags & FLAG_INCLUDE_PROCESS_STATE_DATA) != 0) {
+            builder.includeProcessStateData();
+        }
+        BatteryUsageStats stats = null;
+        RuntimeException error = null;
+        try {
+            stats =
+                    context.getSystemService(BatteryStatsManager.class)
+                            .getBatteryUsageStats(builder.build());
+        } catch (RuntimeException e) {
+            error = e;
+        } finally {
+            // Also runs when an Error is thrown, so that the requests which joined this fetch do
+            // not wait forever; they get a null result then.
+            synchronized (this) {
+                entry.mStats = stats;
+                entry.mError = error;
+                entry.mFetchTime = SystemClock.elapsedRealtime();
+                entry.mDone = true;
+                if (stats == null) {
+                    mEntries.remove(entry);
+                }
+                notifyAll();
+            }
+        }
+        mHandler.removeCallbacks(mEvictRunnable);
+        mHandler.postDelayed(mEvictRunnable, TTL_MS);
+    }
+
+    @GuardedBy("this")
+    @Nullable
+    private Entry findReusableEntry(int flags) {
+        final long now = SystemClock.elapsedRealtime();
+        final boolean includesHistory = (flags & FLAG_INCLUDE_HISTORY) != 0;
+        for (int i = mEntries.size() - 1; i >= 0; i--) {
+            final Entry entry = mEntries.get(i);
+            if ((entry.mFlags & flags) != flags || entry.isExpired(now)) {
+                continue;
+            }
+            if (includesHistory && (!entry.mDone || entry.mRefCount > 0)) {
+                continue;
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    private void evictExpiredEntries() {
+        final List<BatteryUsageStats> expiredStats = new ArrayList<>();
+        long nextExpiry = Long.MAX_VALUE;
+        synchronized (this) {
+            final long now = SystemClock.elapsedRealtime();
+            for (int i = mEntries.size() - 1; i >= 0; i--) {
+                final Entry entry = mEntries.get(i);
+                if (!entry.mDone || entry.mRefCount > 0) {
+                    continue;
+                }
+                if (entry.isExpired(now)) {
+                    mEntries.remove(i);
+                    expiredStats.add(entry.mStats);
+                } else {
+                    nextExpiry = Math.min(nextExpiry, entry.mFetchTime + TTL_MS);
+                }
+            }
+            if (nextExpiry != Long.MAX_VALUE) {
+                mHandler.removeCallbacks(mEvictRunnable);
+                mHandler.postDelayed(mEvictRunnable, nextExpiry - now);
+            }
+        }
+        for (BatteryUsageStats stats : expiredStats) {
+            DataProcessor.closeBatteryUsageStats(stats);
+        }
+        if (!expiredStats.isEmpty()) {
+            Log.d(TAG, "closed " + expiredStats.size() + " expired BatteryUsageStats");
+        }
+    }
+
+    private static final class Entry {
+        final int mFlags;
+        int mRefCount;
+        boolean mDone;
+        long mFetchTime;
+        BatteryUsageStats mStats;
+        RuntimeException mError;
+
+        Entry(int flags) {
+            mFlags = flags;
+        }
+
+        boolean isExpired(long now) {
+            return mDone && now - mFetchTime >= TTL_MS;
+        }
+    }
+}
@@ -17,34 +17,36 @@
 package com.android.settings.fuelgauge.batteryusage;
 
 import android.content.Context;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
 import android.util.Log;
 
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
-/** Loader to get new {@link BatteryUsageStats} in the background */
+/**
+ * Loader to get new {@link BatteryUsageStats} in the background. The result comes from {@link
+ * BatteryUsageStatsFetcher} and is owned by the loader, which gives it back through {@link
+ * BatteryUsageStatsFetcher#release} once it is discarded, so callers must neither close nor
+ * release it.
+ */
 public class BatteryUsageStatsLoader extends AsyncLoaderCompat<BatteryUsageStats> {
     private static final String TAG = "BatteryUsageStatsLoader";
-    private final BatteryStatsManager mBatteryStatsManager;
+    private final Context mContext;
     private final boolean mIncludeBatteryHistory;
 
     public BatteryUsageStatsLoader(Context context, boolean includeBatteryHistory) {
         super(context);
-        mBatteryStatsManager = context.getSystemService(BatteryStatsManager.class);
+        mContext = context;
         mIncludeBatteryHistory = includeBatteryHistory;
     }
 
     @Override
     public BatteryUsageStats loadInBackground() {
-        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
+        int flags = BatteryUsageStatsFetcher.FLAG_INCLUDE_PROCESS_STATE_DATA;
         if (mIncludeBatteryHistory) {
-            builder.includeBatteryHistory();
+            flags |= BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY;
         }
         try {
-            return mBatteryStatsManager.getBatteryUsageStats(
-                    builder.includeProcessStateData().build());
+            return BatteryUsageStatsFetcher.getInstance().acquire(mContext, flags);
         } catch (RuntimeException e) {
             Log.e(TAG, "loadInBackground() for getBatteryUsageStats()", e);
             // Use default BatteryUsageStats.
@@ -53,5 +55,7 @@ public class BatteryUsageStatsLoader extends AsyncLoaderCompat<BatteryUsageStats
     }
 
     @Override
-    protected void onDiscardResult(BatteryUsageStats result) {}
+    protected void onDiscardResult(BatteryUsageStats result) {
+        BatteryUsageStatsFetcher.getInstance().release(result);
+    }
 }
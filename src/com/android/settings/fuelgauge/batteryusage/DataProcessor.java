@@ -29,9 +29,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.BatteryConsumer;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
 import android.os.Process;
 import android.os.RemoteException;
 import android.os.ServiceManager;
@@ -169,16 +167,17 @@ public final class DataProcessor {
                         batteryLevelData);
     }
 
-    /** Gets the {@link BatteryUsageStats} from system service. */
+    /**
+     * Gets the {@link BatteryUsageStats} from {@link BatteryUsageStatsFetcher}, which must be given
+     * back through {@link BatteryUsageStatsFetcher#release} after using it.
+     */
     @Nullable
     public static BatteryUsageStats getBatteryUsageStats(final Context context) {
-        final BatteryUsageStatsQuery batteryUsageStatsQuery =
-                new BatteryUsageStatsQuery.Builder()
-                        .includeBatteryHistory()
-                        .includeProcessStateData()
-                        .build();
-        return context.getSystemService(BatteryStatsManager.class)
-                .getBatteryUsageStats(batteryUsageStatsQuery);
+        return BatteryUsageStatsFetcher.getInstance()
+                .acquire(
+                        context,
+                        BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY
+                                | BatteryUsageStatsFetcher.FLAG_INCLUDE_PROCESS_STATE_DATA);
     }
 
     /** Gets the {@link UsageEvents} from system service for all unlocked users. */
@@ -1073,7 +1072,7 @@ public final class DataProcessor {
             final List<BatteryEntry> batteryEntryList =
                     generateBatteryEntryListFromBatteryUsageStats(context, batteryUsageStats);
             batteryHistEntryList = convertToBatteryHistEntry(batteryEntryList, batteryUsageStats);
-            closeBatteryUsageStats(batteryUsageStats);
+            BatteryUsageStatsFetcher.getInstance().release(batteryUsageStats);
         } catch (RuntimeException e) {
             Log.e(TAG, "load batteryUsageStats:", e);
         }
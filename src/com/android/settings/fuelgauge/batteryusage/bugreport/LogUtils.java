@@ -22,9 +22,11 @@ import android.util.Log;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.fuelgauge.BatteryUtils;
+import com.android.settings.fuelgauge.batterytip.BatteryTipLoader;
 import com.android.settings.fuelgauge.batteryusage.AppOptModeSharedPreferencesUtils;
 import com.android.settings.fuelgauge.batteryusage.AppOptimizationModeEvent;
 import com.android.settings.fuelgauge.batteryusage.BatteryUsageSlot;
+import com.android.settings.fuelgauge.batteryusage.BatteryUsageStatsFetcher;
 import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
 import com.android.settings.fuelgauge.batteryusage.DatabaseUtils;
 import com.android.settings.fuelgauge.batteryusage.db.AppUsageEventDao;
@@ -70,6 +72,14 @@ public final class LogUtils {
         // Dumps phenotype environments.
         DatabaseUtils.dump(context, writer);
         writer.flush();
+
+        // Dumps battery tip detector timings.
+        BatteryTipLoader.dump(writer);
+        writer.flush();
+
+        // Dumps BatteryUsageStats fetches.
+        BatteryUsageStatsFetcher.getInstance().dump(writer);
+        writer.flush();
         final BatteryStateDao dao = BatteryStateDatabase.getInstance(context).batteryStateDao();
         final long timeOffset = Clock.systemUTC().millis() - DUMP_TIME_OFFSET.toMillis();
 
@@ -28,13 +28,19 @@ import android.content.IntentFilter;
 import android.os.PersistableBundle;
 import android.telephony.CarrierConfigManager;
 import android.telephony.SubscriptionManager;
+import android.util.ArraySet;
+import android.util.IndentingPrintWriter;
 import android.util.Log;
 
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -62,9 +68,24 @@ public class CarrierConfigCache {
     @VisibleForTesting
     protected static final Map<Integer, PersistableBundle> sCarrierConfigs =
             new ConcurrentHashMap<>();
+    /**
+     * Manages mapping data from the subscription ID to the Carrier-Configuration keys fetched
+     * through {@link #getConfigForSubId(int, String...)}, for the subscriptions whose whole
+     * Carrier-Configuration is not cached.
+     */
+    @VisibleForTesting
+    protected static final Map<Integer, ProjectedConfig> sProjectedConfigs =
+            new ConcurrentHashMap<>();
     @VisibleForTesting
     protected static CarrierConfigManager sCarrierConfigManager;
 
+    @GuardedBy("sCarrierConfigs")
+    private static int sFullFetchCount;
+    @GuardedBy("sCarrierConfigs")
+    private static int sProjectedFetchCount;
+    @GuardedBy("sCarrierConfigs")
+    private static int sProjectedFetchKeyCount;
+
     /**
      * Static method to create a singleton class for Carrier-Configuration cache.
      *
@@ -149,11 +170,114 @@ public class CarrierConfigCache {
                 Log.e(TAG, "Could not get carrier config, subId:" + subId);
                 return null;
             }
+            sFullFetchCount++;
             sCarrierConfigs.put(subId, config);
+            sProjectedConfigs.remove(subId);
             return config;
         }
     }
 
+    /**
+     * Gets the given keys of the Carrier-Configuration for a particular subscription. Unlike
+     * {@link #getConfigForSubId(int)}, only the keys which have never been requested for the
+     * subscription are fetched from {@link CarrierConfigManager}, which is much cheaper than
+     * fetching its hundreds of keys.
+     *
+     * <p>The returned bundle contains at least the requested keys and must not be modified.
+     *
+     * @param subId the subscription ID, normally obtained from {@link SubscriptionManager}.
+     * @param keys the Carrier-Configuration keys needed by the caller.
+     * @return A {@link PersistableBundle} containing the requested keys for the given subId, or
+     * null if the Carrier-Configuration can't be fetched.
+     */
+    @Nullable
+    public PersistableBundle getConfigForSubId(int subId, @NonNull String... keys) {
+        if (sCarrierConfigManager == null) return null;
+
+        synchronized (sCarrierConfigs) {
+            if (sCarrierConfigs.containsKey(subId)) {
+                return sCarrierConfigs.get(subId);
+            }
+            ProjectedConfig projected = sProjectedConfigs.get(subId);
+            final List<String> missingKeys = new ArrayList<>(keys.length);
+            for (String key : keys) {
+                if (projected == null || !projected.mKeys.contains(key)) {
+                    missingKeys.add(key);
+                }
+            }
+            if (missingKeys.isEmpty()) {
+                return projected.mConfig;
+            }
+            final PersistableBundle config = sCarrierConfigManager.getConfigForSubId(subId,
+                    missingKeys.toArray(new String[0]));
+            if (config == null) {
+                Log.e(TAG, "Could not get carrier config, subId:" + subId + ", keys:"
+                        + missingKeys);
+                return null;
+            }
+            sProjectedFetchCount++;
+            sProjectedFetchKeyCount += missingKeys.size();
+            // Bundles already returned to callers are never modified, so merge into a new one.
+            projected = projected == null ? new ProjectedConfig(config, missingKeys)
+                    : projected.merge(config, missingKeys);
+            sProjectedConfigs.put(subId, projected);
+            return projected.mConfig;
+        }
+    }
+
+    /**
+     * Gets a boolean Carrier-Configuration of a particular subscription.
+     *
+     * @see #getConfigForSubId(int, String...)
+     */
+    public boolean getBoolean(int subId, @NonNull String key) {
+        final PersistableBundle config = getConfigForSubId(subId, key);
+        return config != null && config.getBoolean(key);
+    }
+
+    /**
+     * Gets an int Carrier-Configuration of a particular subscription.
+     *
+     * @see #getConfigForSubId(int, String...)
+     */
+    public int getInt(int subId, @NonNull String key, int defaultValue) {
+        final PersistableBundle config = getConfigForSubId(subId, key);
+        return config != null ? config.getInt(key, defaultValue) : defaultValue;
+    }
+
+    /**
+     * Gets a String Carrier-Configuration of a particular subscription.
+     *
+     * @see #getConfigForSubId(int, String...)
+     */
+    @Nullable
+    public String getString(int subId, @NonNull String key) {
+        final PersistableBundle config = getConfigForSubId(subId, key);
+        return config != null ? config.getString(key) : null;
+    }
+
+    /**
+     * Gets an int array Carrier-Configuration of a particular subscription.
+     *
+     * @see #getConfigForSubId(int, String...)
+     */
+    @Nullable
+    public int[] getIntArray(int subId, @NonNull String key) {
+        final PersistableBundle config = getConfigForSubId(subId, key);
+        return config != null ? config.getIntArray(key) : null;
+    }
+
+    /**
+     * Gets a String array Carrier-Configuration of a particular subscription.
+     *
+     * @see #getConfigForSubId(int, String...)
+     */
+    @Nullable
+    public String[] getStringArray(int subId, @NonNull String key) {
+        final PersistableBundle config = getConfigForSubId(subId, key);
+        return config != null ? config.getStringArray(key) : null;
+    }
+
     /**
      * Gets the Carrier-Configuration for the default subscription.
      *
@@ -165,6 +289,54 @@ public class CarrierConfigCache {
         return getConfigForSubId(SubscriptionManager.getDefaultSubscriptionId());
     }
 
+    /**
+     * Dumps how many Carrier-Configurations were fetched and how many keys are cached.
+     */
+    public void dump(IndentingPrintWriter printwriter) {
+        printwriter.println(TAG + ": ");
+        printwriter.increaseIndent();
+        synchronized (sCarrierConfigs) {
+            printwriter.println("fullFetchCount=" + sFullFetchCount
+                    + " projectedFetchCount=" + sProjectedFetchCount
+                    + " projectedFetchKeyCount=" + sProjectedFetchKeyCount);
+            for (Map.Entry<Integer, PersistableBundle> entry : sCarrierConfigs.entrySet()) {
+                printwriter.println("subId=" + entry.getKey()
+                        + " fullConfigSize=" + entry.getValue().size());
+            }
+            for (Map.Entry<Integer, ProjectedConfig> entry : sProjectedConfigs.entrySet()) {
+                printwriter.println("subId=" + entry.getKey()
+                        + " projectedKeyCount=" + entry.getValue().mKeys.size()
+                        + " projectedConfigSize=" + entry.getValue().mConfig.size());
+            }
+        }
+        printwriter.flush();
+        printwriter.decreaseIndent();
+    }
+
+    /**
+     * The keys of a Carrier-Configuration fetched through {@link #getConfigForSubId(int,
+     * String...)}, with their values.
+     */
+    @VisibleForTesting
+    protected static class ProjectedConfig {
+        final PersistableBundle mConfig;
+        /** Requested keys, including the ones absent from {@link #mConfig}. */
+        final Set<String> mKeys;
+
+        ProjectedConfig(PersistableBundle config, List<String> keys) {
+            mConfig = config;
+            mKeys = new ArraySet<>(keys);
+        }
+
+        ProjectedConfig merge(PersistableBundle config, List<String> keys) {
+            final PersistableBundle mergedConfig = new PersistableBundle(mConfig);
+            mergedConfig.putAll(config);
+            final ProjectedConfig merged = new ProjectedConfig(mergedConfig, keys);
+            merged.mKeys.addAll(mKeys);
+            return merged;
+        }
+    }
+
     private static class CarrierConfigChangeReceiver extends BroadcastReceiver {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -174,8 +346,10 @@ public class CarrierConfigCache {
             synchronized (sCarrierConfigs) {
                 if (SubscriptionManager.isValidSubscriptionId(subId)) {
                     sCarrierConfigs.remove(subId);
+                    sProjectedConfigs.remove(subId);
                 } else {
                     sCarrierConfigs.clear();
+                    sProjectedConfigs.clear();
                 }
             }
         }
@@ -43,6 +43,13 @@ class MobileNetworkListFragment : DashboardFragment() {
         collectAirplaneModeAndFinishIfOn()
     }
 
+    override fun onAttach(context: Context) {
+        super.onAttach(context)
+        settingsLifecycle.addObserver(
+            SubscriptionSnapshotCache.getInstance(context).createLifecycleObserver()
+        )
+    }
+
     override fun onCreate(icicle: Bundle?) {
         super.onCreate(icicle)
 
@@ -38,6 +38,7 @@ import android.util.Log;
 
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.LifecycleOwner;
 
 import com.android.internal.telephony.flags.Flags;
@@ -57,9 +58,13 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptionsChangedListener {
@@ -68,25 +73,35 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     private static final boolean DEBUG = Log.isLoggable(TAG, Log.DEBUG);
 
     private static ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+    // The entity caches are written by the repository executor and read from any thread, so
+    // that readers never wait for the database writes.
     private static Map<Integer, SubscriptionInfoEntity> sCacheSubscriptionInfoEntityMap =
-            new ArrayMap<>();
+            new ConcurrentHashMap<>();
     private static Map<Integer, MobileNetworkInfoEntity> sCacheMobileNetworkInfoEntityMap =
-            new ArrayMap<>();
-    private static Map<Integer, UiccInfoEntity> sCacheUiccInfoEntityMap = new ArrayMap<>();
+            new ConcurrentHashMap<>();
+    private static Map<Integer, UiccInfoEntity> sCacheUiccInfoEntityMap =
+            new ConcurrentHashMap<>();
     private static Collection<MobileNetworkCallback> sCallbacks = new CopyOnWriteArrayList<>();
     private static final Object sInstanceLock = new Object();
     @GuardedBy("sInstanceLock")
     private static MobileNetworkRepository sInstance;
 
+    private final Executor mExecutor;
     private SubscriptionManager mSubscriptionManager;
     private MobileNetworkDatabase mMobileNetworkDatabase;
     private SubscriptionInfoDao mSubscriptionInfoDao;
     private UiccInfoDao mUiccInfoDao;
     private MobileNetworkInfoDao mMobileNetworkInfoDao;
-    private List<SubscriptionInfoEntity> mAvailableSubInfoEntityList = new ArrayList<>();
-    private List<SubscriptionInfoEntity> mActiveSubInfoEntityList = new ArrayList<>();
-    private List<UiccInfoEntity> mUiccInfoEntityList = new ArrayList<>();
-    private List<MobileNetworkInfoEntity> mMobileNetworkInfoEntityList = new ArrayList<>();
+    // The entity lists are replaced, never modified, so they can be read without locking.
+    private volatile List<SubscriptionInfoEntity> mAvailableSubInfoEntityList = new ArrayList<>();
+    private volatile List<SubscriptionInfoEntity> mActiveSubInfoEntityList = new ArrayList<>();
+    private volatile List<UiccInfoEntity> mUiccInfoEntityList = new ArrayList<>();
+    private volatile List<MobileNetworkInfoEntity> mMobileNetworkInfoEntityList =
+            new ArrayList<>();
+    /** Whether a refresh of the subscriptions is queued on mExecutor and not started yet. */
+    private final AtomicBoolean mSubInfoUpdatePending = new AtomicBoolean();
+    /** Subscriptions whose mobile network info refresh is queued and not started yet. */
+    private final Set<Integer> mMobileNetworkInfoUpdatePending = ConcurrentHashMap.newKeySet();
     private Context mContext;
     private AirplaneModeObserver mAirplaneModeObserver;
     private DataRoamingObserver mDataRoamingObserver;
@@ -118,8 +133,15 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     }
 
     private MobileNetworkRepository(Context context) {
+        this(context, MobileNetworkDatabase.getInstance(context), sExecutor);
+    }
+
+    @VisibleForTesting
+    MobileNetworkRepository(Context context, MobileNetworkDatabase mobileNetworkDatabase,
+            Executor executor) {
         mContext = context;
-        mMobileNetworkDatabase = MobileNetworkDatabase.getInstance(context);
+        mExecutor = executor;
+        mMobileNetworkDatabase = mobileNetworkDatabase;
         mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
         mMetricsFeatureProvider.action(mContext, SettingsEnums.ACTION_MOBILE_NETWORK_DB_CREATED);
         mSubscriptionManager = context.getSystemService(SubscriptionManager.class);
@@ -188,10 +210,8 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
             if (tm == null) {
                 return;
             }
-            sExecutor.execute(() -> {
-                Log.d(TAG, "DataRoamingObserver changed");
-                insertMobileNetworkInfo(mContext, mRegSubId, tm);
-            });
+            Log.d(TAG, "DataRoamingObserver changed");
+            updateMobileNetworkInfo(mRegSubId, tm);
             boolean isDataRoamingEnabled = tm.isDataRoamingEnabled();
             for (MobileNetworkCallback callback : sCallbacks) {
                 callback.onDataRoamingChanged(mRegSubId, isDataRoamingEnabled);
@@ -282,9 +302,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     }
 
     public void removeRegister(MobileNetworkCallback mobileNetworkCallback) {
-        synchronized (this) {
-            sCallbacks.remove(mobileNetworkCallback);
-        }
+        sCallbacks.remove(mobileNetworkCallback);
         if (sCallbacks.isEmpty()) {
             mSubscriptionManager.removeOnSubscriptionsChangedListener(this);
             mAirplaneModeObserver.unRegister(mContext);
@@ -305,9 +323,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     public void updateEntity() {
         // Check the latest state after back to the UI.
         if (sCacheSubscriptionInfoEntityMap != null || !sCacheSubscriptionInfoEntityMap.isEmpty()) {
-            sExecutor.execute(() -> {
-                onSubscriptionsChanged();
-            });
+            onSubscriptionsChanged();
         }
 
         boolean isAirplaneModeOn = isAirplaneModeOn();
@@ -355,13 +371,35 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     }
 
     public SubscriptionInfoEntity getSubInfoById(String subId) {
+        final SubscriptionInfoEntity cachedEntity = getCachedEntity(
+                sCacheSubscriptionInfoEntityMap, subId);
+        if (cachedEntity != null) {
+            return cachedEntity;
+        }
         return mSubscriptionInfoDao.querySubInfoById(subId);
     }
 
     public MobileNetworkInfoEntity queryMobileNetworkInfoBySubId(String subId) {
+        final MobileNetworkInfoEntity cachedEntity = getCachedEntity(
+                sCacheMobileNetworkInfoEntityMap, subId);
+        if (cachedEntity != null) {
+            return cachedEntity;
+        }
         return mMobileNetworkInfoDao.queryMobileNetworkInfoBySubId(subId);
     }
 
+    /**
+     * Returns the entity last written to the database for the subscription, if this process
+     * wrote it.
+     */
+    private static <T> T getCachedEntity(Map<Integer, T> cache, String subId) {
+        try {
+            return cache.get(Integer.parseInt(subId));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     private void getUiccInfoBySubscriptionInfo(@NonNull UiccSlotInfo[] uiccSlotInfos,
             SubscriptionInfo subInfo) {
         for (int i = 0; i < uiccSlotInfos.length; i++) {
@@ -400,15 +438,14 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
 
     private void onAvailableSubInfoChanged(
             List<SubscriptionInfoEntity> availableSubInfoEntityList) {
-        synchronized (this) {
-            if (mAvailableSubInfoEntityList != null
-                    && mAvailableSubInfoEntityList.size() == availableSubInfoEntityList.size()
-                    && mAvailableSubInfoEntityList.containsAll(availableSubInfoEntityList)) {
-                Log.d(TAG, "onAvailableSubInfoChanged, duplicates = " + availableSubInfoEntityList);
-                return;
-            }
-            mAvailableSubInfoEntityList = new ArrayList<>(availableSubInfoEntityList);
+        final List<SubscriptionInfoEntity> currentList = mAvailableSubInfoEntityList;
+        if (currentList != null
+                && currentList.size() == availableSubInfoEntityList.size()
+                && currentList.containsAll(availableSubInfoEntityList)) {
+            Log.d(TAG, "onAvailableSubInfoChanged, duplicates = " + availableSubInfoEntityList);
+            return;
         }
+        mAvailableSubInfoEntityList = new ArrayList<>(availableSubInfoEntityList);
 
         Log.d(TAG, "onAvailableSubInfoChanged, availableSubInfoEntityList = "
                     + availableSubInfoEntityList);
@@ -434,9 +471,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
 
         List<SubscriptionInfoEntity> tempActiveSubInfoEntityList = new ArrayList<>(
                 activeSubInfoEntityList);
-        synchronized (this) {
-            mActiveSubInfoEntityList = activeSubInfoEntityList;
-        }
+        mActiveSubInfoEntityList = activeSubInfoEntityList;
         for (MobileNetworkCallback callback : sCallbacks) {
             callback.onActiveSubInfoChanged(tempActiveSubInfoEntityList);
         }
@@ -446,13 +481,13 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         if (callback != null) {
              List<SubscriptionInfoEntity> availableSubInfoEntityList = null;
              List<SubscriptionInfoEntity> activeSubInfoEntityList = null;
-             synchronized (this) {
-                 if (mAvailableSubInfoEntityList != null) {
-                     availableSubInfoEntityList = new ArrayList<>(mAvailableSubInfoEntityList);
-                 }
-                 if (mActiveSubInfoEntityList != null) {
-                     activeSubInfoEntityList = new ArrayList<>(mActiveSubInfoEntityList);
-                 }
+             final List<SubscriptionInfoEntity> currentAvailableList = mAvailableSubInfoEntityList;
+             final List<SubscriptionInfoEntity> currentActiveList = mActiveSubInfoEntityList;
+             if (currentAvailableList != null) {
+                 availableSubInfoEntityList = new ArrayList<>(currentAvailableList);
+             }
+             if (currentActiveList != null) {
+                 activeSubInfoEntityList = new ArrayList<>(currentActiveList);
              }
              if (availableSubInfoEntityList != null) {
                  callback.onAvailableSubInfoChanged(availableSubInfoEntityList);
@@ -515,8 +550,12 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         mMobileNetworkDatabase.deleteSubInfoBySubId(subId);
         mMobileNetworkDatabase.deleteUiccInfoBySubId(subId);
         mMobileNetworkDatabase.deleteMobileNetworkInfoBySubId(subId);
-        mUiccInfoEntityList.removeIf(info -> info.subId.equals(subId));
-        mMobileNetworkInfoEntityList.removeIf(info -> info.subId.equals(subId));
+        mUiccInfoEntityList = mUiccInfoEntityList.stream()
+                .filter(info -> !info.subId.equals(subId))
+                .collect(Collectors.toList());
+        mMobileNetworkInfoEntityList = mMobileNetworkInfoEntityList.stream()
+                .filter(info -> !info.subId.equals(subId))
+                .collect(Collectors.toList());
         int id = Integer.parseInt(subId);
         removerRegisterBySubId(id);
         mSubscriptionInfoMap.remove(id);
@@ -661,78 +700,95 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
 
     @Override
     public void onSubscriptionsChanged() {
-        insertAvailableSubInfoToEntity(
-                SubscriptionUtil.getSelectableSubscriptionInfoList(mContext));
+        // A burst of changes, e.g. while a SIM is inserted, only needs the latest subscriptions,
+        // so queue a single refresh which queries them once it runs.
+        if (mSubInfoUpdatePending.getAndSet(true)) {
+            return;
+        }
+        mExecutor.execute(() -> {
+            mSubInfoUpdatePending.set(false);
+            final List<SubscriptionInfo> availableInfoList =
+                    SubscriptionUtil.getSelectableSubscriptionInfoList(mContext);
+            // Write all the entities of the refresh at once, so observers are only notified
+            // after the whole refresh.
+            mMobileNetworkDatabase.runInTransaction(
+                    () -> insertAvailableSubInfoToEntity(availableInfoList));
+        });
+    }
+
+    private void updateMobileNetworkInfo(int subId, TelephonyManager telephonyManager) {
+        if (!mMobileNetworkInfoUpdatePending.add(subId)) {
+            return;
+        }
+        mExecutor.execute(() -> {
+            mMobileNetworkInfoUpdatePending.remove(subId);
+            insertMobileNetworkInfo(mContext, subId, telephonyManager);
+        });
     }
 
     private void insertAvailableSubInfoToEntity(List<SubscriptionInfo> inputAvailableInfoList) {
-        sExecutor.execute(() -> {
-            SubscriptionInfoEntity[] availableInfoArray = null;
-            int availableEntitySize = 0;
-            synchronized (this) {
-                availableInfoArray = mAvailableSubInfoEntityList.toArray(
-                    new SubscriptionInfoEntity[0]);
-                availableEntitySize = mAvailableSubInfoEntityList.size();
+        final List<SubscriptionInfoEntity> currentAvailableList = mAvailableSubInfoEntityList;
+        SubscriptionInfoEntity[] availableInfoArray = currentAvailableList.toArray(
+                new SubscriptionInfoEntity[0]);
+        int availableEntitySize = availableInfoArray.length;
+        if ((inputAvailableInfoList == null || inputAvailableInfoList.size() == 0)
+                && availableEntitySize != 0) {
+            if (DEBUG) {
+                Log.d(TAG, "availableSudInfoList from framework is empty, remove all subs");
             }
-            if ((inputAvailableInfoList == null || inputAvailableInfoList.size() == 0)
-                    && availableEntitySize != 0) {
-                if (DEBUG) {
-                    Log.d(TAG, "availableSudInfoList from framework is empty, remove all subs");
-                }
 
-                for (SubscriptionInfoEntity info : availableInfoArray) {
-                    deleteAllInfoBySubId(info.subId);
-                }
+            for (SubscriptionInfoEntity info : availableInfoArray) {
+                deleteAllInfoBySubId(info.subId);
+            }
 
-            } else if (inputAvailableInfoList != null) {
-                SubscriptionInfo[] inputAvailableInfoArray = inputAvailableInfoList.toArray(
-                        new SubscriptionInfo[0]);
-                // Remove the redundant subInfo
-                if (inputAvailableInfoList.size() <= availableEntitySize) {
-                    for (SubscriptionInfo subInfo : inputAvailableInfoArray) {
-                        int subId = subInfo.getSubscriptionId();
-                        if (mSubscriptionInfoMap.containsKey(subId)) {
-                            mSubscriptionInfoMap.remove(subId);
-                        }
+        } else if (inputAvailableInfoList != null) {
+            SubscriptionInfo[] inputAvailableInfoArray = inputAvailableInfoList.toArray(
+                    new SubscriptionInfo[0]);
+            // Remove the redundant subInfo
+            if (inputAvailableInfoList.size() <= availableEntitySize) {
+                for (SubscriptionInfo subInfo : inputAvailableInfoArray) {
+                    int subId = subInfo.getSubscriptionId();
+                    if (mSubscriptionInfoMap.containsKey(subId)) {
+                        mSubscriptionInfoMap.remove(subId);
                     }
+                }
 
-                    if (!mSubscriptionInfoMap.isEmpty()) {
-                        for (Integer key : mSubscriptionInfoMap.keySet()) {
-                            if (key != null) {
-                                deleteAllInfoBySubId(String.valueOf(key));
-                            }
+                if (!mSubscriptionInfoMap.isEmpty()) {
+                    for (Integer key : mSubscriptionInfoMap.keySet()) {
+                        if (key != null) {
+                            deleteAllInfoBySubId(String.valueOf(key));
                         }
-                    } else if (inputAvailableInfoList.size() < availableEntitySize) {
-                        // Check the subInfo between the new list from framework and old list in
-                        // the database, if the subInfo is not existed in the new list, delete it
-                        // from the database.
-                        for (SubscriptionInfoEntity info : availableInfoArray) {
-                            if (sCacheSubscriptionInfoEntityMap.containsKey(info.getSubId())) {
-                                deleteAllInfoBySubId(info.subId);
-                            }
+                    }
+                } else if (inputAvailableInfoList.size() < availableEntitySize) {
+                    // Check the subInfo between the new list from framework and old list in
+                    // the database, if the subInfo is not existed in the new list, delete it
+                    // from the database.
+                    for (SubscriptionInfoEntity info : availableInfoArray) {
+                        if (sCacheSubscriptionInfoEntityMap.containsKey(info.getSubId())) {
+                            deleteAllInfoBySubId(info.subId);
                         }
                     }
                 }
+            }
 
-                // Insert all new available subInfo to database.
-                for (SubscriptionInfo subInfo : inputAvailableInfoArray) {
+            // Insert all new available subInfo to database.
+            for (SubscriptionInfo subInfo : inputAvailableInfoArray) {
+                if (DEBUG) {
+                    Log.d(TAG, "insert subInfo to subInfoEntity, subInfo = " + subInfo);
+                }
+                if (subInfo.isEmbedded()
+                    && (subInfo.getProfileClass() == PROFILE_CLASS_PROVISIONING
+                        || (Flags.oemEnabledSatelliteFlag()
+                        && subInfo.isOnlyNonTerrestrialNetwork()))) {
                     if (DEBUG) {
-                        Log.d(TAG, "insert subInfo to subInfoEntity, subInfo = " + subInfo);
+                        Log.d(TAG, "Do not insert the provisioning or satellite eSIM");
                     }
-                    if (subInfo.isEmbedded()
-                        && (subInfo.getProfileClass() == PROFILE_CLASS_PROVISIONING
-                            || (Flags.oemEnabledSatelliteFlag()
-                            && subInfo.isOnlyNonTerrestrialNetwork()))) {
-                        if (DEBUG) {
-                            Log.d(TAG, "Do not insert the provisioning or satellite eSIM");
-                        }
-                        continue;
-                    }
-                    mSubscriptionInfoMap.put(subInfo.getSubscriptionId(), subInfo);
-                    insertSubInfo(mContext, subInfo);
+                    continue;
                 }
+                mSubscriptionInfoMap.put(subInfo.getSubscriptionId(), subInfo);
+                insertSubInfo(mContext, subInfo);
             }
-        });
+        }
     }
 
     public boolean isAirplaneModeOn() {
@@ -760,10 +816,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         @Override
         public void onUserMobileDataStateChanged(boolean enabled) {
             Log.d(TAG, "onUserMobileDataStateChanged enabled " + enabled + " on SUB " + mSubId);
-            sExecutor.execute(() -> {
-                insertMobileNetworkInfo(mContext, mSubId,
-                        getTelephonyManagerBySubId(mContext, mSubId));
-            });
+            updateMobileNetworkInfo(mSubId, getTelephonyManagerBySubId(mContext, mSubId));
         }
     }
 
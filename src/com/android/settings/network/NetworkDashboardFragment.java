@@ -58,6 +58,8 @@ public class NetworkDashboardFragment extends DashboardFragment implements
     @Override
     public void onAttach(Context context) {
         super.onAttach(context);
+        getSettingsLifecycle().addObserver(
+                SubscriptionSnapshotCache.getInstance(context).createLifecycleObserver());
 
         use(AirplaneModePreferenceController.class).setFragment(this);
         use(NetworkProviderCallsSmsController.class).init(this);
@@ -50,6 +50,13 @@ public class NetworkProviderCallsSmsFragment extends DashboardFragment {
     private NetworkProviderWifiCallingPreferenceController
             mNetworkProviderWifiCallingPreferenceController;
 
+    @Override
+    public void onAttach(Context context) {
+        super.onAttach(context);
+        getSettingsLifecycle().addObserver(
+                SubscriptionSnapshotCache.getInstance(context).createLifecycleObserver());
+    }
+
     @Override
     protected List<AbstractPreferenceController> createPreferenceControllers(Context context) {
         final List<AbstractPreferenceController> controllers = new ArrayList<>();
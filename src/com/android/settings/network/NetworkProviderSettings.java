@@ -38,6 +38,7 @@ import android.os.UserManager;
 import android.provider.Settings;
 import android.telephony.TelephonyManager;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.EventLog;
 import android.util.Log;
 import android.view.ContextMenu;
@@ -95,6 +96,7 @@ import com.android.wifitrackerlib.WifiEntry.ConnectCallback;
 import com.android.wifitrackerlib.WifiPickerTracker;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -187,6 +189,15 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             view.postDelayed(mRemoveLoadingRunnable, 10);
         }
     };
+    private boolean mWifiEntryPreferencesUpdatePending;
+    @VisibleForTesting
+    final Runnable mCoalescedUpdateWifiEntryPreferencesRunnable = () -> {
+        mWifiEntryPreferencesUpdatePending = false;
+        updateWifiEntryPreferences();
+    };
+    /** Number of preferences inserted, moved, rebound or removed by the last update. */
+    @VisibleForTesting
+    int mLastWifiEntryPreferencesTouchedCount;
     @VisibleForTesting
     final Runnable mHideProgressBarRunnable = () -> {
         setProgressBarVisible(false);
@@ -534,6 +545,8 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     public void onStop() {
         getView().removeCallbacks(mRemoveLoadingRunnable);
         getView().removeCallbacks(mUpdateWifiEntryPreferencesRunnable);
+        getView().removeCallbacks(mCoalescedUpdateWifiEntryPreferencesRunnable);
+        mWifiEntryPreferencesUpdatePending = false;
         getView().removeCallbacks(mHideProgressBarRunnable);
         mAirplaneModeEnabler.stop();
         super.onStop();
@@ -909,7 +922,7 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
 
     @Override
     public void onWifiEntriesChanged(@WifiPickerTracker.WifiEntriesChangedReason int reason) {
-        updateWifiEntryPreferences();
+        scheduleWifiEntryPreferencesUpdate();
         if (reason == WifiPickerTracker.WIFI_ENTRIES_CHANGED_REASON_SCAN_RESULTS) {
             setProgressBarVisible(false);
         }
@@ -948,6 +961,23 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
         setAdditionalSettingsSummaries();
     }
 
+    /**
+     * Coalesces bursts of {@link #onWifiEntriesChanged} callbacks into at most one preference
+     * update per frame.
+     */
+    @VisibleForTesting
+    void scheduleWifiEntryPreferencesUpdate() {
+        final View view = getView();
+        if (view == null) {
+            return;
+        }
+        if (mWifiEntryPreferencesUpdatePending) {
+            return;
+        }
+        mWifiEntryPreferencesUpdatePending = true;
+        view.postOnAnimation(mCoalescedUpdateWifiEntryPreferencesRunnable);
+    }
+
     protected void updateWifiEntryPreferences() {
         // bypass the update if the activity and the view are not ready, or it's restricted UI.
         if (getActivity() == null || getView() == null || mIsRestricted) {
@@ -959,7 +989,7 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             return;
         }
 
-        boolean hasAvailableWifiEntries = false;
+        int touched = 0;
         mWifiEntryPreferenceCategory.setVisible(true);
 
         final WifiEntry connectedEntry = mWifiPickerTracker.getConnectedWifiEntry();
@@ -968,7 +998,7 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
         if (connectedEntry != null) {
             final LongPressWifiEntryPreference connectedPref =
                     connectedWifiPreferenceCategory.findPreference(connectedEntry.getKey());
-            if (connectedPref == null || connectedPref.getWifiEntry() != connectedEntry) {
+            if (connectedPref == null) {
                 connectedWifiPreferenceCategory.removeAll();
                 final ConnectedWifiEntryPreference pref =
                         createConnectedWifiEntryPreference(connectedEntry);
@@ -976,8 +1006,9 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
                 pref.refresh();
                 connectedWifiPreferenceCategory.addPreference(pref);
                 pref.setOnPreferenceClickListener(preference -> {
-                    if (connectedEntry.canSignIn()) {
-                        connectedEntry.signIn(null /* callback */);
+                    final WifiEntry entry = pref.getWifiEntry();
+                    if (entry.canSignIn()) {
+                        entry.signIn(null /* callback */);
                     } else {
                         launchNetworkDetailsFragment(pref);
                     }
@@ -986,61 +1017,118 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
                 pref.setOnGearClickListener(preference -> {
                     launchNetworkDetailsFragment(pref);
                 });
+                touched++;
 
                 if (mClickedConnect) {
                     mClickedConnect = false;
                     scrollToPreference(connectedWifiPreferenceCategory);
                 }
+            } else if (connectedPref.getWifiEntry() != connectedEntry) {
+                connectedPref.setWifiEntry(connectedEntry);
+                touched++;
             }
-        } else {
+        } else if (connectedWifiPreferenceCategory.getPreferenceCount() > 0) {
+            touched += connectedWifiPreferenceCategory.getPreferenceCount();
             connectedWifiPreferenceCategory.removeAll();
         }
 
+        // Index the current entry preferences by key, leaving out the fixed trailing ones.
+        final Map<String, LongPressWifiEntryPreference> existing = new ArrayMap<>();
+        for (int i = 0; i < mWifiEntryPreferenceCategory.getPreferenceCount(); i++) {
+            final Preference p = mWifiEntryPreferenceCategory.getPreference(i);
+            if (p instanceof LongPressWifiEntryPreference) {
+                existing.put(p.getKey(), (LongPressWifiEntryPreference) p);
+            }
+        }
+
         int index = 0;
-        cacheRemoveAllPrefs(mWifiEntryPreferenceCategory);
-        List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
+        final List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
         for (WifiEntry wifiEntry : wifiEntries) {
-            hasAvailableWifiEntries = true;
-
-            String key = wifiEntry.getKey();
-            LongPressWifiEntryPreference pref =
-                    (LongPressWifiEntryPreference) getCachedPreference(key);
+            final int order = index++;
+            LongPressWifiEntryPreference pref = existing.remove(wifiEntry.getKey());
             if (pref != null) {
-                if (pref.getWifiEntry() == wifiEntry) {
-                    pref.setOrder(index++);
-                    continue;
-                } else {
-                    // Create a new preference if the underlying WifiEntry object has changed
-                    removePreference(key);
+                boolean changed = false;
+                if (pref.getWifiEntry() != wifiEntry) {
+                    // Rebind instead of recreating the preference for the same network.
+                    pref.setWifiEntry(wifiEntry);
+                    bindHelpButton(pref, wifiEntry);
+                    changed = true;
+                }
+                if (pref.getOrder() != order) {
+                    pref.setOrder(order);
+                    changed = true;
                 }
+                if (changed) {
+                    touched++;
+                }
+                continue;
             }
 
-            pref = createLongPressWifiEntryPreference(wifiEntry);
-            pref.setKey(wifiEntry.getKey());
-            pref.setOrder(index++);
-            pref.refresh();
-
-            if (wifiEntry.getHelpUriString() != null) {
-                pref.setOnButtonClickListener(preference -> {
-                    openSubscriptionHelpPage(wifiEntry);
-                });
+            final LongPressWifiEntryPreference newPref =
+                    createLongPressWifiEntryPreference(wifiEntry);
+            newPref.setKey(wifiEntry.getKey());
+            newPref.setOrder(order);
+            newPref.refresh();
+            bindHelpButton(newPref, wifiEntry);
+            mWifiEntryPreferenceCategory.addPreference(newPref);
+            touched++;
+        }
+        for (Preference stale : existing.values()) {
+            mWifiEntryPreferenceCategory.removePreference(stale);
+            touched++;
+        }
+
+        final Preference emptyPref = mWifiEntryPreferenceCategory.findPreference(
+                PREF_KEY_EMPTY_WIFI_LIST);
+        if (wifiEntries.isEmpty()) {
+            if (emptyPref == null) {
+                Preference pref = new Preference(getPrefContext());
+                pref.setSelectable(false);
+                pref.setSummary(R.string.wifi_empty_list_wifi_on);
+                pref.setOrder(index);
+                pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
+                mWifiEntryPreferenceCategory.addPreference(pref);
+                touched++;
+            } else if (emptyPref.getOrder() != index) {
+                emptyPref.setOrder(index);
+                touched++;
             }
-            mWifiEntryPreferenceCategory.addPreference(pref);
+            index++;
+        } else if (emptyPref != null) {
+            mWifiEntryPreferenceCategory.removePreference(emptyPref);
+            touched++;
         }
-        removeCachedPrefs(mWifiEntryPreferenceCategory);
 
-        if (!hasAvailableWifiEntries) {
-            Preference pref = new Preference(getPrefContext());
-            pref.setSelectable(false);
-            pref.setSummary(R.string.wifi_empty_list_wifi_on);
-            pref.setOrder(index++);
-            pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
-            mWifiEntryPreferenceCategory.addPreference(pref);
+        if (mAddWifiNetworkPreference.getOrder() != index) {
+            mAddWifiNetworkPreference.setOrder(index);
+            touched++;
+        }
+        if (mWifiEntryPreferenceCategory.findPreference(mAddWifiNetworkPreference.getKey())
+                == null) {
+            mWifiEntryPreferenceCategory.addPreference(mAddWifiNetworkPreference);
+            touched++;
         }
-
-        mAddWifiNetworkPreference.setOrder(index++);
-        mWifiEntryPreferenceCategory.addPreference(mAddWifiNetworkPreference);
         setAdditionalSettingsSummaries();
+
+        mLastWifiEntryPreferencesTouchedCount = touched;
+        if (mWifiPickerTracker.isVerboseLoggingEnabled()) {
+            Log.i(TAG, "updateWifiEntryPreferences: " + wifiEntries.size() + " entries, "
+                    + touched + " preferences touched");
+        }
+    }
+
+    /**
+     * Opens the help page of the entry from the preference's button if it has one, and clears the
+     * listener of a preference rebound to an entry without a help page.
+     */
+    private void bindHelpButton(LongPressWifiEntryPreference pref, WifiEntry wifiEntry) {
+        if (wifiEntry.getHelpUriString() != null) {
+            pref.setOnButtonClickListener(preference -> {
+                openSubscriptionHelpPage(pref.getWifiEntry());
+            });
+        } else {
+            pref.setOnButtonClickListener(null);
+        }
     }
 
     @VisibleForTesting
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.android.internal.util.CollectionUtils.emptyIfNull;
+
+import android.content.Context;
+import android.os.ParcelUuid;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.telephony.UiccCardInfo;
+import android.telephony.UiccSlotInfo;
+import android.util.ArrayMap;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.android.settings.network.telephony.SubscriptionRepositoryKt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the subscriptions, UICC slots and UICC cards of the device at one point in
+ * time, together with the values {@link SubscriptionUtil} derives from them.
+ *
+ * <p>Snapshots are built and shared by {@link SubscriptionSnapshotCache}, which builds a new one
+ * with a higher {@link #getVersion() version} after each subscription change.
+ */
+public class SubscriptionSnapshot {
+
+    private final int mVersion;
+    private final List<SubscriptionInfo> mAllSubscriptions;
+    private final SparseArray<SubscriptionInfo> mSubscriptionsById;
+    private final List<SubscriptionInfo> mAvailableSubscriptions;
+    private final Map<ParcelUuid, List<SubscriptionInfo>> mEmbeddedSubscriptionsByGroup;
+    private final List<SubscriptionInfo> mActiveSubscriptions;
+    private final List<SubscriptionInfo> mSelectableSubscriptions;
+    @Nullable
+    private final UiccSlotInfo[] mUiccSlotsInfo;
+    @Nullable
+    private final List<UiccCardInfo> mUiccCardsInfo;
+    private final Map<Integer, CharSequence> mUniqueDisplayNames;
+
+    private SubscriptionSnapshot(int version, List<SubscriptionInfo> allSubscriptions,
+            List<SubscriptionInfo> availableSubscriptions,
+            List<SubscriptionInfo> activeSubscriptions,
+            List<SubscriptionInfo> selectableSubscriptions,
+            @Nullable UiccSlotInfo[] uiccSlotsInfo, @Nullable List<UiccCardInfo> uiccCardsInfo,
+            Map<Integer, CharSequence> uniqueDisplayNames) {
+        mVersion = version;
+        mAllSubscriptions = Collections.unmodifiableList(allSubscriptions);
+        mSubscriptionsById = new SparseArray<>(allSubscriptions.size());
+        for (SubscriptionInfo subInfo : allSubscriptions) {
+            if (subInfo != null) {
+                mSubscriptionsById.put(subInfo.getSubscriptionId(), subInfo);
+            }
+        }
+        mAvailableSubscriptions = Collections.unmodifiableList(availableSubscriptions);
+        mEmbeddedSubscriptionsByGroup = new ArrayMap<>();
+        for (SubscriptionInfo subInfo : availableSubscriptions) {
+            if (subInfo == null || !subInfo.isEmbedded() || subInfo.getGroupUuid() == null) {
+                continue;
+            }
+            mEmbeddedSubscriptionsByGroup
+                    .computeIfAbsent(subInfo.getGroupUuid(), uuid -> new ArrayList<>())
+                    .add(subInfo);
+        }
+        mActiveSubscriptions = Collections.unmodifiableList(activeSubscriptions);
+        mSelectableSubscriptions = Collections.unmodifiableList(selectableSubscriptions);
+        mUiccSlotsInfo = uiccSlotsInfo;
+        mUiccCardsInfo = uiccCardsInfo == null ? null
+                : Collections.unmodifiableList(new ArrayList<>(uiccCardsInfo));
+        mUniqueDisplayNames = Collections.unmodifiableMap(uniqueDisplayNames);
+    }
+
+    /** Queries the current state of the subscriptions and slots of the device. */
+    static SubscriptionSnapshot create(@NonNull Context context, int version) {
+        final SubscriptionManager subscriptionManager =
+                context.getSystemService(SubscriptionManager.class);
+        final TelephonyManager telephonyManager = context.getSystemService(TelephonyManager.class);
+
+        final List<SubscriptionInfo> allSubscriptions = new ArrayList<>(
+                emptyIfNull(subscriptionManager.getAllSubscriptionInfoList()));
+        final List<SubscriptionInfo> availableSubscriptions = new ArrayList<>(
+                emptyIfNull(subscriptionManager.getAvailableSubscriptionInfoList()));
+        final List<SubscriptionInfo> selectableSubscriptions = new ArrayList<>(
+                emptyIfNull(SubscriptionRepositoryKt.getSelectableSubscriptionInfoList(context)));
+        return new SubscriptionSnapshot(version, allSubscriptions, availableSubscriptions,
+                SubscriptionUtil.queryActiveSubscriptions(subscriptionManager),
+                selectableSubscriptions,
+                telephonyManager.getUiccSlotsInfo(), telephonyManager.getUiccCardsInfo(),
+                SubscriptionUtil.computeUniqueSubscriptionDisplayNames(context,
+                        selectableSubscriptions));
+    }
+
+    /** Returns the version of this snapshot, which is increased on each subscription change. */
+    public int getVersion() {
+        return mVersion;
+    }
+
+    /** Same as {@link SubscriptionManager#getAllSubscriptionInfoList()}. */
+    @NonNull
+    public List<SubscriptionInfo> getAllSubscriptions() {
+        return mAllSubscriptions;
+    }
+
+    /** Returns the subscription of {@link #getAllSubscriptions()} with the given id. */
+    @Nullable
+    public SubscriptionInfo getSubscription(int subId) {
+        return mSubscriptionsById.get(subId);
+    }
+
+    /** Same as {@link SubscriptionManager#getAvailableSubscriptionInfoList()}. */
+    @NonNull
+    public List<SubscriptionInfo> getAvailableSubscriptions() {
+        return mAvailableSubscriptions;
+    }
+
+    /** Returns the embedded available subscriptions which belong to the group. */
+    @NonNull
+    public List<SubscriptionInfo> getEmbeddedSubscriptionsInGroup(@NonNull ParcelUuid groupUuid) {
+        final List<SubscriptionInfo> subscriptions = mEmbeddedSubscriptionsByGroup.get(groupUuid);
+        return subscriptions == null ? Collections.emptyList()
+                : Collections.unmodifiableList(subscriptions);
+    }
+
+    /** Same as {@link SubscriptionUtil#getActiveSubscriptions(SubscriptionManager)}. */
+    @NonNull
+    public List<SubscriptionInfo> getActiveSubscriptions() {
+        return mActiveSubscriptions;
+    }
+
+    /** Same as {@link SubscriptionUtil#getSelectableSubscriptionInfoList(Context)}. */
+    @NonNull
+    public List<SubscriptionInfo> getSelectableSubscriptions() {
+        return mSelectableSubscriptions;
+    }
+
+    /** Same as {@link TelephonyManager#getUiccSlotsInfo()}. */
+    @Nullable
+    public UiccSlotInfo[] getUiccSlotsInfo() {
+        return mUiccSlotsInfo == null ? null : mUiccSlotsInfo.clone();
+    }
+
+    /** Same as {@link TelephonyManager#getUiccCardsInfo()}. */
+    @Nullable
+    public List<UiccCardInfo> getUiccCardsInfo() {
+        return mUiccCardsInfo;
+    }
+
+    /** Same as {@link SubscriptionUtil#getUniqueSubscriptionDisplayNames(Context)}. */
+    @NonNull
+    public Map<Integer, CharSequence> getUniqueDisplayNames() {
+        return mUniqueDisplayNames;
+    }
+}
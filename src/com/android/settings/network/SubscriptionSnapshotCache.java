@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.content.Context;
+import android.os.Looper;
+import android.telephony.SubscriptionManager;
+import android.telephony.SubscriptionManager.OnSubscriptionsChangedListener;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LifecycleObserver;
+
+import com.android.settingslib.core.lifecycle.events.OnStart;
+import com.android.settingslib.core.lifecycle.events.OnStop;
+
+import java.util.function.Function;
+
+/**
+ * This is a singleton class sharing one {@link SubscriptionSnapshot} between the network pages.
+ *
+ * <p>While at least one page observes it through {@link #createLifecycleObserver()}, the snapshot
+ * is built on first use after each {@link OnSubscriptionsChangedListener#onSubscriptionsChanged()}
+ * and {@link SubscriptionUtil} reads from it instead of querying telephony on every call. When no
+ * page is started, no snapshot is kept since nothing would tell when it becomes stale.
+ *
+ * <p>The snapshot is built from the {@link SubscriptionManager} of the application context, so
+ * it only reflects the subscriptions visible to the current user; see
+ * {@link #isSnapshotManager}. Since the order in which subscription listeners are called is not
+ * defined, the listeners of the pages call {@link #notifySubscriptionsChanged()} before updating
+ * their UI, so that they never read the snapshot of the previous subscriptions.
+ */
+public class SubscriptionSnapshotCache {
+    private static final String TAG = "SubSnapshotCache";
+
+    private static final Object sInstanceLock = new Object();
+    @GuardedBy("sInstanceLock")
+    private static SubscriptionSnapshotCache sInstance;
+
+    private final Context mContext;
+    private final Function<Integer, SubscriptionSnapshot> mSnapshotFactory;
+    private final OnSubscriptionsChangedListener mSubscriptionsChangedListener;
+
+    @GuardedBy("this")
+    private int mClients;
+    @GuardedBy("this")
+    private int mVersion;
+    @GuardedBy("this")
+    @Nullable
+    private SubscriptionSnapshot mSnapshot;
+
+    /**
+     * Static method to create a singleton class sharing the subscription snapshot.
+     *
+     * @param context The Context this is associated with.
+     * @return an instance of {@link SubscriptionSnapshotCache} object.
+     */
+    @NonNull
+    public static SubscriptionSnapshotCache getInstance(@NonNull Context context) {
+        synchronized (sInstanceLock) {
+            if (sInstance == null) {
+                final Context appContext = context.getApplicationContext();
+                sInstance = new SubscriptionSnapshotCache(appContext,
+                        version -> SubscriptionSnapshot.create(appContext, version));
+            }
+            return sInstance;
+        }
+    }
+
+    /**
+     * Returns the snapshot shared by the started network pages, or {@code null} if none of them
+     * is started.
+     */
+    @Nullable
+    static SubscriptionSnapshot peekSnapshot() {
+        final SubscriptionSnapshotCache instance;
+        synchronized (sInstanceLock) {
+            instance = sInstance;
+        }
+        return instance != null ? instance.getSnapshot() : null;
+    }
+
+    /**
+     * Returns whether the snapshot reflects what {@code manager} returns, which is not the case
+     * of a manager created for another context or for all user profiles.
+     */
+    static boolean isSnapshotManager(@Nullable SubscriptionManager manager) {
+        final SubscriptionSnapshotCache instance;
+        synchronized (sInstanceLock) {
+            instance = sInstance;
+        }
+        return instance != null && manager != null
+                && manager == instance.mContext.getSystemService(SubscriptionManager.class);
+    }
+
+    /**
+     * Drops the shared snapshot, if any. Called by the subscription listeners of the pages before
+     * they notify their clients.
+     */
+    public static void notifySubscriptionsChanged() {
+        final SubscriptionSnapshotCache instance;
+        synchronized (sInstanceLock) {
+            instance = sInstance;
+        }
+        if (instance != null) {
+            instance.invalidate();
+        }
+    }
+
+    @VisibleForTesting
+    static void setInstanceForTesting(@Nullable SubscriptionSnapshotCache instance) {
+        synchronized (sInstanceLock) {
+            sInstance = instance;
+        }
+    }
+
+    @VisibleForTesting
+    SubscriptionSnapshotCache(Context context,
+            Function<Integer, SubscriptionSnapshot> snapshotFactory) {
+        mContext = context;
+        mSnapshotFactory = snapshotFactory;
+        mSubscriptionsChangedListener =
+                new OnSubscriptionsChangedListener(Looper.getMainLooper()) {
+                    @Override
+                    public void onSubscriptionsChanged() {
+                        invalidate();
+                    }
+                };
+    }
+
+    /** Returns an observer keeping the snapshot up to date while its lifecycle is started. */
+    @NonNull
+    public LifecycleObserver createLifecycleObserver() {
+        return new SnapshotClient();
+    }
+
+    /**
+     * Returns the current snapshot, building it if the subscriptions changed since the last one,
+     * or {@code null} if no network page is started.
+     */
+    @Nullable
+    public SubscriptionSnapshot getSnapshot() {
+        final int version;
+        synchronized (this) {
+            if (mClients == 0) {
+                return null;
+            }
+            if (mSnapshot != null) {
+                return mSnapshot;
+            }
+            version = mVersion;
+        }
+        final SubscriptionSnapshot snapshot = mSnapshotFactory.apply(version);
+        synchronized (this) {
+            // Only share it if no change happened while it was built.
+            if (mClients > 0 && mVersion == version) {
+                mSnapshot = snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    @VisibleForTesting
+    void start() {
+        synchronized (this) {
+            if (mClients++ > 0) {
+                return;
+            }
+            mVersion++;
+            mSnapshot = null;
+        }
+        final SubscriptionManager subscriptionManager =
+                mContext.getSystemService(SubscriptionManager.class);
+        if (subscriptionManager == null) {
+            Log.w(TAG, "No SubscriptionManager, the snapshot is never invalidated.");
+            return;
+        }
+        subscriptionManager.addOnSubscriptionsChangedListener(mContext.getMainExecutor(),
+                mSubscriptionsChangedListener);
+    }
+
+    @VisibleForTesting
+    void stop() {
+        synchronized (this) {
+            if (mClients == 0 || --mClients > 0) {
+                return;
+            }
+            mSnapshot = null;
+        }
+        final SubscriptionManager subscriptionManager =
+                mContext.getSystemService(SubscriptionManager.class);
+        if (subscriptionManager != null) {
+            subscriptionManager.removeOnSubscriptionsChangedListener(
+                    mSubscriptionsChangedListener);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void invalidate() {
+        mVersion++;
+        mSnapshot = null;
+    }
+
+    private class SnapshotClient implements LifecycleObserver, OnStart, OnStop {
+        @Override
+        public void onStart() {
+            start();
+        }
+
+        @Override
+        public void onStop() {
+            stop();
+        }
+    }
+}
@@ -57,6 +57,7 @@ import com.android.settings.network.telephony.ToggleSubscriptionDialogActivity;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -105,6 +106,17 @@ public class SubscriptionUtil {
         if (sActiveResultsForTesting != null) {
             return sActiveResultsForTesting;
         }
+        // The snapshot only holds the subscriptions of the application context's manager, e.g.
+        // not those of other profiles returned by a manager created for all user profiles.
+        final SubscriptionSnapshot snapshot = getSnapshot();
+        if (snapshot != null && SubscriptionSnapshotCache.isSnapshotManager(manager)) {
+            return new ArrayList<>(snapshot.getActiveSubscriptions());
+        }
+        return queryActiveSubscriptions(manager);
+    }
+
+    /** Same as {@link #getActiveSubscriptions(SubscriptionManager)}, without the snapshot. */
+    static List<SubscriptionInfo> queryActiveSubscriptions(SubscriptionManager manager) {
         if (manager == null) {
             return Collections.emptyList();
         }
@@ -147,9 +159,25 @@ public class SubscriptionUtil {
         if (sAvailableResultsForTesting != null) {
             return sAvailableResultsForTesting;
         }
+        final SubscriptionSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            return new ArrayList<>(snapshot.getSelectableSubscriptions());
+        }
         return new ArrayList<>(emptyIfNull(getSelectableSubscriptionInfoList(context)));
     }
 
+    /**
+     * Returns the snapshot shared by the started network pages, or {@code null} if there is none
+     * or if the subscriptions are overridden for testing.
+     */
+    @Nullable
+    private static SubscriptionSnapshot getSnapshot() {
+        if (sAvailableResultsForTesting != null || sActiveResultsForTesting != null) {
+            return null;
+        }
+        return SubscriptionSnapshotCache.peekSnapshot();
+    }
+
     /**
      * Get subscriptionInfo which is available to be displayed to the user
      * per subscription id.
@@ -189,6 +217,10 @@ public class SubscriptionUtil {
     }
 
     private static UiccSlotInfo [] getUiccSlotsInfo(Context context) {
+        final SubscriptionSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            return snapshot.getUiccSlotsInfo();
+        }
         final TelephonyManager telMgr = context.getSystemService(TelephonyManager.class);
         return telMgr.getUiccSlotsInfo();
     }
@@ -296,6 +328,19 @@ public class SubscriptionUtil {
      */
     @VisibleForTesting
     public static Map<Integer, CharSequence> getUniqueSubscriptionDisplayNames(Context context) {
+        final SubscriptionSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            return new HashMap<>(snapshot.getUniqueDisplayNames());
+        }
+        return computeUniqueSubscriptionDisplayNames(context, getAvailableSubscriptions(context));
+    }
+
+    /**
+     * Computes {@link #getUniqueSubscriptionDisplayNames(Context)} for the given available
+     * subscriptions.
+     */
+    static Map<Integer, CharSequence> computeUniqueSubscriptionDisplayNames(Context context,
+            List<SubscriptionInfo> availableSubscriptions) {
         class DisplayInfo {
             public SubscriptionInfo subscriptionInfo;
             public CharSequence originalName;
@@ -304,7 +349,7 @@ public class SubscriptionUtil {
 
         // Map of SubscriptionId to DisplayName
         final Supplier<Stream<DisplayInfo>> originalInfos =
-                () -> getAvailableSubscriptions(context)
+                () -> availableSubscriptions
                         .stream()
                         .filter(i -> {
                             // Filter out null values.
@@ -564,6 +609,10 @@ public class SubscriptionUtil {
         if (subId == SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
             return null;
         }
+        final SubscriptionSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            return snapshot.getSubscription(subId);
+        }
         return subscriptionManager
                 .getAllSubscriptionInfoList()
                 .stream()
@@ -616,6 +665,13 @@ public class SubscriptionUtil {
             return Collections.emptyList();
         }
         ParcelUuid groupUuid = subscription.getGroupUuid();
+        final SubscriptionSnapshot snapshot = getSnapshot();
+        if (snapshot != null) {
+            if (groupUuid == null || snapshot.getAvailableSubscriptions().isEmpty()) {
+                return Collections.singletonList(subscription);
+            }
+            return new ArrayList<>(snapshot.getEmbeddedSubscriptionsInGroup(groupUuid));
+        }
         List<SubscriptionInfo> availableSubscriptions =
                 subscriptionManager.getAvailableSubscriptionInfoList();
 
@@ -677,15 +733,16 @@ public class SubscriptionUtil {
      */
     @Nullable
     public static SubscriptionInfo getFirstRemovableSubscription(Context context) {
-        TelephonyManager telephonyManager = context.getSystemService(TelephonyManager.class);
-        SubscriptionManager subscriptionManager =
-                context.getSystemService(SubscriptionManager.class);
-        List<UiccCardInfo> cardInfos = telephonyManager.getUiccCardsInfo();
+        final SubscriptionSnapshot snapshot = getSnapshot();
+        List<UiccCardInfo> cardInfos = snapshot != null ? snapshot.getUiccCardsInfo()
+                : context.getSystemService(TelephonyManager.class).getUiccCardsInfo();
         if (cardInfos == null) {
             Log.w(TAG, "UICC cards info list is empty.");
             return null;
         }
-        List<SubscriptionInfo> allSubscriptions = subscriptionManager.getAllSubscriptionInfoList();
+        List<SubscriptionInfo> allSubscriptions = snapshot != null
+                ? snapshot.getAllSubscriptions()
+                : context.getSystemService(SubscriptionManager.class).getAllSubscriptionInfoList();
         if (allSubscriptions == null) {
             Log.w(TAG, "All subscription info list is empty.");
             return null;
@@ -935,9 +992,10 @@ public class SubscriptionUtil {
      * @param subId The subscription ID.
      */
     static boolean isConvertedPsimSubscription(@NonNull Context context, int subId) {
-        SubscriptionManager subscriptionManager = context.getSystemService(
-                SubscriptionManager.class);
-        List<SubscriptionInfo> allSubInofs = subscriptionManager.getAllSubscriptionInfoList();
+        final SubscriptionSnapshot snapshot = getSnapshot();
+        List<SubscriptionInfo> allSubInofs = snapshot != null ? snapshot.getAllSubscriptions()
+                : context.getSystemService(SubscriptionManager.class)
+                        .getAllSubscriptionInfoList();
         for (SubscriptionInfo subInfo : allSubInofs) {
             if (subInfo != null && subInfo.getSubscriptionId() == subId
                     && isConvertedPsimSubscription(subInfo)) {
@@ -32,6 +32,8 @@ import android.telephony.SignalStrength;
 import android.telephony.SubscriptionManager;
 import android.telephony.TelephonyManager;
 import android.telephony.satellite.SatelliteManager;
+import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 import android.view.View;
 
@@ -48,6 +50,7 @@ import com.android.internal.telephony.flags.Flags;
 import com.android.settings.R;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.network.telephony.scan.NetworkScanRepository;
+import com.android.settings.network.telephony.scan.NetworkScanRepository.CellInfoScanKey;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.utils.ThreadUtils;
@@ -60,7 +63,11 @@ import kotlinx.coroutines.Job;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -91,6 +98,16 @@ public class NetworkSelectSettings extends DashboardFragment {
     private SatelliteManager mSatelliteManager;
     private CarrierConfigManager mCarrierConfigManager;
     private List<String> mForbiddenPlmns;
+    /** Satellite PLMNs of the carrier, queried once per scan. */
+    @Nullable
+    private Set<String> mSatellitePlmns;
+    /**
+     * Cells found by the current scan, in the order they were found, by the same key the scan
+     * results are made distinct by.
+     */
+    private final Map<CellInfoScanKey, CellInfo> mScannedCellInfos = new LinkedHashMap<>();
+    /** Operator rows shown for {@link #mScannedCellInfos}, by the same key. */
+    private final Map<CellInfoScanKey, OperatorRow> mOperatorRows = new ArrayMap<>();
     private boolean mShow4GForLTE = false;
     private final ExecutorService mNetworkScanExecutor = Executors.newFixedThreadPool(1);
     private MetricsFeatureProvider mMetricsFeatureProvider;
@@ -115,6 +132,7 @@ public class NetworkSelectSettings extends DashboardFragment {
     protected void onCreateInitialization() {
         Context context = getContext();
         mSubId = getSubId();
+        mSatellitePlmns = null;
 
         mPreferenceCategory = getPreferenceCategory(PREF_KEY_NETWORK_OPERATORS);
         mStatusMessagePreference = new Preference(context);
@@ -216,6 +234,11 @@ public class NetworkSelectSettings extends DashboardFragment {
     }
 
     private void launchNetworkScan() {
+        // Forbidden and satellite PLMNs are queried once per scan, not for each result.
+        mForbiddenPlmns = null;
+        mSatellitePlmns = null;
+        mScannedCellInfos.clear();
+        mOperatorRows.clear();
         setProgressBarVisible(true);
         mNetworkScanJob = mNetworkScanRepository.launchNetworkScan(getViewLifecycleOwner(),
                 (networkScanResult) -> {
@@ -326,12 +349,18 @@ public class NetworkSelectSettings extends DashboardFragment {
        info list  */
     @VisibleForTesting
     List<CellInfo> filterOutSatellitePlmn(List<CellInfo> cellInfoList) {
-        List<String> aggregatedSatellitePlmn = getSatellitePlmnsForCarrierWrapper();
-        if (!mShouldFilterOutSatellitePlmn.get() || aggregatedSatellitePlmn.isEmpty()) {
+        if (!mShouldFilterOutSatellitePlmn.get()) {
+            return cellInfoList;
+        }
+        if (mSatellitePlmns == null) {
+            mSatellitePlmns = new ArraySet<>(getSatellitePlmnsForCarrierWrapper());
+        }
+        final Set<String> satellitePlmns = mSatellitePlmns;
+        if (satellitePlmns.isEmpty()) {
             return cellInfoList;
         }
         return cellInfoList.stream()
-                .filter(cellInfo -> !aggregatedSatellitePlmn.contains(
+                .filter(cellInfo -> !satellitePlmns.contains(
                         CellInfoUtil.getOperatorNumeric(cellInfo.getCellIdentity())))
                 .collect(Collectors.toList());
     }
@@ -368,7 +397,8 @@ public class NetworkSelectSettings extends DashboardFragment {
 
     @VisibleForTesting
     protected void scanResultHandler(NetworkScanRepository.NetworkScanResult results) {
-        mCellInfoList = filterOutSatellitePlmn(results.getCellInfos());
+        mergeScanResult(filterOutSatellitePlmn(results.getCellInfos()));
+        mCellInfoList = ImmutableList.copyOf(mScannedCellInfos.values());
         Log.d(TAG, "CellInfoList: " + CellInfoUtil.cellInfoListToString(mCellInfoList));
         updateAllPreferenceCategory();
         NetworkScanRepository.NetworkScanState state = results.getState();
@@ -394,46 +424,43 @@ public class NetworkSelectSettings extends DashboardFragment {
     }
 
     /**
-     * Update the content of network operators list.
+     * Merge the cells of a scan result into the cells found so far, keeping the position of the
+     * operators already found. The cells are keyed by {@link CellInfoScanKey} like the scan
+     * results, so the registered and unregistered cells of an operator keep their own rows.
      */
-    private void updateAllPreferenceCategory() {
-        int numberOfPreferences = mPreferenceCategory.getPreferenceCount();
-
-        // remove unused preferences
-        while (numberOfPreferences > mCellInfoList.size()) {
-            numberOfPreferences--;
-            mPreferenceCategory.removePreference(
-                    mPreferenceCategory.getPreference(numberOfPreferences));
+    private void mergeScanResult(List<CellInfo> cellInfos) {
+        for (CellInfo cellInfo : cellInfos) {
+            mScannedCellInfos.put(new CellInfoScanKey(cellInfo), cellInfo);
         }
+    }
 
-        // update the content of preference
-        for (int index = 0; index < mCellInfoList.size(); index++) {
-            final CellInfo cellInfo = mCellInfoList.get(index);
-
-            NetworkOperatorPreference pref = null;
-            if (index < numberOfPreferences) {
-                final Preference rawPref = mPreferenceCategory.getPreference(index);
-                if (rawPref instanceof NetworkOperatorPreference) {
-                    // replace existing preference
-                    pref = (NetworkOperatorPreference) rawPref;
-                    pref.updateCell(cellInfo);
-                } else {
-                    mPreferenceCategory.removePreference(rawPref);
-                }
-            }
-            if (pref == null) {
-                // add new preference
-                pref = createNetworkOperatorPreference(cellInfo);
-                pref.setOrder(index);
-                mPreferenceCategory.addPreference(pref);
-            }
-            pref.setKey(pref.getOperatorName());
+    /**
+     * Update the content of network operators list. Only the rows whose cell is new or displays
+     * differently are bound again, so the list does not flicker while the scan goes on.
+     */
+    private void updateAllPreferenceCategory() {
+        if (mOperatorRows.isEmpty()) {
+            // Remove the connected network shown before the first result.
+            mPreferenceCategory.removeAll();
+        } else {
+            mPreferenceCategory.removePreference(mStatusMessagePreference);
+        }
 
-            if (mCellInfoList.get(index).isRegistered()) {
-                pref.setSummary(R.string.network_connected);
-            } else {
-                pref.setSummary(null);
+        int order = 0;
+        for (Map.Entry<CellInfoScanKey, CellInfo> entry : mScannedCellInfos.entrySet()) {
+            final CellInfo cellInfo = entry.getValue();
+            OperatorRow row = mOperatorRows.get(entry.getKey());
+            if (row == null) {
+                row = new OperatorRow(createNetworkOperatorPreference(cellInfo), cellInfo);
+                row.mPreference.setKey(row.mPreference.getOperatorName());
+                row.mPreference.setOrder(order);
+                row.updateSummary();
+                mOperatorRows.put(entry.getKey(), row);
+                mPreferenceCategory.addPreference(row.mPreference);
+            } else if (row.mCellInfo != cellInfo) {
+                row.update(cellInfo);
             }
+            order++;
         }
     }
 
@@ -452,6 +479,7 @@ public class NetworkSelectSettings extends DashboardFragment {
     private void forceUpdateConnectedPreferenceCategory(
             NetworkSelectRepository.NetworkRegistrationAndForbiddenInfo info) {
         mPreferenceCategory.removeAll();
+        mOperatorRows.clear();
         for (NetworkRegistrationInfo regInfo : info.getNetworkList()) {
             final CellIdentity cellIdentity = regInfo.getCellIdentity();
             if (cellIdentity == null) {
@@ -494,9 +522,43 @@ public class NetworkSelectSettings extends DashboardFragment {
     private void addMessagePreference(int messageId) {
         mStatusMessagePreference.setTitle(messageId);
         mPreferenceCategory.removeAll();
+        mOperatorRows.clear();
         mPreferenceCategory.addPreference(mStatusMessagePreference);
     }
 
+    /** A {@link NetworkOperatorPreference} and the cell it shows. */
+    private static class OperatorRow {
+        final NetworkOperatorPreference mPreference;
+        CellInfo mCellInfo;
+
+        OperatorRow(NetworkOperatorPreference preference, CellInfo cellInfo) {
+            mPreference = preference;
+            mCellInfo = cellInfo;
+        }
+
+        void update(CellInfo cellInfo) {
+            final CellInfo previous = mCellInfo;
+            mCellInfo = cellInfo;
+            if (previous.getCellSignalStrength().getLevel()
+                    != cellInfo.getCellSignalStrength().getLevel()
+                    || !Objects.equals(CellInfoUtil.getNetworkTitle(previous.getCellIdentity()),
+                            CellInfoUtil.getNetworkTitle(cellInfo.getCellIdentity()))) {
+                mPreference.updateCell(cellInfo);
+            }
+            if (previous.isRegistered() != cellInfo.isRegistered()) {
+                updateSummary();
+            }
+        }
+
+        void updateSummary() {
+            if (mCellInfo.isRegistered()) {
+                mPreference.setSummary(R.string.network_connected);
+            } else {
+                mPreference.setSummary(null);
+            }
+        }
+    }
+
     @Override
     public void onDestroy() {
         mNetworkScanExecutor.shutdown();
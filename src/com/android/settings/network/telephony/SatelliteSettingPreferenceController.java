@@ -18,7 +18,6 @@ package com.android.settings.network.telephony;
 
 import android.content.Context;
 import android.content.Intent;
-import android.os.PersistableBundle;
 import android.provider.Settings;
 import android.telephony.CarrierConfigManager;
 import android.telephony.satellite.SatelliteManager;
@@ -64,8 +63,7 @@ public class SatelliteSettingPreferenceController extends
             return UNSUPPORTED_ON_DEVICE;
         }
 
-        final PersistableBundle carrierConfig = mCarrierConfigCache.getConfigForSubId(subId);
-        final boolean isSatelliteAttachSupported = carrierConfig.getBoolean(
+        final boolean isSatelliteAttachSupported = mCarrierConfigCache.getBoolean(subId,
                 CarrierConfigManager.KEY_SATELLITE_ATTACH_SUPPORTED_BOOL);
 
         return isSatelliteAttachSupported ? AVAILABLE : CONDITIONALLY_UNAVAILABLE;
@@ -21,6 +21,7 @@ import android.telephony.SubscriptionInfo
 import android.telephony.SubscriptionManager
 import android.util.Log
 import androidx.lifecycle.LifecycleOwner
+import com.android.settings.network.SubscriptionSnapshotCache
 import com.android.settings.network.SubscriptionUtil
 import com.android.settingslib.spa.framework.util.collectLatestWithLifecycle
 import kotlinx.coroutines.Dispatchers
@@ -84,6 +85,7 @@ fun Context.subscriptionsChangedFlow() = callbackFlow {
 
     val listener = object : SubscriptionManager.OnSubscriptionsChangedListener() {
         override fun onSubscriptionsChanged() {
+            SubscriptionSnapshotCache.notifySubscriptionsChanged()
             trySend(Unit)
         }
     }
@@ -18,82 +18,259 @@ package com.android.settings.notification.history;
 
 import android.app.NotificationHistory;
 import android.app.NotificationHistory.HistoricalNotification;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
 import android.os.UserHandle;
+import android.util.ArrayMap;
+import android.util.LruCache;
 import android.util.Slog;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.notification.NotificationBackend;
 import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Loads notification history grouped by app. Only the first window of packages has its label
+ * and icon resolved before the list is handed to the UI; the rest are resolved on demand via
+ * {@link #prefetch} as they are about to scroll into view.
+ */
 public class HistoryLoader {
     private static final String TAG = "HistoryLoader";
+
+    /** Number of packages resolved ahead of the last visible one. Roughly one screen. */
+    @VisibleForTesting
+    static final int WINDOW_SIZE = 8;
+    private static final int ICON_CACHE_SIZE = 64;
+
+    /**
+     * Labels and icons survive across visits to the history page; keyed by package and user.
+     * The entries of a package are dropped when it is added, removed, changed or replaced.
+     */
+    private static final LruCache<String, ResolvedPackage> sResolvedCache =
+            new LruCache<>(ICON_CACHE_SIZE);
+    private static boolean sPackageReceiverRegistered;
+
+    private static final BroadcastReceiver sPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (intent.getData() != null) {
+                onPackageChanged(intent.getData().getSchemeSpecificPart());
+            }
+        }
+    };
+
     private final Context mContext;
     private final NotificationBackend mBackend;
     private final PackageManager mPm;
+    private final Object mLock = new Object();
+
+    private List<NotificationHistoryPackage> mPackages = Collections.emptyList();
+    private OnHistoryLoaderListener mListener;
+    // Packages in [0, mResolvedCount) have been (or are being) resolved.
+    private int mResolvedCount;
+    private volatile boolean mCancelled;
 
     public HistoryLoader(Context context, NotificationBackend backend, PackageManager pm) {
         mContext = context;
         mBackend = backend;
         mPm = pm;
+        registerPackageReceiver(context);
+    }
+
+    private static void registerPackageReceiver(Context context) {
+        synchronized (sResolvedCache) {
+            if (sPackageReceiverRegistered) {
+                return;
+            }
+            final IntentFilter packageFilter = new IntentFilter();
+            packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            packageFilter.addDataScheme("package");
+            context.getApplicationContext().registerReceiverAsUser(sPackageReceiver,
+                    UserHandle.ALL, packageFilter, null /* permission */, null /* scheduler */);
+            sPackageReceiverRegistered = true;
+        }
     }
 
     public void load(OnHistoryLoaderListener listener) {
+        mListener = listener;
         ThreadUtils.postOnBackgroundThread(() -> {
             try {
-                Map<String, NotificationHistoryPackage> historicalNotifications = new HashMap<>();
-                NotificationHistory history =
+                final List<NotificationHistoryPackage> packages = groupByPackage(
                         mBackend.getNotificationHistory(mContext.getPackageName(),
-                                mContext.getAttributionTag());
-                while (history.hasNextNotification()) {
-                    HistoricalNotification hn = history.getNextNotification();
-
-                    String key = hn.getPackage() + "|" + hn.getUid();
-                    NotificationHistoryPackage hnsForPackage = historicalNotifications.getOrDefault(
-                            key,
-                            new NotificationHistoryPackage(hn.getPackage(), hn.getUid()));
-                    hnsForPackage.notifications.add(hn);
-                    historicalNotifications.put(key, hnsForPackage);
+                                mContext.getAttributionTag()));
+                final int end;
+                synchronized (mLock) {
+                    mPackages = packages;
+                    end = Math.min(WINDOW_SIZE, packages.size());
+                    mResolvedCount = end;
                 }
-                List<NotificationHistoryPackage> packages =
-                        new ArrayList<>(historicalNotifications.values());
-                Collections.sort(packages,
-                        (o1, o2) -> -1 * Long.compare(o1.getMostRecent(), o2.getMostRecent()));
-                for (NotificationHistoryPackage nhp : packages) {
-                    ApplicationInfo info;
-                    try {
-                        info = mPm.getApplicationInfoAsUser(
-                                nhp.pkgName,
-                                PackageManager.MATCH_UNINSTALLED_PACKAGES
-                                        | PackageManager.MATCH_DISABLED_COMPONENTS
-                                        | PackageManager.MATCH_DIRECT_BOOT_UNAWARE
-                                        | PackageManager.MATCH_DIRECT_BOOT_AWARE,
-                                UserHandle.getUserId(nhp.uid));
-                        if (info != null) {
-                            nhp.label = String.valueOf(mPm.getApplicationLabel(info));
-                            nhp.icon = mPm.getUserBadgedIcon(mPm.getApplicationIcon(info),
-                                    UserHandle.of(UserHandle.getUserId(nhp.uid)));
+                resolve(packages, 0, end);
+                if (!mCancelled) {
+                    ThreadUtils.postOnMainThread(() -> {
+                        if (!mCancelled) {
+                            listener.onHistoryLoaded(packages);
                         }
-                    } catch (PackageManager.NameNotFoundException e) {
-                        // app is gone, just show package name and generic icon
-                        nhp.icon = mPm.getDefaultActivityIcon();
-                    }
+                    });
                 }
-                ThreadUtils.postOnMainThread(() -> listener.onHistoryLoaded(packages));
             } catch (Exception e) {
                 Slog.e(TAG, "Error loading history", e);
             }
         });
     }
 
+    /**
+     * Makes sure the labels and icons of all packages up to one window past {@code position} are
+     * resolved. Newly resolved packages are reported through
+     * {@link OnHistoryLoaderListener#onPackagesResolved}.
+     */
+    public void prefetch(int position) {
+        final List<NotificationHistoryPackage> packages;
+        final int start;
+        final int end;
+        synchronized (mLock) {
+            packages = mPackages;
+            start = mResolvedCount;
+            end = Math.min(position + 1 + WINDOW_SIZE, packages.size());
+            if (start >= end) {
+                return;
+            }
+            mResolvedCount = end;
+        }
+        ThreadUtils.postOnBackgroundThread(() -> {
+            resolve(packages, start, end);
+            if (!mCancelled) {
+                ThreadUtils.postOnMainThread(() -> {
+                    if (!mCancelled && mListener != null) {
+                        mListener.onPackagesResolved(start, end);
+                    }
+                });
+            }
+        });
+    }
+
+    /** Drops any pending results; nothing is delivered to the listener after this call. */
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    @VisibleForTesting
+    static List<NotificationHistoryPackage> groupByPackage(NotificationHistory history) {
+        // uid -> package name -> notifications; avoids building a string key per notification
+        final SparseArray<ArrayMap<String, NotificationHistoryPackage>> byUid =
+                new SparseArray<>();
+        final List<NotificationHistoryPackage> packages = new ArrayList<>();
+        while (history.hasNextNotification()) {
+            HistoricalNotification hn = history.getNextNotification();
+            ArrayMap<String, NotificationHistoryPackage> byPkg = byUid.get(hn.getUid());
+            if (byPkg == null) {
+                byPkg = new ArrayMap<>();
+                byUid.put(hn.getUid(), byPkg);
+            }
+            NotificationHistoryPackage hnsForPackage = byPkg.get(hn.getPackage());
+            if (hnsForPackage == null) {
+                hnsForPackage = new NotificationHistoryPackage(hn.getPackage(), hn.getUid());
+                byPkg.put(hn.getPackage(), hnsForPackage);
+                packages.add(hnsForPackage);
+            }
+            hnsForPackage.notifications.add(hn);
+        }
+        Collections.sort(packages,
+                (o1, o2) -> -1 * Long.compare(o1.getMostRecent(), o2.getMostRecent()));
+        return packages;
+    }
+
+    private void resolve(List<NotificationHistoryPackage> packages, int start, int end) {
+        for (int i = start; i < end && !mCancelled; i++) {
+            final NotificationHistoryPackage nhp = packages.get(i);
+            final int userId = UserHandle.getUserId(nhp.uid);
+            final String key = nhp.pkgName + "|" + userId;
+            ResolvedPackage resolved = sResolvedCache.get(key);
+            if (resolved == null) {
+                resolved = resolvePackage(nhp.pkgName, userId);
+                sResolvedCache.put(key, resolved);
+            }
+            nhp.label = resolved.mLabel;
+            nhp.icon = resolved.newIcon();
+        }
+    }
+
+    private ResolvedPackage resolvePackage(String pkgName, int userId) {
+        try {
+            ApplicationInfo info = mPm.getApplicationInfoAsUser(
+                    pkgName,
+                    PackageManager.MATCH_UNINSTALLED_PACKAGES
+                            | PackageManager.MATCH_DISABLED_COMPONENTS
+                            | PackageManager.MATCH_DIRECT_BOOT_UNAWARE
+                            | PackageManager.MATCH_DIRECT_BOOT_AWARE,
+                    userId);
+            if (info != null) {
+                return new ResolvedPackage(String.valueOf(mPm.getApplicationLabel(info)),
+                        mPm.getUserBadgedIcon(mPm.getApplicationIcon(info),
+                                UserHandle.of(userId)));
+            }
+        } catch (PackageManager.NameNotFoundException e) {
+            // app is gone, just show package name and generic icon
+            return new ResolvedPackage(null, mPm.getDefaultActivityIcon());
+        }
+        return new ResolvedPackage(null, null);
+    }
+
+    /** Drops the label and icon of the package for every user. */
+    @VisibleForTesting
+    static void onPackageChanged(String pkgName) {
+        final String prefix = pkgName + "|";
+        for (String key : sResolvedCache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                sResolvedCache.remove(key);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static void clearCache() {
+        sResolvedCache.evictAll();
+    }
+
+    private static class ResolvedPackage {
+        final CharSequence mLabel;
+        final Drawable mIcon;
+
+        ResolvedPackage(CharSequence label, Drawable icon) {
+            mLabel = label;
+            mIcon = icon;
+        }
+
+        /**
+         * Hands out a fresh drawable so the cached one never holds a callback into a view of an
+         * activity that has since been destroyed.
+         */
+        Drawable newIcon() {
+            if (mIcon == null) {
+                return null;
+            }
+            final Drawable.ConstantState state = mIcon.getConstantState();
+            return state != null ? state.newDrawable() : mIcon;
+        }
+    }
+
     interface OnHistoryLoaderListener {
         void onHistoryLoaded(List<NotificationHistoryPackage> notificationsByPackage);
+
+        /** Packages in {@code [start, end)} now have their label and icon set. */
+        default void onPackagesResolved(int start, int end) {}
     }
 }
@@ -31,6 +31,7 @@ import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Outline;
+import android.graphics.Rect;
 import android.os.Bundle;
 import android.os.RemoteException;
 import android.os.ServiceManager;
@@ -52,6 +53,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.core.graphics.ColorUtils;
+import androidx.core.widget.NestedScrollView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -68,6 +70,7 @@ import com.android.settingslib.widget.MainSwitchBar;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -90,6 +93,8 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
     private MainSwitchBar mSwitchBar;
 
     private HistoryLoader mHistoryLoader;
+    private List<NotificationHistoryPackage> mPackages = new ArrayList<>();
+    private final Rect mVisibleRect = new Rect();
     private INotificationManager mNm;
     private UserManager mUm;
     private PackageManager mPm;
@@ -156,7 +161,23 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         }
     }
 
-    private HistoryLoader.OnHistoryLoaderListener mOnHistoryLoaderListener = notifications -> {
+    private HistoryLoader.OnHistoryLoaderListener mOnHistoryLoaderListener =
+            new HistoryLoader.OnHistoryLoaderListener() {
+        @Override
+        public void onHistoryLoaded(List<NotificationHistoryPackage> notifications) {
+            bindHistory(notifications);
+        }
+
+        @Override
+        public void onPackagesResolved(int start, int end) {
+            for (int i = start; i < end && i < mTodayView.getChildCount(); i++) {
+                bindPackageHeader(mTodayView.getChildAt(i), mPackages.get(i));
+            }
+        }
+    };
+
+    private void bindHistory(List<NotificationHistoryPackage> notifications) {
+        mPackages = notifications;
         findViewById(R.id.today_list).setVisibility(
                 notifications.isEmpty() ? View.GONE : View.VISIBLE);
         mCountdownLatch.countDown();
@@ -199,12 +220,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
                         nhp.uid, nhp.pkgName, finalI);
             });
 
-            TextView label = viewForPackage.findViewById(R.id.label);
-            label.setText(nhp.label != null ? nhp.label : nhp.pkgName);
-            label.setContentDescription(mUm.getBadgedLabelForUser(label.getText(),
-                    UserHandle.getUserHandleForUid(nhp.uid)));
-            ImageView icon = viewForPackage.findViewById(R.id.icon);
-            icon.setImageDrawable(nhp.icon);
+            bindPackageHeader(viewForPackage, nhp);
 
             TextView count = viewForPackage.findViewById(R.id.count);
             count.setText(StringUtil.getIcuPluralsString(this, nhp.notifications.size(),
@@ -225,7 +241,36 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
 
             mTodayView.addView(viewForPackage);
         }
-    };
+        // wait for layout so the visible area reflects the rows just added
+        mTodayView.post(this::prefetchVisiblePackages);
+    }
+
+    private void bindPackageHeader(View viewForPackage, NotificationHistoryPackage nhp) {
+        TextView label = viewForPackage.findViewById(R.id.label);
+        label.setText(nhp.label != null ? nhp.label : nhp.pkgName);
+        label.setContentDescription(mUm.getBadgedLabelForUser(label.getText(),
+                UserHandle.getUserHandleForUid(nhp.uid)));
+        ImageView icon = viewForPackage.findViewById(R.id.icon);
+        icon.setImageDrawable(nhp.icon);
+    }
+
+    /** Asks the loader for labels and icons of the packages at or near the visible area. */
+    private void prefetchVisiblePackages() {
+        if (mHistoryLoader == null || mTodayView.getChildCount() == 0) {
+            return;
+        }
+        if (!mTodayView.getLocalVisibleRect(mVisibleRect)) {
+            return;
+        }
+        int lastVisible = 0;
+        for (int i = 0, count = mTodayView.getChildCount(); i < count; i++) {
+            if (mTodayView.getChildAt(i).getTop() > mVisibleRect.bottom) {
+                break;
+            }
+            lastVisible = i;
+        }
+        mHistoryLoader.prefetch(lastVisible);
+    }
 
     private void configureNotificationList(View recyclerView) {
         recyclerView.setClipToOutline(true);
@@ -246,6 +291,9 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         mHistoryOn = findViewById(R.id.history_on);
         mHistoryEmpty = findViewById(R.id.history_on_empty);
         mSwitchBar = findViewById(R.id.main_switch_bar);
+        ((NestedScrollView) findViewById(R.id.scroll)).setOnScrollChangeListener(
+                (NestedScrollView.OnScrollChangeListener) (v, x, y, oldX, oldY) ->
+                        prefetchVisiblePackages());
         ((TextView) findViewById(R.id.today_header)).setText(
                 getString(R.string.notification_history_today, HISTORY_HOURS));
 
@@ -267,6 +315,9 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         mCountdownLatch = new CountDownLatch(2);
 
         mTodayView.removeAllViews();
+        if (mHistoryLoader != null) {
+            mHistoryLoader.cancel();
+        }
         mHistoryLoader = new HistoryLoader(this, new NotificationBackend(), mPm);
         mHistoryLoader.load(mOnHistoryLoaderListener);
 
@@ -314,6 +365,9 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
 
     @Override
     public void onDestroy() {
+        if (mHistoryLoader != null) {
+            mHistoryLoader.cancel();
+        }
         if (mCountdownFuture != null) {
             mCountdownFuture.cancel(true);
         }
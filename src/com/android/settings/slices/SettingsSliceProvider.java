@@ -56,6 +56,8 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.SliceBroadcastRelay;
 import com.android.settingslib.utils.ThreadUtils;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -141,6 +143,8 @@ public class SettingsSliceProvider extends SliceProvider {
     @VisibleForTesting
     final Map<Uri, SliceBackgroundWorker> mPinnedWorkers = new ArrayMap<>();
 
+    private final SliceControllerCache mControllerCache = SliceControllerCache.getInstance();
+
     private Boolean mNightMode;
     private boolean mFirstSlicePinned;
     private boolean mFirstSliceBound;
@@ -277,7 +281,8 @@ public class SettingsSliceProvider extends SliceProvider {
                 loadSliceInBackground(sliceUri);
                 return getSliceStub(sliceUri);
             }
-            return SliceBuilderUtils.buildSlice(getContext(), cachedSliceData);
+            return SliceBuilderUtils.buildSlice(getContext(), cachedSliceData,
+                    mControllerCache.get(getContext(), cachedSliceData));
         } finally {
             StrictMode.setThreadPolicy(oldPolicy);
             if (!mFirstSliceBound) {
@@ -393,6 +398,11 @@ public class SettingsSliceProvider extends SliceProvider {
         }
     }
 
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        mControllerCache.dump(writer);
+    }
+
     @Override
     public void shutdown() {
         ThreadUtils.postOnMainThread(() -> {
@@ -416,8 +426,7 @@ public class SettingsSliceProvider extends SliceProvider {
             return;
         }
 
-        final BasePreferenceController controller = SliceBuilderUtils.getPreferenceController(
-                getContext(), sliceData);
+        final BasePreferenceController controller = mControllerCache.get(getContext(), sliceData);
 
         final IntentFilter filter = controller.getIntentFilter();
         if (filter != null) {
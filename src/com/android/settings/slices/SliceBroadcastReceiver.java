@@ -182,6 +182,6 @@ public class SliceBroadcastReceiver extends BroadcastReceiver {
     private BasePreferenceController getPreferenceController(Context context, String key) {
         final SlicesDatabaseAccessor accessor = new SlicesDatabaseAccessor(context);
         final SliceData sliceData = accessor.getSliceDataFromKey(key);
-        return SliceBuilderUtils.getPreferenceController(context, sliceData);
+        return SliceControllerCache.getInstance().get(context, sliceData);
     }
 }
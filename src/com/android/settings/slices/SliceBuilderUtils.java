@@ -78,8 +78,15 @@ public class SliceBuilderUtils {
      */
     public static Slice buildSlice(Context context, SliceData sliceData) {
         Log.d(TAG, "Creating slice for: " + sliceData.getPreferenceController());
-        final BasePreferenceController controller = getPreferenceController(context, sliceData);
+        return buildSlice(context, sliceData, getPreferenceController(context, sliceData));
+    }
 
+    /**
+     * Build a Slice from {@link SliceData} with an existing controller, e.g. one kept alive for a
+     * pinned slice.
+     */
+    public static Slice buildSlice(Context context, SliceData sliceData,
+            BasePreferenceController controller) {
         if (!controller.isAvailable()) {
             // Cannot guarantee setting page is accessible, let the presenter handle error case.
             return null;
@@ -358,6 +365,11 @@ public class SliceBuilderUtils {
 
     static BasePreferenceController getPreferenceController(Context context,
             String controllerClassName, String controllerKey) {
+        final BasePreferenceController controller = BasePreferenceController
+                .createGeneratedInstance(context, controllerClassName, controllerKey);
+        if (controller != null) {
+            return controller;
+        }
         try {
             return BasePreferenceController.createInstance(context, controllerClassName);
         } catch (IllegalStateException e) {
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import android.content.Context;
+import android.util.ArrayMap;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.core.BasePreferenceController;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+
+/**
+ * Remembers how the {@link BasePreferenceController} of each settings slice is created.
+ *
+ * <p>Every bind and every slice action still gets a new controller, so no state is carried from
+ * one bind to the next and the controllers always match the current configuration. Only the
+ * lookup is kept: controllers outside the generated factory are created through their cached
+ * constructor, instead of through the failed attempts and reflection lookups of
+ * {@link SliceBuilderUtils#getPreferenceController(Context, SliceData)}.
+ */
+class SliceControllerCache {
+
+    private static SliceControllerCache sInstance;
+
+    /**
+     * The constructor of each controller class created by reflection. Classes created by the
+     * generated factory are mapped to {@code null}.
+     */
+    private final Map<String, Constructor<?>> mConstructors = new ArrayMap<>();
+
+    private int mResolvedCount;
+    private int mCreatedCount;
+
+    /** Returns the cache shared by the slice provider and the slice broadcast receiver. */
+    static synchronized SliceControllerCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new SliceControllerCache();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    SliceControllerCache() {
+    }
+
+    /** Returns a new controller for the slice. */
+    BasePreferenceController get(Context context, SliceData sliceData) {
+        final String className = sliceData.getPreferenceController();
+        final String key = sliceData.getKey();
+        final boolean resolved;
+        final Constructor<?> constructor;
+        synchronized (this) {
+            mCreatedCount++;
+            resolved = mConstructors.containsKey(className);
+            constructor = mConstructors.get(className);
+        }
+        if (resolved) {
+            if (constructor != null) {
+                return newInstance(constructor, context, key);
+            }
+            final BasePreferenceController controller =
+                    BasePreferenceController.createGeneratedInstance(context, className, key);
+            if (controller != null) {
+                return controller;
+            }
+        }
+        return resolve(context, className, key);
+    }
+
+    private BasePreferenceController resolve(Context context, String className, String key) {
+        final BasePreferenceController generated =
+                BasePreferenceController.createGeneratedInstance(context, className, key);
+        if (generated != null) {
+            remember(className, null);
+            return generated;
+        }
+        final Constructor<?> constructor;
+        try {
+            constructor = findConstructor(Class.forName(className));
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            throw new IllegalStateException("Invalid preference controller: " + className, e);
+        }
+        remember(className, constructor);
+        return newInstance(constructor, context, key);
+    }
+
+    private synchronized void remember(String className, Constructor<?> constructor) {
+        mConstructors.put(className, constructor);
+        mResolvedCount++;
+    }
+
+    /** Same preference as {@link SliceBuilderUtils#getPreferenceController}. */
+    private static Constructor<?> findConstructor(Class<?> clazz) throws NoSuchMethodException {
+        try {
+            return clazz.getConstructor(Context.class);
+        } catch (NoSuchMethodException e) {
+            return clazz.getConstructor(Context.class, String.class);
+        }
+    }
+
+    private static BasePreferenceController newInstance(Constructor<?> constructor,
+            Context context, String key) {
+        final Object[] params = constructor.getParameterCount() == 1
+                ? new Object[]{context} : new Object[]{context, key};
+        try {
+            return (BasePreferenceController) constructor.newInstance(params);
+        } catch (InstantiationException | IllegalArgumentException | InvocationTargetException
+                | IllegalAccessException e) {
+            throw new IllegalStateException(
+                    "Invalid preference controller: " + constructor.getName(), e);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int getResolvedCount() {
+        return mResolvedCount;
+    }
+
+    synchronized void dump(PrintWriter writer) {
+        writer.println("Slice controllers:");
+        writer.println("  classes: " + mConstructors.size()
+                + ", resolved: " + mResolvedCount + ", created: " + mCreatedCount);
+    }
+}
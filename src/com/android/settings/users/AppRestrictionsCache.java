@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.RestrictionEntry;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.UserHandle;
+import android.util.ArrayMap;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Restriction entries returned by apps for the users edited in {@link AppRestrictionsFragment},
+ * kept until the package changes so that reopening the page does not ask every app again.
+ *
+ * <p>Only the entries themselves are reused: every read returns a copy holding the values
+ * currently stored by {@link android.os.UserManager#getApplicationRestrictions}, so that changes
+ * made elsewhere are not hidden and callers can edit the entries they get.
+ *
+ * <p>Any package change also advances {@link #getGeneration()}, which tells the page that its app
+ * list is out of date.
+ */
+class AppRestrictionsCache {
+
+    private static AppRestrictionsCache sInstance;
+
+    private final SparseArray<Map<String, ArrayList<RestrictionEntry>>> mRestrictions =
+            new SparseArray<>();
+    private int mGeneration;
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_USER_REMOVED.equals(intent.getAction())) {
+                onUserRemoved(intent.getIntExtra(Intent.EXTRA_USER_HANDLE,
+                        UserHandle.USER_NULL));
+            } else if (intent.getData() != null) {
+                onPackageChanged(intent.getData().getSchemeSpecificPart());
+            }
+        }
+    };
+
+    /** Returns the cache shared by the whole process. */
+    static synchronized AppRestrictionsCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new AppRestrictionsCache();
+            final Context appContext = context.getApplicationContext();
+            final IntentFilter packageFilter = new IntentFilter();
+            packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            packageFilter.addDataScheme("package");
+            appContext.registerReceiverAsUser(sInstance.mPackageReceiver, UserHandle.ALL,
+                    packageFilter, null /* permission */, null /* scheduler */);
+            appContext.registerReceiverAsUser(sInstance.mPackageReceiver, UserHandle.ALL,
+                    new IntentFilter(Intent.ACTION_USER_REMOVED), null /* permission */,
+                    null /* scheduler */);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AppRestrictionsCache() {
+    }
+
+    /** Returns a number that changes every time a package is added, removed or changed. */
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Returns a copy of the restriction entries the app returned for the user, if still valid,
+     * with the selected values of {@code currentValues} applied.
+     */
+    @Nullable
+    synchronized ArrayList<RestrictionEntry> getRestrictions(int userId, String packageName,
+            @Nullable Bundle currentValues) {
+        final Map<String, ArrayList<RestrictionEntry>> restrictions = mRestrictions.get(userId);
+        final ArrayList<RestrictionEntry> entries =
+                restrictions != null ? restrictions.get(packageName) : null;
+        if (entries == null) {
+            return null;
+        }
+        final ArrayList<RestrictionEntry> copy = copyOf(entries);
+        if (currentValues != null) {
+            for (RestrictionEntry entry : copy) {
+                applyValue(entry, currentValues);
+            }
+        }
+        return copy;
+    }
+
+    synchronized void putRestrictions(int userId, String packageName,
+            ArrayList<RestrictionEntry> restrictions) {
+        Map<String, ArrayList<RestrictionEntry>> userRestrictions = mRestrictions.get(userId);
+        if (userRestrictions == null) {
+            userRestrictions = new ArrayMap<>();
+            mRestrictions.put(userId, userRestrictions);
+        }
+        userRestrictions.put(packageName, copyOf(restrictions));
+    }
+
+    private static ArrayList<RestrictionEntry> copyOf(ArrayList<RestrictionEntry> entries) {
+        final ArrayList<RestrictionEntry> copy = new ArrayList<>(entries.size());
+        final Parcel parcel = Parcel.obtain();
+        try {
+            for (RestrictionEntry entry : entries) {
+                parcel.setDataPosition(0);
+                entry.writeToParcel(parcel, 0 /* flags */);
+                parcel.setDataPosition(0);
+                copy.add(RestrictionEntry.CREATOR.createFromParcel(parcel));
+            }
+        } finally {
+            parcel.recycle();
+        }
+        return copy;
+    }
+
+    /**
+     * Sets the selected value of the entry from the bundle, which is laid out like
+     * {@link android.content.RestrictionsManager#convertRestrictionsToBundle} does.
+     */
+    private static void applyValue(RestrictionEntry entry, Bundle values) {
+        final String key = entry.getKey();
+        if (!values.containsKey(key)) {
+            return;
+        }
+        switch (entry.getType()) {
+            case RestrictionEntry.TYPE_BOOLEAN:
+                entry.setSelectedState(values.getBoolean(key));
+                break;
+            case RestrictionEntry.TYPE_INTEGER:
+                entry.setIntValue(values.getInt(key));
+                break;
+            case RestrictionEntry.TYPE_STRING:
+            case RestrictionEntry.TYPE_CHOICE:
+            case RestrictionEntry.TYPE_CHOICE_LEVEL:
+                entry.setSelectedString(values.getString(key));
+                break;
+            case RestrictionEntry.TYPE_MULTI_SELECT:
+                entry.setAllSelectedStrings(values.getStringArray(key));
+                break;
+            default:
+                // Nested bundles keep the values the app returned.
+                break;
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void onPackageChanged(String packageName) {
+        mGeneration++;
+        for (int i = 0; i < mRestrictions.size(); i++) {
+            mRestrictions.valueAt(i).remove(packageName);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void onUserRemoved(int userId) {
+        mRestrictions.remove(userId);
+    }
+}
@@ -34,6 +34,8 @@ import android.content.pm.PackageManager.NameNotFoundException;
 import android.content.pm.ResolveInfo;
 import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.RemoteException;
 import android.os.ServiceManager;
 import android.os.UserHandle;
@@ -46,6 +48,7 @@ import android.view.ViewGroup;
 import android.widget.CompoundButton;
 import android.widget.CompoundButton.OnCheckedChangeListener;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.preference.ListPreference;
 import androidx.preference.MultiSelectListPreference;
 import androidx.preference.Preference;
@@ -60,7 +63,9 @@ import com.android.settings.R;
 import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.Utils;
 import com.android.settingslib.users.AppRestrictionsHelper;
+import com.android.settingslib.utils.ThreadUtils;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -68,6 +73,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Future;
 
 public class AppRestrictionsFragment extends SettingsPreferenceFragment implements
         OnPreferenceChangeListener, OnClickListener, OnPreferenceClickListener,
@@ -91,6 +97,17 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
 
     private static final int MAX_APP_RESTRICTIONS = 100;
 
+    /** Number of apps added to the list at a time while the app list is loading. */
+    private static final int APP_BATCH_SIZE = 8;
+
+    /** Number of apps asked for their restriction entries at the same time. */
+    @VisibleForTesting
+    static final int MAX_CONCURRENT_RESTRICTION_REQUESTS = 4;
+
+    /** Time after which an app that did not return its restriction entries stops blocking. */
+    @VisibleForTesting
+    static final long RESTRICTION_REQUEST_TIMEOUT_MS = 5000;
+
     private static final String DELIMITER = ";";
 
     /** Key for extra passed in from calling fragment for the userId of the user being edited */
@@ -109,7 +126,18 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
 
     private HashMap<Integer, AppRestrictionsPreference> mCustomRequestMap = new HashMap<>();
 
-    private AsyncTask mAppLoadingTask;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private AppRestrictionsCache mRestrictionsCache;
+    private Future<?> mAppLoadingFuture;
+    // Identifies the current app list load, results of an earlier one are dropped. Also read by
+    // the loading thread to stop early.
+    private volatile int mAppLoadingToken;
+    // Cache generation the current app list was loaded at.
+    private int mAppListGeneration = -1;
+
+    private final ArrayDeque<RestrictionsResultReceiver> mPendingRestrictionRequests =
+            new ArrayDeque<>();
+    private int mRestrictionRequestsInFlight;
 
     private BroadcastReceiver mUserBackgrounding = new BroadcastReceiver() {
         @Override
@@ -231,6 +259,7 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
         }
 
         mHelper = new AppRestrictionsHelper(getContext(), mUser);
+        mRestrictionsCache = AppRestrictionsCache.getInstance(getContext());
         mPackageManager = getActivity().getPackageManager();
         mIPm = IPackageManager.Stub.asInterface(ServiceManager.getService("package"));
         mUserManager = (UserManager) getActivity().getSystemService(Context.USER_SERVICE);
@@ -270,11 +299,21 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
         getActivity().registerReceiver(mPackageObserver, packageFilter);
 
         mAppListChanged = false;
-        if (mAppLoadingTask == null || mAppLoadingTask.getStatus() == AsyncTask.Status.FINISHED) {
-            mAppLoadingTask = new AppLoadingTask().execute();
+        // Reload only if no load is running and packages changed since the list was loaded.
+        if (mAppLoadingFuture == null
+                && mAppListGeneration != mRestrictionsCache.getGeneration()) {
+            loadApps();
         }
     }
 
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        cancelAppLoading();
+        mPendingRestrictionRequests.clear();
+        mHandler.removeCallbacksAndMessages(null);
+    }
+
     @Override
     public void onPause() {
         super.onPause();
@@ -319,20 +358,104 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
         }
     }
 
-    private class AppLoadingTask extends AsyncTask<Void, Void, Void> {
+    /** An app of the list, with what was resolved for it in the background. */
+    private static class LoadedApp {
+        final AppRestrictionsHelper.SelectableAppInfo mApp;
+        final PackageInfo mPackageInfo;
+        final boolean mHasSettings;
 
-        @Override
-        protected Void doInBackground(Void... params) {
-            mHelper.fetchAndMergeApps();
-            return null;
+        LoadedApp(AppRestrictionsHelper.SelectableAppInfo app, PackageInfo packageInfo,
+                boolean hasSettings) {
+            mApp = app;
+            mPackageInfo = packageInfo;
+            mHasSettings = hasSettings;
         }
+    }
 
-        @Override
-        protected void onPostExecute(Void result) {
-            populateApps();
+    /**
+     * Loads the apps in the background and adds them to the list in batches as their package
+     * info is resolved, so that the first apps show before the whole list is ready.
+     */
+    private void loadApps() {
+        final Context context = getActivity();
+        if (context == null) return;
+        cancelAppLoading();
+        final int token = mAppLoadingToken;
+        final int generation = mRestrictionsCache.getGeneration();
+        final String settingsPackageName = context.getPackageName();
+        final PackageManager pm = mPackageManager;
+        final IPackageManager ipm = mIPm;
+        final int userId = mUser.getIdentifier();
+
+        mAppLoadingFuture = ThreadUtils.postOnBackgroundThread(() -> {
+            // Check if the user was removed in the meantime.
+            if (Utils.getExistingUser(mUserManager, mUser) == null) {
+                postIfCurrent(token, () -> mAppLoadingFuture = null);
+                return;
+            }
+            mHelper.fetchAndMergeApps();
+            final List<ResolveInfo> receivers = pm.queryBroadcastReceivers(
+                    new Intent(Intent.ACTION_GET_RESTRICTION_ENTRIES), 0);
+            postIfCurrent(token, this::clearAppList);
+
+            List<LoadedApp> batch = new ArrayList<>();
+            for (AppRestrictionsHelper.SelectableAppInfo app : mHelper.getVisibleApps()) {
+                if (token != mAppLoadingToken) {
+                    return;
+                }
+                final String packageName = app.packageName;
+                if (packageName == null) continue;
+                PackageInfo pi = null;
+                if (!packageName.equals(settingsPackageName)) {
+                    try {
+                        pi = ipm.getPackageInfo(packageName,
+                                PackageManager.MATCH_ANY_USER
+                                | PackageManager.GET_SIGNATURES, userId);
+                    } catch (RemoteException e) {
+                        // Ignore
+                    }
+                    if (pi == null) {
+                        continue;
+                    }
+                    if (mRestrictedProfile && isAppUnsupportedInRestrictedProfile(pi)) {
+                        continue;
+                    }
+                }
+                batch.add(new LoadedApp(app, pi,
+                        resolveInfoListHasPackage(receivers, packageName)));
+                if (batch.size() == APP_BATCH_SIZE) {
+                    final List<LoadedApp> apps = batch;
+                    postIfCurrent(token, () -> addApps(apps));
+                    batch = new ArrayList<>();
+                }
+            }
+            final List<LoadedApp> apps = batch;
+            postIfCurrent(token, () -> {
+                addApps(apps);
+                onAppsLoaded(generation);
+            });
+        });
+    }
+
+    private void cancelAppLoading() {
+        mAppLoadingToken++;
+        if (mAppLoadingFuture != null) {
+            // Not interrupting: the thread belongs to the shared pool of ThreadUtils, a running
+            // load stops on its own once it sees the token changed.
+            mAppLoadingFuture.cancel(false /* mayInterruptIfRunning */);
+            mAppLoadingFuture = null;
         }
     }
 
+    /** Runs {@code action} on the main thread unless the load of {@code token} was superseded. */
+    private void postIfCurrent(int token, Runnable action) {
+        ThreadUtils.postOnMainThread(() -> {
+            if (token == mAppLoadingToken && getActivity() != null) {
+                action.run();
+            }
+        });
+    }
+
     private boolean isPlatformSigned(PackageInfo pi) {
         return (pi != null && pi.signatures != null &&
                     mSysPackageInfo.signatures[0].equals(pi.signatures[0]));
@@ -347,78 +470,67 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
                 && (privateFlags&ApplicationInfo.PRIVATE_FLAG_HIDDEN) == 0);
     }
 
-    private void populateApps() {
-        final Context context = getActivity();
-        if (context == null) return;
-        final PackageManager pm = mPackageManager;
-        final IPackageManager ipm = mIPm;
-        final int userId = mUser.getIdentifier();
+    private void clearAppList() {
+        mAppList.removeAll();
+        // Requests not sent yet are for preferences that are gone.
+        mPendingRestrictionRequests.clear();
+    }
 
-        // Check if the user was removed in the meantime.
-        if (Utils.getExistingUser(mUserManager, mUser) == null) {
+    private void addApps(List<LoadedApp> apps) {
+        for (LoadedApp app : apps) {
+            addApp(app);
+        }
+    }
+
+    private void addApp(LoadedApp loadedApp) {
+        final AppRestrictionsHelper.SelectableAppInfo app = loadedApp.mApp;
+        final String packageName = app.packageName;
+        final PackageInfo pi = loadedApp.mPackageInfo;
+        final boolean hasSettings = loadedApp.mHasSettings;
+        AppRestrictionsPreference p = new AppRestrictionsPreference(getPrefContext(), this);
+        if (pi == null) {
+            // Only the Settings app is listed without a package info.
+            addLocationAppRestrictionsPreference(app, p);
+            // Settings app should be available to restricted user
+            mHelper.setPackageSelected(packageName, true);
             return;
         }
-        mAppList.removeAll();
-        Intent restrictionsIntent = new Intent(Intent.ACTION_GET_RESTRICTION_ENTRIES);
-        final List<ResolveInfo> receivers = pm.queryBroadcastReceivers(restrictionsIntent, 0);
-        for (AppRestrictionsHelper.SelectableAppInfo app : mHelper.getVisibleApps()) {
-            String packageName = app.packageName;
-            if (packageName == null) continue;
-            final boolean isSettingsApp = packageName.equals(context.getPackageName());
-            AppRestrictionsPreference p = new AppRestrictionsPreference(getPrefContext(), this);
-            final boolean hasSettings = resolveInfoListHasPackage(receivers, packageName);
-            if (isSettingsApp) {
-                addLocationAppRestrictionsPreference(app, p);
-                // Settings app should be available to restricted user
-                mHelper.setPackageSelected(packageName, true);
-                continue;
-            }
-            PackageInfo pi = null;
-            try {
-                pi = ipm.getPackageInfo(packageName,
-                        PackageManager.MATCH_ANY_USER
-                        | PackageManager.GET_SIGNATURES, userId);
-            } catch (RemoteException e) {
-                // Ignore
-            }
-            if (pi == null) {
-                continue;
-            }
-            if (mRestrictedProfile && isAppUnsupportedInRestrictedProfile(pi)) {
-                continue;
-            }
-            p.setIcon(app.icon != null ? app.icon.mutate() : null);
-            p.setChecked(false);
-            p.setTitle(app.activityName);
-            p.setKey(getKeyForPackage(packageName));
-            p.setSettingsEnabled(hasSettings && app.primaryEntry == null);
-            p.setPersistent(false);
-            p.setOnPreferenceChangeListener(this);
-            p.setOnPreferenceClickListener(this);
-            p.setSummary(getPackageSummary(pi, app));
-            if (pi.requiredForAllUsers || isPlatformSigned(pi)) {
-                p.setChecked(true);
-                p.setImmutable(true);
-                // If the app is required and has no restrictions, skip showing it
-                if (!hasSettings) continue;
-                // Get and populate the defaults, since the user is not going to be
-                // able to toggle this app ON (it's ON by default and immutable).
-                // Only do this for restricted profiles, not single-user restrictions
-                // Also don't do this for secondary icons
-                if (app.primaryEntry == null) {
-                    requestRestrictionsForApp(packageName, p, false);
-                }
-            } else if (!mNewUser && isAppEnabledForUser(pi)) {
-                p.setChecked(true);
-            }
-            if (app.primaryEntry != null) {
-                p.setImmutable(true);
-                p.setChecked(mHelper.isPackageSelected(packageName));
+        p.setIcon(app.icon != null ? app.icon.mutate() : null);
+        p.setChecked(false);
+        p.setTitle(app.activityName);
+        p.setKey(getKeyForPackage(packageName));
+        p.setSettingsEnabled(hasSettings && app.primaryEntry == null);
+        p.setPersistent(false);
+        p.setOnPreferenceChangeListener(this);
+        p.setOnPreferenceClickListener(this);
+        p.setSummary(getPackageSummary(pi, app));
+        if (pi.requiredForAllUsers || isPlatformSigned(pi)) {
+            p.setChecked(true);
+            p.setImmutable(true);
+            // If the app is required and has no restrictions, skip showing it
+            if (!hasSettings) return;
+            // Get and populate the defaults, since the user is not going to be
+            // able to toggle this app ON (it's ON by default and immutable).
+            // Only do this for restricted profiles, not single-user restrictions
+            // Also don't do this for secondary icons
+            if (app.primaryEntry == null) {
+                requestRestrictionsForApp(packageName, p, false);
             }
-            p.setOrder(MAX_APP_RESTRICTIONS * (mAppList.getPreferenceCount() + 2));
-            mHelper.setPackageSelected(packageName, p.isChecked());
-            mAppList.addPreference(p);
+        } else if (!mNewUser && isAppEnabledForUser(pi)) {
+            p.setChecked(true);
+        }
+        if (app.primaryEntry != null) {
+            p.setImmutable(true);
+            p.setChecked(mHelper.isPackageSelected(packageName));
         }
+        p.setOrder(MAX_APP_RESTRICTIONS * (mAppList.getPreferenceCount() + 2));
+        mHelper.setPackageSelected(packageName, p.isChecked());
+        mAppList.addPreference(p);
+    }
+
+    private void onAppsLoaded(int generation) {
+        mAppLoadingFuture = null;
+        mAppListGeneration = generation;
         mAppListChanged = true;
         // If this is the first time for a new profile, install/uninstall default apps for profile
         // to avoid taking the hit in onPause(), which can cause race conditions on user switch.
@@ -590,23 +702,46 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
     }
 
     /**
-     * Send a broadcast to the app to query its restrictions
+     * Send a broadcast to the app to query its restrictions, unless they are cached already, in
+     * which case the values currently stored for the user are applied to the cached entries.
+     * Requests are queued so that only {@link #MAX_CONCURRENT_RESTRICTION_REQUESTS} apps are
+     * asked at a time; the ones the user asked for go first.
      * @param packageName package name of the app with restrictions
      * @param preference the preference item for the app toggle
      * @param invokeIfCustom whether to directly launch any custom activity that is returned
      *        for the app.
      */
-    private void requestRestrictionsForApp(String packageName,
+    @VisibleForTesting
+    void requestRestrictionsForApp(String packageName,
             AppRestrictionsPreference preference, boolean invokeIfCustom) {
-        Bundle oldEntries =
-                mUserManager.getApplicationRestrictions(packageName, mUser);
-        Intent intent = new Intent(Intent.ACTION_GET_RESTRICTION_ENTRIES);
-        intent.setPackage(packageName);
-        intent.putExtra(Intent.EXTRA_RESTRICTIONS_BUNDLE, oldEntries);
-        intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-        getActivity().sendOrderedBroadcast(intent, null,
-                new RestrictionsResultReceiver(packageName, preference, invokeIfCustom),
-                null, Activity.RESULT_OK, null, null);
+        final ArrayList<RestrictionEntry> cachedRestrictions =
+                mRestrictionsCache.getRestrictions(mUser.getIdentifier(), packageName,
+                        mUserManager.getApplicationRestrictions(packageName, mUser));
+        if (cachedRestrictions != null) {
+            onRestrictionsReceived(preference, cachedRestrictions);
+            return;
+        }
+        final RestrictionsResultReceiver receiver =
+                new RestrictionsResultReceiver(packageName, preference, invokeIfCustom);
+        if (invokeIfCustom) {
+            mPendingRestrictionRequests.addFirst(receiver);
+        } else {
+            mPendingRestrictionRequests.addLast(receiver);
+        }
+        sendPendingRestrictionRequests();
+    }
+
+    private void sendPendingRestrictionRequests() {
+        while (mRestrictionRequestsInFlight < MAX_CONCURRENT_RESTRICTION_REQUESTS
+                && !mPendingRestrictionRequests.isEmpty()) {
+            final Activity activity = getActivity();
+            if (activity == null) {
+                mPendingRestrictionRequests.clear();
+                return;
+            }
+            mRestrictionRequestsInFlight++;
+            mPendingRestrictionRequests.pollFirst().send(activity);
+        }
     }
 
     class RestrictionsResultReceiver extends BroadcastReceiver {
@@ -615,6 +750,9 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
         String packageName;
         AppRestrictionsPreference preference;
         boolean invokeIfCustom;
+        private final int mLoadToken;
+        private final Runnable mTimeout = this::finishRequest;
+        private boolean mFinished;
 
         RestrictionsResultReceiver(String packageName, AppRestrictionsPreference preference,
                 boolean invokeIfCustom) {
@@ -622,14 +760,45 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
             this.packageName = packageName;
             this.preference = preference;
             this.invokeIfCustom = invokeIfCustom;
+            mLoadToken = mAppLoadingToken;
+        }
+
+        void send(Activity activity) {
+            Bundle oldEntries =
+                    mUserManager.getApplicationRestrictions(packageName, mUser);
+            Intent intent = new Intent(Intent.ACTION_GET_RESTRICTION_ENTRIES);
+            intent.setPackage(packageName);
+            intent.putExtra(Intent.EXTRA_RESTRICTIONS_BUNDLE, oldEntries);
+            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
+            activity.sendOrderedBroadcast(intent, null, this, null, Activity.RESULT_OK, null,
+                    null);
+            mHandler.postDelayed(mTimeout, RESTRICTION_REQUEST_TIMEOUT_MS);
+        }
+
+        /** Frees the slot of this request, on its result or when it timed out. */
+        private void finishRequest() {
+            if (mFinished) return;
+            mFinished = true;
+            mHandler.removeCallbacks(mTimeout);
+            mRestrictionRequestsInFlight--;
+            sendPendingRestrictionRequests();
         }
 
         @Override
         public void onReceive(Context context, Intent intent) {
+            finishRequest();
             Bundle results = getResultExtras(true);
             final ArrayList<RestrictionEntry> restrictions = results.getParcelableArrayList(
                     Intent.EXTRA_RESTRICTIONS_LIST);
             Intent restrictionsIntent = results.getParcelable(CUSTOM_RESTRICTIONS_INTENT);
+            if (restrictions != null && restrictionsIntent == null) {
+                mRestrictionsCache.putRestrictions(mUser.getIdentifier(), packageName,
+                        restrictions);
+            }
+            if (mLoadToken != mAppLoadingToken || getActivity() == null) {
+                // The preference belongs to an app list that was reloaded since.
+                return;
+            }
             if (restrictions != null && restrictionsIntent == null) {
                 onRestrictionsReceived(preference, restrictions);
                 if (mRestrictedProfile) {
@@ -766,6 +935,7 @@ public class AppRestrictionsFragment extends SettingsPreferenceFragment implemen
             if (list != null) {
                 // If there's a valid result, persist it to the user manager.
                 pref.setRestrictions(list);
+                mRestrictionsCache.putRestrictions(mUser.getIdentifier(), packageName, list);
                 mUserManager.setApplicationRestrictions(packageName,
                         RestrictionsManager.convertRestrictionsToBundle(list), mUser);
             } else if (bundle != null) {
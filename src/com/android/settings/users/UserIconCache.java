@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.internal.util.UserIcons;
+import com.android.settings.R;
+import com.android.settingslib.drawable.CircleFramedDrawable;
+
+/**
+ * Process wide cache of user icons, already framed in a circle at the size the user list shows
+ * them, so that pages listing users do not decode and frame every icon on each refresh.
+ *
+ * <p>Entries are dropped when {@link Intent#ACTION_USER_INFO_CHANGED} or
+ * {@link Intent#ACTION_USER_REMOVED} is received for their user, and all of them are dropped when
+ * the icon size changes with the display density.
+ */
+public class UserIconCache {
+
+    private static final int MAX_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static UserIconCache sInstance;
+
+    private final Context mContext;
+    private final UserManager mUserManager;
+    private final LruCache<Integer, Bitmap> mIcons = new LruCache<>(MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(Integer userId, Bitmap icon) {
+            return icon.getAllocationByteCount();
+        }
+    };
+    private final BroadcastReceiver mUserInfoReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final int userId = intent.getIntExtra(Intent.EXTRA_USER_HANDLE, UserHandle.USER_NULL);
+            if (userId != UserHandle.USER_NULL) {
+                invalidate(userId);
+            }
+        }
+    };
+
+    private int mIconSize;
+    private Bitmap mDefaultIcon;
+
+    /** Returns the cache shared by the whole process. */
+    public static synchronized UserIconCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new UserIconCache(context.getApplicationContext());
+            final IntentFilter filter = new IntentFilter(Intent.ACTION_USER_INFO_CHANGED);
+            filter.addAction(Intent.ACTION_USER_REMOVED);
+            sInstance.mContext.registerReceiverAsUser(sInstance.mUserInfoReceiver,
+                    UserHandle.ALL, filter, null /* permission */, null /* scheduler */);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    UserIconCache(Context context) {
+        mContext = context;
+        mUserManager = context.getSystemService(UserManager.class);
+    }
+
+    /** Returns the cached icon of the user, or {@code null} if it has not been loaded yet. */
+    @Nullable
+    public Drawable getCachedIcon(int userId) {
+        checkIconSize();
+        final Bitmap icon = mIcons.get(userId);
+        return icon != null ? toDrawable(icon) : null;
+    }
+
+    /**
+     * Loads the icon of the user into the cache, falling back to the default icon of the user
+     * when none is set.
+     */
+    @WorkerThread
+    public Drawable loadIcon(int userId) {
+        final int size = checkIconSize();
+        Bitmap icon = mIcons.get(userId);
+        if (icon == null) {
+            Bitmap userIcon = mUserManager.getUserIcon(userId);
+            if (userIcon == null) {
+                userIcon = getDefaultUserIconAsBitmap(mContext.getResources(), userId);
+            }
+            icon = encircle(userIcon, size);
+            mIcons.put(userId, icon);
+        }
+        return toDrawable(icon);
+    }
+
+    /** Returns the icon used for users without a loaded icon and for guests. */
+    public synchronized Drawable getDefaultIcon() {
+        final int size = checkIconSize();
+        if (mDefaultIcon == null) {
+            mDefaultIcon = encircle(getDefaultUserIconAsBitmap(mContext.getResources(),
+                    UserHandle.USER_NULL), size);
+        }
+        return toDrawable(mDefaultIcon);
+    }
+
+    /** Drops the cached icon of the user, e.g. after it was changed. */
+    public void invalidate(int userId) {
+        mIcons.remove(userId);
+    }
+
+    @VisibleForTesting
+    void putIcon(int userId, Bitmap icon) {
+        mIcons.put(userId, encircle(icon, checkIconSize()));
+    }
+
+    private synchronized int checkIconSize() {
+        final int size = mContext.getResources().getDimensionPixelSize(
+                R.dimen.multiple_users_user_icon_size);
+        if (size != mIconSize) {
+            mIconSize = size;
+            mDefaultIcon = null;
+            mIcons.evictAll();
+        }
+        return size;
+    }
+
+    private Drawable toDrawable(Bitmap icon) {
+        return new BitmapDrawable(mContext.getResources(), icon);
+    }
+
+    private static Bitmap encircle(Bitmap icon, int size) {
+        final CircleFramedDrawable drawable = new CircleFramedDrawable(icon, size);
+        final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        drawable.setBounds(0, 0, size, size);
+        drawable.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private static Bitmap getDefaultUserIconAsBitmap(Resources resources, int userId) {
+        return UserIcons.convertToBitmapAtUserIconSize(resources,
+                UserIcons.getDefaultUserIcon(resources, userId, false));
+    }
+}
@@ -204,7 +204,7 @@ public class UserSettings extends SettingsPreferenceFragment
     @VisibleForTesting
     RestrictedPreference mAddSupervisedUser;
     @VisibleForTesting
-    SparseArray<Bitmap> mUserIcons = new SparseArray<>();
+    UserIconCache mUserIconCache;
     private int mRemovingUserId = -1;
     private boolean mAddingUser;
     private boolean mGuestUserAutoCreated;
@@ -267,7 +267,7 @@ public class UserSettings extends SettingsPreferenceFragment
             } else if (intent.getAction().equals(Intent.ACTION_USER_INFO_CHANGED)) {
                 int userHandle = intent.getIntExtra(Intent.EXTRA_USER_HANDLE, -1);
                 if (userHandle != -1) {
-                    mUserIcons.remove(userHandle);
+                    getUserIconCache().invalidate(userHandle);
                 }
             }
             mHandler.sendEmptyMessage(MESSAGE_UPDATE_LIST);
@@ -539,11 +539,10 @@ public class UserSettings extends SettingsPreferenceFragment
             return;
         }
         mMePreference.setTitle(getString(R.string.user_you, profileName));
-        int myUserId = UserHandle.myUserId();
-        Bitmap b = mUserManager.getUserIcon(myUserId);
-        if (b != null) {
-            mMePreference.setIcon(encircleUserIcon(b));
-            mUserIcons.put(myUserId, b);
+        // A missing icon is loaded along with the other users' by updateUserList().
+        final Drawable icon = getUserIconCache().getCachedIcon(UserHandle.myUserId());
+        if (icon != null) {
+            mMePreference.setIcon(icon);
         }
     }
 
@@ -1263,12 +1262,13 @@ public class UserSettings extends SettingsPreferenceFragment
                 pref.setSummary(R.string.user_summary_restricted_profile);
             }
             if (user.iconPath != null) {
-                if (mUserIcons.get(user.id) == null) {
+                final Drawable icon = getUserIconCache().getCachedIcon(user.id);
+                if (icon == null) {
                     // Icon not loaded yet, print a placeholder
                     missingIcons.add(user.id);
                     pref.setIcon(getEncircledDefaultIcon());
                 } else {
-                    setPhotoId(pref, user);
+                    pref.setIcon(icon);
                 }
             } else {
                 // Icon not available yet, print a placeholder
@@ -1557,12 +1557,9 @@ public class UserSettings extends SettingsPreferenceFragment
 
             @Override
             protected Void doInBackground(List<Integer>... values) {
+                final UserIconCache cache = getUserIconCache();
                 for (int userId : values[0]) {
-                    Bitmap bitmap = mUserManager.getUserIcon(userId);
-                    if (bitmap == null) {
-                        bitmap = getDefaultUserIconAsBitmap(getContext().getResources(), userId);
-                    }
-                    mUserIcons.append(userId, bitmap);
+                    cache.loadIcon(userId);
                 }
                 return null;
             }
@@ -1571,17 +1568,16 @@ public class UserSettings extends SettingsPreferenceFragment
 
     private Drawable getEncircledDefaultIcon() {
         if (mDefaultIconDrawable == null) {
-            mDefaultIconDrawable = encircleUserIcon(
-                    getDefaultUserIconAsBitmap(getContext().getResources(), UserHandle.USER_NULL));
+            mDefaultIconDrawable = getUserIconCache().getDefaultIcon();
         }
         return mDefaultIconDrawable;
     }
 
-    private void setPhotoId(Preference pref, UserInfo user) {
-        Bitmap bitmap = mUserIcons.get(user.id);
-        if (bitmap != null) {
-            pref.setIcon(encircleUserIcon(bitmap));
+    private UserIconCache getUserIconCache() {
+        if (mUserIconCache == null) {
+            mUserIconCache = UserIconCache.getInstance(getContext());
         }
+        return mUserIconCache;
     }
 
     @Override
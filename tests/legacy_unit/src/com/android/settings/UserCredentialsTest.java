@@ -51,5 +51,21 @@ public class UserCredentialsTest extends InstrumentationTestCase {
         assertEquals(c.alias, r.alias);
         assertEquals(c.uid, r.uid);
         assertEquals(c.storedTypes, r.storedTypes);
+        assertFalse(r.isCertificateChainPending());
+    }
+
+    @SmallTest
+    public void testPendingCertificateChainIsParcelable() {
+        Credential c = new Credential("credential-test-alias", Process.SYSTEM_UID);
+        c.storedTypes.add(Credential.Type.USER_KEY);
+        c.mCertificateChainPending = true;
+
+        Parcel p = Parcel.obtain();
+        c.writeToParcel(p, /* flags */ 0);
+        p.setDataPosition(0);
+
+        Credential r = Credential.CREATOR.createFromParcel(p);
+        assertTrue(r.isCertificateChainPending());
+        assertEquals(c.storedTypes, r.storedTypes);
     }
 }
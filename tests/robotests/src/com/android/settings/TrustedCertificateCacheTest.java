@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.os.RemoteException;
+import android.security.IKeyChainService;
+
+import com.android.settings.TrustedCredentialsSettings.Tab;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrustedCertificateCacheTest {
+
+    private static final int PROFILE_ID = 0;
+    private static final int OTHER_PROFILE_ID = 10;
+    private static final String ALIAS = "system:1234abcd.0";
+    private static final String USER_ALIAS = "user:1234abcd.0";
+    private static final byte[] ENCODED_CERTIFICATE = (
+            "-----BEGIN CERTIFICATE-----\n"
+            + "MIIBeDCCAR+gAwIBAgIURXT4Fy9SWAgdhlIcuLwMglb9bCcwCgYIKoZIzj0EAwIw\n"
+            + "EjEQMA4GA1UEAwwHVGVzdCBDQTAeFw0yNjEwMTkwMzUxMzZaFw0zNjEwMTYwMzUx\n"
+            + "MzZaMBIxEDAOBgNVBAMMB1Rlc3QgQ0EwWTATBgcqhkjOPQIBBggqhkjOPQMBBwNC\n"
+            + "AASe2AvUTKD0JJ9eQqydVWqUZfCdglDCWecDie1uCFwlp+TboBvSfnNrt/FHgrGY\n"
+            + "5t4PzrUHUqzeSi1yfegqdVNso1MwUTAdBgNVHQ4EFgQUIedlhBBcLme3Dm6p8gvq\n"
+            + "94JWUGgwHwYDVR0jBBgwFoAUIedlhBBcLme3Dm6p8gvq94JWUGgwDwYDVR0TAQH/\n"
+            + "BAUwAwEB/zAKBggqhkjOPQQDAgNHADBEAiB7EyuCHDRstjT02D1f+h2NeaHMxBpv\n"
+            + "h977Qf6NoUrLeQIgCNyw9TarrFXmQh3mGU/wmByZHQ9MLQnMgwLJfrtMAkM=\n"
+            + "-----END CERTIFICATE-----\n").getBytes(StandardCharsets.US_ASCII);
+
+    @Rule
+    public final MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private IKeyChainService mService;
+
+    private TrustedCertificateCache mCache;
+
+    @Before
+    public void setUp() throws RemoteException {
+        mCache = new TrustedCertificateCache();
+        when(mService.containsCaAlias(ALIAS)).thenReturn(false);
+        when(mService.getEncodedCaCertificate(anyString(), eq(true)))
+                .thenReturn(ENCODED_CERTIFICATE);
+    }
+
+    @Test
+    public void getCertificate_cached_shouldReturnParsedCertificate() throws RemoteException {
+        final X509Certificate certificate =
+                mCache.getCertificate(mService, PROFILE_ID, Tab.SYSTEM, ALIAS);
+
+        assertThat(certificate.getSubjectX500Principal().getName()).isEqualTo("CN=Test CA");
+        assertThat(mCache.getCertificate(mService, PROFILE_ID, Tab.SYSTEM, ALIAS))
+                .isSameInstanceAs(certificate);
+        verify(mService, times(1)).getEncodedCaCertificate(ALIAS, true);
+    }
+
+    @Test
+    public void getCertificate_afterTrustStoreChanged_shouldFetchUserCertificateAgain()
+            throws RemoteException {
+        final X509Certificate systemCertificate =
+                mCache.getCertificate(mService, PROFILE_ID, Tab.SYSTEM, ALIAS);
+        final X509Certificate userCertificate =
+                mCache.getCertificate(mService, PROFILE_ID, Tab.USER, USER_ALIAS);
+
+        mCache.onTrustStoreChanged();
+
+        assertThat(mCache.getCertificate(mService, PROFILE_ID, Tab.SYSTEM, ALIAS))
+                .isSameInstanceAs(systemCertificate);
+        assertThat(mCache.getCertificate(mService, PROFILE_ID, Tab.USER, USER_ALIAS))
+                .isNotSameInstanceAs(userCertificate);
+        verify(mService, times(2)).getEncodedCaCertificate(USER_ALIAS, true);
+    }
+
+    @Test
+    public void isDeleted_systemCertificate_shouldQueryOncePerProfile() throws RemoteException {
+        assertThat(mCache.isDeleted(mService, PROFILE_ID, Tab.SYSTEM, ALIAS)).isTrue();
+        assertThat(mCache.isDeleted(mService, PROFILE_ID, Tab.SYSTEM, ALIAS)).isTrue();
+        mCache.isDeleted(mService, OTHER_PROFILE_ID, Tab.SYSTEM, ALIAS);
+
+        verify(mService, times(2)).containsCaAlias(ALIAS);
+    }
+
+    @Test
+    public void isDeleted_afterTrustStoreChanged_shouldQueryAgain() throws RemoteException {
+        mCache.isDeleted(mService, PROFILE_ID, Tab.SYSTEM, ALIAS);
+        when(mService.containsCaAlias(ALIAS)).thenReturn(true);
+
+        mCache.onTrustStoreChanged();
+
+        assertThat(mCache.isDeleted(mService, PROFILE_ID, Tab.SYSTEM, ALIAS)).isFalse();
+    }
+
+    @Test
+    public void isDeleted_userCertificate_shouldNotBeDeleted() throws RemoteException {
+        assertThat(mCache.isDeleted(mService, PROFILE_ID, Tab.USER, ALIAS)).isFalse();
+
+        verify(mService, times(0)).containsCaAlias(ALIAS);
+    }
+}
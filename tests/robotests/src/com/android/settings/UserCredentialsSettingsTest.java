@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import android.os.Process;
+import android.os.UserHandle;
+
+import com.android.settings.UserCredentialsSettings.Credential;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class UserCredentialsSettingsTest {
+
+    private static final int SYSTEM_UID = UserHandle.getUid(0, Process.SYSTEM_UID);
+    private static final int WIFI_UID = UserHandle.getUid(0, Process.WIFI_UID);
+
+    private UserCredentialsSettings mFragment;
+    private List<List<String>> mShownAliases;
+
+    @Before
+    public void setUp() {
+        mFragment = spy(new UserCredentialsSettings());
+        doReturn(true).when(mFragment).isAdded();
+        mShownAliases = new ArrayList<>();
+        doAnswer(invocation -> {
+            final List<String> aliases = new ArrayList<>();
+            for (Credential credential : (List<Credential>) invocation.getArgument(0)) {
+                aliases.add(credential.alias);
+            }
+            mShownAliases.add(aliases);
+            return null;
+        }).when(mFragment).showCredentials(anyList());
+    }
+
+    @Test
+    public void refreshItems_shouldShowCredentialsOfBothNamespaces() {
+        givenCredentials(SYSTEM_UID, "system");
+        givenCredentials(WIFI_UID, "wifi");
+
+        mFragment.refreshItems();
+
+        assertThat(mShownAliases).isNotEmpty();
+        assertThat(mShownAliases.get(mShownAliases.size() - 1))
+                .containsExactly("system", "wifi");
+    }
+
+    @Test
+    public void refreshItems_credentialRemoved_shouldNotShowStaleCredential() {
+        givenCredentials(SYSTEM_UID, "system");
+        givenCredentials(WIFI_UID, "wifi");
+        mFragment.refreshItems();
+        mShownAliases.clear();
+
+        givenCredentials(WIFI_UID);
+        mFragment.refreshItems();
+
+        for (List<String> aliases : mShownAliases) {
+            assertThat(aliases).doesNotContain("wifi");
+        }
+    }
+
+    @Test
+    public void refreshItems_newerLoadStartedDuringLoad_shouldDropOlderResults() {
+        final List<Credential> olderSystemCredentials = credentials(SYSTEM_UID, "older");
+        final List<Credential> newerSystemCredentials = credentials(SYSTEM_UID, "newer");
+        givenCredentials(WIFI_UID, "wifi");
+        // The first listing of the system namespace only returns once a second refresh is
+        // fully loaded.
+        doAnswer(invocation -> {
+            doReturn(newerSystemCredentials).when(mFragment).listCredentials(eq(SYSTEM_UID),
+                    any());
+            mFragment.refreshItems();
+            return olderSystemCredentials;
+        }).when(mFragment).listCredentials(eq(SYSTEM_UID), any());
+
+        mFragment.refreshItems();
+
+        for (List<String> aliases : mShownAliases) {
+            assertThat(aliases).doesNotContain("older");
+        }
+        assertThat(mShownAliases.get(mShownAliases.size() - 1))
+                .containsExactly("newer", "wifi");
+    }
+
+    private void givenCredentials(int uid, String... aliases) {
+        doReturn(credentials(uid, aliases)).when(mFragment).listCredentials(eq(uid), any());
+    }
+
+    private static List<Credential> credentials(int uid, String... aliases) {
+        final List<Credential> credentials = new ArrayList<>();
+        for (String alias : aliases) {
+            credentials.add(new Credential(alias, uid));
+        }
+        return credentials;
+    }
+}
@@ -396,6 +396,35 @@ public class AccessibilitySettingsTest {
 
     }
 
+    @Test
+    public void onContentChanged_servicesUnchanged_keepsPreferenceInstance() {
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
+                singletonList(mServiceInfo));
+        setupFragment();
+        final RestrictedPreference preference = mFragment.getPreferenceScreen().findPreference(
+                SERVICE_COMPONENT_NAME.flattenToString());
+
+        mFragment.onContentChanged();
+
+        assertThat(preference).isNotNull();
+        assertThat((RestrictedPreference) mFragment.getPreferenceScreen().findPreference(
+                SERVICE_COMPONENT_NAME.flattenToString())).isSameInstanceAs(preference);
+    }
+
+    @Test
+    public void onContentChanged_serviceUninstalled_removesPreference() {
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
+                singletonList(mServiceInfo));
+        setupFragment();
+
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(new ArrayList<>());
+        mFragment.onContentChanged();
+
+        assertThat((RestrictedPreference) mFragment.getPreferenceScreen().findPreference(
+                SERVICE_COMPONENT_NAME.flattenToString())).isNull();
+        assertThat(mFragment.mServicePreferenceToPreferenceCategoryMap).isEmpty();
+    }
+
     @Test
     public void testAccessibilityMenuInSystem_IncludedInInteractionControl() {
         mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
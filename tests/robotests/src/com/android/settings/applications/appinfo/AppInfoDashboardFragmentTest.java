@@ -24,6 +24,8 @@ import static com.android.settings.applications.appinfo.AppInfoDashboardFragment
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -32,6 +34,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import android.app.admin.DevicePolicyManager;
@@ -42,6 +45,7 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.UserInfo;
+import android.net.Uri;
 import android.os.Bundle;
 import android.os.UserManager;
 import android.util.ArraySet;
@@ -51,6 +55,7 @@ import android.view.MenuItem;
 import com.android.settings.SettingsActivity;
 import com.android.settings.SettingsPreferenceFragment;
 import com.android.settingslib.applications.AppUtils;
+import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import com.android.settingslib.applications.instantapps.InstantAppDataProvider;
 import com.android.settingslib.core.lifecycle.Lifecycle;
@@ -283,6 +288,81 @@ public final class AppInfoDashboardFragmentTest {
         verify(mActivity).invalidateOptionsMenu();
     }
 
+    @Test
+    public void retrieveAppEntry_calledRepeatedly_shouldLoadPackageInfoOnce() throws Exception {
+        givenInstalledAppEntry();
+
+        // onAttach, onResume and a package list change all retrieve the app entry.
+        mFragment.retrieveAppEntry();
+        mFragment.retrieveAppEntry();
+        mFragment.retrieveAppEntry();
+
+        verify(mPackageManager).getPackageInfo(eq(PACKAGE_NAME),
+                any(PackageManager.PackageInfoFlags.class));
+        assertThat(mFragment.getAppSnapshot().getPackageInfo())
+                .isSameInstanceAs(mFragment.getPackageInfo());
+    }
+
+    @Test
+    public void openAndResume_shouldMakeOnlyExpectedPackageManagerCalls() throws Exception {
+        givenInstalledAppEntry();
+        givenAppButtonsUnavailable();
+        when(mPackageManager.getApplicationInfo(eq(PACKAGE_NAME), anyInt()))
+                .thenReturn(installedApplicationInfo());
+
+        // onCreate retrieves the app entry, the first onResume initializes the page, and
+        // coming back to it refreshes it again.
+        mFragment.retrieveAppEntry();
+        assertThat(mFragment.refreshUi()).isTrue();
+        assertThat(mFragment.refreshUi()).isTrue();
+
+        verify(mPackageManager).getPackageInfo(eq(PACKAGE_NAME),
+                any(PackageManager.PackageInfoFlags.class));
+        verify(mPackageManager).getApplicationInfo(PACKAGE_NAME,
+                PackageManager.MATCH_DISABLED_COMPONENTS | PackageManager.MATCH_ANY_USER);
+        verifyNoMoreInteractions(mPackageManager);
+    }
+
+    @Test
+    public void refreshUi_appRemovedWithoutBroadcast_shouldReturnFalse() throws Exception {
+        givenInstalledAppEntry();
+        givenAppButtonsUnavailable();
+        when(mPackageManager.getApplicationInfo(eq(PACKAGE_NAME), anyInt()))
+                .thenThrow(new PackageManager.NameNotFoundException());
+        assertThat(mFragment.refreshUi()).isTrue();
+
+        assertThat(mFragment.refreshUi()).isFalse();
+    }
+
+    @Test
+    public void packageChanged_ownPackage_shouldReloadPackageInfo() throws Exception {
+        givenInstalledAppEntry();
+        doReturn(true).when(mFragment).refreshUi();
+        mFragment.retrieveAppEntry();
+
+        mFragment.mPackageChangedReceiver.onReceive(mShadowContext,
+                new Intent(Intent.ACTION_PACKAGE_CHANGED, Uri.fromParts("package",
+                        PACKAGE_NAME, null /* fragment */)));
+
+        verify(mPackageManager, times(2)).getPackageInfo(eq(PACKAGE_NAME),
+                any(PackageManager.PackageInfoFlags.class));
+        verify(mFragment).refreshUi();
+    }
+
+    @Test
+    public void packageChanged_otherPackage_shouldNotReloadPackageInfo() throws Exception {
+        givenInstalledAppEntry();
+        mFragment.retrieveAppEntry();
+
+        mFragment.mPackageChangedReceiver.onReceive(mShadowContext,
+                new Intent(Intent.ACTION_PACKAGE_CHANGED, Uri.fromParts("package",
+                        "Not_" + PACKAGE_NAME, null /* fragment */)));
+
+        verify(mPackageManager).getPackageInfo(eq(PACKAGE_NAME),
+                any(PackageManager.PackageInfoFlags.class));
+        verify(mFragment, never()).refreshUi();
+    }
+
     @Test
     public void getPreferenceControllers_noPackageInfo_shouldReturnNull() {
         doNothing().when(mFragment).retrieveAppEntry();
@@ -398,6 +478,35 @@ public final class AppInfoDashboardFragmentTest {
         assertThat(mFragment.shouldSkipForInitialSUW()).isTrue();
     }
 
+    private void givenInstalledAppEntry() throws Exception {
+        final ApplicationInfo info = installedApplicationInfo();
+        final AppEntry appEntry = mock(AppEntry.class);
+        appEntry.info = info;
+        final PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = PACKAGE_NAME;
+        packageInfo.applicationInfo = info;
+        final ApplicationsState state = mock(ApplicationsState.class);
+        when(state.getEntry(eq(PACKAGE_NAME), anyInt())).thenReturn(appEntry);
+        when(mPackageManager.getPackageInfo(eq(PACKAGE_NAME),
+                any(PackageManager.PackageInfoFlags.class))).thenReturn(packageInfo);
+        ReflectionHelpers.setField(mFragment, "mState", state);
+        ReflectionHelpers.setField(mFragment, "mPackageName", PACKAGE_NAME);
+    }
+
+    private void givenAppButtonsUnavailable() {
+        final AppButtonsPreferenceController controller =
+                mock(AppButtonsPreferenceController.class);
+        when(controller.isAvailable()).thenReturn(false);
+        ReflectionHelpers.setField(mFragment, "mAppButtonsPreferenceController", controller);
+    }
+
+    private static ApplicationInfo installedApplicationInfo() {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = PACKAGE_NAME;
+        info.flags = ApplicationInfo.FLAG_INSTALLED;
+        return info;
+    }
+
     @Implements(AppUtils.class)
     public static class ShadowAppUtils {
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.bluetooth;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.bluetooth.BluetoothDevice;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import com.android.settingslib.bluetooth.CachedBluetoothDevice;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class BluetoothDeviceUpdateSchedulerTest {
+
+    private static final int DEVICE_COUNT = 40;
+    private static final int EVENTS_PER_FRAME = 500;
+
+    private final List<CachedBluetoothDevice> mUpdatedDevices = new ArrayList<>();
+    private final List<Choreographer.FrameCallback> mPostedFrames = new ArrayList<>();
+    private final List<CachedBluetoothDevice> mDevices = new ArrayList<>();
+    private int mUpdateAllCount;
+    private BluetoothDeviceUpdateScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            final CachedBluetoothDevice cachedDevice = mock(CachedBluetoothDevice.class);
+            when(cachedDevice.getDevice()).thenReturn(mock(BluetoothDevice.class));
+            mDevices.add(cachedDevice);
+        }
+        mScheduler = new BluetoothDeviceUpdateScheduler(
+                new BluetoothDeviceUpdateScheduler.Callback() {
+                    @Override
+                    public void onUpdateDevice(@NonNull CachedBluetoothDevice cachedDevice) {
+                        mUpdatedDevices.add(cachedDevice);
+                    }
+
+                    @Override
+                    public void onUpdateAllDevices() {
+                        mUpdateAllCount++;
+                    }
+                },
+                new BluetoothDeviceUpdateScheduler.FrameScheduler() {
+                    @Override
+                    public void postFrameCallback(@NonNull Choreographer.FrameCallback callback) {
+                        mPostedFrames.add(callback);
+                    }
+
+                    @Override
+                    public void removeFrameCallback(
+                            @NonNull Choreographer.FrameCallback callback) {
+                        mPostedFrames.remove(callback);
+                    }
+                });
+    }
+
+    @Test
+    public void scheduleUpdate_severalFrames_onlyChangedDevicesUpdated() {
+        for (int frame = 0; frame < 3; frame++) {
+            for (int i = 0; i < EVENTS_PER_FRAME; i++) {
+                // Only the first five devices keep changing after the first frame.
+                final int index = frame == 0 ? i % DEVICE_COUNT : i % 5;
+                mScheduler.scheduleUpdate(mDevices.get(index));
+            }
+            runFrames();
+        }
+
+        assertThat(mScheduler.getFlushCount()).isEqualTo(3);
+        assertThat(mScheduler.getDeviceUpdateCount()).isEqualTo(DEVICE_COUNT + 5 + 5);
+    }
+
+    @Test
+    public void scheduleUpdateAll_supersedesPendingDeviceUpdates() {
+        mScheduler.scheduleUpdate(mDevices.get(0));
+        mScheduler.scheduleUpdateAll();
+        mScheduler.scheduleUpdate(mDevices.get(1));
+
+        runFrames();
+
+        assertThat(mUpdateAllCount).isEqualTo(1);
+        assertThat(mUpdatedDevices).isEmpty();
+    }
+
+    @Test
+    public void cancelUpdate_removedDevice_notUpdated() {
+        mScheduler.scheduleUpdate(mDevices.get(0));
+        mScheduler.scheduleUpdate(mDevices.get(1));
+        mScheduler.cancelUpdate(mDevices.get(0));
+
+        runFrames();
+
+        assertThat(mUpdatedDevices).containsExactly(mDevices.get(1));
+    }
+
+    @Test
+    public void cancelAll_removesFrameCallback() {
+        mScheduler.scheduleUpdate(mDevices.get(0));
+
+        mScheduler.cancelAll();
+
+        assertThat(mPostedFrames).isEmpty();
+        assertThat(mScheduler.getFlushCount()).isEqualTo(0);
+    }
+
+    private void runFrames() {
+        final List<Choreographer.FrameCallback> frames = new ArrayList<>(mPostedFrames);
+        mPostedFrames.clear();
+        for (Choreographer.FrameCallback frame : frames) {
+            frame.doFrame(0L);
+        }
+    }
+}
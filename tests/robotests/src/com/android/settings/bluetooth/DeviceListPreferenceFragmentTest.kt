@@ -24,6 +24,7 @@ import android.bluetooth.le.ScanCallback
 import android.bluetooth.le.ScanFilter
 import android.content.Context
 import android.content.res.Resources
+import android.view.Choreographer
 import androidx.preference.Preference
 import com.android.settings.R
 import com.android.settings.testutils.shadow.ShadowBluetoothAdapter
@@ -246,6 +247,45 @@ class DeviceListPreferenceFragmentTest {
         verify(fragment, never()).onDeviceAdded(cachedDevice)
     }
 
+    @Test
+    fun onDeviceAdded_discoveryBurst_addsEachDeviceOncePerFrame() = runBlocking {
+        // Not a spy: the scheduler callback has to reach the same instance the test sets up.
+        val fragment = TestFragment()
+        fragment.mBluetoothAdapter = bluetoothAdapter
+        val postedFrames = mutableListOf<Choreographer.FrameCallback>()
+        fragment.updateScheduler = BluetoothDeviceUpdateScheduler(
+            fragment.updateSchedulerCallback,
+            object : BluetoothDeviceUpdateScheduler.FrameScheduler {
+                override fun postFrameCallback(callback: Choreographer.FrameCallback) {
+                    postedFrames.add(callback)
+                }
+
+                override fun removeFrameCallback(callback: Choreographer.FrameCallback) {
+                    postedFrames.remove(callback)
+                }
+            }
+        )
+        val devices = List(DEVICE_COUNT) {
+            mock(CachedBluetoothDevice::class.java).also {
+                whenever(it.device).thenReturn(mock(BluetoothDevice::class.java))
+            }
+        }
+        fragment.lifecycleScope = this
+
+        repeat(DISCOVERY_EVENT_COUNT) { fragment.onDeviceAdded(devices[it % DEVICE_COUNT]) }
+        delay(100)
+
+        assertThat(postedFrames).hasSize(1)
+        verify(bluetoothAdapter, never()).state
+
+        postedFrames.removeAt(0).doFrame(0L)
+        delay(100)
+
+        assertThat(fragment.updateScheduler.flushCount).isEqualTo(1)
+        assertThat(fragment.updateScheduler.deviceUpdateCount).isEqualTo(DEVICE_COUNT)
+        verify(bluetoothAdapter, times(DEVICE_COUNT)).state
+    }
+
     /**
      * Fragment to test since `DeviceListPreferenceFragment` is abstract
      */
@@ -259,5 +299,7 @@ class DeviceListPreferenceFragmentTest {
 
     private companion object {
         const val FOOTAGE_MAC_STRING = "Bluetooth mac: xxxx"
+        const val DEVICE_COUNT = 40
+        const val DISCOVERY_EVENT_COUNT = 500
     }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_CONTROLLER;
+import static com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag.FLAG_NEED_PREF_CONTROLLER;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.text.TextUtils;
+
+import com.android.settings.R;
+import com.android.settings.deviceinfo.BuildNumberPreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.reflect.Field;
+import java.util.Set;
+import java.util.TreeSet;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceControllerFactoryTest {
+
+    private static final String KEY = "key";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void create_knownController_returnsInstanceWithKey() {
+        final BasePreferenceController controller = PreferenceControllerFactory.create(mContext,
+                BuildNumberPreferenceController.class.getName(), KEY);
+
+        assertThat(controller).isInstanceOf(BuildNumberPreferenceController.class);
+        assertThat(controller.getPreferenceKey()).isEqualTo(KEY);
+    }
+
+    @Test
+    public void create_unknownController_returnsNull() {
+        assertThat(PreferenceControllerFactory.create(mContext, "com.example.Unknown", KEY))
+                .isNull();
+        assertThat(PreferenceControllerFactory.create(mContext, "com.example.Unknown")).isNull();
+    }
+
+    @Test
+    public void createInstance_knownController_matchesReflectiveResult() {
+        final BasePreferenceController controller = BasePreferenceController.createInstance(
+                mContext, BuildNumberPreferenceController.class.getName(), KEY);
+
+        assertThat(controller).isInstanceOf(BuildNumberPreferenceController.class);
+        assertThat(controller.getPreferenceKey()).isEqualTo(KEY);
+    }
+
+    @Test
+    public void allXmlControllers_coveredOrListedAsUnsupported() throws Exception {
+        final Set<String> missing = new TreeSet<>();
+        for (Field field : R.xml.class.getFields()) {
+            final int xmlResId = field.getInt(null);
+            for (Bundle metadata : PreferenceXmlParserUtils.extractMetadata(mContext, xmlResId,
+                    FLAG_NEED_PREF_CONTROLLER)) {
+                final String controller = metadata.getString(METADATA_CONTROLLER);
+                if (!TextUtils.isEmpty(controller)
+                        && !PreferenceControllerFactory.covers(controller)
+                        && !PreferenceControllerFactory.UNSUPPORTED.contains(controller)) {
+                    missing.add(controller);
+                }
+            }
+        }
+
+        assertWithMessage("Controllers missing from the generated PreferenceControllerFactory")
+                .that(missing).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class PageRenderTracerTest {
+
+    private static final String PAGE = "TestFragment";
+    private static final long MILLIS = 1_000_000L;
+
+    private PageRenderTracer mTracer;
+
+    @Before
+    public void setUp() {
+        mTracer = new PageRenderTracer();
+    }
+
+    @Test
+    public void record_aggregatesPerPhase() throws Exception {
+        mTracer.record(PAGE, PageRenderTracer.PHASE_UPDATE_STATE, null, 3 * MILLIS);
+        mTracer.record(PAGE, PageRenderTracer.PHASE_UPDATE_STATE, null, 500 * MILLIS);
+
+        final JSONObject phase = mTracer.dumpJson().getJSONObject(PAGE)
+                .getJSONObject("phases").getJSONObject(PageRenderTracer.PHASE_UPDATE_STATE);
+        assertThat(phase.getLong("count")).isEqualTo(2);
+        assertThat(phase.getDouble("total_ms")).isEqualTo(503d);
+        assertThat(phase.getDouble("max_ms")).isEqualTo(500d);
+        final JSONArray buckets = phase.getJSONArray("buckets");
+        assertThat(buckets.length()).isEqualTo(PageRenderTracer.BUCKET_BOUNDS_MS.length + 1);
+        // 3ms falls in [2, 4), 500ms in the overflow bucket.
+        assertThat(buckets.getLong(2)).isEqualTo(1);
+        assertThat(buckets.getLong(buckets.length() - 1)).isEqualTo(1);
+    }
+
+    @Test
+    public void record_withController_reportsSlowestFirst() throws Exception {
+        mTracer.record(PAGE, PageRenderTracer.PHASE_IS_AVAILABLE, "FastController", MILLIS);
+        mTracer.record(PAGE, PageRenderTracer.PHASE_IS_AVAILABLE, "SlowController", 10 * MILLIS);
+        mTracer.record(PAGE, PageRenderTracer.PHASE_UPDATE_STATE, "SlowController", 5 * MILLIS);
+
+        final JSONArray slowest = mTracer.dumpJson().getJSONObject(PAGE)
+                .getJSONArray("slowest_controllers");
+        assertThat(slowest.getJSONObject(0).getString("name")).isEqualTo("SlowController");
+        assertThat(slowest.getJSONObject(0).getDouble("total_ms")).isEqualTo(15d);
+        assertThat(slowest.getJSONObject(1).getString("name")).isEqualTo("FastController");
+    }
+
+    @Test
+    public void beginEnd_recordsSpan() throws Exception {
+        final long span = mTracer.begin(PAGE, PageRenderTracer.PHASE_REFRESH_TILES);
+        mTracer.end(PAGE, PageRenderTracer.PHASE_REFRESH_TILES, span);
+
+        assertThat(mTracer.dumpJson().getJSONObject(PAGE).getJSONObject("phases")
+                .getJSONObject(PageRenderTracer.PHASE_REFRESH_TILES).getLong("count"))
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void reset_clearsAllPages() throws Exception {
+        mTracer.record(PAGE, PageRenderTracer.PHASE_UPDATE_STATE, null, MILLIS);
+
+        mTracer.reset();
+
+        assertThat(mTracer.dumpJson().length()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settings.core.instrumentation.PageRenderTracer.PHASE_CREATE_CONTROLLERS_FROM_CODE;
+import static com.android.settings.core.instrumentation.PageRenderTracer.PHASE_CREATE_CONTROLLERS_FROM_XML;
+import static com.android.settings.core.instrumentation.PageRenderTracer.PHASE_IS_AVAILABLE;
+import static com.android.settings.core.instrumentation.PageRenderTracer.PHASE_UPDATE_STATE;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+
+import androidx.fragment.app.Fragment;
+
+import com.android.settings.R;
+import com.android.settings.SettingsActivity;
+import com.android.settings.core.instrumentation.PageRenderTracer;
+import com.android.settings.search.DatabaseIndexingUtils;
+import com.android.settingslib.search.Indexable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Host-side render benchmark for {@link DashboardFragment}s. Each page is shown in a
+ * {@link SettingsActivity} and, with warmup and repeated iterations, the runner times:
+ * <ul>
+ *     <li>the launch of the page, from activity creation to resume</li>
+ *     <li>controller creation in {@link DashboardFragment#onAttach}, as recorded by
+ *     {@link PageRenderTracer}</li>
+ *     <li>the availability checks and state updates of the controllers during the launch, as
+ *     recorded by {@link PageRenderTracer}</li>
+ *     <li>search index extraction through the page's {@code SEARCH_INDEX_DATA_PROVIDER}</li>
+ * </ul>
+ * Results are reported as median milliseconds per phase.
+ */
+public class DashboardFragmentBenchmarkRunner {
+
+    public static final String METRIC_LAUNCH = "launch_ms";
+    public static final String METRIC_CREATE_CONTROLLERS = "create_controllers_ms";
+    public static final String METRIC_UPDATE_STATES = "update_states_ms";
+    public static final String METRIC_SEARCH_INDEX = "search_index_ms";
+
+    private final Context mContext;
+    private final int mWarmupIterations;
+    private final int mIterations;
+
+    public DashboardFragmentBenchmarkRunner(Context context, int warmupIterations,
+            int iterations) {
+        mContext = context;
+        mWarmupIterations = warmupIterations;
+        mIterations = iterations;
+    }
+
+    /**
+     * Benchmarks each of {@code fragmentClassNames}. Pages that cannot be shown on the host
+     * are reported with an {@code error} entry instead of timings.
+     */
+    public JSONObject run(List<String> fragmentClassNames) throws JSONException {
+        final JSONObject results = new JSONObject();
+        for (String className : fragmentClassNames) {
+            results.put(className, runOne(className));
+        }
+        return results;
+    }
+
+    private JSONObject runOne(String className) throws JSONException {
+        final JSONObject result = new JSONObject();
+        final Map<String, long[]> samples = new TreeMap<>();
+        try {
+            for (int i = 0; i < mWarmupIterations; i++) {
+                measureOnce(className, null, 0);
+            }
+            for (int i = 0; i < mIterations; i++) {
+                measureOnce(className, samples, i);
+            }
+        } catch (Throwable e) {
+            // Many pages depend on services that are not available on the host.
+            result.put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+            return result;
+        }
+        for (Map.Entry<String, long[]> entry : samples.entrySet()) {
+            result.put(entry.getKey(), median(entry.getValue()) / 1_000_000d);
+        }
+        return result;
+    }
+
+    private void measureOnce(String className, Map<String, long[]> samples, int iteration)
+            throws Exception {
+        final PageRenderTracer tracer = PageRenderTracer.getInstance();
+        tracer.reset();
+        final Intent intent = new Intent()
+                .putExtra(SettingsActivity.EXTRA_SHOW_FRAGMENT, className);
+        final ActivityController<SettingsActivity> activityController =
+                ActivityController.of(new SettingsActivity(), intent);
+        try {
+            long start = SystemClock.elapsedRealtimeNanos();
+            activityController.create().start().resume();
+            record(samples, METRIC_LAUNCH, iteration, SystemClock.elapsedRealtimeNanos() - start);
+
+            final Fragment fragment = activityController.get().getSupportFragmentManager()
+                    .findFragmentById(R.id.main_content);
+            if (!(fragment instanceof DashboardFragment)) {
+                throw new IllegalStateException("Page not shown: " + className);
+            }
+            final JSONObject phases = tracer.dumpJson()
+                    .getJSONObject(fragment.getClass().getSimpleName())
+                    .getJSONObject("phases");
+            record(samples, METRIC_CREATE_CONTROLLERS, iteration,
+                    phaseNanos(phases, PHASE_CREATE_CONTROLLERS_FROM_CODE)
+                            + phaseNanos(phases, PHASE_CREATE_CONTROLLERS_FROM_XML));
+            record(samples, METRIC_UPDATE_STATES, iteration,
+                    phaseNanos(phases, PHASE_IS_AVAILABLE)
+                            + phaseNanos(phases, PHASE_UPDATE_STATE));
+
+            final Indexable.SearchIndexProvider provider =
+                    DatabaseIndexingUtils.getSearchIndexProvider(fragment.getClass());
+            if (provider != null) {
+                start = SystemClock.elapsedRealtimeNanos();
+                provider.getXmlResourcesToIndex(mContext, true /* enabled */);
+                provider.getRawDataToIndex(mContext, true /* enabled */);
+                provider.getDynamicRawDataToIndex(mContext, true /* enabled */);
+                provider.getNonIndexableKeys(mContext);
+                record(samples, METRIC_SEARCH_INDEX, iteration,
+                        SystemClock.elapsedRealtimeNanos() - start);
+            }
+        } finally {
+            activityController.pause().stop().destroy();
+        }
+    }
+
+    /** Returns the total time recorded for the phase, or 0 if it was not recorded. */
+    private static long phaseNanos(JSONObject phases, String phase) throws JSONException {
+        final JSONObject histogram = phases.optJSONObject(phase);
+        return histogram == null ? 0L : Math.round(histogram.getDouble("total_ms") * 1_000_000d);
+    }
+
+    private void record(Map<String, long[]> samples, String metric, int iteration, long nanos) {
+        if (samples == null) {
+            return;
+        }
+        samples.computeIfAbsent(metric, k -> new long[mIterations])[iteration] = nanos;
+    }
+
+    private static long median(long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Returns a description of every metric in {@code current} that is slower than the same
+     * metric in {@code baseline} by more than {@code thresholdRatio} and {@code minDeltaMs}, and
+     * of every page of {@code baseline} which ran fine there but fails in {@code current}.
+     */
+    public static List<String> findRegressions(JSONObject baseline, JSONObject current,
+            double thresholdRatio, double minDeltaMs) throws JSONException {
+        final List<String> regressions = new ArrayList<>();
+        for (String page : toList(current.keys())) {
+            final JSONObject before = baseline.optJSONObject(page);
+            final JSONObject after = current.getJSONObject(page);
+            if (before == null || before.has("error")) {
+                continue;
+            }
+            if (after.has("error")) {
+                regressions.add(String.format("%s failed: %s", page, after.getString("error")));
+                continue;
+            }
+            for (String metric : toList(after.keys())) {
+                if (!before.has(metric)) {
+                    continue;
+                }
+                final double was = before.getDouble(metric);
+                final double is = after.getDouble(metric);
+                if (is - was > minDeltaMs && is > was * (1 + thresholdRatio)) {
+                    regressions.add(String.format("%s %s: %.2fms -> %.2fms",
+                            page, metric, was, is));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static List<String> toList(Iterator<String> keys) {
+        final List<String> list = new ArrayList<>();
+        keys.forEachRemaining(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.android.settings.testutils.FakeFeatureFactory;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Render benchmark over every page in {@link DashboardFragmentRegistry}. Skipped unless the JVM is
+ * started with {@code -Dsettings.benchmark=true}. Other properties:
+ * <ul>
+ *     <li>{@code settings.benchmark.warmup} / {@code .iterations}: loop counts</li>
+ *     <li>{@code settings.benchmark.dashboard_output}: file to write the JSON results to,
+ *     logged otherwise</li>
+ *     <li>{@code settings.benchmark.baseline}: earlier results to compare against; the run fails
+ *     if any page phase is slower by more than {@code .threshold} (ratio, default 0.2) and
+ *     {@code .min_delta_ms} (default 2)</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DashboardFragmentRenderBenchmarkTest {
+
+    private static final String TAG = "DashboardFragmentRenderBenchmark";
+
+    private static final String PROP_ENABLED = "settings.benchmark";
+    private static final String PROP_WARMUP = "settings.benchmark.warmup";
+    private static final String PROP_ITERATIONS = "settings.benchmark.iterations";
+    private static final String PROP_OUTPUT = "settings.benchmark.dashboard_output";
+    private static final String PROP_BASELINE = "settings.benchmark.baseline";
+    private static final String PROP_THRESHOLD = "settings.benchmark.threshold";
+    private static final String PROP_MIN_DELTA_MS = "settings.benchmark.min_delta_ms";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mContext.setTheme(androidx.appcompat.R.style.Theme_AppCompat);
+        FakeFeatureFactory.setupForTest();
+    }
+
+    @Test
+    public void benchmarkAllDashboardFragments() throws Exception {
+        assumeTrue(Boolean.getBoolean(PROP_ENABLED));
+
+        final DashboardFragmentBenchmarkRunner runner = new DashboardFragmentBenchmarkRunner(
+                mContext, Integer.getInteger(PROP_WARMUP, 2),
+                Integer.getInteger(PROP_ITERATIONS, 10));
+        final JSONObject results = runner.run(
+                new ArrayList<>(DashboardFragmentRegistry.PARENT_TO_CATEGORY_KEY_MAP.keySet()));
+
+        final String output = System.getProperty(PROP_OUTPUT);
+        if (!TextUtils.isEmpty(output)) {
+            try (FileWriter writer = new FileWriter(output, StandardCharsets.UTF_8)) {
+                writer.write(results.toString(2));
+            }
+        } else {
+            Log.i(TAG, results.toString(2));
+        }
+
+        final String baselinePath = System.getProperty(PROP_BASELINE);
+        if (!TextUtils.isEmpty(baselinePath)) {
+            final JSONObject baseline = new JSONObject(
+                    new String(Files.readAllBytes(new File(baselinePath).toPath()),
+                            StandardCharsets.UTF_8));
+            final List<String> regressions = DashboardFragmentBenchmarkRunner.findRegressions(
+                    baseline, results,
+                    Double.parseDouble(System.getProperty(PROP_THRESHOLD, "0.2")),
+                    Double.parseDouble(System.getProperty(PROP_MIN_DELTA_MS, "2")));
+            assertWithMessage("Render regressions:\n" + String.join("\n", regressions))
+                    .that(regressions).isEmpty();
+        }
+    }
+
+    @Test
+    public void findRegressions_beyondThreshold_reported() throws Exception {
+        final JSONObject baseline = new JSONObject(
+                "{\"Page\":{\"create_controllers_ms\":10,\"update_states_ms\":10}}");
+        final JSONObject current = new JSONObject(
+                "{\"Page\":{\"create_controllers_ms\":20,\"update_states_ms\":11}}");
+
+        final List<String> regressions = DashboardFragmentBenchmarkRunner.findRegressions(
+                baseline, current, 0.2 /* thresholdRatio */, 2 /* minDeltaMs */);
+
+        assertThat(regressions).hasSize(1);
+        assertThat(regressions.get(0)).startsWith("Page create_controllers_ms");
+    }
+
+    @Test
+    public void findRegressions_newPageOrPreviouslyErroredPage_ignored() throws Exception {
+        final JSONObject baseline = new JSONObject(
+                "{\"Old\":{\"error\":\"x\"},\"Broken\":{\"error\":\"x\"}}");
+        final JSONObject current = new JSONObject("{\"Old\":{\"create_controllers_ms\":50},"
+                + "\"Broken\":{\"error\":\"y\"},\"New\":{\"update_states_ms\":50}}");
+
+        assertThat(DashboardFragmentBenchmarkRunner.findRegressions(
+                baseline, current, 0.2 /* thresholdRatio */, 2 /* minDeltaMs */)).isEmpty();
+    }
+
+    @Test
+    public void findRegressions_pageStartsFailing_reported() throws Exception {
+        final JSONObject baseline = new JSONObject("{\"Page\":{\"create_controllers_ms\":10}}");
+        final JSONObject current = new JSONObject("{\"Page\":{\"error\":\"Crash: boom\"}}");
+
+        final List<String> regressions = DashboardFragmentBenchmarkRunner.findRegressions(
+                baseline, current, 0.2 /* thresholdRatio */, 2 /* minDeltaMs */);
+
+        assertThat(regressions).containsExactly("Page failed: Crash: boom");
+    }
+}
@@ -87,6 +87,8 @@ import java.util.Map;
 
 @RunWith(RobolectricTestRunner.class)
 public class DashboardFragmentTest {
+    private static final String DESCRIBED_KEY = "described_key";
+
     @Rule
     public final MockitoRule mMockitoRule = MockitoJUnit.rule();
 
@@ -98,6 +100,7 @@ public class DashboardFragmentTest {
     private Context mContext;
     private TestFragment mTestFragment;
     private List<AbstractPreferenceController> mControllers;
+    private final List<AbstractPreferenceController> mCreatedControllers = new ArrayList<>();
     private ActivityTile mActivityTile;
     private ProviderTile mProviderTile;
 
@@ -133,6 +136,96 @@ public class DashboardFragmentTest {
         mControllers = new ArrayList<>();
     }
 
+    @Test
+    public void onAttach_withDescriptor_shouldNotCreateController() {
+        final TestFragment fragment = createFragmentWithDescriptor();
+
+        assertThat(mCreatedControllers).isEmpty();
+        assertThat(fragment.use(TestPreferenceController.class)).isNotNull();
+        assertThat(mCreatedControllers).hasSize(1);
+    }
+
+    @Test
+    public void use_describedController_shouldCreateItOnce() {
+        final TestFragment fragment = createFragmentWithDescriptor();
+
+        final TestPreferenceController controller = fragment.use(TestPreferenceController.class);
+
+        assertThat(fragment.use(TestPreferenceController.class)).isSameInstanceAs(controller);
+        assertThat(mCreatedControllers).containsExactly(controller);
+    }
+
+    @Test
+    public void getPreferenceControllers_shouldIncludeDescribedControllers() {
+        final TestFragment fragment = createFragmentWithDescriptor();
+
+        final List<AbstractPreferenceController> controllers = new ArrayList<>();
+        fragment.getPreferenceControllers().forEach(controllers::addAll);
+
+        assertThat(mCreatedControllers).hasSize(1);
+        assertThat(controllers).contains(mCreatedControllers.get(0));
+    }
+
+    @Test
+    public void createLeadingPendingControllers_shouldCreateControllersOfTopPreferences() {
+        final TestFragment fragment = createFragmentWithDescriptor();
+        final PreferenceScreen screen = new PreferenceManager(mAppContext)
+                .createPreferenceScreen(mAppContext);
+        final Preference preference = new Preference(mAppContext);
+        preference.setKey(DESCRIBED_KEY);
+        screen.addPreference(preference);
+
+        fragment.createLeadingPendingControllers(screen);
+
+        assertThat(mCreatedControllers).hasSize(1);
+    }
+
+    @Test
+    public void loadPendingControllers_shouldRevealAllPreferencesInOnePass() {
+        final String[] keys = new String[11];
+        final PreferenceScreen screen = new PreferenceManager(mAppContext)
+                .createPreferenceScreen(mAppContext);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = DESCRIBED_KEY + i;
+            final Preference preference = new Preference(mAppContext);
+            preference.setKey(keys[i]);
+            screen.addPreference(preference);
+        }
+        final TestFragment fragment = createFragmentWithDescriptors(keys);
+        fragment.hidePendingPreferences(screen);
+
+        assertThat(fragment.loadPendingControllers(screen)).isTrue();
+        assertThat(mCreatedControllers).hasSize(10);
+        for (String key : keys) {
+            assertThat(screen.findPreference(key).isVisible()).isFalse();
+        }
+
+        assertThat(fragment.loadPendingControllers(screen)).isFalse();
+        assertThat(mCreatedControllers).hasSize(11);
+        for (String key : keys) {
+            assertThat(screen.findPreference(key).isVisible()).isTrue();
+        }
+    }
+
+    @Test
+    public void use_controllerConstructedWhileIdle_shouldReturnIt() {
+        final String[] keys = new String[11];
+        final PreferenceScreen screen = new PreferenceManager(mAppContext)
+                .createPreferenceScreen(mAppContext);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = DESCRIBED_KEY + i;
+            final Preference preference = new Preference(mAppContext);
+            preference.setKey(keys[i]);
+            screen.addPreference(preference);
+        }
+        final TestFragment fragment = createFragmentWithDescriptors(keys);
+        fragment.hidePendingPreferences(screen);
+        fragment.loadPendingControllers(screen);
+
+        assertThat(fragment.use(TestPreferenceController.class))
+                .isSameInstanceAs(mCreatedControllers.get(0));
+    }
+
     @Test
     public void testPreferenceControllerGetterSetter_shouldAddAndGetProperly() {
         final TestPreferenceController controller = new TestPreferenceController(mContext);
@@ -540,6 +633,7 @@ public class DashboardFragmentTest {
         private final PreferenceManager mPreferenceManager;
         private final Context mContext;
         private final List<AbstractPreferenceController> mControllers;
+        private final List<PreferenceControllerDescriptor<?>> mDescriptors = new ArrayList<>();
         private final ContentResolver mContentResolver;
 
         public final PreferenceScreen mScreen;
@@ -586,6 +680,12 @@ public class DashboardFragmentTest {
             return mControllers;
         }
 
+        @Override
+        protected List<PreferenceControllerDescriptor<?>> createPreferenceControllerDescriptors(
+                Context context) {
+            return mDescriptors;
+        }
+
         @Override
         public PreferenceManager getPreferenceManager() {
             return mPreferenceManager;
@@ -598,6 +698,25 @@ public class DashboardFragmentTest {
 
     }
 
+    private TestFragment createFragmentWithDescriptor() {
+        return createFragmentWithDescriptors(DESCRIBED_KEY);
+    }
+
+    private TestFragment createFragmentWithDescriptors(String... keys) {
+        final TestFragment fragment = new TestFragment(mAppContext);
+        for (String key : keys) {
+            fragment.mDescriptors.add(PreferenceControllerDescriptor.of(key,
+                    TestPreferenceController.class, context -> {
+                        final TestPreferenceController controller =
+                                new TestPreferenceController(context);
+                        mCreatedControllers.add(controller);
+                        return controller;
+                    }));
+        }
+        fragment.onAttach(mAppContext);
+        return fragment;
+    }
+
     private static class TestDynamicDataObserver extends DynamicDataObserver {
 
         @Override
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settings.dashboard.TileDynamicDataLoader.EXTRA_URIS;
+import static com.android.settings.dashboard.TileDynamicDataLoader.METHOD_GET_DYNAMIC_DATA_BATCH;
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_SUMMARY;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.testutils.shadow.ShadowTileUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowTileUtils.class)
+public class TileDynamicDataLoaderTest {
+
+    private static final String AUTHORITY = "com.android.settings.test.tiles";
+    private static final Uri URI_1 = Uri.parse("content://" + AUTHORITY + "/getSummary/key1");
+    private static final Uri URI_2 = Uri.parse("content://" + AUTHORITY + "/getSummary/key2");
+    private static final String OTHER_AUTHORITY = "com.android.settings.test.othertiles";
+    private static final Uri OTHER_URI_1 =
+            Uri.parse("content://" + OTHER_AUTHORITY + "/getSummary/key1");
+    private static final Uri OTHER_URI_2 =
+            Uri.parse("content://" + OTHER_AUTHORITY + "/getSummary/key2");
+
+    private FakeTileProvider mProvider;
+    private FakeTileProvider mOtherProvider;
+    private TileDynamicDataLoader mLoader;
+    private List<String> mResults;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mProvider = Robolectric.setupContentProvider(FakeTileProvider.class, AUTHORITY);
+        mOtherProvider = Robolectric.setupContentProvider(FakeTileProvider.class,
+                OTHER_AUTHORITY);
+        mLoader = new TileDynamicDataLoader(context);
+        mResults = new ArrayList<>();
+    }
+
+    @Test
+    public void flushRequests_sameAuthority_shouldCallProviderOnce() {
+        mProvider.mSupportsBatch = true;
+
+        mLoader.deferRequests();
+        mLoader.loadText(URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.loadText(URI_2, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        assertThat(mResults).isEmpty();
+        mLoader.flushRequests();
+
+        assertThat(mProvider.mBatchCallCount).isEqualTo(1);
+        assertThat(mResults).containsExactly("summary " + URI_1, "summary " + URI_2).inOrder();
+    }
+
+    @Test
+    public void flushRequests_batchNotSupported_shouldFallBackAndNotRetry() {
+        mProvider.mSupportsBatch = false;
+
+        for (int i = 0; i < 2; i++) {
+            mLoader.deferRequests();
+            mLoader.loadText(URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+            mLoader.loadText(URI_2, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+            mLoader.flushRequests();
+        }
+
+        assertThat(mProvider.mBatchCallCount).isEqualTo(1);
+        assertThat(mResults).containsExactly(ShadowTileUtils.MOCK_TEXT,
+                ShadowTileUtils.MOCK_TEXT, ShadowTileUtils.MOCK_TEXT, ShadowTileUtils.MOCK_TEXT);
+    }
+
+    @Test
+    public void flushRequests_twoAuthorities_shouldBatchEachProviderSeparately() {
+        mProvider.mSupportsBatch = true;
+        mOtherProvider.mSupportsBatch = false;
+
+        mLoader.deferRequests();
+        mLoader.loadText(URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.loadText(OTHER_URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.loadText(URI_2, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.loadText(OTHER_URI_2, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.flushRequests();
+
+        assertThat(mProvider.mBatchCallCount).isEqualTo(1);
+        assertThat(mOtherProvider.mBatchCallCount).isEqualTo(1);
+        assertThat(mResults).containsExactly("summary " + URI_1, "summary " + URI_2,
+                ShadowTileUtils.MOCK_TEXT, ShadowTileUtils.MOCK_TEXT);
+    }
+
+    @Test
+    public void flushRequests_uriMissingFromReply_shouldQueryUriAgain() {
+        mProvider.mSupportsBatch = true;
+        mLoader.deferRequests();
+        mLoader.loadText(URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.loadText(URI_2, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.flushRequests();
+        mResults.clear();
+
+        mProvider.mOmittedUri = URI_2.toString();
+        mLoader.deferRequests();
+        mLoader.loadText(URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.loadText(URI_2, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.flushRequests();
+
+        assertThat(mResults).containsExactly("summary " + URI_1, ShadowTileUtils.MOCK_TEXT)
+                .inOrder();
+        assertThat((String) mLoader.getCachedValue(URI_2)).isEqualTo(ShadowTileUtils.MOCK_TEXT);
+    }
+
+    @Test
+    public void loadText_notDeferred_shouldLoadWithoutBatch() {
+        mProvider.mSupportsBatch = true;
+
+        mLoader.loadText(URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+
+        assertThat(mProvider.mBatchCallCount).isEqualTo(0);
+        assertThat(mResults).containsExactly(ShadowTileUtils.MOCK_TEXT);
+    }
+
+    @Test
+    public void getCachedValue_afterLoad_shouldReturnLastValue() {
+        mProvider.mSupportsBatch = true;
+        assertThat((String) mLoader.getCachedValue(URI_1)).isNull();
+
+        mLoader.deferRequests();
+        mLoader.loadText(URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.loadText(URI_2, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.flushRequests();
+
+        assertThat((String) mLoader.getCachedValue(URI_1)).isEqualTo("summary " + URI_1);
+    }
+
+    @Test
+    public void flushRequests_nestedDefer_shouldWaitForOutermostFlush() {
+        mProvider.mSupportsBatch = true;
+
+        mLoader.deferRequests();
+        mLoader.deferRequests();
+        mLoader.loadText(URI_1, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.loadText(URI_2, META_DATA_PREFERENCE_SUMMARY, mResults::add);
+        mLoader.flushRequests();
+        assertThat(mResults).isEmpty();
+        mLoader.flushRequests();
+
+        assertThat(mResults).hasSize(2);
+    }
+
+    public static final class FakeTileProvider extends ContentProvider {
+
+        private boolean mSupportsBatch;
+        private int mBatchCallCount;
+        private String mOmittedUri;
+
+        @Override
+        public boolean onCreate() {
+            return true;
+        }
+
+        @Override
+        public Bundle call(String method, String arg, Bundle extras) {
+            if (!TextUtils.equals(method, METHOD_GET_DYNAMIC_DATA_BATCH)) {
+                return null;
+            }
+            mBatchCallCount++;
+            if (!mSupportsBatch) {
+                return null;
+            }
+            final Bundle reply = new Bundle();
+            for (String uri : extras.getStringArrayList(EXTRA_URIS)) {
+                if (TextUtils.equals(uri, mOmittedUri)) {
+                    continue;
+                }
+                final Bundle entry = new Bundle();
+                entry.putString(META_DATA_PREFERENCE_SUMMARY, "summary " + uri);
+                reply.putBundle(uri, entry);
+            }
+            return reply;
+        }
+
+        @Override
+        public Cursor query(@NonNull Uri uri, @Nullable String[] projection,
+                @Nullable String selection, @Nullable String[] selectionArgs,
+                @Nullable String sortOrder) {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public String getType(@NonNull Uri uri) {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+            return null;
+        }
+
+        @Override
+        public int delete(@NonNull Uri uri, @Nullable String selection,
+                @Nullable String[] selectionArgs) {
+            return 0;
+        }
+
+        @Override
+        public int update(@NonNull Uri uri, @Nullable ContentValues values,
+                @Nullable String selection, @Nullable String[] selectionArgs) {
+            return 0;
+        }
+    }
+}
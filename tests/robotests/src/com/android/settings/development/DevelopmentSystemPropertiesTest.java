@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.os.SystemProperties;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class DevelopmentSystemPropertiesTest {
+
+    private static final String KEY = "debug.settings.development_test";
+
+    private boolean mCaching;
+
+    @After
+    public void tearDown() {
+        if (mCaching) {
+            DevelopmentSystemProperties.stopCaching();
+        }
+    }
+
+    @Test
+    public void get_notCaching_shouldReadCurrentValue() {
+        SystemProperties.set(KEY, "1");
+        assertThat(DevelopmentSystemProperties.get(KEY)).isEqualTo("1");
+
+        SystemProperties.set(KEY, "2");
+
+        assertThat(DevelopmentSystemProperties.get(KEY)).isEqualTo("2");
+        assertThat(DevelopmentSystemProperties.getCachedValueCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_caching_shouldReadPropertyOnce() {
+        SystemProperties.set(KEY, "1");
+        startCaching();
+        assertThat(DevelopmentSystemProperties.get(KEY)).isEqualTo("1");
+
+        SystemProperties.set(KEY, "2");
+
+        assertThat(DevelopmentSystemProperties.get(KEY)).isEqualTo("1");
+    }
+
+    @Test
+    public void stopCaching_shouldReadCurrentValueAgain() {
+        SystemProperties.set(KEY, "1");
+        startCaching();
+        DevelopmentSystemProperties.get(KEY);
+        SystemProperties.set(KEY, "2");
+
+        stopCaching();
+
+        assertThat(DevelopmentSystemProperties.get(KEY)).isEqualTo("2");
+        assertThat(DevelopmentSystemProperties.getCachedValueCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void set_caching_shouldDropSharedValue() {
+        SystemProperties.set(KEY, "1");
+        startCaching();
+        DevelopmentSystemProperties.get(KEY);
+
+        DevelopmentSystemProperties.set(KEY, "2");
+
+        assertThat(DevelopmentSystemProperties.get(KEY)).isEqualTo("2");
+    }
+
+    @Test
+    public void getBoolean_shouldParseLikeSystemProperties() {
+        SystemProperties.set(KEY, "yes");
+        assertThat(DevelopmentSystemProperties.getBoolean(KEY, false)).isTrue();
+
+        SystemProperties.set(KEY, "off");
+        assertThat(DevelopmentSystemProperties.getBoolean(KEY, true)).isFalse();
+
+        SystemProperties.set(KEY, "unknown");
+        assertThat(DevelopmentSystemProperties.getBoolean(KEY, true)).isTrue();
+    }
+
+    @Test
+    public void getInt_invalidValue_shouldReturnDefault() {
+        SystemProperties.set(KEY, "abc");
+
+        assertThat(DevelopmentSystemProperties.getInt(KEY, 7)).isEqualTo(7);
+    }
+
+    private void startCaching() {
+        DevelopmentSystemProperties.startCaching();
+        mCaching = true;
+    }
+
+    private void stopCaching() {
+        DevelopmentSystemProperties.stopCaching();
+        mCaching = false;
+    }
+}
@@ -27,6 +27,8 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.compat.Compatibility.ChangeConfig;
@@ -59,6 +61,7 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -118,6 +121,7 @@ public class PlatformCompatDashboardTest {
         doReturn(mPreferenceScreen).when(mDashboard).getPreferenceScreen();
         doReturn(mPreferenceManager).when(mDashboard).getPreferenceManager();
         doReturn(mPackageManager).when(mContext).getPackageManager();
+        PlatformCompatDashboard.clearChangesCache();
     }
 
     @Test
@@ -228,4 +232,73 @@ public class PlatformCompatDashboardTest {
             assertThat(childPreference instanceof SwitchPreferenceCompat).isTrue();
         }
     }
+
+    @Test
+    public void getChanges_sameBuild_shouldListChangesOnce() throws RemoteException {
+        mDashboard.getChanges();
+
+        final CompatibilityChangeInfo[] changes = spy(new PlatformCompatDashboard()).getChanges();
+
+        assertThat(changes).isSameInstanceAs(mChanges);
+        verify(mPlatformCompat, times(1)).listUIChanges();
+    }
+
+    @Test
+    public void createPreferenceForChange_severalChanges_shouldGetOverrideValidatorOnce()
+            throws RemoteException {
+        final CompatibilityChangeConfig config = new CompatibilityChangeConfig(
+                new ChangeConfig(new HashSet<Long>(), new HashSet<Long>()));
+
+        mDashboard.createPreferenceForChange(mContext, mChanges[0], config);
+        mDashboard.createPreferenceForChange(mContext, mChanges[1], config);
+
+        verify(mPlatformCompat, times(1)).getOverrideValidator();
+    }
+
+    @Test
+    public void updatePreferences_overrideChanged_shouldUpdateExistingSwitch() {
+        final CompatibilityChangeConfig config = new CompatibilityChangeConfig(
+                new ChangeConfig(new HashSet<Long>(Arrays.asList(mChanges[0].getId())),
+                        new HashSet<Long>(Arrays.asList(mChanges[1].getId()))));
+        final SwitchPreferenceCompat enabledPreference = (SwitchPreferenceCompat)
+                mDashboard.createPreferenceForChange(mContext, mChanges[0], config);
+        final SwitchPreferenceCompat disabledPreference = (SwitchPreferenceCompat)
+                mDashboard.createPreferenceForChange(mContext, mChanges[1], config);
+
+        mDashboard.updatePreferences(mApplicationInfo, new CompatibilityChangeConfig(
+                new ChangeConfig(new HashSet<Long>(Arrays.asList(mChanges[0].getId(),
+                        mChanges[1].getId())), new HashSet<Long>())));
+
+        assertThat(enabledPreference.isChecked()).isTrue();
+        assertThat(disabledPreference.isChecked()).isTrue();
+    }
+
+    @Test
+    public void updatePreferences_overrideNoLongerAllowed_shouldDisableExistingSwitch()
+            throws RemoteException {
+        final CompatibilityChangeConfig config = new CompatibilityChangeConfig(
+                new ChangeConfig(new HashSet<Long>(), new HashSet<Long>()));
+        final SwitchPreferenceCompat preference = (SwitchPreferenceCompat)
+                mDashboard.createPreferenceForChange(mContext, mChanges[0], config);
+        when(mOverrideValidator.getOverrideAllowedState(anyLong(), anyString()))
+                .thenReturn(new OverrideAllowedState(DISABLED_NOT_DEBUGGABLE, -1, -1));
+
+        mDashboard.updatePreferences(mApplicationInfo, config);
+
+        assertThat(preference.isEnabled()).isFalse();
+    }
+
+    @Test
+    public void updatePreferences_targetSdkChanged_shouldUpdateAppPreference() {
+        mApplicationInfo.targetSdkVersion = 1;
+        final Preference appPreference = mDashboard.createAppPreference(mApplicationInfo);
+        ReflectionHelpers.setField(mDashboard, "mAppPreference", appPreference);
+        mApplicationInfo.targetSdkVersion = 2;
+
+        mDashboard.updatePreferences(mApplicationInfo, new CompatibilityChangeConfig(
+                new ChangeConfig(new HashSet<Long>(), new HashSet<Long>())));
+
+        assertThat(appPreference.getSummary()).isEqualTo(mContext.getResources().getString(
+                R.string.platform_compat_selected_app_summary, APP_NAME, 2));
+    }
 }
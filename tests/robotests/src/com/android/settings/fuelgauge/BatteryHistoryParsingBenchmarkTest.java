@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge;
+
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import android.content.Context;
+import android.os.BatteryStats.HistoryItem;
+import android.os.BatteryUsageStats;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.android.internal.os.BatteryStatsHistoryIterator;
+import com.android.settings.testutils.BatteryTestUtils;
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.widget.UsageView;
+import com.android.settingslib.fuelgauge.Estimate;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link BatteryInfo#parseBatteryHistory} and {@link BatteryInfo#bindHistory} over a
+ * synthetic 24 hour battery history. {@code parse_ms} is reported next to
+ * {@code two_pass_parse_ms}, the earlier parser which read the history twice instead of buffering
+ * it. The synthetic history is not encoded, so the difference only shows the cost of the buffer;
+ * on a device each pass also pays for decoding the history. Skipped unless the JVM is started with
+ * {@code -Dsettings.benchmark=true}. Other properties:
+ * <ul>
+ *     <li>{@code settings.benchmark.warmup} / {@code .iterations}: loop counts</li>
+ *     <li>{@code settings.benchmark.history_interval_ms}: time between two history records
+ *     (default 2000)</li>
+ *     <li>{@code settings.benchmark.battery_history_output}: file to write the JSON results to,
+ *     logged otherwise</li>
+ * </ul>
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BatteryHistoryParsingBenchmarkTest {
+
+    private static final String TAG = "BatteryHistoryParsingBenchmark";
+
+    private static final String PROP_ENABLED = "settings.benchmark";
+    private static final String PROP_WARMUP = "settings.benchmark.warmup";
+    private static final String PROP_ITERATIONS = "settings.benchmark.iterations";
+    private static final String PROP_INTERVAL_MS = "settings.benchmark.history_interval_ms";
+    private static final String PROP_OUTPUT = "settings.benchmark.battery_history_output";
+
+    private static final long HISTORY_DURATION_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long START_WALL_TIME_MS = 1_700_000_000_000L;
+    private static final int SCREEN_ON_FLAG = HistoryItem.STATE_SCREEN_ON_FLAG;
+
+    @Mock
+    private BatteryUsageStats mBatteryUsageStats;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        FakeFeatureFactory.setupForTest();
+    }
+
+    @Test
+    public void benchmarkParseBatteryHistory() throws Exception {
+        assumeTrue(Boolean.getBoolean(PROP_ENABLED));
+
+        final long intervalMs = Long.getLong(PROP_INTERVAL_MS, 2000L);
+        final int recordCount = (int) (HISTORY_DURATION_MS / intervalMs);
+        doAnswer(invocation -> new SyntheticHistory(recordCount, intervalMs).mIterator)
+                .when(mBatteryUsageStats).iterateBatteryStatsHistory();
+        final BatteryInfo info = BatteryInfo.getBatteryInfo(mContext,
+                BatteryTestUtils.getDischargingIntent(), mBatteryUsageStats,
+                new Estimate(TimeUnit.HOURS.toMillis(10), false /* isBasedOnUsage */,
+                        1000 /* averageDischargeTime */),
+                SystemClock.elapsedRealtime() * 1000, false /* shortString */);
+        final UsageView view = mock(UsageView.class);
+        when(view.getContext()).thenReturn(mContext);
+        final BatteryFlagParser screenParser =
+                new BatteryFlagParser(0 /* accent */, false /* state2 */, SCREEN_ON_FLAG);
+
+        final int warmup = Integer.getInteger(PROP_WARMUP, 2);
+        final int iterations = Integer.getInteger(PROP_ITERATIONS, 10);
+        for (int i = 0; i < warmup; i++) {
+            info.bindHistory(view, screenParser);
+        }
+        long parseNanos = 0;
+        long twoPassParseNanos = 0;
+        long bindNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            info.parseBatteryHistory(screenParser);
+            parseNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            parseBatteryHistoryTwoPass(mBatteryUsageStats, screenParser);
+            twoPassParseNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            info.bindHistory(view, screenParser);
+            bindNanos += System.nanoTime() - start;
+        }
+
+        final JSONObject results = new JSONObject();
+        results.put("history_records", recordCount);
+        results.put("parse_ms", parseNanos / 1e6 / iterations);
+        results.put("two_pass_parse_ms", twoPassParseNanos / 1e6 / iterations);
+        results.put("bind_ms", bindNanos / 1e6 / iterations);
+
+        final String output = System.getProperty(PROP_OUTPUT);
+        if (!TextUtils.isEmpty(output)) {
+            try (FileWriter writer = new FileWriter(output, StandardCharsets.UTF_8)) {
+                writer.write(results.toString(2));
+            }
+        } else {
+            Log.i(TAG, results.toString(2));
+        }
+    }
+
+    /**
+     * The {@link BatteryInfo#parseBatteryHistory} this benchmark is compared against, which reads
+     * the history once for the time bounds and again to feed the parsers.
+     */
+    private static void parseBatteryHistoryTwoPass(BatteryUsageStats batteryUsageStats,
+            BatteryDataParser... parsers) {
+        long startWalltime = 0;
+        long endWalltime = 0;
+        long historyStart = 0;
+        long historyEnd = 0;
+        long curWalltime = startWalltime;
+        long lastWallTime = 0;
+        long lastRealtime = 0;
+        int lastInteresting = 0;
+        int pos = 0;
+        boolean first = true;
+        final BatteryStatsHistoryIterator iterator1 =
+                batteryUsageStats.iterateBatteryStatsHistory();
+        HistoryItem rec;
+        while ((rec = iterator1.next()) != null) {
+            pos++;
+            if (first) {
+                first = false;
+                historyStart = rec.time;
+            }
+            if (rec.cmd == HistoryItem.CMD_CURRENT_TIME || rec.cmd == HistoryItem.CMD_RESET) {
+                if (rec.currentTime > (lastWallTime + (180 * 24 * 60 * 60 * 1000L))
+                        || rec.time < (historyStart + (5 * 60 * 1000L))) {
+                    startWalltime = 0;
+                }
+                lastWallTime = rec.currentTime;
+                lastRealtime = rec.time;
+                if (startWalltime == 0) {
+                    startWalltime = lastWallTime - (lastRealtime - historyStart);
+                }
+            }
+            if (rec.isDeltaData()) {
+                lastInteresting = pos;
+                historyEnd = rec.time;
+            }
+        }
+
+        endWalltime = lastWallTime + historyEnd - lastRealtime;
+
+        int i = 0;
+        final int N = lastInteresting;
+
+        for (int j = 0; j < parsers.length; j++) {
+            parsers[j].onParsingStarted(startWalltime, endWalltime);
+        }
+
+        if (endWalltime > startWalltime) {
+            final BatteryStatsHistoryIterator iterator2 =
+                    batteryUsageStats.iterateBatteryStatsHistory();
+            while ((rec = iterator2.next()) != null && i < N) {
+                if (rec.isDeltaData()) {
+                    curWalltime += rec.time - lastRealtime;
+                    lastRealtime = rec.time;
+                    long x = (curWalltime - startWalltime);
+                    if (x < 0) {
+                        x = 0;
+                    }
+                    for (int j = 0; j < parsers.length; j++) {
+                        parsers[j].onDataPoint(x, rec);
+                    }
+                } else {
+                    long lastWalltime = curWalltime;
+                    if (rec.cmd == HistoryItem.CMD_CURRENT_TIME
+                            || rec.cmd == HistoryItem.CMD_RESET) {
+                        if (rec.currentTime >= startWalltime) {
+                            curWalltime = rec.currentTime;
+                        } else {
+                            curWalltime = startWalltime + (rec.time - historyStart);
+                        }
+                        lastRealtime = rec.time;
+                    }
+
+                    if (rec.cmd != HistoryItem.CMD_OVERFLOW
+                            && (rec.cmd != HistoryItem.CMD_CURRENT_TIME
+                                    || Math.abs(lastWalltime - curWalltime) > (60 * 60 * 1000))) {
+                        for (int j = 0; j < parsers.length; j++) {
+                            parsers[j].onDataGap();
+                        }
+                    }
+                }
+                i++;
+            }
+        }
+
+        for (int j = 0; j < parsers.length; j++) {
+            parsers[j].onParsingDone();
+        }
+    }
+
+    /**
+     * A discharge from 100% to 0% over 24 hours with the screen toggled every 10 minutes, which
+     * reuses the same record like the real iterator does. The iterator is a stub-only mock, so
+     * Mockito does not record the calls made while the history is timed.
+     */
+    private static class SyntheticHistory {
+        final BatteryStatsHistoryIterator mIterator =
+                mock(BatteryStatsHistoryIterator.class, withSettings().stubOnly());
+        final HistoryItem mRecord = new HistoryItem();
+        int mIndex;
+
+        SyntheticHistory(int recordCount, long intervalMs) {
+            when(mIterator.next()).thenAnswer(invocation -> {
+                final int i = mIndex++;
+                if (i > recordCount) {
+                    return null;
+                }
+                if (i == 0) {
+                    mRecord.cmd = HistoryItem.CMD_CURRENT_TIME;
+                    mRecord.time = 0;
+                    mRecord.currentTime = START_WALL_TIME_MS;
+                    return mRecord;
+                }
+                final long time = i * intervalMs;
+                mRecord.cmd = HistoryItem.CMD_UPDATE;
+                mRecord.time = time;
+                mRecord.currentTime = START_WALL_TIME_MS + time;
+                mRecord.batteryLevel = (byte) (100 - 100L * i / recordCount);
+                mRecord.states = (time / TimeUnit.MINUTES.toMillis(10)) % 2 == 0
+                        ? SCREEN_ON_FLAG : 0;
+                return mRecord;
+            });
+        }
+    }
+}
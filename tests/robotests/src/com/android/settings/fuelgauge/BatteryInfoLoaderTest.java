@@ -30,6 +30,7 @@ import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
 import android.os.BatteryUsageStatsQuery;
 
+import com.android.settings.fuelgauge.batteryusage.BatteryUsageStatsFetcher;
 import com.android.settings.testutils.BatteryTestUtils;
 import com.android.settings.testutils.FakeFeatureFactory;
 
@@ -54,6 +55,7 @@ public class BatteryInfoLoaderTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        BatteryUsageStatsFetcher.getInstance().reset();
         mContext = spy(RuntimeEnvironment.application);
         FakeFeatureFactory.setupForTest().getPowerUsageFeatureProvider();
 
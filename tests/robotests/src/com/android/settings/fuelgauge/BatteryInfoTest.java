@@ -991,4 +991,44 @@ public class BatteryInfoTest {
         info = getBatteryInfo(true /* charging */, true /* enhanced */, true /* estimate */);
         assertHistoryAndLinearProjection(info);
     }
+
+    @Test
+    public void bindHistory_iteratesHistoryOnce() {
+        final BatteryInfo info =
+                getBatteryInfo(false /* charging */, false /* enhanced */, false /* estimate */);
+        mockBatteryStatsHistory();
+        final UsageView view = mock(UsageView.class);
+        when(view.getContext()).thenReturn(mContext);
+
+        info.bindHistory(view);
+
+        verify(mBatteryUsageStats, times(1)).iterateBatteryStatsHistory();
+    }
+
+    @Test
+    public void bindHistory_denseHistory_pathBoundedByChartWidth() {
+        final BatteryInfo info =
+                getBatteryInfo(false /* charging */, false /* enhanced */, false /* estimate */);
+        final int pointCount = 10000;
+        final BatteryStatsHistoryIterator iterator = mock(BatteryStatsHistoryIterator.class);
+        final int[] index = {0};
+        when(iterator.next()).thenAnswer(invocation -> {
+            final int i = index[0]++;
+            return i < pointCount ? makeHistoryIterm(1000L * (i + 1), 100 - i * 100 / pointCount)
+                    : null;
+        });
+        doReturn(iterator).when(mBatteryUsageStats).iterateBatteryStatsHistory();
+        final UsageView view = mock(UsageView.class);
+        when(view.getContext()).thenReturn(mContext);
+        when(view.getWidth()).thenReturn(100);
+
+        info.bindHistory(view);
+
+        final ArgumentCaptor<SparseIntArray> path = ArgumentCaptor.forClass(SparseIntArray.class);
+        verify(view).addPath(path.capture());
+        assertThat(path.getValue().size()).isAtMost(102);
+        assertThat(path.getValue().keyAt(0)).isEqualTo(1000);
+        assertThat(path.getValue().keyAt(path.getValue().size() - 1))
+                .isEqualTo(1000 * pointCount);
+    }
 }
@@ -21,6 +21,9 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import android.content.Context;
 import android.content.Intent;
@@ -33,6 +36,8 @@ import com.android.settings.fuelgauge.batterytip.tips.AppLabelPredicate;
 import com.android.settings.fuelgauge.batterytip.tips.AppRestrictionPredicate;
 import com.android.settings.fuelgauge.batterytip.tips.BatteryTip;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,7 +49,12 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.util.ReflectionHelpers;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @RunWith(RobolectricTestRunner.class)
 public class BatteryTipLoaderTest {
@@ -65,10 +75,16 @@ public class BatteryTipLoaderTest {
     @Mock private BatteryInfo mBatteryInfo;
     private Context mContext;
     private BatteryTipLoader mBatteryTipLoader;
+    private ExecutorService mOriginalExecutor;
+    private long mOriginalDetectorTimeoutMs;
 
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        BatteryTipLoader.clearCache();
+        mOriginalExecutor = BatteryTipLoader.sExecutor;
+        mOriginalDetectorTimeoutMs = BatteryTipLoader.sDetectorTimeoutMs;
+        BatteryTipLoader.sExecutor = MoreExecutors.newDirectExecutorService();
 
         mContext = spy(RuntimeEnvironment.application);
         doReturn(mContext).when(mContext).getApplicationContext();
@@ -81,6 +97,9 @@ public class BatteryTipLoaderTest {
 
     @After
     public void tearDown() {
+        BatteryTipLoader.sExecutor = mOriginalExecutor;
+        BatteryTipLoader.sDetectorTimeoutMs = mOriginalDetectorTimeoutMs;
+        BatteryTipLoader.clearCache();
         ReflectionHelpers.setStaticField(AppLabelPredicate.class, "sInstance", null);
         ReflectionHelpers.setStaticField(AppRestrictionPredicate.class, "sInstance", null);
     }
@@ -94,4 +113,93 @@ public class BatteryTipLoaderTest {
             assertThat(batteryTips.get(i).getType()).isEqualTo(TIP_ORDER[i]);
         }
     }
+
+    @Test
+    public void testLoadBackground_sameBatteryState_reusesTips() {
+        final List<BatteryTip> batteryTips = mBatteryTipLoader.loadInBackground();
+
+        final List<BatteryTip> reloadedTips = mBatteryTipLoader.loadInBackground();
+
+        verify(mBatteryUsageStats, times(1)).getStatsStartTimestamp();
+        assertThat(reloadedTips.size()).isEqualTo(batteryTips.size());
+        for (int i = 0, size = reloadedTips.size(); i < size; i++) {
+            assertThat(reloadedTips.get(i).getType()).isEqualTo(TIP_ORDER[i]);
+            assertThat(reloadedTips.get(i)).isNotSameInstanceAs(batteryTips.get(i));
+        }
+    }
+
+    @Test
+    public void testLoadBackground_batteryLevelChanged_detectsAgain() {
+        mBatteryTipLoader.loadInBackground();
+        mBatteryInfo.batteryLevel = 50;
+
+        mBatteryTipLoader.loadInBackground();
+
+        verify(mBatteryUsageStats, times(2)).getStatsStartTimestamp();
+    }
+
+    @Test
+    public void testLoadBackground_invalidateCache_detectsAgain() {
+        mBatteryTipLoader.loadInBackground();
+        BatteryTipLoader.invalidateCache();
+
+        mBatteryTipLoader.loadInBackground();
+
+        verify(mBatteryUsageStats, times(2)).getStatsStartTimestamp();
+    }
+
+    @Test
+    public void testLoadBackground_powerSaveModeChanged_detectsAgain() {
+        mBatteryTipLoader.loadInBackground();
+        when(mPowerManager.isPowerSaveMode()).thenReturn(true);
+
+        mBatteryTipLoader.loadInBackground();
+
+        verify(mBatteryUsageStats, times(2)).getStatsStartTimestamp();
+    }
+
+    @Test
+    public void testLoadBackground_detectorMissesDeadline_skipsItsTipAndDoesNotCache()
+            throws Exception {
+        mBatteryTipLoader.loadInBackground();
+        mBatteryInfo.batteryLevel = 50;
+        final CountDownLatch blockDetector = new CountDownLatch(1);
+        when(mBatteryUsageStats.getStatsStartTimestamp())
+                .thenAnswer(
+                        invocation -> {
+                            blockDetector.await();
+                            return 0L;
+                        });
+        BatteryTipLoader.sExecutor = Executors.newCachedThreadPool();
+        BatteryTipLoader.sDetectorTimeoutMs = 100L;
+
+        try {
+            final List<BatteryTip> batteryTips = mBatteryTipLoader.loadInBackground();
+
+            // The tip of the previous run is not reused for the new battery state.
+            for (BatteryTip batteryTip : batteryTips) {
+                assertThat(batteryTip.getType())
+                        .isNotEqualTo(BatteryTip.TipType.HIGH_DEVICE_USAGE);
+            }
+            assertThat(batteryTips.size()).isEqualTo(TIP_ORDER.length - 1);
+        } finally {
+            blockDetector.countDown();
+            BatteryTipLoader.sExecutor.shutdown();
+        }
+        BatteryTipLoader.sExecutor = MoreExecutors.newDirectExecutorService();
+
+        mBatteryTipLoader.loadInBackground();
+
+        verify(mBatteryUsageStats, times(3)).getStatsStartTimestamp();
+    }
+
+    @Test
+    public void dump_containsDetectorTimings() {
+        mBatteryTipLoader.loadInBackground();
+        final StringWriter stringWriter = new StringWriter();
+
+        BatteryTipLoader.dump(new PrintWriter(stringWriter));
+
+        assertThat(stringWriter.toString()).contains("HighUsageDetector: runs=1");
+    }
 }
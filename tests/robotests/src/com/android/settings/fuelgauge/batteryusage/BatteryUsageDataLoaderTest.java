@@ -64,6 +64,7 @@ public final class BatteryUsageDataLoaderTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        BatteryUsageStatsFetcher.getInstance().reset();
         mContext = spy(RuntimeEnvironment.application);
         doReturn(mContext).when(mContext).getApplicationContext();
         doReturn(mBatteryStatsManager)
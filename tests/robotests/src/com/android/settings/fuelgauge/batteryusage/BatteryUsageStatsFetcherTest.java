@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertThrows;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryUsageStatsFetcherTest {
+    private Context mContext;
+    private BatteryUsageStatsFetcher mFetcher;
+    @Mock private BatteryStatsManager mBatteryStatsManager;
+    @Mock private BatteryUsageStats mBatteryUsageStats;
+    @Mock private BatteryUsageStats mOtherBatteryUsageStats;
+    @Captor private ArgumentCaptor<BatteryUsageStatsQuery> mQueryCaptor;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mBatteryStatsManager)
+                .when(mContext)
+                .getSystemService(Context.BATTERY_STATS_SERVICE);
+        when(mBatteryStatsManager.getBatteryUsageStats(mQueryCaptor.capture()))
+                .thenReturn(mBatteryUsageStats, mOtherBatteryUsageStats);
+        mFetcher = BatteryUsageStatsFetcher.getInstance();
+        mFetcher.reset();
+    }
+
+    @After
+    public void tearDown() {
+        mFetcher.reset();
+    }
+
+    @Test
+    public void acquire_withinTtl_reusesResult() {
+        final BatteryUsageStats first = mFetcher.acquire(mContext, /* flags= */ 0);
+        final BatteryUsageStats second = mFetcher.acquire(mContext, /* flags= */ 0);
+
+        assertThat(second).isSameInstanceAs(first);
+        verify(mBatteryStatsManager, times(1)).getBatteryUsageStats(any());
+    }
+
+    @Test
+    public void acquire_historyInUse_fetchesAgain() {
+        final BatteryUsageStats first =
+                mFetcher.acquire(mContext, BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY);
+        final BatteryUsageStats second =
+                mFetcher.acquire(mContext, BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY);
+
+        assertThat(second).isNotSameInstanceAs(first);
+        verify(mBatteryStatsManager, times(2)).getBatteryUsageStats(any());
+    }
+
+    @Test
+    public void acquire_historyReleased_reusesResult() {
+        final BatteryUsageStats first =
+                mFetcher.acquire(mContext, BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY);
+        mFetcher.release(first);
+
+        final BatteryUsageStats second =
+                mFetcher.acquire(mContext, BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY);
+
+        assertThat(second).isSameInstanceAs(first);
+        verify(mBatteryStatsManager, times(1)).getBatteryUsageStats(any());
+    }
+
+    @Test
+    public void acquire_withoutHistoryWhileHistoryInUse_reusesResult() {
+        final BatteryUsageStats first =
+                mFetcher.acquire(mContext, BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY);
+
+        final BatteryUsageStats second = mFetcher.acquire(mContext, /* flags= */ 0);
+
+        assertThat(second).isSameInstanceAs(first);
+        verify(mBatteryStatsManager, times(1)).getBatteryUsageStats(any());
+    }
+
+    @Test
+    public void acquire_subsetOfCachedQuery_reusesResult() {
+        mFetcher.acquire(
+                mContext,
+                BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY
+                        | BatteryUsageStatsFetcher.FLAG_INCLUDE_PROCESS_STATE_DATA);
+
+        mFetcher.acquire(mContext, BatteryUsageStatsFetcher.FLAG_INCLUDE_PROCESS_STATE_DATA);
+
+        verify(mBatteryStatsManager, times(1)).getBatteryUsageStats(any());
+    }
+
+    @Test
+    public void acquire_supersetOfCachedQuery_fetchesAgain() {
+        mFetcher.acquire(mContext, BatteryUsageStatsFetcher.FLAG_INCLUDE_PROCESS_STATE_DATA);
+
+        final BatteryUsageStats stats =
+                mFetcher.acquire(mContext, BatteryUsageStatsFetcher.FLAG_INCLUDE_HISTORY);
+
+        assertThat(stats).isSameInstanceAs(mOtherBatteryUsageStats);
+        assertThat(
+                        mQueryCaptor.getValue().getFlags()
+                                & BatteryUsageStatsQuery.FLAG_BATTERY_USAGE_STATS_INCLUDE_HISTORY)
+                .isNotEqualTo(0);
+    }
+
+    @Test
+    public void acquire_afterTtl_fetchesAgain() {
+        mFetcher.release(mFetcher.acquire(mContext, /* flags= */ 0));
+        ShadowLooper.idleMainLooper(BatteryUsageStatsFetcher.TTL_MS, TimeUnit.MILLISECONDS);
+
+        final BatteryUsageStats stats = mFetcher.acquire(mContext, /* flags= */ 0);
+
+        assertThat(stats).isSameInstanceAs(mOtherBatteryUsageStats);
+    }
+
+    @Test
+    public void acquire_afterFetchThrewError_fetchesAgain() {
+        when(mBatteryStatsManager.getBatteryUsageStats(any()))
+                .thenThrow(new OutOfMemoryError())
+                .thenReturn(mBatteryUsageStats);
+
+        assertThrows(
+                OutOfMemoryError.class, () -> mFetcher.acquire(mContext, /* flags= */ 0));
+        final BatteryUsageStats stats = mFetcher.acquire(mContext, /* flags= */ 0);
+
+        assertThat(stats).isSameInstanceAs(mBatteryUsageStats);
+    }
+
+    @Test
+    public void release_expiredAndUnused_closesResult() throws Exception {
+        final BatteryUsageStats stats = mFetcher.acquire(mContext, /* flags= */ 0);
+        mFetcher.acquire(mContext, /* flags= */ 0);
+
+        mFetcher.release(stats);
+        ShadowLooper.idleMainLooper(BatteryUsageStatsFetcher.TTL_MS, TimeUnit.MILLISECONDS);
+        verify(mBatteryUsageStats, never()).close();
+
+        mFetcher.release(stats);
+        ShadowLooper.idleMainLooper();
+        verify(mBatteryUsageStats).close();
+    }
+
+    @Test
+    public void release_notFromFetcher_closesResult() throws Exception {
+        mFetcher.release(mOtherBatteryUsageStats);
+
+        verify(mOtherBatteryUsageStats).close();
+    }
+}
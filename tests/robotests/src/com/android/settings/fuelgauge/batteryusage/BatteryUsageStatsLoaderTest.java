@@ -19,6 +19,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -35,6 +36,9 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
 
 @RunWith(RobolectricTestRunner.class)
 public class BatteryUsageStatsLoaderTest {
@@ -46,6 +50,7 @@ public class BatteryUsageStatsLoaderTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        BatteryUsageStatsFetcher.getInstance().reset();
         mContext = spy(RuntimeEnvironment.application);
         doReturn(mBatteryStatsManager)
                 .when(mContext)
@@ -81,4 +86,17 @@ public class BatteryUsageStatsLoaderTest {
         assertThat(queryFlags & BatteryUsageStatsQuery.FLAG_BATTERY_USAGE_STATS_INCLUDE_HISTORY)
                 .isNotEqualTo(0);
     }
+
+    @Test
+    public void onDiscardResult_releasesResultToFetcher() throws Exception {
+        BatteryUsageStatsLoader loader =
+                new BatteryUsageStatsLoader(mContext, /* includeBatteryHistory */ false);
+        when(mBatteryStatsManager.getBatteryUsageStats(mUsageStatsQueryCaptor.capture()))
+                .thenReturn(mBatteryUsageStats);
+
+        loader.onDiscardResult(loader.loadInBackground());
+        ShadowLooper.idleMainLooper(BatteryUsageStatsFetcher.TTL_MS, TimeUnit.MILLISECONDS);
+
+        verify(mBatteryUsageStats).close();
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.telephony.SubscriptionManager;
+
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settingslib.mobile.dataservice.MobileNetworkDatabase;
+import com.android.settingslib.mobile.dataservice.SubscriptionInfoDao;
+import com.android.settingslib.mobile.dataservice.SubscriptionInfoEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class MobileNetworkRepositoryTest {
+
+    private static final int SUB_ID = 1;
+
+    @Mock
+    private SubscriptionManager mSubscriptionManager;
+    @Mock
+    private MobileNetworkDatabase mMobileNetworkDatabase;
+    @Mock
+    private SubscriptionInfoDao mSubscriptionInfoDao;
+
+    private final List<Runnable> mQueuedTasks = new ArrayList<>();
+    private MobileNetworkRepository mRepository;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        FakeFeatureFactory.setupForTest();
+        final Context context = spy(RuntimeEnvironment.application);
+        when(context.getSystemService(SubscriptionManager.class)).thenReturn(mSubscriptionManager);
+        when(mSubscriptionManager.getAvailableSubscriptionInfoList())
+                .thenReturn(Collections.emptyList());
+        when(mMobileNetworkDatabase.mSubscriptionInfoDao()).thenReturn(mSubscriptionInfoDao);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mMobileNetworkDatabase).runInTransaction(any(Runnable.class));
+
+        mRepository = new MobileNetworkRepository(context, mMobileNetworkDatabase,
+                mQueuedTasks::add);
+    }
+
+    @After
+    public void tearDown() {
+        getCachedSubInfoEntities().clear();
+    }
+
+    @Test
+    public void onSubscriptionsChanged_burst_shouldQueryAndWriteOnce() {
+        for (int i = 0; i < 5; i++) {
+            mRepository.onSubscriptionsChanged();
+        }
+        assertThat(mQueuedTasks).hasSize(1);
+
+        runQueuedTasks();
+
+        verify(mSubscriptionManager).getAvailableSubscriptionInfoList();
+        verify(mMobileNetworkDatabase).runInTransaction(any(Runnable.class));
+    }
+
+    @Test
+    public void onSubscriptionsChanged_afterRefreshStarted_shouldRefreshAgain() {
+        mRepository.onSubscriptionsChanged();
+        runQueuedTasks();
+
+        mRepository.onSubscriptionsChanged();
+        runQueuedTasks();
+
+        verify(mSubscriptionManager, times(2)).getAvailableSubscriptionInfoList();
+        verify(mMobileNetworkDatabase, times(2)).runInTransaction(any(Runnable.class));
+    }
+
+    @Test
+    public void getSubInfoById_cachedEntity_shouldNotQueryDatabase() {
+        final SubscriptionInfoEntity entity = mock(SubscriptionInfoEntity.class);
+        getCachedSubInfoEntities().put(SUB_ID, entity);
+
+        assertThat(mRepository.getSubInfoById(String.valueOf(SUB_ID))).isSameInstanceAs(entity);
+        verify(mSubscriptionInfoDao, never()).querySubInfoById(any());
+    }
+
+    @Test
+    public void getSubInfoById_notCached_shouldQueryDatabase() {
+        final SubscriptionInfoEntity entity = mock(SubscriptionInfoEntity.class);
+        when(mSubscriptionInfoDao.querySubInfoById(String.valueOf(SUB_ID))).thenReturn(entity);
+
+        assertThat(mRepository.getSubInfoById(String.valueOf(SUB_ID))).isSameInstanceAs(entity);
+    }
+
+    private void runQueuedTasks() {
+        final List<Runnable> tasks = new ArrayList<>(mQueuedTasks);
+        mQueuedTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static Map<Integer, SubscriptionInfoEntity> getCachedSubInfoEntities() {
+        return ReflectionHelpers.getStaticField(MobileNetworkRepository.class,
+                "sCacheSubscriptionInfoEntityMap");
+    }
+}
@@ -96,6 +96,7 @@ import org.robolectric.annotation.Config;
 import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
 import org.robolectric.shadows.ShadowToast;
+import org.robolectric.util.ReflectionHelpers;
 
 import java.util.List;
 
@@ -653,6 +654,123 @@ public class NetworkProviderSettingsTest {
         verify(mNetworkProviderSettings.mWifiEntryPreferenceCategory, never()).setVisible(true);
     }
 
+    @Test
+    public void scheduleWifiEntryPreferencesUpdate_burstOfCallbacks_postsOnce() {
+        final View fragmentView = mock(View.class);
+        when(mNetworkProviderSettings.getView()).thenReturn(fragmentView);
+
+        mNetworkProviderSettings.scheduleWifiEntryPreferencesUpdate();
+        mNetworkProviderSettings.scheduleWifiEntryPreferencesUpdate();
+        mNetworkProviderSettings.scheduleWifiEntryPreferencesUpdate();
+
+        verify(fragmentView, times(1)).postOnAnimation(
+                mNetworkProviderSettings.mCoalescedUpdateWifiEntryPreferencesRunnable);
+    }
+
+    @Test
+    public void scheduleWifiEntryPreferencesUpdate_afterUpdateRan_postsAgain() {
+        final View fragmentView = mock(View.class);
+        when(mNetworkProviderSettings.getView()).thenReturn(fragmentView);
+
+        mNetworkProviderSettings.scheduleWifiEntryPreferencesUpdate();
+        mNetworkProviderSettings.mCoalescedUpdateWifiEntryPreferencesRunnable.run();
+        mNetworkProviderSettings.scheduleWifiEntryPreferencesUpdate();
+
+        verify(fragmentView, times(2)).postOnAnimation(
+                mNetworkProviderSettings.mCoalescedUpdateWifiEntryPreferencesRunnable);
+    }
+
+    @Test
+    public void updateWifiEntryPreferences_sameEntries_shouldTouchNothing() {
+        setUpWifiEntryPreferenceCategory();
+        final WifiEntry entry1 = mockWifiEntry("key1", null /* helpUri */);
+        final WifiEntry entry2 = mockWifiEntry("key2", null /* helpUri */);
+        when(mMockWifiPickerTracker.getWifiEntries()).thenReturn(List.of(entry1, entry2));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+        final Preference pref1 =
+                mNetworkProviderSettings.mWifiEntryPreferenceCategory.findPreference("key1");
+
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+
+        assertThat(mNetworkProviderSettings.mLastWifiEntryPreferencesTouchedCount).isEqualTo(0);
+        assertThat(mNetworkProviderSettings.mWifiEntryPreferenceCategory.findPreference("key1"))
+                .isSameInstanceAs(pref1);
+    }
+
+    @Test
+    public void updateWifiEntryPreferences_newEntryForSameKey_shouldRebindPreference() {
+        setUpWifiEntryPreferenceCategory();
+        final WifiEntry entry1 = mockWifiEntry("key1", null /* helpUri */);
+        final WifiEntry entry2 = mockWifiEntry("key2", null /* helpUri */);
+        when(mMockWifiPickerTracker.getWifiEntries()).thenReturn(List.of(entry1, entry2));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+        final LongPressWifiEntryPreference pref1 =
+                mNetworkProviderSettings.mWifiEntryPreferenceCategory.findPreference("key1");
+
+        final WifiEntry newEntry1 = mockWifiEntry("key1", null /* helpUri */);
+        when(mMockWifiPickerTracker.getWifiEntries()).thenReturn(List.of(newEntry1, entry2));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+
+        assertThat(mNetworkProviderSettings.mLastWifiEntryPreferencesTouchedCount).isEqualTo(1);
+        assertThat(mNetworkProviderSettings.mWifiEntryPreferenceCategory.findPreference("key1"))
+                .isSameInstanceAs(pref1);
+        assertThat(pref1.getWifiEntry()).isSameInstanceAs(newEntry1);
+    }
+
+    @Test
+    public void updateWifiEntryPreferences_entryGone_shouldRemoveOnlyItsPreference() {
+        setUpWifiEntryPreferenceCategory();
+        final WifiEntry entry1 = mockWifiEntry("key1", null /* helpUri */);
+        final WifiEntry entry2 = mockWifiEntry("key2", null /* helpUri */);
+        when(mMockWifiPickerTracker.getWifiEntries()).thenReturn(List.of(entry1, entry2));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+
+        when(mMockWifiPickerTracker.getWifiEntries()).thenReturn(List.of(entry1));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+
+        // The stale preference is removed and the add network row moves up.
+        assertThat(mNetworkProviderSettings.mLastWifiEntryPreferencesTouchedCount).isEqualTo(2);
+        final PreferenceCategory category = mNetworkProviderSettings.mWifiEntryPreferenceCategory;
+        assertThat(category.<Preference>findPreference("key2")).isNull();
+        assertThat(category.<Preference>findPreference("key1")).isNotNull();
+    }
+
+    @Test
+    public void updateWifiEntryPreferences_reboundEntryWithoutHelpUri_shouldClearButtonListener() {
+        setUpWifiEntryPreferenceCategory();
+        when(mMockWifiPickerTracker.getWifiEntries())
+                .thenReturn(List.of(mockWifiEntry("key1", FAKE_URI_STRING)));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+        final LongPressWifiEntryPreference pref =
+                mNetworkProviderSettings.mWifiEntryPreferenceCategory.findPreference("key1");
+        assertThat((Object) ReflectionHelpers.getField(pref, "mOnButtonClickListener"))
+                .isNotNull();
+
+        when(mMockWifiPickerTracker.getWifiEntries())
+                .thenReturn(List.of(mockWifiEntry("key1", null /* helpUri */)));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+
+        assertThat((Object) ReflectionHelpers.getField(pref, "mOnButtonClickListener")).isNull();
+    }
+
+    @Test
+    public void updateWifiEntryPreferences_reboundEntryWithHelpUri_shouldSetButtonListener() {
+        setUpWifiEntryPreferenceCategory();
+        when(mMockWifiPickerTracker.getWifiEntries())
+                .thenReturn(List.of(mockWifiEntry("key1", null /* helpUri */)));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+        final LongPressWifiEntryPreference pref =
+                mNetworkProviderSettings.mWifiEntryPreferenceCategory.findPreference("key1");
+        assertThat((Object) ReflectionHelpers.getField(pref, "mOnButtonClickListener")).isNull();
+
+        when(mMockWifiPickerTracker.getWifiEntries())
+                .thenReturn(List.of(mockWifiEntry("key1", FAKE_URI_STRING)));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+
+        assertThat((Object) ReflectionHelpers.getField(pref, "mOnButtonClickListener"))
+                .isNotNull();
+    }
+
     @Test
     public void setWifiScanMessage_wifiOnScanOn_footerIsInvisible() {
         when(mWifiManager.isScanAlwaysAvailable()).thenReturn(true);
@@ -751,6 +869,8 @@ public class NetworkProviderSettingsTest {
         verify(fragmentView).removeCallbacks(mNetworkProviderSettings.mRemoveLoadingRunnable);
         verify(fragmentView).removeCallbacks(
                 mNetworkProviderSettings.mUpdateWifiEntryPreferencesRunnable);
+        verify(fragmentView).removeCallbacks(
+                mNetworkProviderSettings.mCoalescedUpdateWifiEntryPreferencesRunnable);
         verify(fragmentView).removeCallbacks(mNetworkProviderSettings.mHideProgressBarRunnable);
         verify(mAirplaneModeEnabler).stop();
     }
@@ -870,6 +990,25 @@ public class NetworkProviderSettingsTest {
         verify(mWifiEntry, never()).getKey();
     }
 
+    private void setUpWifiEntryPreferenceCategory() {
+        when(mNetworkProviderSettings.getActivity()).thenReturn(mock(FragmentActivity.class));
+        when(mNetworkProviderSettings.getView()).thenReturn(mock(View.class));
+        doNothing().when(mNetworkProviderSettings).setAdditionalSettingsSummaries();
+        when(mMockWifiPickerTracker.getWifiState()).thenReturn(WifiManager.WIFI_STATE_ENABLED);
+        final PreferenceScreen screen =
+                new PreferenceManager(mContext).createPreferenceScreen(mContext);
+        final PreferenceCategory category = new PreferenceCategory(mContext);
+        screen.addPreference(category);
+        mNetworkProviderSettings.mWifiEntryPreferenceCategory = category;
+    }
+
+    private static WifiEntry mockWifiEntry(String key, String helpUri) {
+        final WifiEntry wifiEntry = mock(WifiEntry.class);
+        when(wifiEntry.getKey()).thenReturn(key);
+        when(wifiEntry.getHelpUriString()).thenReturn(helpUri);
+        return wifiEntry;
+    }
+
     @Implements(PreferenceFragmentCompat.class)
     public static class ShadowPreferenceFragmentCompat {
 
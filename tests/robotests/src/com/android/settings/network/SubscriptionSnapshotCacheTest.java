@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.SubscriptionManager.OnSubscriptionsChangedListener;
+
+import com.android.settings.network.SubscriptionsChangeListener.SubscriptionsChangeListenerClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SubscriptionSnapshotCacheTest {
+
+    private final List<Integer> mBuiltVersions = new ArrayList<>();
+    private Context mContext;
+    private SubscriptionManager mSubscriptionManager;
+    private SubscriptionSnapshotCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = spy(RuntimeEnvironment.application);
+        mSubscriptionManager = mock(SubscriptionManager.class);
+        when(mContext.getSystemService(SubscriptionManager.class))
+                .thenReturn(mSubscriptionManager);
+        mCache = new SubscriptionSnapshotCache(mContext, version -> {
+            mBuiltVersions.add(version);
+            return mock(SubscriptionSnapshot.class);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
+    }
+
+    @Test
+    public void getSnapshot_notStarted_shouldReturnNull() {
+        assertThat(mCache.getSnapshot()).isNull();
+        assertThat(mBuiltVersions).isEmpty();
+    }
+
+    @Test
+    public void getSnapshot_started_shouldBuildOnce() {
+        mCache.start();
+
+        final SubscriptionSnapshot snapshot = mCache.getSnapshot();
+
+        assertThat(snapshot).isNotNull();
+        assertThat(mCache.getSnapshot()).isSameInstanceAs(snapshot);
+        assertThat(mBuiltVersions).hasSize(1);
+    }
+
+    @Test
+    public void getSnapshot_afterInvalidate_shouldBuildNewerVersion() {
+        mCache.start();
+        final SubscriptionSnapshot snapshot = mCache.getSnapshot();
+
+        mCache.invalidate();
+
+        assertThat(mCache.getSnapshot()).isNotSameInstanceAs(snapshot);
+        assertThat(mBuiltVersions).hasSize(2);
+        assertThat(mBuiltVersions.get(1)).isGreaterThan(mBuiltVersions.get(0));
+    }
+
+    @Test
+    public void getSnapshot_lastClientStopped_shouldReturnNull() {
+        mCache.start();
+        mCache.start();
+        mCache.getSnapshot();
+
+        mCache.stop();
+        assertThat(mCache.getSnapshot()).isNotNull();
+
+        mCache.stop();
+        assertThat(mCache.getSnapshot()).isNull();
+    }
+
+    @Test
+    public void subscriptionsChangeListener_shouldInvalidateBeforeNotifyingClient() {
+        SubscriptionSnapshotCache.setInstanceForTesting(mCache);
+        mCache.start();
+        final SubscriptionSnapshot staleSnapshot = mCache.getSnapshot();
+        final List<SubscriptionSnapshot> seenSnapshots = new ArrayList<>();
+        final SubscriptionsChangeListener listener = new SubscriptionsChangeListener(mContext,
+                new SubscriptionsChangeListenerClient() {
+                    @Override
+                    public void onAirplaneModeChanged(boolean airplaneModeEnabled) {}
+
+                    @Override
+                    public void onSubscriptionsChanged() {
+                        seenSnapshots.add(mCache.getSnapshot());
+                    }
+                });
+        listener.start();
+        final ArgumentCaptor<OnSubscriptionsChangedListener> captor =
+                ArgumentCaptor.forClass(OnSubscriptionsChangedListener.class);
+        verify(mSubscriptionManager, times(2))
+                .addOnSubscriptionsChangedListener(any(), captor.capture());
+
+        // Only the listener of the page is called, as if it ran before the one of the cache.
+        captor.getAllValues().get(1).onSubscriptionsChanged();
+
+        assertThat(seenSnapshots).hasSize(1);
+        assertThat(seenSnapshots.get(0)).isNotSameInstanceAs(staleSnapshot);
+        listener.stop();
+    }
+
+    @Test
+    public void getActiveSubscriptions_snapshotManager_shouldReturnSnapshot() {
+        SubscriptionSnapshotCache.setInstanceForTesting(mCache);
+        mCache.start();
+        final SubscriptionInfo subInfo = mock(SubscriptionInfo.class);
+        when(mCache.getSnapshot().getActiveSubscriptions()).thenReturn(Arrays.asList(subInfo));
+
+        assertThat(SubscriptionUtil.getActiveSubscriptions(mSubscriptionManager))
+                .containsExactly(subInfo);
+    }
+
+    @Test
+    public void getActiveSubscriptions_managerForAllProfiles_shouldNotReturnSnapshot() {
+        SubscriptionSnapshotCache.setInstanceForTesting(mCache);
+        mCache.start();
+        when(mCache.getSnapshot().getActiveSubscriptions())
+                .thenReturn(Arrays.asList(mock(SubscriptionInfo.class)));
+        final SubscriptionManager allProfilesManager = mock(SubscriptionManager.class);
+        final SubscriptionInfo otherProfileSubInfo = mock(SubscriptionInfo.class);
+        when(allProfilesManager.getActiveSubscriptionInfoList())
+                .thenReturn(Arrays.asList(otherProfileSubInfo));
+
+        assertThat(SubscriptionUtil.getActiveSubscriptions(allProfilesManager))
+                .containsExactly(otherProfileSubInfo);
+    }
+}
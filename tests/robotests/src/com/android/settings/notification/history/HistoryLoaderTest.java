@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification.history;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.NotificationHistory;
+import android.app.NotificationHistory.HistoricalNotification;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Process;
+
+import com.android.settings.notification.NotificationBackend;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class HistoryLoaderTest {
+
+    private static final int PACKAGE_COUNT = HistoryLoader.WINDOW_SIZE + 3;
+
+    @Mock
+    private NotificationBackend mBackend;
+    @Mock
+    private PackageManager mPackageManager;
+    @Mock
+    private HistoryLoader.OnHistoryLoaderListener mListener;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        HistoryLoader.clearCache();
+        when(mBackend.getNotificationHistory(any(), any()))
+                .thenAnswer(invocation -> createHistory(PACKAGE_COUNT));
+        when(mPackageManager.getApplicationInfoAsUser(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    final ApplicationInfo info = new ApplicationInfo();
+                    info.packageName = invocation.getArgument(0);
+                    return info;
+                });
+        when(mPackageManager.getApplicationLabel(any(ApplicationInfo.class)))
+                .thenAnswer(invocation ->
+                        ((ApplicationInfo) invocation.getArgument(0)).packageName + "_label");
+        when(mPackageManager.getUserBadgedIcon(any(), any()))
+                .thenReturn(new ColorDrawable(Color.RED));
+    }
+
+    @After
+    public void tearDown() {
+        HistoryLoader.clearCache();
+    }
+
+    @Test
+    public void load_shouldOnlyResolveFirstWindow() throws Exception {
+        final List<NotificationHistoryPackage> packages = load(newLoader());
+
+        assertThat(packages).hasSize(PACKAGE_COUNT);
+        for (int i = 0; i < PACKAGE_COUNT; i++) {
+            if (i < HistoryLoader.WINDOW_SIZE) {
+                assertThat(packages.get(i).label).isEqualTo(packages.get(i).pkgName + "_label");
+                assertThat(packages.get(i).icon).isNotNull();
+            } else {
+                assertThat(packages.get(i).label).isNull();
+                assertThat(packages.get(i).icon).isNull();
+            }
+        }
+        verify(mPackageManager, times(HistoryLoader.WINDOW_SIZE))
+                .getApplicationInfoAsUser(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void prefetch_lastVisibleInFirstWindow_shouldResolveNextWindow() throws Exception {
+        final HistoryLoader loader = newLoader();
+        final List<NotificationHistoryPackage> packages = load(loader);
+
+        loader.prefetch(HistoryLoader.WINDOW_SIZE - 1);
+
+        verify(mListener).onPackagesResolved(HistoryLoader.WINDOW_SIZE, PACKAGE_COUNT);
+        for (NotificationHistoryPackage nhp : packages) {
+            assertThat(nhp.label).isEqualTo(nhp.pkgName + "_label");
+        }
+        verify(mPackageManager, times(PACKAGE_COUNT))
+                .getApplicationInfoAsUser(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void prefetch_alreadyResolved_shouldNotResolveAgain() throws Exception {
+        final HistoryLoader loader = newLoader();
+        load(loader);
+
+        loader.prefetch(0);
+
+        verify(mListener, never()).onPackagesResolved(anyInt(), anyInt());
+        verify(mPackageManager, times(HistoryLoader.WINDOW_SIZE))
+                .getApplicationInfoAsUser(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void load_packagesResolvedByPreviousLoader_shouldUseCache() throws Exception {
+        load(newLoader());
+
+        final List<NotificationHistoryPackage> packages = load(newLoader());
+
+        assertThat(packages.get(0).label).isEqualTo(packages.get(0).pkgName + "_label");
+        assertThat(packages.get(0).icon).isNotNull();
+        verify(mPackageManager, times(HistoryLoader.WINDOW_SIZE))
+                .getApplicationInfoAsUser(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void load_packageChangedSincePreviousLoader_shouldResolveItAgain() throws Exception {
+        load(newLoader());
+
+        HistoryLoader.onPackageChanged("pkg0");
+        load(newLoader());
+
+        verify(mPackageManager, times(2))
+                .getApplicationInfoAsUser(eq("pkg0"), anyInt(), anyInt());
+        verify(mPackageManager, times(1))
+                .getApplicationInfoAsUser(eq("pkg1"), anyInt(), anyInt());
+    }
+
+    @Test
+    public void load_packageRemoved_shouldCacheDefaultIcon() throws Exception {
+        when(mPackageManager.getApplicationInfoAsUser(eq("pkg0"), anyInt(), anyInt()))
+                .thenThrow(new PackageManager.NameNotFoundException());
+        when(mPackageManager.getDefaultActivityIcon()).thenReturn(new ColorDrawable(Color.BLUE));
+        load(newLoader());
+
+        final NotificationHistoryPackage removed = load(newLoader()).stream()
+                .filter(nhp -> nhp.pkgName.equals("pkg0"))
+                .findFirst()
+                .get();
+
+        assertThat(removed.label).isNull();
+        assertThat(removed.icon).isNotNull();
+        verify(mPackageManager, times(1)).getDefaultActivityIcon();
+    }
+
+    @Test
+    public void cancel_beforeLoad_shouldNotDeliverHistory() {
+        final HistoryLoader loader = newLoader();
+
+        loader.cancel();
+        loader.load(mListener);
+
+        verify(mListener, never()).onHistoryLoaded(any());
+    }
+
+    @Test
+    public void cancel_afterLoad_shouldNotResolveOrDeliverPrefetch() throws Exception {
+        final HistoryLoader loader = newLoader();
+        load(loader);
+
+        loader.cancel();
+        loader.prefetch(PACKAGE_COUNT - 1);
+
+        verify(mListener, never()).onPackagesResolved(anyInt(), anyInt());
+        verify(mPackageManager, times(HistoryLoader.WINDOW_SIZE))
+                .getApplicationInfoAsUser(anyString(), anyInt(), anyInt());
+    }
+
+    private HistoryLoader newLoader() {
+        return new HistoryLoader(mContext, mBackend, mPackageManager);
+    }
+
+    private List<NotificationHistoryPackage> load(HistoryLoader loader) {
+        final ArgumentCaptor<List<NotificationHistoryPackage>> captor =
+                ArgumentCaptor.forClass(List.class);
+        loader.load(mListener);
+        verify(mListener, atLeastOnce()).onHistoryLoaded(captor.capture());
+        return captor.getValue();
+    }
+
+    /** Returns a history with one notification per package, the most recent first. */
+    private static NotificationHistory createHistory(int packageCount) {
+        final List<HistoricalNotification> notifications = new ArrayList<>();
+        for (int i = 0; i < packageCount; i++) {
+            notifications.add(new HistoricalNotification.Builder()
+                    .setPackage("pkg" + i)
+                    .setUid(Process.FIRST_APPLICATION_UID + i)
+                    .setUserId(0)
+                    .setChannelId("channel")
+                    .setPostedTimeMs(packageCount - i)
+                    .build());
+        }
+        final NotificationHistory history = mock(NotificationHistory.class);
+        final int[] index = {0};
+        when(history.hasNextNotification())
+                .thenAnswer(invocation -> index[0] < notifications.size());
+        when(history.getNextNotification())
+                .thenAnswer(invocation -> notifications.get(index[0]++));
+        return history;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settings.testutils.FakeToggleController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class SliceControllerCacheTest {
+
+    private static final String KEY = "key";
+
+    private Context mContext;
+    private SliceControllerCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCache = new SliceControllerCache();
+    }
+
+    @Test
+    public void get_sameSlice_shouldCreateNewControllerEachTime() {
+        final SliceData data = getSliceData(KEY);
+
+        final BasePreferenceController first = mCache.get(mContext, data);
+        final BasePreferenceController second = mCache.get(mContext, data);
+
+        assertThat(first).isInstanceOf(FakeToggleController.class);
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(second.getPreferenceKey()).isEqualTo(KEY);
+    }
+
+    @Test
+    public void get_sameControllerClass_shouldResolveItOnce() {
+        mCache.get(mContext, getSliceData(KEY));
+        mCache.get(mContext, getSliceData(KEY + 1));
+        mCache.get(mContext, getSliceData(KEY));
+
+        assertThat(mCache.getResolvedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_shouldCreateSameControllerAsSliceBuilderUtils() {
+        final SliceData data = getSliceData(KEY);
+        mCache.get(mContext, data);
+
+        final BasePreferenceController cached = mCache.get(mContext, data);
+        final BasePreferenceController expected =
+                SliceBuilderUtils.getPreferenceController(mContext, data);
+
+        assertThat(cached.getClass()).isEqualTo(expected.getClass());
+        assertThat(cached.getPreferenceKey()).isEqualTo(expected.getPreferenceKey());
+    }
+
+    private static SliceData getSliceData(String key) {
+        return new SliceData.Builder()
+                .setKey(key)
+                .setTitle("title")
+                .setFragmentName("fragment")
+                .setUri(Uri.parse("content://com.android.settings.slices/action/" + key))
+                .setPreferenceControllerClassName(FakeToggleController.class.getName())
+                .setSliceType(SliceData.SliceType.SWITCH)
+                .build();
+    }
+}
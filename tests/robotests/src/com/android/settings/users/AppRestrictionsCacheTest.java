@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.RestrictionEntry;
+import android.os.Bundle;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppRestrictionsCacheTest {
+
+    private static final int USER_ID = 10;
+    private static final int OTHER_USER_ID = 11;
+    private static final String PACKAGE_NAME = "com.example.app";
+    private static final String OTHER_PACKAGE_NAME = "com.example.other";
+
+    private AppRestrictionsCache mCache;
+    private ArrayList<RestrictionEntry> mRestrictions;
+
+    @Before
+    public void setUp() {
+        mCache = new AppRestrictionsCache();
+        mRestrictions = new ArrayList<>();
+        mRestrictions.add(new RestrictionEntry("key", true));
+    }
+
+    @Test
+    public void getRestrictions_cachedForUser_shouldReturnACopy() {
+        mCache.putRestrictions(USER_ID, PACKAGE_NAME, mRestrictions);
+
+        final ArrayList<RestrictionEntry> restrictions =
+                mCache.getRestrictions(USER_ID, PACKAGE_NAME, null /* currentValues */);
+        assertThat(restrictions).isEqualTo(mRestrictions);
+        assertThat(restrictions).isNotSameInstanceAs(mRestrictions);
+        assertThat(restrictions.get(0)).isNotSameInstanceAs(mRestrictions.get(0));
+        assertThat(mCache.getRestrictions(OTHER_USER_ID, PACKAGE_NAME, null /* currentValues */))
+                .isNull();
+    }
+
+    @Test
+    public void getRestrictions_editedByCaller_shouldNotChangeCache() {
+        mCache.putRestrictions(USER_ID, PACKAGE_NAME, mRestrictions);
+
+        mCache.getRestrictions(USER_ID, PACKAGE_NAME, null /* currentValues */)
+                .get(0).setSelectedState(false);
+
+        assertThat(mCache.getRestrictions(USER_ID, PACKAGE_NAME, null /* currentValues */)
+                .get(0).getSelectedState()).isTrue();
+    }
+
+    @Test
+    public void getRestrictions_withCurrentValues_shouldApplyThem() {
+        mRestrictions.add(new RestrictionEntry("choice", "a"));
+        mCache.putRestrictions(USER_ID, PACKAGE_NAME, mRestrictions);
+        final Bundle currentValues = new Bundle();
+        currentValues.putBoolean("key", false);
+        currentValues.putString("choice", "b");
+
+        final ArrayList<RestrictionEntry> restrictions =
+                mCache.getRestrictions(USER_ID, PACKAGE_NAME, currentValues);
+
+        assertThat(restrictions.get(0).getSelectedState()).isFalse();
+        assertThat(restrictions.get(1).getSelectedString()).isEqualTo("b");
+    }
+
+    @Test
+    public void onPackageChanged_shouldDropOnlyThatPackageAndAdvanceGeneration() {
+        final int generation = mCache.getGeneration();
+        mCache.putRestrictions(USER_ID, PACKAGE_NAME, mRestrictions);
+        mCache.putRestrictions(USER_ID, OTHER_PACKAGE_NAME, mRestrictions);
+
+        mCache.onPackageChanged(PACKAGE_NAME);
+
+        assertThat(mCache.getRestrictions(USER_ID, PACKAGE_NAME, null /* currentValues */))
+                .isNull();
+        assertThat(mCache.getRestrictions(USER_ID, OTHER_PACKAGE_NAME, null /* currentValues */))
+                .isNotNull();
+        assertThat(mCache.getGeneration()).isNotEqualTo(generation);
+    }
+
+    @Test
+    public void onUserRemoved_shouldDropRestrictionsOfUser() {
+        mCache.putRestrictions(USER_ID, PACKAGE_NAME, mRestrictions);
+        mCache.putRestrictions(OTHER_USER_ID, PACKAGE_NAME, mRestrictions);
+
+        mCache.onUserRemoved(USER_ID);
+
+        assertThat(mCache.getRestrictions(USER_ID, PACKAGE_NAME, null /* currentValues */))
+                .isNull();
+        assertThat(mCache.getRestrictions(OTHER_USER_ID, PACKAGE_NAME, null /* currentValues */))
+                .isNotNull();
+    }
+}
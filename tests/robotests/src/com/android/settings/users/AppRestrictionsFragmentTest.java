@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import static com.android.settings.users.AppRestrictionsFragment.MAX_CONCURRENT_RESTRICTION_REQUESTS;
+import static com.android.settings.users.AppRestrictionsFragment.RESTRICTION_REQUEST_TIMEOUT_MS;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.BroadcastReceiver;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.UserHandle;
+import android.os.UserManager;
+
+import androidx.fragment.app.FragmentActivity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppRestrictionsFragmentTest {
+
+    private static final int USER_ID = 10;
+    private static final String PACKAGE_PREFIX = "com.example.app";
+
+    @Mock
+    private FragmentActivity mActivity;
+    @Mock
+    private UserManager mUserManager;
+
+    private AppRestrictionsFragment mFragment;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mUserManager.getApplicationRestrictions(anyString(), any(UserHandle.class)))
+                .thenReturn(new Bundle());
+        mFragment = spy(new AppRestrictionsFragment());
+        doReturn(mActivity).when(mFragment).getActivity();
+        ReflectionHelpers.setField(mFragment, "mUser", UserHandle.of(USER_ID));
+        ReflectionHelpers.setField(mFragment, "mUserManager", mUserManager);
+        ReflectionHelpers.setField(mFragment, "mRestrictionsCache", new AppRestrictionsCache());
+    }
+
+    @Test
+    public void requestRestrictionsForApp_moreThanMaxApps_shouldQueueTheRest() {
+        requestRestrictions(MAX_CONCURRENT_RESTRICTION_REQUESTS + 2);
+
+        verifyRequestsSent(MAX_CONCURRENT_RESTRICTION_REQUESTS);
+    }
+
+    @Test
+    public void requestRestrictionsForApp_requestsTimedOut_shouldSendQueuedRequests() {
+        requestRestrictions(MAX_CONCURRENT_RESTRICTION_REQUESTS + 2);
+
+        ShadowLooper.idleMainLooper(RESTRICTION_REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        verifyRequestsSent(MAX_CONCURRENT_RESTRICTION_REQUESTS + 2);
+    }
+
+    private void requestRestrictions(int appCount) {
+        for (int i = 0; i < appCount; i++) {
+            mFragment.requestRestrictionsForApp(PACKAGE_PREFIX + i,
+                    mock(AppRestrictionsFragment.AppRestrictionsPreference.class),
+                    false /* invokeIfCustom */);
+        }
+    }
+
+    private void verifyRequestsSent(int count) {
+        verify(mActivity, times(count)).sendOrderedBroadcast(any(Intent.class), isNull(),
+                any(BroadcastReceiver.class), isNull(), anyInt(), isNull(), isNull());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.UserManager;
+
+import com.android.settings.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class UserIconCacheTest {
+
+    private static final int USER_ID = 10;
+
+    @Mock
+    private UserManager mUserManager;
+
+    private Context mContext;
+    private UserIconCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mUserManager).when(mContext).getSystemService(UserManager.class);
+        doReturn(Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888))
+                .when(mUserManager).getUserIcon(USER_ID);
+        mCache = new UserIconCache(mContext);
+    }
+
+    @Test
+    public void getCachedIcon_notLoaded_shouldReturnNull() {
+        assertThat(mCache.getCachedIcon(USER_ID)).isNull();
+    }
+
+    @Test
+    public void loadIcon_shouldDecodeOnceAtUserIconSize() {
+        final int size = mContext.getResources().getDimensionPixelSize(
+                R.dimen.multiple_users_user_icon_size);
+
+        mCache.loadIcon(USER_ID);
+        mCache.loadIcon(USER_ID);
+
+        verify(mUserManager, times(1)).getUserIcon(USER_ID);
+        final BitmapDrawable icon = (BitmapDrawable) mCache.getCachedIcon(USER_ID);
+        assertThat(icon.getBitmap().getWidth()).isEqualTo(size);
+    }
+
+    @Test
+    public void invalidate_shouldReloadIcon() {
+        mCache.loadIcon(USER_ID);
+
+        mCache.invalidate(USER_ID);
+
+        assertThat(mCache.getCachedIcon(USER_ID)).isNull();
+        mCache.loadIcon(USER_ID);
+        verify(mUserManager, times(2)).getUserIcon(USER_ID);
+    }
+}
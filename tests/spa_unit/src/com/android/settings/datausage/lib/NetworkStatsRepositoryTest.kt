@@ -23,11 +23,14 @@ import android.net.NetworkTemplate
 import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import com.google.common.truth.Truth.assertThat
+import org.junit.After
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.mock
 import org.mockito.kotlin.spy
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
 
 @RunWith(AndroidJUnit4::class)
 class NetworkStatsRepositoryTest {
@@ -43,6 +46,11 @@ class NetworkStatsRepositoryTest {
 
     private val repository = NetworkStatsRepository(context, template)
 
+    @After
+    fun tearDown() {
+        NetworkStatsCache.invalidate()
+    }
+
     @Test
     fun querySummaryForDevice() {
         val bytes = repository.querySummaryForDevice(START_TIME, END_TIME)
@@ -50,6 +58,29 @@ class NetworkStatsRepositoryTest {
         assertThat(bytes).isEqualTo(11)
     }
 
+    @Test
+    fun querySummaryForDevice_otherRepositoryOfSameTemplate_queriesOnce() {
+        repository.querySummaryForDevice(START_TIME, END_TIME)
+
+        val bytes = NetworkStatsRepository(context, template)
+            .querySummaryForDevice(START_TIME, END_TIME)
+
+        assertThat(bytes).isEqualTo(11)
+        verify(mockNetworkStatsManager, times(1))
+            .querySummaryForDevice(template, START_TIME, END_TIME)
+    }
+
+    @Test
+    fun querySummaryForDevice_afterInvalidate_queriesAgain() {
+        repository.querySummaryForDevice(START_TIME, END_TIME)
+
+        NetworkStatsCache.invalidate(template)
+        repository.querySummaryForDevice(START_TIME, END_TIME)
+
+        verify(mockNetworkStatsManager, times(2))
+            .querySummaryForDevice(template, START_TIME, END_TIME)
+    }
+
     private companion object {
         const val START_TIME = 1L
         const val END_TIME = 2L
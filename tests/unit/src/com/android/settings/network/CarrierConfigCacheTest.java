@@ -44,6 +44,9 @@ public class CarrierConfigCacheTest {
 
     static final int ONCE_SUB_ID = 11;
     static final int TWICE_SUB_ID = 12;
+    static final int PROJECTED_SUB_ID = 13;
+    static final String KEY_A = CarrierConfigManager.KEY_CARRIER_CONFIG_VERSION_STRING;
+    static final String KEY_B = CarrierConfigManager.KEY_SATELLITE_ATTACH_SUPPORTED_BOOL;
 
     @Rule
     public final MockitoRule mMockitoRule = MockitoJUnit.rule();
@@ -60,6 +63,8 @@ public class CarrierConfigCacheTest {
 
         mCarrierConfigCache = CarrierConfigCache.getInstance(mContext);
         mCarrierConfigCache.sCarrierConfigManager = mCarrierConfigManager;
+        CarrierConfigCache.sCarrierConfigs.clear();
+        CarrierConfigCache.sProjectedConfigs.clear();
     }
 
     @Test
@@ -98,4 +103,49 @@ public class CarrierConfigCacheTest {
 
         verify(mCarrierConfigManager, times(1)).getConfigForSubId(TWICE_SUB_ID);
     }
+
+    @Test
+    public void getConfigForSubIdWithKeys_getTwice_onlyGetOnceFromManager() {
+        final PersistableBundle config = new PersistableBundle();
+        config.putString(KEY_A, "1.0");
+        when(mCarrierConfigManager.getConfigForSubId(PROJECTED_SUB_ID, KEY_A)).thenReturn(config);
+
+        mCarrierConfigCache.getConfigForSubId(PROJECTED_SUB_ID, KEY_A);
+        final String value = mCarrierConfigCache.getString(PROJECTED_SUB_ID, KEY_A);
+
+        assertThat(value).isEqualTo("1.0");
+        verify(mCarrierConfigManager, times(1)).getConfigForSubId(PROJECTED_SUB_ID, KEY_A);
+    }
+
+    @Test
+    public void getConfigForSubIdWithKeys_newKey_onlyGetNewKeyFromManager() {
+        final PersistableBundle configA = new PersistableBundle();
+        configA.putString(KEY_A, "1.0");
+        final PersistableBundle configB = new PersistableBundle();
+        configB.putBoolean(KEY_B, true);
+        when(mCarrierConfigManager.getConfigForSubId(PROJECTED_SUB_ID, KEY_A)).thenReturn(configA);
+        when(mCarrierConfigManager.getConfigForSubId(PROJECTED_SUB_ID, KEY_B)).thenReturn(configB);
+        mCarrierConfigCache.getConfigForSubId(PROJECTED_SUB_ID, KEY_A);
+
+        final PersistableBundle config =
+                mCarrierConfigCache.getConfigForSubId(PROJECTED_SUB_ID, KEY_A, KEY_B);
+
+        assertThat(config.getString(KEY_A)).isEqualTo("1.0");
+        assertThat(config.getBoolean(KEY_B)).isTrue();
+        assertThat(configA.containsKey(KEY_B)).isFalse();
+        verify(mCarrierConfigManager, times(1)).getConfigForSubId(PROJECTED_SUB_ID, KEY_A);
+        verify(mCarrierConfigManager, times(1)).getConfigForSubId(PROJECTED_SUB_ID, KEY_B);
+    }
+
+    @Test
+    public void getConfigForSubIdWithKeys_fullConfigCached_notGetFromManager() {
+        mCarrierConfig.putString(KEY_A, "2.0");
+        when(mCarrierConfigManager.getConfigForSubId(PROJECTED_SUB_ID)).thenReturn(mCarrierConfig);
+        mCarrierConfigCache.getConfigForSubId(PROJECTED_SUB_ID);
+
+        final String value = mCarrierConfigCache.getString(PROJECTED_SUB_ID, KEY_A);
+
+        assertThat(value).isEqualTo("2.0");
+        verify(mCarrierConfigManager, times(0)).getConfigForSubId(PROJECTED_SUB_ID, KEY_A);
+    }
 }
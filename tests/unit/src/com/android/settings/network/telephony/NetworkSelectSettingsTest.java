@@ -17,10 +17,13 @@ package com.android.settings.network.telephony;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -200,6 +203,67 @@ public class NetworkSelectSettingsTest {
         assertThat(preference.getOperatorName()).isEqualTo(mCellId2.getOperatorAlphaLong());
     }
 
+    @Test
+    @UiThreadTest
+    public void scanResultHandler_incrementalResults_mergeIntoExistingRows() {
+        mNetworkSelectSettings.onCreateInitialization();
+        mNetworkSelectSettings.enablePreferenceScreen(true);
+        mNetworkSelectSettings.scanResultHandler(new NetworkScanResult(
+                NetworkScanRepository.NetworkScanState.ACTIVE, ImmutableList.of(mCellInfo1)));
+        final Preference firstRow = mPreferenceCategory.getPreference(0);
+
+        mNetworkSelectSettings.scanResultHandler(new NetworkScanResult(
+                NetworkScanRepository.NetworkScanState.ACTIVE,
+                ImmutableList.of(mCellInfo2, mCellInfo1)));
+
+        assertThat(mPreferenceCategory.getPreferenceCount()).isEqualTo(2);
+        assertThat(mPreferenceCategory.getPreference(0)).isSameInstanceAs(firstRow);
+        final NetworkOperatorPreference preference =
+                (NetworkOperatorPreference) mPreferenceCategory.getPreference(1);
+        assertThat(preference.getOperatorName()).isEqualTo(CARRIER_NAME2);
+        verify(mNetworkSelectSettings, times(2)).createNetworkOperatorPreference(any());
+    }
+
+    @Test
+    @UiThreadTest
+    public void scanResultHandler_registeredAndUnregisteredCells_showSeparateRows() {
+        mNetworkSelectSettings.onCreateInitialization();
+        mNetworkSelectSettings.enablePreferenceScreen(true);
+        mNetworkSelectSettings.scanResultHandler(new NetworkScanResult(
+                NetworkScanRepository.NetworkScanState.ACTIVE,
+                ImmutableList.of(createLteCellInfo(true, 123, "123", "232", "CarrierA"))));
+
+        mNetworkSelectSettings.scanResultHandler(new NetworkScanResult(
+                NetworkScanRepository.NetworkScanState.COMPLETE,
+                ImmutableList.of(createLteCellInfo(false, 1234, "123", "232", "CarrierA"),
+                        createLteCellInfo(true, 123, "123", "232", "CarrierA"))));
+
+        assertThat(mPreferenceCategory.getPreferenceCount()).isEqualTo(2);
+        verify(mNetworkSelectSettings, times(2)).createNetworkOperatorPreference(any());
+    }
+
+    @Test
+    @UiThreadTest
+    public void scanResultHandler_multipleResults_querySatellitePlmnsOnce() {
+        PersistableBundle config = new PersistableBundle();
+        config.putBoolean(
+                CarrierConfigManager.KEY_REMOVE_SATELLITE_PLMN_IN_MANUAL_NETWORK_SCAN_BOOL, true);
+        doReturn(config).when(mCarrierConfigManager).getConfigForSubId(eq(SUB_ID),
+                eq(CarrierConfigManager.KEY_SHOW_4G_FOR_LTE_DATA_ICON_BOOL),
+                eq(CarrierConfigManager.KEY_REMOVE_SATELLITE_PLMN_IN_MANUAL_NETWORK_SCAN_BOOL));
+        doReturn(new ArrayList<>(Arrays.asList("123232"))).when(
+                mNetworkSelectSettings).getSatellitePlmnsForCarrierWrapper();
+        mNetworkSelectSettings.onCreateInitialization();
+        mNetworkSelectSettings.enablePreferenceScreen(true);
+
+        mNetworkSelectSettings.scanResultHandler(new NetworkScanResult(
+                NetworkScanRepository.NetworkScanState.ACTIVE, ImmutableList.of(mCellInfo1)));
+        mNetworkSelectSettings.scanResultHandler(new NetworkScanResult(
+                NetworkScanRepository.NetworkScanState.COMPLETE, ImmutableList.of(mCellInfo2)));
+
+        verify(mNetworkSelectSettings, times(1)).getSatellitePlmnsForCarrierWrapper();
+    }
+
     @Test
     @UiThreadTest
     public void updateForbiddenPlmns_forbiddenPlmnsNull_shouldNotCrash() {
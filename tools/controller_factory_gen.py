@@ -0,0 +1,361 @@
+#!/usr/bin/env python3
+#
+# Copyright (C) 2024 The Android Open Source Project
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+"""Generates PreferenceControllerFactory.java.
+
+Collects every settings:controller referenced from preference XML and emits direct constructor
+calls for those whose (Context, String) or (Context) constructor is public, so that
+BasePreferenceController.createInstance does not need reflection for them. Controllers that
+cannot be verified from source keep using the reflective fallback, and must be listed in the
+checked-in --unsupported file; any other miss fails the generation.
+"""
+
+import argparse
+import os
+import re
+import sys
+
+CONTROLLER_ATTR = re.compile(r'settings:controller="([\w.]+)"')
+BASE_CONTROLLER = 'com.android.settings.core.BasePreferenceController'
+
+ANNOTATION = r'(?:@[\w.]+(?:\([^)]*\))?\s+)*'
+JAVA_PARAM = r'\s*(?:final\s+)?' + ANNOTATION + r'(?:final\s+)?%s\s+\w+\s*'
+
+
+def java_ctor(simple, *types):
+    params = ','.join(JAVA_PARAM % t for t in types)
+    return re.compile(r'\bpublic\s+' + simple + r'\s*\(' + params + r'\)')
+
+
+def read(path):
+    with open(path, encoding='utf-8') as f:
+        return f.read()
+
+
+def strip_comments(text):
+    text = re.sub(r'/\*.*?\*/', '', text, flags=re.S)
+    return re.sub(r'//[^\n]*', '', text)
+
+
+class SourceIndex:
+    def __init__(self, sources):
+        self.files = {}
+        for path in sources:
+            name = os.path.basename(path)
+            self.files.setdefault(name.rsplit('.', 1)[0], []).append(path)
+        self.cache = {}
+
+    def find(self, fqcn):
+        """Returns (path, text) of the top-level source file declaring fqcn, or None."""
+        if fqcn in self.cache:
+            return self.cache[fqcn]
+        result = None
+        pkg, _, simple = fqcn.rpartition('.')
+        suffix = os.path.join(*pkg.split('.')) if pkg else ''
+        for path in self.files.get(simple, []):
+            if os.path.dirname(path).endswith(suffix):
+                result = (path, strip_comments(read(path)))
+                break
+        self.cache[fqcn] = result
+        return result
+
+
+def resolve(simple, text, pkg):
+    """Resolves a simple class name as seen from a source file."""
+    m = re.search(r'^import\s+([\w.]+\.' + simple + r')\s*;?\s*$', text, re.M)
+    if m:
+        return m.group(1)
+    return pkg + '.' + simple
+
+
+def java_superclass(simple, text):
+    m = re.search(r'\bclass\s+' + simple + r'\b(?:\s*<[^{]*?>)?\s+extends\s+([\w.]+)', text)
+    return m.group(1) if m else None
+
+
+def kotlin_superclass(simple, text):
+    m = re.search(r'\bclass\s+' + simple + r'\b', text)
+    if not m:
+        return None
+    rest = text[m.end():]
+    ctor = re.match(r'[^{:(]*\(', rest)
+    if ctor:
+        params = balanced(rest, ctor.end() - 1)
+        if params is None:
+            return None
+        rest = rest[ctor.end() + len(params) + 1:]
+    m = re.match(r'\s*:\s*([\w.]+)\s*\(', rest)
+    return m.group(1) if m else None
+
+
+def extends_base(index, fqcn, depth=0):
+    if fqcn == BASE_CONTROLLER:
+        return True
+    if depth > 10:
+        return False
+    found = index.find(fqcn)
+    if not found:
+        return False
+    path, text = found
+    pkg, _, simple = fqcn.rpartition('.')
+    parent = (kotlin_superclass if path.endswith('.kt') else java_superclass)(simple, text)
+    if not parent:
+        return False
+    if '.' not in parent:
+        parent = resolve(parent, text, pkg)
+    return extends_base(index, parent, depth + 1)
+
+
+def balanced(text, start):
+    """Returns the text inside the parentheses opening at text[start], or None."""
+    depth = 0
+    for i in range(start, len(text)):
+        if text[i] == '(':
+            depth += 1
+        elif text[i] == ')':
+            depth -= 1
+            if depth == 0:
+                return text[start + 1:i]
+    return None
+
+
+def kotlin_params(params):
+    """Splits a Kotlin parameter list into (type, has_default) tuples, or None if unsure."""
+    params = params.replace('->', '  ')
+    parts, depth, current = [], 0, ''
+    for c in params:
+        if c in '(<{[':
+            depth += 1
+        elif c in ')>}]':
+            depth -= 1
+        if c == ',' and depth == 0:
+            parts.append(current)
+            current = ''
+        else:
+            current += c
+    if current.strip():
+        parts.append(current)
+    result = []
+    for param in parts:
+        declaration, has_default = param, False
+        if '=' in param:
+            declaration, has_default = param.split('=', 1)[0], True
+        if ':' not in declaration:
+            return None
+        result.append((declaration.split(':', 1)[1].strip().rstrip('?'), has_default))
+    return result
+
+
+def kotlin_signatures(params, jvm_overloads):
+    """Returns the JVM visible parameter type tuples for a Kotlin constructor."""
+    parsed = kotlin_params(params)
+    if parsed is None:
+        return set()
+    if not jvm_overloads:
+        return {tuple(t for t, _ in parsed)}
+    # @JvmOverloads drops defaulted parameters from the end one at a time.
+    signatures = set()
+    current = list(parsed)
+    signatures.add(tuple(t for t, _ in current))
+    while True:
+        last_default = max((i for i, (_, d) in enumerate(current) if d), default=-1)
+        if last_default < 0:
+            break
+        del current[last_default]
+        signatures.add(tuple(t for t, _ in current))
+    return signatures
+
+
+def kotlin_constructors(simple, text):
+    decl = re.search(r'^((?:[a-z]+\s+)*)class\s+' + simple + r'\b', text, re.M)
+    if not decl or re.search(r'\b(private|internal|abstract|sealed|protected)\b', decl.group(1)):
+        return set()
+    ctors = set()
+    rest = text[decl.end():]
+    m = re.match(r'\s*((?:@\w+\s+)*)(?:(public|private|internal|protected)\s+)?'
+                 r'(?:constructor\s*)?\(', rest)
+    if m and m.group(2) in (None, 'public'):
+        params = balanced(rest, m.end() - 1)
+        if params is not None:
+            ctors |= kotlin_signatures(params, 'JvmOverloads' in m.group(1))
+    for m in re.finditer(r'^[ \t]*((?:@\w+\s+)*)(?:public\s+)?constructor\s*\(', rest, re.M):
+        params = balanced(rest, m.end() - 1)
+        if params is not None:
+            ctors |= kotlin_signatures(params, 'JvmOverloads' in m.group(1))
+    return ctors
+
+
+def constructors(index, fqcn):
+    """Returns the subset of {'keyed', 'context'} constructors that can be called directly."""
+    found = index.find(fqcn)
+    if not found or not extends_base(index, fqcn):
+        return set()
+    path, text = found
+    simple = fqcn.rpartition('.')[2]
+    kinds = set()
+    if path.endswith('.kt'):
+        ctors = kotlin_constructors(simple, text)
+        if ('Context', 'String') in ctors:
+            kinds.add('keyed')
+        if ('Context',) in ctors:
+            kinds.add('context')
+        return kinds
+    if not re.search(r'\bpublic\s+(?:final\s+)?class\s+' + simple + r'\b', text):
+        return kinds
+    if java_ctor(simple, 'Context', 'String').search(text):
+        kinds.add('keyed')
+    if java_ctor(simple, 'Context').search(text):
+        kinds.add('context')
+    return kinds
+
+
+def read_unsupported(path):
+    names = set()
+    for line in read(path).splitlines():
+        line = line.strip()
+        if line and not line.startswith('#'):
+            names.add(line)
+    return names
+
+
+def collect_controllers(xml_files):
+    names = set()
+    for path in xml_files:
+        if os.path.basename(os.path.dirname(path)).startswith('xml'):
+            names.update(CONTROLLER_ATTR.findall(read(path)))
+    return sorted(names)
+
+
+HEADER = '''/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+// Generated by tools/controller_factory_gen.py. Do not edit.
+
+package com.android.settings.core;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import java.util.Set;
+
+/**
+ * Direct constructor calls for preference controllers declared in XML, used by
+ * {@link BasePreferenceController#createInstance} before falling back to reflection.
+ */
+final class PreferenceControllerFactory {
+
+    private PreferenceControllerFactory() {
+    }
+'''
+
+
+def emit(out, keyed, context_only, unsupported):
+    lines = [HEADER]
+    lines.append('    /** Checked-in list of controllers that must be created reflectively. */')
+    lines.append('    static final Set<String> UNSUPPORTED = Set.of(')
+    lines.append(',\n'.join('            "%s"' % n for n in unsupported) + ');' if unsupported
+                 else '            );')
+    lines.append('')
+    lines.append('    /** Returns whether {@code controllerName} can be created without reflection. */')
+    lines.append('    static boolean covers(String controllerName) {')
+    lines.append('        switch (controllerName) {')
+    for n in sorted(set(keyed) | set(context_only)):
+        lines.append('            case "%s":' % n)
+    lines.append('                return true;')
+    lines.append('            default:')
+    lines.append('                return false;')
+    lines.append('        }')
+    lines.append('    }')
+    lines.append('')
+    lines.append('    /** Returns a new {@code controllerName}(context, key), or null if unknown. */')
+    lines.append('    @Nullable')
+    lines.append('    static BasePreferenceController create(Context context, String controllerName,')
+    lines.append('            String key) {')
+    lines.append('        switch (controllerName) {')
+    for n in keyed:
+        lines.append('            case "%s":' % n)
+        lines.append('                return new %s(context, key);' % n)
+    lines.append('            default:')
+    lines.append('                return null;')
+    lines.append('        }')
+    lines.append('    }')
+    lines.append('')
+    lines.append('    /** Returns a new {@code controllerName}(context), or null if unknown. */')
+    lines.append('    @Nullable')
+    lines.append('    static BasePreferenceController create(Context context, String controllerName) {')
+    lines.append('        switch (controllerName) {')
+    for n in context_only:
+        lines.append('            case "%s":' % n)
+        lines.append('                return new %s(context);' % n)
+    lines.append('            default:')
+    lines.append('                return null;')
+    lines.append('        }')
+    lines.append('    }')
+    lines.append('}')
+    with open(out, 'w', encoding='utf-8') as f:
+        f.write('\n'.join(lines) + '\n')
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__)
+    parser.add_argument('--out', required=True, help='output java file')
+    parser.add_argument('--unsupported', required=True,
+                        help='checked-in list of controllers that must be created reflectively')
+    parser.add_argument('inputs', nargs='+', help='preference xml and java/kotlin sources')
+    args = parser.parse_args()
+
+    unsupported = read_unsupported(args.unsupported)
+    index = SourceIndex([f for f in args.inputs if f.endswith('.java') or f.endswith('.kt')])
+    xml_files = [f for f in args.inputs if f.endswith('.xml')]
+    keyed, context_only, missing, stale = [], [], [], []
+    for name in collect_controllers(xml_files):
+        kinds = constructors(index, name)
+        if 'keyed' in kinds:
+            keyed.append(name)
+        if 'context' in kinds:
+            context_only.append(name)
+        if not kinds and name not in unsupported:
+            missing.append(name)
+        if kinds and name in unsupported:
+            stale.append(name)
+    for name in missing:
+        print('error: %s has no public (Context) or (Context, String) constructor that can be '
+              'verified; fix it or add it to %s' % (name, args.unsupported), file=sys.stderr)
+    for name in stale:
+        print('error: %s is supported now; remove it from %s' % (name, args.unsupported),
+              file=sys.stderr)
+    if missing or stale:
+        return 1
+    emit(args.out, keyed, context_only, sorted(unsupported))
+    return 0
+
+
+if __name__ == '__main__':
+    sys.exit(main())